@@ -0,0 +1,609 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.inventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.event.InventoryChangedEvent;
+import com.metratec.lib.inventory.event.InventoryListener;
+import com.metratec.lib.inventory.event.TagArrivedEvent;
+import com.metratec.lib.inventory.event.TagDepartedEvent;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Inventory for very large UHF tag populations.<br>
+ * Behaves like the {@link Inventory} (same methods, same {@link InventoryListener} events), but
+ * does not keep a {@link UhfTag} object per transponder. The first seen timestamp, last seen
+ * timestamp, seen count, antenna and rssi of every tag are stored in primitive arrays and the tags
+ * are found by an open addressing hash table over the binary EPC. This needs roughly 70 bytes per
+ * tag instead of several hundred bytes for a {@link UhfTag} in a {@link java.util.Hashtable}.
+ * <p>
+ * Differences to the {@link Inventory}:
+ * <ul>
+ * <li>The tag id must be a hex string (the EPC). It is stored binary, so the returned ids are
+ * always upper case. Tags with other ids are ignored.</li>
+ * <li>Only the fields listed above are stored. TID, data and error information of the scanned tags
+ * are not kept.</li>
+ * <li>{@link #getInventory()} and the departed events return new {@link UhfTag} instances, created
+ * from the stored values. Changing them does not change the inventory.</li>
+ * </ul>
+ *
+ * @author man
+ *
+ */
+public class CompactUhfInventory extends Inventory<UhfTag> {
+  private Logger logger = LoggerFactory.getLogger(CompactUhfInventory.class);
+  private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+  /** hex chars per key word */
+  private static final int NIBBLES_PER_WORD = 16;
+  /** value for not set antenna and rssi values */
+  private static final int NOT_SET = Integer.MIN_VALUE;
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  private Lock storeLock = new ReentrantLock();
+  /** hash table, contains the record index + 1 (0 for a free slot) */
+  private int[] table;
+  private int tableMask;
+  /** number of key words per record */
+  private int keyWords = 2;
+  private long[] keys;
+  /** key length in hex chars, -1 for a free record */
+  private short[] keyLength;
+  private int[] keyHash;
+  private long[] firstSeen;
+  private long[] lastSeen;
+  private int[] seenCount;
+  private int[] antenna;
+  private int[] rssi;
+  /** free records below the high water mark */
+  private int[] freeRecords;
+  private int freeCount;
+  /** records above this index were never used */
+  private int highWater;
+  private int size;
+  private long[] keyBuffer = new long[keyWords];
+
+  /**
+   * Create a new inventory
+   *
+   * @param identifier inventory identifier
+   */
+  public CompactUhfInventory(String identifier) {
+    this(identifier, null);
+  }
+
+  /**
+   * Create a new inventory
+   *
+   * @param identifier inventory identifier
+   * @param listener the listener
+   */
+  public CompactUhfInventory(String identifier, InventoryListener<UhfTag> listener) {
+    this(identifier, listener, 5000L, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a new inventory
+   *
+   * @param identifier inventory identifier
+   * @param listener the listener
+   * @param tagKeepTime the tag keep time (to disable automatic removing tags, set keep time to 0)
+   * @param expectedTags expected number of tags, the inventory grows automatically if more tags are
+   *        added
+   */
+  public CompactUhfInventory(String identifier, InventoryListener<UhfTag> listener,
+      long tagKeepTime, int expectedTags) {
+    super(identifier, listener, tagKeepTime);
+    allocate(Math.max(16, expectedTags));
+  }
+
+  @Override
+  public void initInventory(List<UhfTag> inventory) {
+    if (null == inventory) {
+      return;
+    }
+    storeLock.lock();
+    try {
+      for (UhfTag tag : inventory) {
+        int record = findRecord(tag.getId());
+        if (-1 == record && -2 != insert(tag)) {
+          tagFound(tag);
+        }
+      }
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  public void updateInventory(Collection<UhfTag> inventory) {
+    if (null == inventory) {
+      return;
+    }
+    getListener().tagsSeen(inventory);
+    List<UhfTag> newTags = new ArrayList<>();
+    storeLock.lock();
+    try {
+      for (UhfTag tag : inventory) {
+        if (null == tag) {
+          continue;
+        }
+        int record = findRecord(tag.getId());
+        if (-1 == record) {
+          if (-2 != insert(tag)) {
+            newTags.add(tag);
+            tagFound(tag);
+            getListener().tagArrive(
+                new TagArrivedEvent<>(getIdentifier(), tag.getFirstSeenTimestamp(), tag));
+          }
+        } else {
+          update(record, tag);
+          tagFound(tag);
+        }
+      }
+    } finally {
+      storeLock.unlock();
+    }
+    List<UhfTag> removedTags = checkInventory();
+    if (!newTags.isEmpty() || !removedTags.isEmpty()) {
+      fireInventoryChanged(newTags, removedTags);
+    }
+  }
+
+  @Override
+  public void addTag(UhfTag tag) {
+    storeLock.lock();
+    try {
+      int record = findRecord(tag.getId());
+      if (-1 == record) {
+        if (-2 != insert(tag)) {
+          tagFound(tag);
+          getListener().tagArrive(
+              new TagArrivedEvent<>(getIdentifier(), tag.getFirstSeenTimestamp(), tag));
+        }
+      } else {
+        // the hashtable inventory replaces the tag, so reset the stored values
+        removeRecord(record);
+        insert(tag);
+        tagFound(tag);
+        getListener().tagArrive(
+            new TagArrivedEvent<>(getIdentifier(), tag.getFirstSeenTimestamp(), tag));
+      }
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  protected List<UhfTag> checkInventory() {
+    List<UhfTag> removedTags = new ArrayList<>();
+    if (isSticky()) {
+      return removedTags;
+    }
+    storeLock.lock();
+    try {
+      long removeTime = System.currentTimeMillis() - getKeepTime();
+      for (int record = 0; record < highWater; record++) {
+        if (keyLength[record] >= 0 && lastSeen[record] < removeTime) {
+          UhfTag tag = materialize(record);
+          removedTags.add(tag);
+          removeRecord(record);
+          getListener().tagDeparted(new TagDepartedEvent<>(getIdentifier(), tag));
+        }
+      }
+      return removedTags;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  protected List<UhfTag> removeLostTags(Collection<String> tagIds) {
+    List<UhfTag> removedTags = new ArrayList<>();
+    storeLock.lock();
+    try {
+      for (String tagId : tagIds) {
+        int record = findRecord(tagId);
+        if (0 <= record) {
+          UhfTag tag = materialize(record);
+          removedTags.add(tag);
+          removeRecord(record);
+          getListener().tagDeparted(new TagDepartedEvent<>(getIdentifier(), tag));
+        }
+      }
+      return removedTags;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  public void removeTag(UhfTag tag) {
+    storeLock.lock();
+    try {
+      int record = findRecord(tag.getId());
+      if (0 <= record) {
+        UhfTag removed = materialize(record);
+        removeRecord(record);
+        getListener().tagDeparted(new TagDepartedEvent<>(getIdentifier(), removed));
+      }
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  public void removeTag(String tagEid) {
+    UhfTag removed = null;
+    storeLock.lock();
+    try {
+      int record = findRecord(tagEid);
+      if (0 <= record) {
+        removed = materialize(record);
+        removeRecord(record);
+        getListener().tagDeparted(new TagDepartedEvent<>(getIdentifier(), removed));
+      }
+    } finally {
+      storeLock.unlock();
+    }
+    if (null != removed) {
+      fireInventoryChanged(null, Arrays.asList(removed));
+    }
+  }
+
+  @Override
+  public List<UhfTag> getInventory() {
+    List<UhfTag> removedTags = checkInventory();
+    List<UhfTag> inv = getCurrentTags();
+    if (!removedTags.isEmpty()) {
+      getListener()
+          .inventoryChanged(new InventoryChangedEvent<>(getIdentifier(), inv, null, removedTags));
+    }
+    return inv;
+  }
+
+  @Override
+  public void clear() {
+    storeLock.lock();
+    try {
+      for (int record = 0; record < highWater; record++) {
+        if (keyLength[record] >= 0) {
+          UhfTag tag = materialize(record);
+          removeRecord(record);
+          getListener().tagDeparted(new TagDepartedEvent<>(getIdentifier(), tag));
+        }
+      }
+      clearRounds();
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  protected List<UhfTag> getCurrentTags() {
+    storeLock.lock();
+    try {
+      List<UhfTag> tags = new ArrayList<>(size);
+      for (int record = 0; record < highWater; record++) {
+        if (keyLength[record] >= 0) {
+          tags.add(materialize(record));
+        }
+      }
+      return tags;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * Fire an inventory changed event with the current tags. Without a listener the tag list is not
+   * created, because it needs a tag instance per stored tag.
+   */
+  private void fireInventoryChanged(List<UhfTag> newTags, List<UhfTag> lostTags) {
+    if (hasListener()) {
+      getListener().inventoryChanged(
+          new InventoryChangedEvent<>(getIdentifier(), getCurrentTags(), newTags, lostTags));
+    }
+  }
+
+  @Override
+  protected long getOldestLastSeenTimestamp(long defaultValue) {
+    storeLock.lock();
+    try {
+      long oldest = defaultValue;
+      for (int record = 0; record < highWater; record++) {
+        if (keyLength[record] >= 0 && lastSeen[record] < oldest) {
+          oldest = lastSeen[record];
+        }
+      }
+      return oldest;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * Return the stored values of a tag
+   *
+   * @param tagEid the tag epc
+   * @return a new {@link UhfTag} with the stored values or <code>null</code> if the tag is not in
+   *         the inventory
+   */
+  public UhfTag getTag(String tagEid) {
+    storeLock.lock();
+    try {
+      int record = findRecord(tagEid);
+      return 0 <= record ? materialize(record) : null;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * @param tagEid the tag epc
+   * @return true if the tag is in the inventory
+   */
+  public boolean contains(String tagEid) {
+    storeLock.lock();
+    try {
+      return 0 <= findRecord(tagEid);
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of tags the inventory can store without growing
+   */
+  public int getCapacity() {
+    return firstSeen.length;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity * keyWords];
+    keyLength = new short[capacity];
+    Arrays.fill(keyLength, (short) -1);
+    keyHash = new int[capacity];
+    firstSeen = new long[capacity];
+    lastSeen = new long[capacity];
+    seenCount = new int[capacity];
+    antenna = new int[capacity];
+    rssi = new int[capacity];
+    freeRecords = new int[capacity];
+    // load factor <= 0.5
+    table = new int[Integer.highestOneBit(capacity - 1) << 2];
+    tableMask = table.length - 1;
+  }
+
+  private void grow() {
+    int capacity = firstSeen.length << 1;
+    keys = Arrays.copyOf(keys, capacity * keyWords);
+    keyLength = Arrays.copyOf(keyLength, capacity);
+    Arrays.fill(keyLength, highWater, capacity, (short) -1);
+    keyHash = Arrays.copyOf(keyHash, capacity);
+    firstSeen = Arrays.copyOf(firstSeen, capacity);
+    lastSeen = Arrays.copyOf(lastSeen, capacity);
+    seenCount = Arrays.copyOf(seenCount, capacity);
+    antenna = Arrays.copyOf(antenna, capacity);
+    rssi = Arrays.copyOf(rssi, capacity);
+    freeRecords = Arrays.copyOf(freeRecords, capacity);
+    rehash(table.length << 1);
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} capacity increased to {}", getIdentifier(), capacity);
+    }
+  }
+
+  private void growKeyWords(int words) {
+    long[] newKeys = new long[firstSeen.length * words];
+    for (int record = 0; record < highWater; record++) {
+      System.arraycopy(keys, record * keyWords, newKeys, record * words, keyWords);
+    }
+    keys = newKeys;
+    keyWords = words;
+  }
+
+  private void rehash(int tableSize) {
+    table = new int[tableSize];
+    tableMask = tableSize - 1;
+    for (int record = 0; record < highWater; record++) {
+      if (keyLength[record] >= 0) {
+        int slot = keyHash[record] & tableMask;
+        while (0 != table[slot]) {
+          slot = (slot + 1) & tableMask;
+        }
+        table[slot] = record + 1;
+      }
+    }
+  }
+
+  /**
+   * Parse the hex id into the key buffer
+   *
+   * @param id tag id
+   * @return the id length in hex chars or -1 if the id is not a hex string
+   */
+  private int parseKey(String id) {
+    if (null == id || id.length() > Short.MAX_VALUE) {
+      return -1;
+    }
+    int length = id.length();
+    int words = (length + NIBBLES_PER_WORD - 1) / NIBBLES_PER_WORD;
+    if (words > keyBuffer.length) {
+      keyBuffer = new long[words];
+    }
+    Arrays.fill(keyBuffer, 0L);
+    for (int i = 0; i < length; i++) {
+      int value = Character.digit(id.charAt(i), 16);
+      if (value < 0) {
+        return -1;
+      }
+      keyBuffer[i / NIBBLES_PER_WORD] |= (long) value << ((i % NIBBLES_PER_WORD) << 2);
+    }
+    return length;
+  }
+
+  private int hash(int length) {
+    long h = length * 0x9E3779B97F4A7C15L;
+    int words = (length + NIBBLES_PER_WORD - 1) / NIBBLES_PER_WORD;
+    for (int i = 0; i < words; i++) {
+      h = (h ^ keyBuffer[i]) * 0xFF51AFD7ED558CCDL;
+      h ^= h >>> 32;
+    }
+    return (int) (h ^ (h >>> 29));
+  }
+
+  private boolean keyEquals(int record, int length) {
+    if (keyLength[record] != length) {
+      return false;
+    }
+    int words = (length + NIBBLES_PER_WORD - 1) / NIBBLES_PER_WORD;
+    int offset = record * keyWords;
+    for (int i = 0; i < words; i++) {
+      if (keys[offset + i] != keyBuffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Search the slot for the key in the key buffer
+   *
+   * @return the slot with the record or the free slot for inserting the key
+   */
+  private int findSlot(int length, int hash) {
+    int slot = hash & tableMask;
+    while (true) {
+      int record = table[slot] - 1;
+      if (record < 0 || keyHash[record] == hash && keyEquals(record, length)) {
+        return slot;
+      }
+      slot = (slot + 1) & tableMask;
+    }
+  }
+
+  /**
+   * @param id tag id
+   * @return the record index or -1 if the tag is not stored
+   */
+  private int findRecord(String id) {
+    int length = parseKey(id);
+    if (length < 0) {
+      return -1;
+    }
+    return table[findSlot(length, hash(length))] - 1;
+  }
+
+  /**
+   * Insert a tag which is not in the inventory
+   *
+   * @param tag the tag
+   * @return the record index or -2 if the tag id is not valid
+   */
+  private int insert(UhfTag tag) {
+    int length = parseKey(tag.getId());
+    if (length < 0) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} ignore tag with invalid epc {}", getIdentifier(), tag.getId());
+      }
+      return -2;
+    }
+    int words = (length + NIBBLES_PER_WORD - 1) / NIBBLES_PER_WORD;
+    if (words > keyWords) {
+      growKeyWords(words);
+    }
+    int record;
+    if (0 < freeCount) {
+      record = freeRecords[--freeCount];
+    } else {
+      if (highWater == firstSeen.length) {
+        grow();
+      }
+      record = highWater++;
+    }
+    int hash = hash(length);
+    System.arraycopy(keyBuffer, 0, keys, record * keyWords, words);
+    keyLength[record] = (short) length;
+    keyHash[record] = hash;
+    long now = System.currentTimeMillis();
+    Long first = tag.getFirstSeenTimestamp();
+    Long last = tag.getLastSeenTimestamp();
+    firstSeen[record] = null != first ? first : now;
+    lastSeen[record] = null != last ? last : firstSeen[record];
+    seenCount[record] = null != tag.getSeenCount() ? tag.getSeenCount() : 1;
+    antenna[record] = null != tag.getAntenna() ? tag.getAntenna() : NOT_SET;
+    rssi[record] = null != tag.getRssi() ? tag.getRssi() : NOT_SET;
+    table[findSlot(length, hash)] = record + 1;
+    size++;
+    return record;
+  }
+
+  /**
+   * update the record like {@link UhfTag#updateTag(com.metratec.lib.tag.RfidTag)}
+   */
+  private void update(int record, UhfTag tag) {
+    Long last = tag.getLastSeenTimestamp();
+    if (null != last) {
+      lastSeen[record] = last;
+    }
+    antenna[record] = null != tag.getAntenna() ? tag.getAntenna() : NOT_SET;
+    rssi[record] = null != tag.getRssi() ? tag.getRssi() : NOT_SET;
+    seenCount[record] += null != tag.getSeenCount() ? tag.getSeenCount() : 1;
+  }
+
+  private void removeRecord(int record) {
+    // find the slot of the record
+    int slot = keyHash[record] & tableMask;
+    while (table[slot] != record + 1) {
+      slot = (slot + 1) & tableMask;
+    }
+    // backward shift deletion, keeps the probe sequences valid without tombstones
+    int next = slot;
+    while (true) {
+      next = (next + 1) & tableMask;
+      int entry = table[next] - 1;
+      if (entry < 0) {
+        break;
+      }
+      int home = keyHash[entry] & tableMask;
+      boolean inRange = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+      if (inRange) {
+        continue;
+      }
+      table[slot] = table[next];
+      slot = next;
+    }
+    table[slot] = 0;
+    keyLength[record] = -1;
+    freeRecords[freeCount++] = record;
+    size--;
+  }
+
+  private UhfTag materialize(int record) {
+    int length = keyLength[record];
+    char[] id = new char[length];
+    int offset = record * keyWords;
+    for (int i = 0; i < length; i++) {
+      long word = keys[offset + i / NIBBLES_PER_WORD];
+      id[i] = HEX[(int) (word >>> ((i % NIBBLES_PER_WORD) << 2)) & 0xF];
+    }
+    UhfTag tag = new UhfTag(new String(id), firstSeen[record]);
+    tag.setLastSeenTimestamp(lastSeen[record]);
+    tag.setSeenCount(seenCount[record]);
+    tag.setAntenna(NOT_SET != antenna[record] ? antenna[record] : null);
+    tag.setRssi(NOT_SET != rssi[record] ? rssi[record] : null);
+    return tag;
+  }
+}
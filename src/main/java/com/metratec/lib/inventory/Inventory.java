@@ -9,7 +9,9 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +20,7 @@ import com.metratec.lib.inventory.event.InventoryChangedEvent;
 import com.metratec.lib.inventory.event.InventoryListener;
 import com.metratec.lib.inventory.event.TagArrivedEvent;
 import com.metratec.lib.inventory.event.TagDepartedEvent;
+import com.metratec.lib.rfidreader.ReaderThreads;
 import com.metratec.lib.tag.RfidTag;
 
 
@@ -30,6 +33,9 @@ import com.metratec.lib.tag.RfidTag;
  * <li>{@link InventoryListener#tagDeparted(TagDepartedEvent)} method if tags are lost
  * <li>{@link InventoryListener#inventoryChanged(InventoryChangedEvent)} method if the inventory is changed.</li>
  * </ul>
+ * Tags are lost if they are not seen within the keep time. Additionally a tag can be lost after a
+ * number of inventory rounds without a read on its antenna, see {@link #setLostRounds(int)} and
+ * {@link #roundFinished(Integer, Collection)}.
  * 
  * @author man
  * @param <T> {@link RfidTag} instance
@@ -46,7 +52,8 @@ public class Inventory<T extends RfidTag> {
   private Lock inventoryLock = new ReentrantLock();
   private String identifier;
   private Thread internalThread;
-  private boolean isRunning = false;
+  private volatile boolean isRunning = false;
+  private InventoryRounds rounds;
 
   /**
    * Create a new inventory
@@ -93,6 +100,7 @@ public class Inventory<T extends RfidTag> {
     }
     for (T tag : inventory) {
       tagById.put(tag.getId(), tag);
+      tagFound(tag);
     }
   }
 
@@ -106,6 +114,7 @@ public class Inventory<T extends RfidTag> {
     if (null == inventory) {
       return;
     }
+    changeListener.tagsSeen(inventory);
     List<T> newTags = new ArrayList<>();
     inventoryLock.lock();
     try {
@@ -119,6 +128,7 @@ public class Inventory<T extends RfidTag> {
             // update tag
             presentTag.updateTag(tag);
           }
+          tagFound(tag);
         } catch (NullPointerException e) {
           if (null != tag) {
             throw e;
@@ -151,22 +161,18 @@ public class Inventory<T extends RfidTag> {
 
   private void addTagToInventory(T tag) {
     tagById.put(tag.getId(), tag);
+    tagFound(tag);
     changeListener.tagArrive(new TagArrivedEvent<>(identifier, tag.getFirstSeenTimestamp(), tag));
   }
 
   /**
    * check the current inventory
    */
-  @SuppressWarnings("PMD.EmptyCatchBlock")
   private void checkingInventory() {
-    isRunning = true;
     long nextCheckTime;
     while (isRunning) {
-      if (tagById.isEmpty()) {
-        try {
-          Thread.sleep(100);
-        } catch (InterruptedException e) {
-        }
+      if (0 == size()) {
+        waitForCheck(100);
         continue;
       }
       if (logger.isTraceEnabled()) {
@@ -175,21 +181,12 @@ public class Inventory<T extends RfidTag> {
       List<T> removedTags = checkInventory();
       if (null != removedTags && !removedTags.isEmpty()) {
         changeListener.inventoryChanged(
-            new InventoryChangedEvent<>(identifier, new ArrayList<>(tagById.values()), null, removedTags));
+            new InventoryChangedEvent<>(identifier, getCurrentTags(), null, removedTags));
       }
       // calculate next check time
-      nextCheckTime = System.currentTimeMillis();
-      for (T tag : tagById.values()) {
-        if (tag.getLastSeenTimestamp() < nextCheckTime) {
-          nextCheckTime = tag.getLastSeenTimestamp();
-        }
-      }
-      nextCheckTime += keepTime;
+      nextCheckTime = getOldestLastSeenTimestamp(System.currentTimeMillis()) + keepTime;
       while (System.currentTimeMillis() < nextCheckTime && isRunning) {
-        try {
-          Thread.sleep(100);
-        } catch (InterruptedException e) {
-        }
+        waitForCheck(100);
       }
 
     }
@@ -200,6 +197,16 @@ public class Inventory<T extends RfidTag> {
   }
 
 
+  /**
+   * wait for the next check, returns immediately if the checking is stopped
+   */
+  private void waitForCheck(long timeout) {
+    if (isRunning) {
+      // parked instead of a monitor wait, so a virtual thread releases its carrier
+      LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(timeout));
+    }
+  }
+
   /**
    * check the current inventory for old tags
    * 
@@ -267,6 +274,136 @@ public class Inventory<T extends RfidTag> {
     return inv;
   }
 
+  /**
+   * Finish an inventory round of an antenna. If the lost rounds are set ({@link #setLostRounds(int)}),
+   * all tags which were not found in the last rounds of their antenna are removed.<br>
+   * The tags found since the last finished round are assigned to this round and antenna.
+   *
+   * @param antenna the antenna of the round, <code>null</code> if unknown
+   * @param tags additional tags found in this round, can be <code>null</code>
+   */
+  public void roundFinished(Integer antenna, Collection<T> tags) {
+    InventoryRounds currentRounds = rounds;
+    if (null == currentRounds) {
+      return;
+    }
+    List<String> tagIds = null;
+    if (null != tags) {
+      tagIds = new ArrayList<>(tags.size());
+      for (T tag : tags) {
+        if (null != tag) {
+          tagIds.add(tag.getId());
+        }
+      }
+    }
+    List<String> lostTagIds = currentRounds.roundFinished(antenna, tagIds);
+    if (lostTagIds.isEmpty()) {
+      return;
+    }
+    List<T> removedTags = removeLostTags(lostTagIds);
+    if (!removedTags.isEmpty()) {
+      changeListener.inventoryChanged(
+          new InventoryChangedEvent<>(identifier, getCurrentTags(), null, removedTags));
+    }
+  }
+
+  /**
+   * Mark a tag as found in the current inventory round
+   *
+   * @param tag the found tag
+   */
+  protected void tagFound(T tag) {
+    InventoryRounds currentRounds = rounds;
+    if (null != currentRounds) {
+      currentRounds.tagFound(tag.getId());
+    }
+  }
+
+  /**
+   * Forget the counted inventory rounds and found tags
+   */
+  protected void clearRounds() {
+    InventoryRounds currentRounds = rounds;
+    if (null != currentRounds) {
+      currentRounds.clear();
+    }
+  }
+
+  /**
+   * Remove the tags, which were not found in the last inventory rounds
+   *
+   * @param tagIds the tag ids
+   * @return the removed tags
+   */
+  protected List<T> removeLostTags(Collection<String> tagIds) {
+    List<T> removedTags = new ArrayList<>();
+    inventoryLock.lock();
+    try {
+      for (String tagId : tagIds) {
+        T tag = tagById.get(tagId);
+        if (null != tag) {
+          removedTags.add(tag);
+          removeTagFromInventory(tag);
+        }
+      }
+      return removedTags;
+    } finally {
+      inventoryLock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of tags currently in the inventory
+   */
+  public int size() {
+    return tagById.size();
+  }
+
+  /**
+   * @return a new {@link List} with the tags currently in the inventory, without checking for lost
+   *         tags
+   */
+  protected List<T> getCurrentTags() {
+    return new ArrayList<>(tagById.values());
+  }
+
+  /**
+   * @param defaultValue the value to return if no tag is older
+   * @return the smallest last seen timestamp of all tags in the inventory, but not greater than the
+   *         given default value
+   */
+  protected long getOldestLastSeenTimestamp(long defaultValue) {
+    long oldest = defaultValue;
+    for (T tag : tagById.values()) {
+      if (tag.getLastSeenTimestamp() < oldest) {
+        oldest = tag.getLastSeenTimestamp();
+      }
+    }
+    return oldest;
+  }
+
+  /**
+   * @return the inventory identifier
+   */
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  /**
+   * @return the inventory listener, never <code>null</code>
+   */
+  protected InventoryListener<T> getListener() {
+    return changeListener;
+  }
+
+  /**
+   * @return <code>true</code> if an inventory listener is set, a subclass of the
+   *         {@link DummyInventoryListener} is a listener
+   */
+  protected boolean hasListener() {
+    return DummyInventoryListener.class != changeListener.getClass();
+  }
+
   /**
    * @return the current tag keep time
    */
@@ -284,6 +421,25 @@ public class Inventory<T extends RfidTag> {
     }
   }
 
+  /**
+   * @return the number of inventory rounds without a read after which a tag is lost, 0 if disabled
+   */
+  public int getLostRounds() {
+    InventoryRounds currentRounds = rounds;
+    return null != currentRounds ? currentRounds.getLostRounds() : 0;
+  }
+
+  /**
+   * Set the number of consecutive inventory rounds without a read on its antenna after which a tag
+   * is lost. The rounds are counted with {@link #roundFinished(Integer, Collection)}. The keep time
+   * is still used, to remove only by rounds set the keep time to 0.
+   *
+   * @param lostRounds the number of rounds, 0 to disable
+   */
+  public void setLostRounds(int lostRounds) {
+    rounds = 0 < lostRounds ? new InventoryRounds(lostRounds) : null;
+  }
+
   /**
    * start automatically checking the inventory for lost tags
    */
@@ -291,13 +447,13 @@ public class Inventory<T extends RfidTag> {
     if (this.keepTime == IS_STICKY) {
       return;
     }
-    internalThread = new Thread(new Runnable() {
+    isRunning = true;
+    internalThread = ReaderThreads.newThread(identifier, true, new Runnable() {
       @Override
       public void run() {
         checkingInventory();
       }
-    }, identifier);
-    internalThread.setDaemon(true);
+    });
     internalThread.start();
   }
 
@@ -307,9 +463,15 @@ public class Inventory<T extends RfidTag> {
   @SuppressWarnings("PMD.EmptyCatchBlock")
   public void stop() {
     isRunning = false;
-    while (isAlive()) {
+    Thread thread = internalThread;
+    if (null == thread || Thread.currentThread() == thread) {
+      return;
+    }
+    // wake up the checking thread instead of waiting for its next check
+    LockSupport.unpark(thread);
+    while (thread.isAlive()) {
       try {
-        Thread.sleep(100);
+        thread.join();
       } catch (InterruptedException e) {
       }
     }
@@ -355,6 +517,7 @@ public class Inventory<T extends RfidTag> {
       while (eKeys.hasMoreElements()) {
         removeTagFromInventory(tagById.get(eKeys.nextElement()));
       }
+      clearRounds();
     } finally {
       inventoryLock.unlock();
     }
@@ -367,6 +530,15 @@ public class Inventory<T extends RfidTag> {
     return null != internalThread && internalThread.isAlive();
   }
 
+  /**
+   * Set the inventory listener
+   * 
+   * @param listener inventory listener, <code>null</code> to remove the listener
+   */
+  public void setListener(InventoryListener<T> listener) {
+    addListener(listener);
+  }
+
   /**
    * add a listener
    * 
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.inventory;
+
+import java.util.List;
+import com.metratec.lib.tag.RfidTag;
+
+/**
+ * A finished inventory round of an antenna
+ *
+ * @author mn
+ * @param <T> {@link RfidTag} instance
+ *
+ */
+public class InventoryRound<T extends RfidTag> {
+  private Integer antenna;
+  private List<T> tags;
+
+  /**
+   * @param antenna the antenna of the round, <code>null</code> if unknown
+   * @param tags the tags found in this round, which are part of the same reader response
+   */
+  public InventoryRound(Integer antenna, List<T> tags) {
+    this.antenna = antenna;
+    this.tags = tags;
+  }
+
+  /**
+   * @return the antenna of the round, <code>null</code> if unknown
+   */
+  public Integer getAntenna() {
+    return antenna;
+  }
+
+  /**
+   * @return the tags found in this round, which are part of the same reader response. Tags of a
+   *         continuous inventory are reported with separate events before the round is finished.
+   */
+  public List<T> getTags() {
+    return tags;
+  }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.inventory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts the inventory rounds per antenna and returns the tags, which were not found in the last
+ * rounds of their antenna.<br>
+ * The tags of an antenna are stored in the order of the round in which they were found last, so a
+ * finished round only visits the lost tags.
+ *
+ * @author mn
+ *
+ */
+class InventoryRounds {
+  private static final Integer NO_ANTENNA = 0;
+  private int lostRounds;
+  /** finished rounds per antenna */
+  private Map<Integer, Long> roundByAntenna = new HashMap<>();
+  /** tag id with the last round in which the tag was found, per antenna */
+  private Map<Integer, LinkedHashMap<String, Long>> tagsByAntenna = new HashMap<>();
+  private Map<String, Integer> antennaByTag = new HashMap<>();
+  /** tags found since the last finished round */
+  private Set<String> currentRound = new LinkedHashSet<>();
+
+  /**
+   * @param lostRounds number of rounds without a read after which a tag is lost
+   */
+  InventoryRounds(int lostRounds) {
+    this.lostRounds = lostRounds;
+  }
+
+  /**
+   * @return number of rounds without a read after which a tag is lost
+   */
+  int getLostRounds() {
+    return lostRounds;
+  }
+
+  /**
+   * Mark a tag as found in the current round
+   *
+   * @param tagId the tag id
+   */
+  synchronized void tagFound(String tagId) {
+    currentRound.add(tagId);
+  }
+
+  /**
+   * Finish the current round of an antenna
+   *
+   * @param antenna the antenna of the round, <code>null</code> if unknown
+   * @param tagIds additional tags found in this round, can be <code>null</code>
+   * @return the ids of the tags, which were not found in the last rounds of the antenna
+   */
+  synchronized List<String> roundFinished(Integer antenna, Collection<String> tagIds) {
+    Integer key = null != antenna ? antenna : NO_ANTENNA;
+    long round = roundByAntenna.merge(key, 1L, Long::sum);
+    LinkedHashMap<String, Long> tags = tagsByAntenna.get(key);
+    if (null == tags) {
+      tags = new LinkedHashMap<>();
+      tagsByAntenna.put(key, tags);
+    }
+    if (null != tagIds) {
+      currentRound.addAll(tagIds);
+    }
+    for (String tagId : currentRound) {
+      Integer lastAntenna = antennaByTag.put(tagId, key);
+      if (null != lastAntenna && !lastAntenna.equals(key)) {
+        tagsByAntenna.get(lastAntenna).remove(tagId);
+      }
+      // reinsert, so the tag moves to the end of the list
+      tags.remove(tagId);
+      tags.put(tagId, round);
+    }
+    currentRound.clear();
+    List<String> lostTags = new ArrayList<>();
+    Iterator<Map.Entry<String, Long>> iterator = tags.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Long> entry = iterator.next();
+      if (round - entry.getValue() < lostRounds) {
+        break;
+      }
+      iterator.remove();
+      antennaByTag.remove(entry.getKey());
+      lostTags.add(entry.getKey());
+    }
+    return lostTags;
+  }
+
+  /**
+   * Forget all tags and rounds
+   */
+  synchronized void clear() {
+    roundByAntenna.clear();
+    tagsByAntenna.clear();
+    antennaByTag.clear();
+    currentRound.clear();
+  }
+}
@@ -5,17 +5,20 @@
 package com.metratec.lib.inventory;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
 import com.metratec.lib.tag.RfidTag;
 
 
 /**
  * Implementation for a periodic inventory check.<br>
  * Add the tags with {@link #addTag(RfidTag)} or {@link #addTags(List)}, then check the
- * inventory for losted tags with {@link #checkInventory()}
+ * inventory for losted tags with {@link #checkInventory()}<br>
+ * The tags are additionally indexed by their last seen timestamp and by their id, so the check only
+ * visits the expired tags and {@link #getInventory()} needs no sorting.
  * 
  * @author man
  * @param <T> {@link RfidTag} instance
@@ -23,7 +26,11 @@ import com.metratec.lib.tag.RfidTag;
  */
 public class InventoryWithTimestamp<T extends RfidTag> {
   // protected Logger logger = LoggerFactory.getLogger(SimpleInventory.class);
-  private Hashtable<String, T> tagById = new Hashtable<>();
+  private Map<String, Entry<T>> tagById = new HashMap<>();
+  /** tags ordered by the last seen timestamp with which they were queued */
+  private PriorityQueue<Entry<T>> tagByTime = new PriorityQueue<>();
+  /** tags ordered by the id */
+  private TreeMap<String, T> sortedTags = new TreeMap<>();
   private static long DEFAULT_TAG_KEEP_TIME = 5000l;
   private long keepTime;
   private String identifier;
@@ -50,14 +57,18 @@ public class InventoryWithTimestamp<T extends RfidTag> {
    * @param tag the tag to add
    * @return the tag last timestamp or <code>null</code> if the tag was not in inventory
    */
-  public Long addTag(T tag) {
-    T presentTag = tagById.get(tag.getId());
-    if (null == presentTag) {
-      tagById.put(tag.getId(), tag);
+  public synchronized Long addTag(T tag) {
+    Entry<T> entry = tagById.get(tag.getId());
+    if (null == entry) {
+      entry = new Entry<>(tag);
+      tagById.put(tag.getId(), entry);
+      tagByTime.add(entry);
+      sortedTags.put(tag.getId(), tag);
       return null;
     } else {
-      long lastSeen = presentTag.getLastSeenTimestamp();
-      presentTag.updateTag(tag);
+      Long lastSeen = entry.tag.getLastSeenTimestamp();
+      // the time index is updated lazily in checkInventory
+      entry.tag.updateTag(tag);
       return lastSeen;
     }
   }
@@ -68,7 +79,7 @@ public class InventoryWithTimestamp<T extends RfidTag> {
    * @param inventory {@link List} with the founded tag ids
    * @return a {@link List} with all tags, who are new in the inventory
    */
-  public List<T> addTags(List<T> inventory) {
+  public synchronized List<T> addTags(List<T> inventory) {
     // add Tags
     List<T> newTags = new ArrayList<>();
     for (T tag : inventory) {
@@ -85,20 +96,22 @@ public class InventoryWithTimestamp<T extends RfidTag> {
    * 
    * @return a list with removed tags
    */
-  public List<T> checkInventory() {
+  public synchronized List<T> checkInventory() {
     List<T> removedTags = new ArrayList<>();
     if (keepTime < 0) {
       // sticky...don't remove tags automatically
       return removedTags;
     }
-    // check all tags
+    // check the oldest tags, tags seen since they were queued are queued again
     long removeTime = System.currentTimeMillis() - keepTime;
-    Enumeration<T> eKeys = tagById.elements();
-    while (eKeys.hasMoreElements()) {
-      T tag = eKeys.nextElement();
-      if (tag.getLastSeenTimestamp() < removeTime) {
-        removedTags.add(tag);
-        removeTag(tag.getId());
+    while (!tagByTime.isEmpty() && tagByTime.peek().lastSeen < removeTime) {
+      Entry<T> entry = tagByTime.poll();
+      if (entry.updateLastSeen() && entry.lastSeen >= removeTime) {
+        tagByTime.add(entry);
+      } else {
+        tagById.remove(entry.tag.getId());
+        sortedTags.remove(entry.tag.getId());
+        removedTags.add(entry.tag);
       }
     }
     return removedTags;
@@ -110,19 +123,10 @@ public class InventoryWithTimestamp<T extends RfidTag> {
   /**
    * Return the current inventory
    * 
-   * @return the current inventory
+   * @return the current inventory, sorted by the tag id
    */
-  public List<T> getInventory() {
-    List<T> inv = new ArrayList<>();
-    Enumeration<T> eKeys = tagById.elements();
-    while (eKeys.hasMoreElements()) {
-      T tag = eKeys.nextElement();
-      if (null != tag) {
-        inv.add(tag);
-      }
-    }
-    Collections.sort(inv);
-    return inv;
+  public synchronized List<T> getInventory() {
+    return new ArrayList<>(sortedTags.values());
   }
 
   /**
@@ -150,13 +154,14 @@ public class InventoryWithTimestamp<T extends RfidTag> {
    * @param tagEid tag eid to remove
    * @return the last tag timestamp
    */
-  public Long removeTag(String tagEid) {
-    try {
-      return tagById.remove(tagEid).getLastSeenTimestamp();
-    } catch (NullPointerException e) {
+  public synchronized Long removeTag(String tagEid) {
+    Entry<T> entry = null != tagEid ? tagById.remove(tagEid) : null;
+    if (null == entry) {
       return null;
     }
-
+    tagByTime.remove(entry);
+    sortedTags.remove(tagEid);
+    return entry.tag.getLastSeenTimestamp();
   }
 
   /**
@@ -164,7 +169,7 @@ public class InventoryWithTimestamp<T extends RfidTag> {
    * @param tags {@link List} of tags
    * @return a {@link List} with removed tags
    */
-  public List<String> removeTags(List<String> tags) {
+  public synchronized List<String> removeTags(List<String> tags) {
     List<String> removed = new ArrayList<>();
     for (String tag : tags) {
       if (null != removeTag(tag)) {
@@ -179,14 +184,11 @@ public class InventoryWithTimestamp<T extends RfidTag> {
    * 
    * @return {@link List} with removed tags
    */
-  public List<T> clear() {
-    List<T> removedTags = new ArrayList<>();
-    Enumeration<T> eKeys = tagById.elements();
-    while (eKeys.hasMoreElements()) {
-      T tag = eKeys.nextElement();
-      removedTags.add(tag);
-      removeTag(tag.getId());
-    }
+  public synchronized List<T> clear() {
+    List<T> removedTags = new ArrayList<>(sortedTags.values());
+    tagById.clear();
+    tagByTime.clear();
+    sortedTags.clear();
     return removedTags;
   }
 
@@ -199,4 +201,32 @@ public class InventoryWithTimestamp<T extends RfidTag> {
   }
 
 
+  /**
+   * Inventory entry, holds the last seen timestamp with which the tag is queued in the time index
+   */
+  private static class Entry<T extends RfidTag> implements Comparable<Entry<T>> {
+    private T tag;
+    private long lastSeen;
+
+    Entry(T tag) {
+      this.tag = tag;
+      updateLastSeen();
+    }
+
+    /**
+     * @return true if the last seen timestamp has changed
+     */
+    boolean updateLastSeen() {
+      Long timestamp = tag.getLastSeenTimestamp();
+      long last = lastSeen;
+      lastSeen = null != timestamp ? timestamp : Long.MIN_VALUE;
+      return last != lastSeen;
+    }
+
+    @Override
+    public int compareTo(Entry<T> o) {
+      return Long.compare(lastSeen, o.lastSeen);
+    }
+  }
+
 }
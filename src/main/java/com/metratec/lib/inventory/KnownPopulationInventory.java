@@ -0,0 +1,598 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.inventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.event.InventoryChangedEvent;
+import com.metratec.lib.inventory.event.InventoryListener;
+import com.metratec.lib.inventory.event.TagArrivedEvent;
+import com.metratec.lib.inventory.event.TagDepartedEvent;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Round based inventory for a known tag population (e.g. the EPCs of a container manifest).<br>
+ * Every registered EPC gets a dense index. The tags found in an inventory round are stored in a
+ * bitset and when the round is finished ({@link #roundFinished(Integer, Collection)}), the arrived
+ * and departed tags are calculated word by word with the presence bitset of the previous rounds. A
+ * tag departs, if it was not found in the last {@link #getLostRounds()} rounds. Tags which are not
+ * registered are kept in a small side map with the same round logic.
+ * <p>
+ * Differences to the {@link Inventory}:
+ * <ul>
+ * <li>The tag arrive, tag departed and inventory changed events are called when a round is
+ * finished, not when the tags are added with {@link #updateInventory(Collection)}.</li>
+ * <li>The tags of a finished round, which are already added in this round with
+ * {@link #updateInventory(Collection)}, are not counted again. The readers pass the same tags to
+ * both methods.</li>
+ * <li>The keep time is not used, the tags are only lost by rounds. A round is every call of
+ * {@link #roundFinished(Integer, Collection)}, independent of the antenna. With multiplexed
+ * antennas the lost rounds should be at least the number of antennas.</li>
+ * <li>Only the first seen timestamp, last seen timestamp, seen count, antenna and rssi of a tag are
+ * stored. The returned {@link UhfTag} instances are created from these values.</li>
+ * </ul>
+ *
+ * @author man
+ *
+ */
+public class KnownPopulationInventory extends Inventory<UhfTag> {
+  private Logger logger = LoggerFactory.getLogger(KnownPopulationInventory.class);
+  /** value for not set antenna and rssi values */
+  private static final int NOT_SET = Integer.MIN_VALUE;
+  private static final int DEFAULT_LOST_ROUNDS = 1;
+
+  private Lock storeLock = new ReentrantLock();
+  private Map<String, Integer> indexByEpc = new HashMap<>();
+  private String[] epcByIndex = new String[0];
+  private int population;
+  private long[] firstSeen = new long[0];
+  private long[] lastSeen = new long[0];
+  private int[] seenCount = new int[0];
+  private int[] antenna = new int[0];
+  private int[] rssi = new int[0];
+  /** tags in the inventory */
+  private long[] present = new long[0];
+  /** tags found in the current round */
+  private long[] current = new long[0];
+  /** tags found in the previous rounds, ring buffer */
+  private long[][] previousRounds;
+  private int previousRoundIndex;
+  private int presentCount;
+  private int lostRounds;
+  private long round;
+  /** not registered tags in the inventory */
+  private Map<String, UhfTag> unknownTags = new LinkedHashMap<>();
+  /** last round in which the not registered tags were found */
+  private Map<String, Long> unknownTagRounds = new HashMap<>();
+  /** not registered tags found in the current round */
+  private Map<String, UhfTag> unknownCurrent = new LinkedHashMap<>();
+
+  /**
+   * Create a new inventory
+   *
+   * @param identifier inventory identifier
+   * @param listener the listener
+   * @param population the EPCs of the known tags
+   */
+  public KnownPopulationInventory(String identifier, InventoryListener<UhfTag> listener,
+      Collection<String> population) {
+    this(identifier, listener, population, DEFAULT_LOST_ROUNDS);
+  }
+
+  /**
+   * Create a new inventory
+   *
+   * @param identifier inventory identifier
+   * @param listener the listener
+   * @param population the EPCs of the known tags
+   * @param lostRounds number of rounds without a read after which a tag departs
+   */
+  public KnownPopulationInventory(String identifier, InventoryListener<UhfTag> listener,
+      Collection<String> population, int lostRounds) {
+    super(identifier, listener, 0);
+    setLostRounds(lostRounds);
+    register(population);
+  }
+
+  /**
+   * Register additional EPCs of the known tag population. A not registered tag, which is currently
+   * in the inventory, is moved to the known tags.
+   *
+   * @param epcs the EPCs to register
+   */
+  public void register(Collection<String> epcs) {
+    if (null == epcs) {
+      return;
+    }
+    storeLock.lock();
+    try {
+      ensureCapacity(population + epcs.size());
+      for (String epc : epcs) {
+        if (null == epc || indexByEpc.containsKey(epc)) {
+          continue;
+        }
+        int index = population++;
+        indexByEpc.put(epc, index);
+        epcByIndex[index] = epc;
+        UhfTag tag = unknownTags.remove(epc);
+        if (null != tag) {
+          // keep the inventory state of the tag
+          store(index, tag, true);
+          setBit(present, index);
+          presentCount++;
+          Long lastRound = unknownTagRounds.remove(epc);
+          int age = null != lastRound ? (int) (round - lastRound) : previousRounds.length;
+          if (age < previousRounds.length) {
+            // mark the tag in the round it was last seen
+            int slot = previousRoundIndex - 1 - age;
+            setBit(previousRounds[slot < 0 ? slot + previousRounds.length : slot], index);
+          }
+        }
+        UhfTag found = unknownCurrent.remove(epc);
+        if (null != found) {
+          store(index, found, !getBit(present, index));
+          setBit(current, index);
+        }
+      }
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of registered EPCs
+   */
+  public int getPopulationSize() {
+    return population;
+  }
+
+  /**
+   * @param epc the tag EPC
+   * @return true if the EPC is registered
+   */
+  public boolean isRegistered(String epc) {
+    storeLock.lock();
+    try {
+      return indexByEpc.containsKey(epc);
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * @param epc the tag EPC
+   * @return true if the tag is in the inventory
+   */
+  public boolean contains(String epc) {
+    storeLock.lock();
+    try {
+      Integer index = indexByEpc.get(epc);
+      return null != index ? getBit(present, index) : unknownTags.containsKey(epc);
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * @param epc the tag EPC
+   * @return the tag or <code>null</code> if the tag is not in the inventory
+   */
+  public UhfTag getTag(String epc) {
+    storeLock.lock();
+    try {
+      Integer index = indexByEpc.get(epc);
+      if (null == index) {
+        UhfTag tag = unknownTags.get(epc);
+        return null != tag ? tag.clone() : null;
+      }
+      return getBit(present, index) ? materialize(index) : null;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  public void initInventory(List<UhfTag> inventory) {
+    if (null == inventory) {
+      return;
+    }
+    storeLock.lock();
+    try {
+      for (UhfTag tag : inventory) {
+        if (null == tag) {
+          continue;
+        }
+        Integer index = indexByEpc.get(tag.getId());
+        if (null == index) {
+          unknownTags.put(tag.getId(), tag);
+          unknownTagRounds.put(tag.getId(), round);
+        } else if (!getBit(present, index)) {
+          store(index, tag, true);
+          setBit(present, index);
+          presentCount++;
+        }
+      }
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * Add the tags found in the current round. The events are called when the round is finished.
+   *
+   * @param inventory {@link Collection} with the found tags
+   */
+  @Override
+  public void updateInventory(Collection<UhfTag> inventory) {
+    if (null == inventory) {
+      return;
+    }
+    getListener().tagsSeen(inventory);
+    storeLock.lock();
+    try {
+      for (UhfTag tag : inventory) {
+        if (null != tag) {
+          tagFoundInRound(tag);
+        }
+      }
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  public void addTag(UhfTag tag) {
+    UhfTag arrived = null;
+    storeLock.lock();
+    try {
+      Integer index = indexByEpc.get(tag.getId());
+      if (null == index) {
+        if (!unknownTags.containsKey(tag.getId())) {
+          arrived = tag;
+        }
+        unknownTags.put(tag.getId(), tag);
+        unknownTagRounds.put(tag.getId(), round);
+      } else {
+        store(index, tag, true);
+        setBit(current, index);
+        if (!getBit(present, index)) {
+          setBit(present, index);
+          presentCount++;
+          arrived = materialize(index);
+        }
+      }
+      if (null != arrived) {
+        getListener().tagArrive(new TagArrivedEvent<>(getIdentifier(), arrived.getFirstSeenTimestamp(), arrived));
+      }
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * Finish the current round and call the events of the arrived and departed tags
+   *
+   * @param roundAntenna the antenna of the round
+   * @param tags the tags of the round, the tags already added in this round with
+   *        {@link #updateInventory(Collection)} are not counted again
+   */
+  @Override
+  public void roundFinished(Integer roundAntenna, Collection<UhfTag> tags) {
+    List<UhfTag> newTags = new ArrayList<>();
+    List<UhfTag> removedTags = new ArrayList<>();
+    storeLock.lock();
+    try {
+      if (null != tags) {
+        for (UhfTag tag : tags) {
+          if (null != tag && !isFoundInRound(tag)) {
+            tagFoundInRound(tag);
+          }
+        }
+      }
+      round++;
+      // found in this round or in one of the previous rounds
+      for (int word = 0; word < present.length; word++) {
+        long seen = current[word];
+        for (long[] previous : previousRounds) {
+          seen |= previous[word];
+        }
+        long changed = seen ^ present[word];
+        if (0 == changed) {
+          continue;
+        }
+        long arrived = changed & seen;
+        long departed = changed & present[word];
+        present[word] = seen;
+        presentCount += Long.bitCount(arrived) - Long.bitCount(departed);
+        for (long bits = arrived; 0 != bits; bits &= bits - 1) {
+          newTags.add(materialize((word << 6) + Long.numberOfTrailingZeros(bits)));
+        }
+        for (long bits = departed; 0 != bits; bits &= bits - 1) {
+          removedTags.add(materialize((word << 6) + Long.numberOfTrailingZeros(bits)));
+        }
+      }
+      if (0 < previousRounds.length) {
+        // the current round becomes a previous round, reuse the oldest bitset
+        long[] oldest = previousRounds[previousRoundIndex];
+        previousRounds[previousRoundIndex] = current;
+        previousRoundIndex = (previousRoundIndex + 1) % previousRounds.length;
+        current = oldest;
+      }
+      Arrays.fill(current, 0L);
+      finishUnknownRound(newTags, removedTags);
+      for (UhfTag tag : newTags) {
+        getListener().tagArrive(new TagArrivedEvent<>(getIdentifier(), tag.getFirstSeenTimestamp(), tag));
+      }
+      for (UhfTag tag : removedTags) {
+        getListener().tagDeparted(new TagDepartedEvent<>(getIdentifier(), tag));
+      }
+    } finally {
+      storeLock.unlock();
+    }
+    if (!newTags.isEmpty() || !removedTags.isEmpty()) {
+      getListener().inventoryChanged(new InventoryChangedEvent<>(getIdentifier(), getCurrentTags(), newTags, removedTags));
+    }
+  }
+
+  private void finishUnknownRound(List<UhfTag> newTags, List<UhfTag> removedTags) {
+    for (UhfTag tag : unknownCurrent.values()) {
+      UhfTag presentTag = unknownTags.get(tag.getId());
+      if (null == presentTag) {
+        unknownTags.put(tag.getId(), tag);
+        newTags.add(tag);
+      } else {
+        presentTag.updateTag(tag);
+      }
+      unknownTagRounds.put(tag.getId(), round);
+    }
+    unknownCurrent.clear();
+    Iterator<Map.Entry<String, UhfTag>> iterator = unknownTags.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, UhfTag> entry = iterator.next();
+      Long lastRound = unknownTagRounds.get(entry.getKey());
+      if (null == lastRound || round - lastRound >= lostRounds) {
+        iterator.remove();
+        unknownTagRounds.remove(entry.getKey());
+        removedTags.add(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * The tags are only lost by rounds
+   *
+   * @return an empty list
+   */
+  @Override
+  protected List<UhfTag> checkInventory() {
+    return new ArrayList<>();
+  }
+
+  @Override
+  protected List<UhfTag> removeLostTags(Collection<String> tagIds) {
+    List<UhfTag> removedTags = new ArrayList<>();
+    for (String tagId : tagIds) {
+      UhfTag tag = remove(tagId);
+      if (null != tag) {
+        removedTags.add(tag);
+      }
+    }
+    return removedTags;
+  }
+
+  @Override
+  public void removeTag(UhfTag tag) {
+    remove(tag.getId());
+  }
+
+  @Override
+  public void removeTag(String tagEid) {
+    UhfTag removed = remove(tagEid);
+    if (null != removed) {
+      getListener().inventoryChanged(
+          new InventoryChangedEvent<>(getIdentifier(), getCurrentTags(), null, Arrays.asList(removed)));
+    }
+  }
+
+  private UhfTag remove(String tagEid) {
+    storeLock.lock();
+    try {
+      UhfTag removed;
+      Integer index = indexByEpc.get(tagEid);
+      if (null == index) {
+        unknownCurrent.remove(tagEid);
+        unknownTagRounds.remove(tagEid);
+        removed = unknownTags.remove(tagEid);
+      } else {
+        clearBit(current, index);
+        for (long[] previous : previousRounds) {
+          clearBit(previous, index);
+        }
+        if (!getBit(present, index)) {
+          return null;
+        }
+        clearBit(present, index);
+        presentCount--;
+        removed = materialize(index);
+      }
+      if (null != removed) {
+        getListener().tagDeparted(new TagDepartedEvent<>(getIdentifier(), removed));
+      }
+      return removed;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  public List<UhfTag> getInventory() {
+    return getCurrentTags();
+  }
+
+  @Override
+  public void clear() {
+    storeLock.lock();
+    try {
+      for (UhfTag tag : getCurrentTags()) {
+        getListener().tagDeparted(new TagDepartedEvent<>(getIdentifier(), tag));
+      }
+      Arrays.fill(present, 0L);
+      Arrays.fill(current, 0L);
+      for (long[] previous : previousRounds) {
+        Arrays.fill(previous, 0L);
+      }
+      presentCount = 0;
+      unknownTags.clear();
+      unknownTagRounds.clear();
+      unknownCurrent.clear();
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    storeLock.lock();
+    try {
+      return presentCount + unknownTags.size();
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  protected List<UhfTag> getCurrentTags() {
+    storeLock.lock();
+    try {
+      List<UhfTag> tags = new ArrayList<>(presentCount + unknownTags.size());
+      for (int word = 0; word < present.length; word++) {
+        for (long bits = present[word]; 0 != bits; bits &= bits - 1) {
+          tags.add(materialize((word << 6) + Long.numberOfTrailingZeros(bits)));
+        }
+      }
+      for (UhfTag tag : unknownTags.values()) {
+        tags.add(tag.clone());
+      }
+      return tags;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  @Override
+  protected long getOldestLastSeenTimestamp(long defaultValue) {
+    return defaultValue;
+  }
+
+  @Override
+  public int getLostRounds() {
+    return lostRounds;
+  }
+
+  /**
+   * Set the number of consecutive inventory rounds without a read after which a tag departs. The
+   * presence of the previous rounds is reset.
+   *
+   * @param lostRounds the number of rounds (minimum 1)
+   */
+  @Override
+  public void setLostRounds(int lostRounds) {
+    storeLock.lock();
+    try {
+      this.lostRounds = Math.max(1, lostRounds);
+      previousRounds = new long[this.lostRounds - 1][present.length];
+      previousRoundIndex = 0;
+    } finally {
+      storeLock.unlock();
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the tag is already found in the current round
+   */
+  private boolean isFoundInRound(UhfTag tag) {
+    Integer index = indexByEpc.get(tag.getId());
+    return null != index ? getBit(current, index) : unknownCurrent.containsKey(tag.getId());
+  }
+
+  private void tagFoundInRound(UhfTag tag) {
+    Integer index = indexByEpc.get(tag.getId());
+    if (null == index) {
+      UhfTag found = unknownCurrent.get(tag.getId());
+      if (null == found) {
+        if (logger.isTraceEnabled()) {
+          logger.trace("Tag {} is not registered", tag.getId());
+        }
+        unknownCurrent.put(tag.getId(), tag);
+      } else if (found != tag) {
+        found.updateTag(tag);
+      }
+      return;
+    }
+    // a tag which is not in the inventory and not found in this round starts with new values
+    store(index, tag, !getBit(present, index) && !getBit(current, index));
+    setBit(current, index);
+  }
+
+  private void store(int index, UhfTag tag, boolean isNew) {
+    if (isNew) {
+      firstSeen[index] = null != tag.getFirstSeenTimestamp() ? tag.getFirstSeenTimestamp() : System.currentTimeMillis();
+      seenCount[index] = 0;
+    }
+    lastSeen[index] = null != tag.getLastSeenTimestamp() ? tag.getLastSeenTimestamp() : firstSeen[index];
+    seenCount[index] += null != tag.getSeenCount() ? tag.getSeenCount() : 1;
+    antenna[index] = null != tag.getAntenna() ? tag.getAntenna() : NOT_SET;
+    rssi[index] = null != tag.getRssi() ? tag.getRssi() : NOT_SET;
+  }
+
+  private UhfTag materialize(int index) {
+    UhfTag tag = new UhfTag(epcByIndex[index], firstSeen[index]);
+    tag.setLastSeenTimestamp(lastSeen[index]);
+    tag.setSeenCount(seenCount[index]);
+    tag.setAntenna(NOT_SET != antenna[index] ? antenna[index] : null);
+    tag.setRssi(NOT_SET != rssi[index] ? rssi[index] : null);
+    return tag;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= epcByIndex.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, epcByIndex.length * 2);
+    epcByIndex = Arrays.copyOf(epcByIndex, newCapacity);
+    firstSeen = Arrays.copyOf(firstSeen, newCapacity);
+    lastSeen = Arrays.copyOf(lastSeen, newCapacity);
+    seenCount = Arrays.copyOf(seenCount, newCapacity);
+    antenna = Arrays.copyOf(antenna, newCapacity);
+    rssi = Arrays.copyOf(rssi, newCapacity);
+    int words = (newCapacity + 63) >>> 6;
+    present = Arrays.copyOf(present, words);
+    current = Arrays.copyOf(current, words);
+    for (int i = 0; i < previousRounds.length; i++) {
+      previousRounds[i] = Arrays.copyOf(previousRounds[i], words);
+    }
+  }
+
+  private static boolean getBit(long[] bits, int index) {
+    return 0 != (bits[index >>> 6] & (1L << index));
+  }
+
+  private static void setBit(long[] bits, int index) {
+    bits[index >>> 6] |= 1L << index;
+  }
+
+  private static void clearBit(long[] bits, int index) {
+    bits[index >>> 6] &= ~(1L << index);
+  }
+}
@@ -5,7 +5,11 @@
 package com.metratec.lib.inventory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import com.metratec.lib.tag.RfidTag;
 
 /**
@@ -36,17 +40,31 @@ public class SimpleInventory<T extends RfidTag> {
    */
   public void updateInventory(List<T> tags) {
     List<T> oldInventory = inventory;
-    addedTags = new ArrayList<>(tags);
-    addedTags.removeAll(oldInventory);
-    removedTags = new ArrayList<>(oldInventory);
-    removedTags.removeAll(tags);
+    // the tags are hashed by their id, so the difference is computed in linear time
+    Map<T, T> oldTags = new HashMap<>(oldInventory.size() * 2);
+    for (T oldEntry : oldInventory) {
+      oldTags.put(oldEntry, oldEntry);
+    }
+    Set<T> newTags = new HashSet<>(tags.size() * 2);
+    addedTags = new ArrayList<>();
+    for (T tag : tags) {
+      newTags.add(tag);
+      if (!oldTags.containsKey(tag)) {
+        addedTags.add(tag);
+      }
+    }
+    removedTags = new ArrayList<>();
+    for (T oldEntry : oldInventory) {
+      if (!newTags.contains(oldEntry)) {
+        removedTags.add(oldEntry);
+      }
+    }
     inventory = new ArrayList<>(tags);
-    for (RfidTag oldEntry : oldInventory) {
-      for (RfidTag tag : inventory) {
-        if (oldEntry.getId().equals(tag.getId())) {
-          tag.setFirstSeenTimestamp(oldEntry.getFirstSeenTimestamp());
-          tag.setSeenCount(oldEntry.getSeenCount() + tag.getSeenCount());
-        }
+    for (RfidTag tag : inventory) {
+      RfidTag oldEntry = oldTags.get(tag);
+      if (null != oldEntry) {
+        tag.setFirstSeenTimestamp(oldEntry.getFirstSeenTimestamp());
+        tag.setSeenCount(oldEntry.getSeenCount() + tag.getSeenCount());
       }
     }
   }
@@ -4,6 +4,7 @@
  *******************************************************************************/
 package com.metratec.lib.inventory.event;
 
+import java.util.Collection;
 import com.metratec.lib.tag.RfidTag;
 
 /**
@@ -35,4 +36,11 @@ public interface InventoryListener<T extends RfidTag> {
    */
   void tagDeparted(TagDepartedEvent<T> tagDeparted);
 
+  /**
+   * Called with the tags of each inventory update, before the tag arrive events of the update
+   * 
+   * @param tags the seen tags
+   */
+  default void tagsSeen(Collection<T> tags) {}
+
 }
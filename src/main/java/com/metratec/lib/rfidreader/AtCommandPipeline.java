@@ -0,0 +1,386 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import com.metratec.lib.connection.CommConnectionException;
+import com.metratec.lib.connection.ICommConnection;
+
+/**
+ * Command pipeline of the AT readers. The reader executes the commands in the order they are
+ * written, so the responses are assigned to the written commands in order. The response of a
+ * command starts with the echo of the command and ends with <code>OK</code> or
+ * <code>ERROR</code>. Without echo the data lines of a response start with the response prefix of
+ * the command, e.g. <code>+READ</code> for <code>AT+READ</code>, so the lines of a late response
+ * to an expired command are recognized by their prefix and discarded. Up to the pipeline depth
+ * commands are written before their responses are received, further commands wait for a free
+ * slot.<br>
+ * The futures are completed by the receive thread, so dependent stages must not block. The
+ * timeouts of all readers share one daemon thread.
+ *
+ * @author mn
+ *
+ */
+public class AtCommandPipeline {
+  private static ScheduledThreadPoolExecutor timer;
+
+  /**
+   * Writes a prepared command to the reader
+   */
+  public interface Writer {
+    /**
+     * @param command the prepared command
+     * @throws CommConnectionException if the reader is not connected
+     */
+    void write(String command) throws CommConnectionException;
+  }
+
+  private final Writer writer;
+  private final Function<String, RFIDReaderException> errorParser;
+  private volatile boolean echoEnabled;
+  private volatile ResponseTimeEstimator estimator;
+  /** guarded by this */
+  private int depth = 1;
+  private final Deque<Command> inFlight = new ArrayDeque<>();
+  private final Deque<Command> waiting = new ArrayDeque<>();
+  private volatile long discardedLines;
+  /** number of expired commands, whose response may arrive late (without echo), guarded by this */
+  private int expiredResponses;
+  /** the lines of a late response are discarded up to its terminator, guarded by this */
+  private boolean discardResponse;
+
+  /**
+   * A submitted command
+   */
+  private static class Command {
+    private final String name;
+    /** the prefix of the data lines, e.g. <code>+READ</code>, null if unknown */
+    private final String responsePrefix;
+    private final String line;
+    private final long timeout;
+    private final Consumer<String> dataListener;
+    private final CompletableFuture<String> future = new CompletableFuture<>();
+    private final StringBuilder data = new StringBuilder();
+    private boolean echoReceived;
+    private long writeTime;
+    private ScheduledFuture<?> timeoutTask;
+
+    Command(String name, String line, long timeout, Consumer<String> dataListener) {
+      this.name = name;
+      this.line = line;
+      this.timeout = timeout;
+      this.dataListener = dataListener;
+      if (name.startsWith("AT+")) {
+        responsePrefix = name.substring(2, name.endsWith("?") ? name.length() - 1 : name.length());
+      } else {
+        responsePrefix = null;
+      }
+    }
+
+    /**
+     * @param response a data line
+     * @return true if the line may be a data line of the command response
+     */
+    private boolean isResponseLine(String response) {
+      if (null == responsePrefix) {
+        return true;
+      }
+      // +READ, but not +READM
+      return response.startsWith(responsePrefix) && (response.length() == responsePrefix.length()
+          || !Character.isLetterOrDigit(response.charAt(responsePrefix.length())));
+    }
+  }
+
+  /**
+   * @param writer writes the prepared commands to the reader
+   * @param errorParser creates the exception of an error response
+   */
+  public AtCommandPipeline(Writer writer, Function<String, RFIDReaderException> errorParser) {
+    if (null == writer || null == errorParser) {
+      throw new NullPointerException();
+    }
+    this.writer = writer;
+    this.errorParser = errorParser;
+  }
+
+  private static synchronized ScheduledThreadPoolExecutor getTimer() {
+    if (null == timer) {
+      timer = new ScheduledThreadPoolExecutor(1,
+          ReaderThreads.threadFactory("AtCommandPipeline", true));
+      timer.setRemoveOnCancelPolicy(true);
+    }
+    return timer;
+  }
+
+  /**
+   * Submit a command
+   *
+   * @param name the command name, e.g. <code>AT+READ</code>, which starts the echo of the command
+   * @param line the prepared command
+   * @param timeout the response timeout in milliseconds, starts when the command is written
+   * @return the future with the response data without the echo and the terminator, completed
+   *         exceptionally with an {@link RFIDReaderException} for an error response and with an
+   *         {@link CommConnectionException} for a communication error
+   */
+  public CompletableFuture<String> submit(String name, String line, long timeout) {
+    return submit(name, line, timeout, null);
+  }
+
+  /**
+   * Submit a command, whose data lines are passed to the listener as they are received, e.g. the
+   * tags of an inventory
+   *
+   * @param name the command name, e.g. <code>AT+INV</code>, which starts the echo of the command
+   * @param line the prepared command
+   * @param timeout the response timeout in milliseconds, starts when the command is written
+   * @param dataListener receives every data line of the response before the future is completed,
+   *        called by the receive thread, so it must not block. <code>null</code> for no listener.
+   * @return the future with the response data, see {@link #submit(String, String, long)}
+   */
+  public CompletableFuture<String> submit(String name, String line, long timeout,
+      Consumer<String> dataListener) {
+    Command command = new Command(name, line, timeout, dataListener);
+    List<Runnable> completions = new ArrayList<>();
+    synchronized (this) {
+      waiting.add(command);
+      dispatch(completions);
+    }
+    complete(completions);
+    return command.future;
+  }
+
+  /**
+   * Write the waiting commands up to the pipeline depth
+   */
+  private void dispatch(List<Runnable> completions) {
+    while (inFlight.size() < depth && !waiting.isEmpty()) {
+      Command command = waiting.poll();
+      if (command.future.isDone()) {
+        // cancelled before it was written
+        continue;
+      }
+      try {
+        writer.write(command.line);
+      } catch (CommConnectionException e) {
+        completions.add(() -> command.future.completeExceptionally(e));
+        continue;
+      }
+      inFlight.add(command);
+      command.writeTime = System.nanoTime();
+      command.timeoutTask =
+          getTimer().schedule(() -> expire(command), command.timeout, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void complete(List<Runnable> completions) {
+    for (Runnable completion : completions) {
+      completion.run();
+    }
+  }
+
+  /**
+   * Assign a response line to the written commands
+   *
+   * @param response the response line
+   * @return true if the line is consumed by the pipeline, false if no command is written
+   */
+  public boolean responseReceived(String response) {
+    if (null == response || response.isEmpty()) {
+      return false;
+    }
+    List<Runnable> completions = new ArrayList<>();
+    synchronized (this) {
+      Command command = inFlight.peek();
+      if (null == command) {
+        return false;
+      }
+      char type = response.charAt(0);
+      if (echoEnabled && !command.echoReceived) {
+        if ('A' == type && response.startsWith(command.name)) {
+          command.echoReceived = true;
+        } else {
+          // response of an expired command
+          discardedLines++;
+        }
+        return true;
+      }
+      if (!echoEnabled && isLateResponseLine(command, type, response)) {
+        discardedLines++;
+        return true;
+      }
+      boolean finished = true;
+      switch (type) {
+        case 'O': // OK
+          inFlight.poll();
+          String data = command.data.toString();
+          completions.add(() -> command.future.complete(data));
+          break;
+        case 'E': // ERROR
+          inFlight.poll();
+          RFIDReaderException error = parseError(command.data.toString());
+          completions.add(() -> command.future.completeExceptionally(error));
+          break;
+        case 'A': // Echo
+          if (!command.name.startsWith(response)) {
+            inFlight.poll();
+            RFIDReaderException wrongResponse = new RFIDReaderException(RFIDErrorCodes.NER,
+                "Wrong response to " + command.name + " - " + response);
+            completions.add(() -> command.future.completeExceptionally(wrongResponse));
+          } else {
+            finished = false;
+          }
+          break;
+        default:
+          finished = false;
+          command.data.append(response);
+          if (null != command.dataListener) {
+            completions.add(() -> command.dataListener.accept(response));
+          }
+          break;
+      }
+      if (finished) {
+        command.timeoutTask.cancel(false);
+        ResponseTimeEstimator responseTimeEstimator = estimator;
+        if (null != responseTimeEstimator) {
+          responseTimeEstimator.responseReceived(command.name,
+              (System.nanoTime() - command.writeTime) / 1e6);
+        }
+        dispatch(completions);
+      }
+    }
+    complete(completions);
+    return true;
+  }
+
+  /**
+   * Without echo the response of an expired command may arrive before the response of the next
+   * command. A data line with the prefix of another command starts such a late response, which is
+   * discarded up to its terminator.
+   */
+  private boolean isLateResponseLine(Command command, char type, String response) {
+    if (discardResponse) {
+      if ('O' == type || 'E' == type) {
+        discardResponse = false;
+        expiredResponses--;
+      }
+      return true;
+    }
+    if (0 < expiredResponses && '+' == type && !command.isResponseLine(response)) {
+      discardResponse = true;
+      return true;
+    }
+    return false;
+  }
+
+  private RFIDReaderException parseError(String data) {
+    if (data.contains("<") && data.contains(">")) {
+      return errorParser.apply(data.substring(data.indexOf("<") + 1, data.lastIndexOf(">")));
+    }
+    return new RFIDReaderException(RFIDErrorCodes.NER, data);
+  }
+
+  /**
+   * The reader did not respond within the timeout. The remaining lines of the response are
+   * discarded, if the echo is enabled or if they start with a different response prefix than the
+   * response of the next command.
+   */
+  private void expire(Command command) {
+    List<Runnable> completions = new ArrayList<>();
+    synchronized (this) {
+      if (!inFlight.remove(command)) {
+        return;
+      }
+      if (!echoEnabled) {
+        expiredResponses++;
+      }
+      ResponseTimeEstimator responseTimeEstimator = estimator;
+      if (null != responseTimeEstimator) {
+        responseTimeEstimator.responseTimedOut(command.name);
+      }
+      dispatch(completions);
+    }
+    command.future.completeExceptionally(
+        new CommConnectionException(ICommConnection.RECV_TIMEOUT, "Reader did not respond"));
+    complete(completions);
+  }
+
+  /**
+   * @return true if the responses start with the echo of the command
+   */
+  public boolean isEchoEnabled() {
+    return echoEnabled;
+  }
+
+  /**
+   * @param echoEnabled true if the responses start with the echo of the command. Without echo the
+   *        responses are assigned by the order and the response prefix of the commands.
+   */
+  public void setEchoEnabled(boolean echoEnabled) {
+    synchronized (this) {
+      expiredResponses = 0;
+      discardResponse = false;
+    }
+    this.echoEnabled = echoEnabled;
+  }
+
+  /**
+   * @param estimator observes the response times of the commands, null to observe nothing
+   */
+  public void setResponseTimeEstimator(ResponseTimeEstimator estimator) {
+    this.estimator = estimator;
+  }
+
+  /**
+   * @return the maximum number of written commands without a response
+   */
+  public synchronized int getDepth() {
+    return depth;
+  }
+
+  /**
+   * @param depth the maximum number of written commands without a response, 1 to write a command
+   *        after the response of the previous command
+   */
+  public void setDepth(int depth) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("depth must be positive");
+    }
+    List<Runnable> completions = new ArrayList<>();
+    synchronized (this) {
+      this.depth = depth;
+      dispatch(completions);
+    }
+    complete(completions);
+  }
+
+  /**
+   * @return the number of written commands without a response
+   */
+  public synchronized int getInFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * @return the number of commands, which wait for a free slot
+   */
+  public synchronized int getWaiting() {
+    return waiting.size();
+  }
+
+  /**
+   * @return the number of discarded response lines of expired commands
+   */
+  public long getDiscardedLines() {
+    return discardedLines;
+  }
+}
@@ -0,0 +1,576 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import com.metratec.lib.connection.CommConnectionException;
+
+/**
+ * Reentrant communication lock of a reader, which is granted by priority instead of arrival order.
+ * The waiting threads are ordered by their {@link Priority}, within a priority by their deadline
+ * and then by arrival. A waiting thread is promoted by one priority for every aging time it waits,
+ * so background commands are not starved. The queueing delay is measured per priority.<br>
+ * The priority and deadline of the commands of a thread are set with
+ * {@link #execute(Priority, long, Command)}, the default is {@link Priority#NORMAL} without
+ * deadline. The waiting threads are parked, so waiting virtual threads release their carrier.<br>
+ * The scheduler is a {@link ReentrantLock}, so it can be used as the communication lock of the
+ * reader subclasses. The final queue methods of the {@link ReentrantLock}
+ * ({@link #getQueueLength()}, {@link #hasQueuedThreads()}, {@link #hasQueuedThread(Thread)}) do
+ * not see the waiting commands, use {@link #getWaitingCommands()}.
+ *
+ * @author mn
+ *
+ */
+public class CommandScheduler extends ReentrantLock {
+  private static final long serialVersionUID = 4712315387642394961L;
+
+  /**
+   * Priority classes of the reader commands
+   */
+  public enum Priority {
+    /** interactive commands, e.g. a tag write on a conveyor */
+    REALTIME,
+    /** the default priority */
+    NORMAL,
+    /** polling and monitoring, e.g. liveness probes and status sampling */
+    BACKGROUND
+  }
+
+  /**
+   * A reader command
+   *
+   * @param <R> the result type
+   */
+  public interface Command<R> {
+    /**
+     * @return the command result
+     * @throws CommConnectionException if an communication exception occurs
+     * @throws RFIDReaderException if an protocol exception occurs
+     */
+    R execute() throws CommConnectionException, RFIDReaderException;
+  }
+
+  /** default aging time in milliseconds */
+  public static final long DEFAULT_AGING_TIME = 1000;
+
+  private final transient ThreadLocal<Priority> threadPriority = new ThreadLocal<>();
+  private final transient ThreadLocal<Long> threadDeadline = new ThreadLocal<>();
+  private volatile long agingTime = DEFAULT_AGING_TIME;
+
+  private final ReentrantLock mutex = new ReentrantLock();
+  private final transient Condition changed = mutex.newCondition();
+  /** guarded by mutex */
+  private transient Thread owner;
+  private int holdCount;
+  private long sequence;
+  private final transient List<Waiter> waiters = new ArrayList<>();
+  private final long[] acquisitions = new long[Priority.values().length];
+  private final long[] totalDelay = new long[Priority.values().length];
+  private final long[] maxDelay = new long[Priority.values().length];
+  private long missedDeadlines;
+
+  /**
+   * A waiting thread
+   */
+  private static class Waiter {
+    private final Priority priority;
+    private final long deadline;
+    private final long sequence;
+    private final long enqueueTime;
+
+    Waiter(Priority priority, long deadline, long sequence) {
+      this.priority = priority;
+      this.deadline = deadline;
+      this.sequence = sequence;
+      this.enqueueTime = System.nanoTime();
+    }
+  }
+
+  /**
+   * Execute the commands of the current thread with a priority
+   *
+   * @param <R> the result type
+   * @param priority the priority of the commands
+   * @param deadline the time in milliseconds, within the commands should get the reader, 0 for no
+   *        deadline
+   * @param command the command
+   * @return the command result
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs
+   */
+  public <R> R execute(Priority priority, long deadline, Command<R> command)
+      throws CommConnectionException, RFIDReaderException {
+    if (null == priority) {
+      throw new NullPointerException("priority must not be null");
+    }
+    Priority previousPriority = threadPriority.get();
+    Long previousDeadline = threadDeadline.get();
+    threadPriority.set(priority);
+    threadDeadline.set(0 < deadline ? System.currentTimeMillis() + deadline : Long.MAX_VALUE);
+    try {
+      return command.execute();
+    } finally {
+      threadPriority.set(previousPriority);
+      threadDeadline.set(previousDeadline);
+    }
+  }
+
+  /**
+   * @return the priority of the commands of the current thread
+   */
+  public Priority getThreadPriority() {
+    Priority priority = threadPriority.get();
+    return null != priority ? priority : Priority.NORMAL;
+  }
+
+  @Override
+  public void lock() {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        acquire(false, 0);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void lockInterruptibly() throws InterruptedException {
+    acquire(false, 0);
+  }
+
+  @Override
+  public boolean tryLock() {
+    mutex.lock();
+    try {
+      Thread current = Thread.currentThread();
+      if (owner == current) {
+        holdCount++;
+        return true;
+      }
+      if (null != owner || !waiters.isEmpty()) {
+        return false;
+      }
+      owner = current;
+      holdCount = 1;
+      record(getThreadPriority(), 0, Long.MAX_VALUE);
+      return true;
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  @Override
+  public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+    return acquire(true, unit.toNanos(time));
+  }
+
+  private boolean acquire(boolean timed, long timeout) throws InterruptedException {
+    mutex.lock();
+    try {
+      Thread current = Thread.currentThread();
+      if (owner == current) {
+        holdCount++;
+        return true;
+      }
+      Long deadline = threadDeadline.get();
+      Waiter waiter = new Waiter(getThreadPriority(),
+          null != deadline ? deadline : Long.MAX_VALUE, sequence++);
+      waiters.add(waiter);
+      long end = waiter.enqueueTime + timeout;
+      try {
+        while (null != owner || next() != waiter) {
+          if (timed) {
+            long remaining = end - System.nanoTime();
+            if (remaining <= 0) {
+              return false;
+            }
+            changed.awaitNanos(remaining);
+          } else if (null == owner) {
+            // another waiter is next, its aging may change the order
+            changed.await(Math.max(1, agingTime), TimeUnit.MILLISECONDS);
+          } else {
+            changed.await();
+          }
+        }
+        owner = current;
+        holdCount = 1;
+        record(waiter.priority, System.nanoTime() - waiter.enqueueTime, waiter.deadline);
+        return true;
+      } finally {
+        waiters.remove(waiter);
+        if (owner != current) {
+          // the next waiter could be this waiter
+          changed.signalAll();
+        }
+      }
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  /**
+   * @return the waiter, which gets the lock next
+   */
+  private Waiter next() {
+    long now = System.nanoTime();
+    Waiter next = null;
+    int nextPriority = 0;
+    for (Waiter waiter : waiters) {
+      int priority = getEffectivePriority(waiter, now);
+      if (null == next || priority < nextPriority
+          || priority == nextPriority && (waiter.deadline < next.deadline
+              || waiter.deadline == next.deadline && waiter.sequence < next.sequence)) {
+        next = waiter;
+        nextPriority = priority;
+      }
+    }
+    return next;
+  }
+
+  private int getEffectivePriority(Waiter waiter, long now) {
+    int priority = waiter.priority.ordinal();
+    long currentAgingTime = agingTime;
+    if (0 < currentAgingTime) {
+      // one priority per aging time, the long is not narrowed before it is clamped
+      long promotions =
+          (now - waiter.enqueueTime) / TimeUnit.MILLISECONDS.toNanos(currentAgingTime);
+      priority -= (int) Math.min(priority, Math.max(0, promotions));
+    }
+    return priority;
+  }
+
+  private void record(Priority priority, long delay, long deadline) {
+    int index = priority.ordinal();
+    acquisitions[index]++;
+    totalDelay[index] += delay;
+    if (maxDelay[index] < delay) {
+      maxDelay[index] = delay;
+    }
+    if (deadline < System.currentTimeMillis()) {
+      missedDeadlines++;
+    }
+  }
+
+  @Override
+  public void unlock() {
+    mutex.lock();
+    try {
+      if (owner != Thread.currentThread()) {
+        throw new IllegalMonitorStateException();
+      }
+      if (0 == --holdCount) {
+        owner = null;
+        changed.signalAll();
+      }
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  /**
+   * @return a condition of the lock, a thread, which awaits the condition, gets the lock back in
+   *         the order of its priority
+   */
+  @Override
+  public Condition newCondition() {
+    return new SchedulerCondition();
+  }
+
+  /**
+   * Condition of the scheduler. The waiting threads wait on a condition of the internal mutex, so a
+   * signal between the release of the scheduler and the wait is not lost.
+   */
+  private class SchedulerCondition implements Condition {
+    private final Condition signalled = mutex.newCondition();
+
+    private CommandScheduler getScheduler() {
+      return CommandScheduler.this;
+    }
+
+    /**
+     * Release the lock completely, wait for a signal and acquire the lock again with the previous
+     * hold count
+     *
+     * @param timed true to wait at most the given time
+     * @param nanos the maximum waiting time in nanoseconds
+     * @param interruptible false to ignore interrupts while waiting
+     * @return the remaining waiting time in nanoseconds
+     */
+    private long await(boolean timed, long nanos, boolean interruptible)
+        throws InterruptedException {
+      int holds;
+      long remaining = nanos;
+      InterruptedException interrupted = null;
+      mutex.lock();
+      try {
+        if (owner != Thread.currentThread()) {
+          throw new IllegalMonitorStateException();
+        }
+        holds = holdCount;
+        owner = null;
+        holdCount = 0;
+        changed.signalAll();
+        try {
+          if (!interruptible) {
+            signalled.awaitUninterruptibly();
+          } else if (timed) {
+            remaining = signalled.awaitNanos(nanos);
+          } else {
+            signalled.await();
+          }
+        } catch (InterruptedException e) {
+          interrupted = e;
+        }
+      } finally {
+        mutex.unlock();
+      }
+      lock();
+      mutex.lock();
+      try {
+        holdCount = holds;
+      } finally {
+        mutex.unlock();
+      }
+      if (null != interrupted) {
+        throw interrupted;
+      }
+      return remaining;
+    }
+
+    @Override
+    public void await() throws InterruptedException {
+      await(false, 0, true);
+    }
+
+    @Override
+    public void awaitUninterruptibly() {
+      try {
+        await(false, 0, false);
+      } catch (InterruptedException e) {
+        // not thrown without interruptible
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public long awaitNanos(long nanosTimeout) throws InterruptedException {
+      return await(true, nanosTimeout, true);
+    }
+
+    @Override
+    public boolean await(long time, TimeUnit unit) throws InterruptedException {
+      return 0 < await(true, unit.toNanos(time), true);
+    }
+
+    @Override
+    public boolean awaitUntil(Date deadline) throws InterruptedException {
+      return 0 < await(true,
+          TimeUnit.MILLISECONDS.toNanos(deadline.getTime() - System.currentTimeMillis()), true);
+    }
+
+    @Override
+    public void signal() {
+      signal(false);
+    }
+
+    @Override
+    public void signalAll() {
+      signal(true);
+    }
+
+    private void signal(boolean all) {
+      mutex.lock();
+      try {
+        if (owner != Thread.currentThread()) {
+          throw new IllegalMonitorStateException();
+        }
+        if (all) {
+          signalled.signalAll();
+        } else {
+          signalled.signal();
+        }
+      } finally {
+        mutex.unlock();
+      }
+    }
+  }
+
+  /**
+   * @return true if the current thread holds the lock
+   */
+  @Override
+  public boolean isHeldByCurrentThread() {
+    mutex.lock();
+    try {
+      return owner == Thread.currentThread();
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  @Override
+  public boolean isLocked() {
+    mutex.lock();
+    try {
+      return null != owner;
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  @Override
+  public int getHoldCount() {
+    mutex.lock();
+    try {
+      return owner == Thread.currentThread() ? holdCount : 0;
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  @Override
+  public boolean hasWaiters(Condition condition) {
+    return 0 < getWaitQueueLength(condition);
+  }
+
+  @Override
+  public int getWaitQueueLength(Condition condition) {
+    if (!(condition instanceof SchedulerCondition)
+        || ((SchedulerCondition) condition).getScheduler() != this) {
+      throw new IllegalArgumentException("not owner");
+    }
+    mutex.lock();
+    try {
+      if (owner != Thread.currentThread()) {
+        throw new IllegalMonitorStateException();
+      }
+      return mutex.getWaitQueueLength(((SchedulerCondition) condition).signalled);
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  /**
+   * @return the number of waiting threads
+   */
+  public int getWaitingCommands() {
+    mutex.lock();
+    try {
+      return waiters.size();
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    Thread currentOwner;
+    mutex.lock();
+    try {
+      currentOwner = owner;
+    } finally {
+      mutex.unlock();
+    }
+    return getClass().getName() + (null == currentOwner ? "[Unlocked]"
+        : "[Locked by thread " + currentOwner.getName() + "]");
+  }
+
+  /**
+   * @return the aging time in milliseconds
+   */
+  public long getAgingTime() {
+    return agingTime;
+  }
+
+  /**
+   * @param agingTime the waiting time in milliseconds, after which a waiting thread is promoted by
+   *        one priority, 0 to disable the aging
+   */
+  public void setAgingTime(long agingTime) {
+    if (agingTime < 0) {
+      throw new IllegalArgumentException("aging time must not be negative");
+    }
+    this.agingTime = agingTime;
+  }
+
+  /**
+   * @param priority the priority
+   * @return the number of lock acquisitions with the priority
+   */
+  public long getAcquisitions(Priority priority) {
+    mutex.lock();
+    try {
+      return acquisitions[priority.ordinal()];
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  /**
+   * @param priority the priority
+   * @return the average queueing delay of the priority in milliseconds
+   */
+  public double getAverageQueueDelay(Priority priority) {
+    mutex.lock();
+    try {
+      int index = priority.ordinal();
+      return 0 == acquisitions[index] ? 0 : totalDelay[index] / 1e6 / acquisitions[index];
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  /**
+   * @param priority the priority
+   * @return the maximum queueing delay of the priority in milliseconds
+   */
+  public double getMaxQueueDelay(Priority priority) {
+    mutex.lock();
+    try {
+      return maxDelay[priority.ordinal()] / 1e6;
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  /**
+   * @return the number of commands, which got the lock after their deadline
+   */
+  public long getMissedDeadlines() {
+    mutex.lock();
+    try {
+      return missedDeadlines;
+    } finally {
+      mutex.unlock();
+    }
+  }
+
+  /**
+   * Reset the queueing delay statistics
+   */
+  public void resetStatistics() {
+    mutex.lock();
+    try {
+      for (int i = 0; i < acquisitions.length; i++) {
+        acquisitions[i] = 0;
+        totalDelay[i] = 0;
+        maxDelay[i] = 0;
+      }
+      missedDeadlines = 0;
+    } finally {
+      mutex.unlock();
+    }
+  }
+}
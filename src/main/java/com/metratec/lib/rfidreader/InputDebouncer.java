@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Debounces the input changes notified by the reader (<code>+IEV</code> of the AT readers,
+ * <code>IN0</code>/<code>IN1</code> of the ASCII readers). The state of an input is reported if it
+ * did not change for the debounce time. The debounce timers of all readers share one daemon thread
+ * and no reader command is sent.
+ *
+ * @author mn
+ *
+ */
+public class InputDebouncer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetratecReader.class);
+  private static ScheduledThreadPoolExecutor scheduler;
+
+  /**
+   * Receives the debounced input changes
+   */
+  public interface Listener {
+    /**
+     * Called if the state of an input is stable for the debounce time
+     *
+     * @param input the input number
+     * @param state the new state of the input
+     */
+    void inputChanged(int input, boolean state);
+  }
+
+  private final Listener listener;
+  private volatile int debounceTime;
+  /** guarded by this */
+  private final Map<Integer, InputState> inputs = new HashMap<>();
+  private volatile long suppressedChanges;
+
+  /**
+   * State of an input
+   */
+  private static class InputState {
+    private boolean state;
+    private boolean reportedState;
+    private long lastChange;
+    private boolean scheduled;
+
+    InputState(boolean reportedState) {
+      this.state = reportedState;
+      this.reportedState = reportedState;
+    }
+  }
+
+  /**
+   * @param listener receives the debounced input changes
+   * @param debounceTime the debounce time in milliseconds, 0 to report every change immediately
+   */
+  public InputDebouncer(Listener listener, int debounceTime) {
+    if (null == listener) {
+      throw new NullPointerException("listener must not be null");
+    }
+    this.listener = listener;
+    setDebounceTime(debounceTime);
+  }
+
+  private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+    if (null == scheduler) {
+      scheduler =
+          new ScheduledThreadPoolExecutor(1, ReaderThreads.threadFactory("InputDebouncer", true));
+      scheduler.setRemoveOnCancelPolicy(true);
+    }
+    return scheduler;
+  }
+
+  /**
+   * Notify an input change of the reader. The notifications are edges, so the state before the
+   * first notification of an input is the opposite state.
+   *
+   * @param input the input number
+   * @param state the new state of the input
+   */
+  public void inputChanged(int input, boolean state) {
+    boolean report = false;
+    synchronized (this) {
+      InputState inputState = inputs.get(input);
+      if (null == inputState) {
+        inputState = new InputState(!state);
+        inputs.put(input, inputState);
+      }
+      if (inputState.state == state && inputState.reportedState != state) {
+        // repeated notification of a pending state
+        return;
+      }
+      inputState.state = state;
+      inputState.lastChange = System.currentTimeMillis();
+      if (0 == debounceTime) {
+        report = inputState.reportedState != state;
+        inputState.reportedState = state;
+      } else if (!inputState.scheduled) {
+        inputState.scheduled = true;
+        schedule(input, debounceTime);
+      } else {
+        // a change within the debounce time
+        suppressedChanges++;
+      }
+    }
+    if (report) {
+      fireInputChanged(input, state);
+    }
+  }
+
+  private void schedule(int input, long delay) {
+    getScheduler().schedule(() -> settle(input), delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Report the state of an input if it is stable
+   */
+  private void settle(int input) {
+    boolean state;
+    synchronized (this) {
+      InputState inputState = inputs.get(input);
+      long remaining = inputState.lastChange + debounceTime - System.currentTimeMillis();
+      if (0 < remaining) {
+        schedule(input, remaining);
+        return;
+      }
+      inputState.scheduled = false;
+      if (inputState.reportedState == inputState.state) {
+        // the input returned to the reported state
+        return;
+      }
+      state = inputState.state;
+      inputState.reportedState = state;
+    }
+    fireInputChanged(input, state);
+  }
+
+  private void fireInputChanged(int input, boolean state) {
+    try {
+      listener.inputChanged(input, state);
+    } catch (RuntimeException e) {
+      LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * @return the debounce time in milliseconds
+   */
+  public int getDebounceTime() {
+    return debounceTime;
+  }
+
+  /**
+   * @param debounceTime the debounce time in milliseconds, 0 to report every change immediately
+   */
+  public void setDebounceTime(int debounceTime) {
+    if (debounceTime < 0) {
+      throw new IllegalArgumentException("debounce time must not be negative");
+    }
+    this.debounceTime = debounceTime;
+  }
+
+  /**
+   * @return the number of input changes within the debounce time
+   */
+  public long getSuppressedChanges() {
+    return suppressedChanges;
+  }
+}
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.connection.CommConnectionException;
+import com.metratec.lib.rfidreader.event.GateSession;
+import com.metratec.lib.rfidreader.event.GateSessionListener;
+import com.metratec.lib.tag.RfidTag;
+
+/**
+ * Trigger gated inventory, e.g. for light barriers. The gate is fed with the raw input changes of
+ * the receive path, without the input debounce time and without the event handler. The trigger
+ * edge of the gate input starts the inventory, the release edge stops it. The tags read in between
+ * are collected in a {@link GateSession}, which is reported once per trigger.<br>
+ * The gate thread is started when the gate is armed, so a trigger only sends the start command.
+ * The commands are not sent by the receive thread, because it has to receive the responses.
+ *
+ * @param <T> the type of RFID tag
+ * @author mn
+ *
+ */
+public class InventoryGate<T extends RfidTag> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetratecReader.class);
+
+  /**
+   * The reader commands of the gate
+   */
+  public interface Commands {
+    /**
+     * Start the continuous inventory
+     *
+     * @throws CommConnectionException if an communication exception occurs
+     * @throws RFIDReaderException if an protocol exception occurs
+     */
+    void startInventory() throws CommConnectionException, RFIDReaderException;
+
+    /**
+     * Stop the continuous inventory
+     *
+     * @throws CommConnectionException if an communication exception occurs
+     * @throws RFIDReaderException if an protocol exception occurs
+     */
+    void stopInventory() throws CommConnectionException, RFIDReaderException;
+  }
+
+  private final String identifier;
+  private final int input;
+  private final boolean triggerState;
+  private final Commands commands;
+  private final GateSessionListener<T> listener;
+  private final ThreadPoolExecutor gateExecutor;
+
+  /** the input state, guarded by this */
+  private boolean triggered;
+  private boolean closed;
+  /** the session, which receives the read tags, guarded by this */
+  private Collector<T> current;
+  private volatile long sessions;
+
+  /**
+   * State of a running session
+   */
+  private static class Collector<T> {
+    private final Map<String, T> tags = new LinkedHashMap<>();
+    private final long triggerTimestamp;
+    private long firstReadTimestamp;
+    private long releaseTimestamp;
+    private long readCount;
+    private Exception error;
+
+    Collector(long triggerTimestamp) {
+      this.triggerTimestamp = triggerTimestamp;
+    }
+  }
+
+  /**
+   * Creates an armed gate, which is triggered by the high state of the input
+   *
+   * @param identifier the reader identifier
+   * @param input the gate input
+   * @param commands the reader commands
+   * @param listener receives the gate sessions
+   */
+  public InventoryGate(String identifier, int input, Commands commands,
+      GateSessionListener<T> listener) {
+    this(identifier, input, true, commands, listener);
+  }
+
+  /**
+   * Creates an armed gate
+   *
+   * @param identifier the reader identifier
+   * @param input the gate input
+   * @param triggerState the input state, which starts the inventory
+   * @param commands the reader commands
+   * @param listener receives the gate sessions
+   */
+  public InventoryGate(String identifier, int input, boolean triggerState, Commands commands,
+      GateSessionListener<T> listener) {
+    if (null == commands || null == listener) {
+      throw new NullPointerException();
+    }
+    this.identifier = identifier;
+    this.input = input;
+    this.triggerState = triggerState;
+    this.commands = commands;
+    this.listener = listener;
+    gateExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), ReaderThreads.threadFactory("Gate-" + identifier, true));
+    gateExecutor.prestartAllCoreThreads();
+  }
+
+  /**
+   * Notify a raw input change of the reader
+   *
+   * @param input the input number
+   * @param state the new state of the input
+   */
+  public void inputChanged(int input, boolean state) {
+    if (this.input != input) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    Collector<T> session;
+    boolean trigger = triggerState == state;
+    synchronized (this) {
+      if (closed || triggered == trigger) {
+        return;
+      }
+      triggered = trigger;
+      if (trigger) {
+        session = new Collector<>(now);
+        current = session;
+      } else {
+        session = current;
+        if (null == session) {
+          return;
+        }
+        session.releaseTimestamp = now;
+      }
+    }
+    if (trigger) {
+      gateExecutor.execute(() -> start(session));
+    } else {
+      gateExecutor.execute(() -> stop(session));
+    }
+  }
+
+  /**
+   * Add the tags of an inventory response to the current session
+   *
+   * @param tags the read tags
+   */
+  public void tagsRead(Collection<T> tags) {
+    if (null == tags || tags.isEmpty()) {
+      return;
+    }
+    synchronized (this) {
+      Collector<T> session = current;
+      if (null == session) {
+        return;
+      }
+      for (T tag : tags) {
+        if (null == tag) {
+          continue;
+        }
+        if (0 == session.firstReadTimestamp) {
+          session.firstReadTimestamp = System.currentTimeMillis();
+        }
+        session.readCount++;
+        session.tags.putIfAbsent(tag.getId(), tag);
+      }
+    }
+  }
+
+  private void start(Collector<T> session) {
+    try {
+      commands.startInventory();
+    } catch (CommConnectionException | RFIDReaderException e) {
+      LOGGER.warn("{} gate start failed - {}", identifier, e.getMessage());
+      synchronized (this) {
+        session.error = e;
+      }
+    }
+  }
+
+  private void stop(Collector<T> session) {
+    Exception error = null;
+    try {
+      commands.stopInventory();
+    } catch (CommConnectionException | RFIDReaderException e) {
+      LOGGER.warn("{} gate stop failed - {}", identifier, e.getMessage());
+      error = e;
+    }
+    long now = System.currentTimeMillis();
+    GateSession<T> result;
+    synchronized (this) {
+      if (current == session) {
+        current = null;
+      }
+      if (null == session.error) {
+        session.error = error;
+      }
+      result = new GateSession<>(identifier, input, new ArrayList<>(session.tags.values()),
+          session.readCount, session.triggerTimestamp, session.firstReadTimestamp,
+          session.releaseTimestamp, now, session.error);
+    }
+    sessions++;
+    try {
+      listener.gateSessionFinished(result);
+    } catch (RuntimeException e) {
+      LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Disarm the gate, a running session is stopped and reported
+   */
+  public void close() {
+    Collector<T> session;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      session = triggered ? current : null;
+      triggered = false;
+      if (null != session) {
+        session.releaseTimestamp = System.currentTimeMillis();
+      }
+    }
+    if (null != session) {
+      gateExecutor.execute(() -> stop(session));
+    }
+    gateExecutor.shutdown();
+  }
+
+  /**
+   * Wait until the commands of the gate are sent, after the gate is closed
+   *
+   * @param timeout the maximum time to wait in milliseconds
+   * @return true if the gate thread is finished
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitClosed(long timeout) throws InterruptedException {
+    return gateExecutor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return the gate input
+   */
+  public int getInput() {
+    return input;
+  }
+
+  /**
+   * @return true if a session is running
+   */
+  public synchronized boolean isTriggered() {
+    return triggered;
+  }
+
+  /**
+   * @return the number of reported sessions
+   */
+  public long getSessionCount() {
+    return sessions;
+  }
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import com.metratec.lib.connection.CommConnectionException;
+
+/**
+ * Pauses the continuous inventory of an AT reader for a command, whose firmware does not accept
+ * commands during the continuous inventory. The inventory is stopped with its stop command (e.g.
+ * <code>AT+BINV</code> for <code>AT+CINV</code>), the command is sent and the inventory is
+ * restarted, also if the command fails. The duration of the pauses is measured from sending the
+ * stop command to the response of the restart.
+ *
+ * @author mn
+ *
+ */
+public class InventoryPause {
+
+  /**
+   * Sends a command to the reader and waits for the response
+   */
+  public interface Sender {
+    /**
+     * @param command the command, e.g. <code>AT+BINV</code>
+     * @return the reader response
+     * @throws CommConnectionException if an communication exception occurs
+     * @throws RFIDReaderException if the reader responds with an error
+     */
+    String send(String command) throws CommConnectionException, RFIDReaderException;
+  }
+
+  private final Sender sender;
+  private volatile long pauses;
+  private volatile long lastPause;
+  private volatile long maxPause;
+
+  /**
+   * @param sender sends the stop and start commands of the inventory
+   */
+  public InventoryPause(Sender sender) {
+    if (null == sender) {
+      throw new NullPointerException();
+    }
+    this.sender = sender;
+  }
+
+  /**
+   * Stop the continuous inventory, execute the command and restart the inventory. The caller holds
+   * the communication lock, so no other command delays the restart. If the command fails, a failed
+   * restart is added as suppressed exception to the error of the command.
+   *
+   * @param <R> the result type
+   * @param inventoryCommand the start command of the running inventory, e.g. <code>AT+CINV</code>
+   * @param command the command
+   * @return the command result
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs
+   */
+  public <R> R execute(String inventoryCommand, CommandScheduler.Command<R> command)
+      throws CommConnectionException, RFIDReaderException {
+    long start = System.nanoTime();
+    try {
+      sender.send("AT+B" + inventoryCommand.substring(4));
+    } catch (RFIDReaderException e) {
+      if (null == e.getMessage() || !e.getMessage().contains("is not running")) {
+        throw e;
+      }
+    }
+    Throwable error = null;
+    try {
+      return command.execute();
+    } catch (Throwable e) {
+      error = e;
+      throw e;
+    } finally {
+      try {
+        sender.send(inventoryCommand);
+      } catch (CommConnectionException | RFIDReaderException | RuntimeException e) {
+        if (null == error) {
+          throw e;
+        }
+        error.addSuppressed(e);
+      } finally {
+        long pause = System.nanoTime() - start;
+        lastPause = pause;
+        if (maxPause < pause) {
+          maxPause = pause;
+        }
+        pauses++;
+      }
+    }
+  }
+
+  /**
+   * @return the number of inventory pauses
+   */
+  public long getPauses() {
+    return pauses;
+  }
+
+  /**
+   * @return the duration of the last inventory pause in milliseconds
+   */
+  public double getLastPause() {
+    return lastPause / 1e6;
+  }
+
+  /**
+   * @return the maximum duration of the inventory pauses in milliseconds
+   */
+  public double getMaxPause() {
+    return maxPause / 1e6;
+  }
+}
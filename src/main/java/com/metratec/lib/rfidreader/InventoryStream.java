@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.InventoryRound;
+import com.metratec.lib.rfidreader.event.InventoryStreamListener;
+import com.metratec.lib.tag.RfidTag;
+
+/**
+ * Streaming inventory of the AT readers. Parses the data lines of an inventory response (e.g.
+ * <code>AT+MINV</code>) as they are received and passes the tags to the listener. The complete
+ * response is added to the inventory, also if the listener stopped the stream. Pass the stream as
+ * data listener to {@link AtCommandPipeline#submit(String, String, long, Consumer)} and wait for
+ * the future of {@link #until(CompletableFuture)}.
+ *
+ * @author mn
+ *
+ * @param <T> the tag type
+ */
+public class InventoryStream<T extends RfidTag> implements Consumer<String> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetratecReader.class);
+
+  /**
+   * Parses a tag line of the inventory response
+   *
+   * @param <T> the tag type
+   */
+  public interface Parser<T> {
+    /**
+     * @param line the tag line with the prefix, e.g. <code>+MINV: 3034257BF468D480000003EC</code>
+     * @return the tags of the line
+     * @throws RFIDReaderException if the line is invalid
+     */
+    List<T> parse(String line) throws RFIDReaderException;
+  }
+
+  private final InventoryStreamListener<T> listener;
+  private final int prefixLength;
+  private final boolean throwAntennaErrors;
+  private final Parser<T> parser;
+  private final BiConsumer<List<T>, List<InventoryRound<T>>> inventoryHandler;
+  /** completed if the listener stopped the stream */
+  private final CompletableFuture<String> stopped = new CompletableFuture<>();
+  /** the following fields are only used by the receive thread until the response is completed */
+  private final List<T> tags = new ArrayList<>();
+  private final List<T> streamedTags = new ArrayList<>();
+  private final List<InventoryRound<T>> rounds = new ArrayList<>();
+  private int roundStart;
+  private String antennaError;
+  private final List<String> errors = new ArrayList<>();
+
+  /**
+   * @param listener receives the tags and the finished antenna rounds
+   * @param prefixLength the length of the line prefix, e.g. 7 for <code>+MINV: </code>
+   * @param throwAntennaErrors true to complete the stream with an error if an antenna reports an
+   *        error
+   * @param parser parses the tag lines
+   * @param inventoryHandler receives all tags and rounds of the complete response, e.g. to update
+   *        the inventory
+   */
+  public InventoryStream(InventoryStreamListener<T> listener, int prefixLength,
+      boolean throwAntennaErrors, Parser<T> parser,
+      BiConsumer<List<T>, List<InventoryRound<T>>> inventoryHandler) {
+    if (null == listener || null == parser || null == inventoryHandler) {
+      throw new NullPointerException();
+    }
+    this.listener = listener;
+    this.prefixLength = prefixLength;
+    this.throwAntennaErrors = throwAntennaErrors;
+    this.parser = parser;
+    this.inventoryHandler = inventoryHandler;
+  }
+
+  /**
+   * @param response the response future of the inventory command
+   * @return a future, which is completed with the response or with null if the listener stopped.
+   *         It is completed exceptionally with an {@link RFIDReaderException} for antenna errors
+   *         and with the exception of the listener.
+   */
+  public CompletableFuture<String> until(CompletableFuture<String> response) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    response.whenComplete((data, error) -> {
+      if (null != error) {
+        result.completeExceptionally(error);
+        return;
+      }
+      if (null != antennaError) {
+        // error without a finished round
+        errors.add(antennaError);
+      }
+      if (throwAntennaErrors && !errors.isEmpty()) {
+        result.completeExceptionally(
+            new RFIDReaderException(RFIDErrorCodes.ARH, String.join(", ", errors)));
+        return;
+      }
+      inventoryHandler.accept(tags, rounds);
+      result.complete(data);
+    });
+    stopped.whenComplete((data, error) -> {
+      if (null != error) {
+        result.completeExceptionally(error);
+      } else {
+        result.complete(data);
+      }
+    });
+    return result;
+  }
+
+  @Override
+  public void accept(String response) {
+    for (String line : response.split("\r")) {
+      if (line.length() <= prefixLength || '+' != line.charAt(0)) {
+        continue;
+      }
+      if ('<' == line.charAt(prefixLength)) {
+        messageReceived(line.substring(prefixLength).split(","));
+        continue;
+      }
+      try {
+        for (T tag : parser.parse(line)) {
+          tags.add(tag);
+          if (!stopped.isDone()) {
+            streamedTags.add(tag);
+            notifyListener(() -> listener.tagFound(tag));
+          }
+        }
+      } catch (RFIDReaderException e) {
+        LOGGER.debug("Error parse inventory - {}", e.toString());
+      }
+    }
+  }
+
+  private void messageReceived(String[] message) {
+    // <ROUND FINISHED, ANT=2> <NO TAGS FOUND> <Antenna Error>
+    switch (message[0].charAt(1)) {
+      case 'R': // Round finished
+        Integer antenna = null;
+        if (message.length > 1) {
+          try {
+            antenna = Integer.parseInt(message[1].substring(5, message[1].length() - 1));
+            for (T tag : tags.subList(roundStart, tags.size())) {
+              tag.setAntenna(antenna);
+            }
+          } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            LOGGER.debug("Invalid antenna value in response: {}", message[1]);
+          }
+        }
+        if (null != antennaError) {
+          errors.add(String.format("%s %s", antennaError, null != antenna ? antenna : ""));
+          antennaError = null;
+        }
+        InventoryRound<T> round =
+            new InventoryRound<>(antenna, new ArrayList<>(tags.subList(roundStart, tags.size())));
+        roundStart = tags.size();
+        rounds.add(round);
+        if (!stopped.isDone()) {
+          notifyListener(() -> listener.roundFinished(round));
+        }
+        break;
+      case 'N': // No Tags
+        break;
+      default:
+        antennaError = message[0].substring(1, message[0].length() - 1);
+    }
+  }
+
+  private void notifyListener(BooleanSupplier notification) {
+    try {
+      if (!notification.getAsBoolean()) {
+        stopped.complete(null);
+      }
+    } catch (RuntimeException e) {
+      stopped.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * @return the tags passed to the listener, call after the stream is completed or stopped
+   */
+  public List<T> getStreamedTags() {
+    return streamedTags;
+  }
+}
@@ -5,8 +5,13 @@ package com.metratec.lib.rfidreader;
 
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,10 +23,20 @@ import com.metratec.lib.inventory.event.InventoryListener;
 import com.metratec.lib.inventory.event.TagArrivedEvent;
 import com.metratec.lib.inventory.event.TagDepartedEvent;
 import com.metratec.lib.rfidreader.event.EventHandler;
+import com.metratec.lib.rfidreader.event.EventHandler.OverflowPolicy;
+import com.metratec.lib.rfidreader.event.EventHandler.WaitStrategy;
+import com.metratec.lib.rfidreader.event.EventPool;
+import com.metratec.lib.rfidreader.event.EventSpillQueue;
+import com.metratec.lib.rfidreader.event.EventPublisher;
+import com.metratec.lib.rfidreader.event.ListenerQueue;
+import com.metratec.lib.rfidreader.event.RfidEvent;
 import com.metratec.lib.rfidreader.event.RfidReaderConnectionState;
 import com.metratec.lib.rfidreader.event.RfidReaderEventListener;
 import com.metratec.lib.rfidreader.event.RfidReaderInputChange;
+import com.metratec.lib.rfidreader.event.RfidTagBatchListener;
+import com.metratec.lib.rfidreader.event.RfidTagEventCoalescer;
 import com.metratec.lib.rfidreader.event.RfidTagEventListener;
+import com.metratec.lib.rfidreader.event.RfidTagEventSetting;
 import com.metratec.lib.rfidreader.event.RfidTagFound;
 import com.metratec.lib.rfidreader.event.RfidTagLost;
 import com.metratec.lib.tag.RfidTag;
@@ -40,35 +55,76 @@ public abstract class MetratecReader<T extends RfidTag> {
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
   protected final static int DEFAULT_RECEIVE_TIMEOUT = 10000;
   private int receiveTimeout = DEFAULT_RECEIVE_TIMEOUT;
+  private volatile boolean adaptiveTimeout = false;
+  private final ResponseTimeEstimator responseTimeEstimator = new ResponseTimeEstimator();
+  private final ThreadLocal<Long> commandTimeout = new ThreadLocal<>();
   protected static final long DEFAULT_TAG_LOST_TIME = 5000;
   private final Queue<String> responseBuffer = new ConcurrentLinkedQueue<>();
 
-  private Lock lockInput0 = new ReentrantLock();
-  private Lock lockInput1 = new ReentrantLock();
-  private boolean input0 = false;
-  private boolean input1 = false;
-  private Thread input0Thread;
-  private Thread input1Thread;
-  private boolean input0Working = false;
-  private boolean input1Working = false;
+  private volatile boolean input0 = false;
+  private volatile boolean input1 = false;
   /**
    * minimum input debounce time 50ms
    */
   private static final int MIN_INPUT_DEBOUNCE_TIME = 50;
+  private static ExecutorService lifecycleExecutor;
   private int inputDebounceTime = MIN_INPUT_DEBOUNCE_TIME;
+  private final InputDebouncer inputDebouncer =
+      new InputDebouncer(this::fireInputChange, MIN_INPUT_DEBOUNCE_TIME);
 
   private EventHandler<T> eventHandler;
+  private int eventBufferSize = EventHandler.DEFAULT_CAPACITY;
+  private WaitStrategy eventWaitStrategy = WaitStrategy.BLOCKING;
+  private OverflowPolicy eventOverflowPolicy = OverflowPolicy.DROP_OLDEST;
   private Inventory<T> inventory;
+  private volatile EventPublisher<InventoryChangedEvent<T>> inventoryPublisher;
+  private RfidTagEventSetting tagEventSetting;
+  /** filters the inventory events according to the tag event setting, <code>null</code> if not set */
+  private RfidTagEventCoalescer<T> tagEventCoalescer;
+  /**
+   * Listener of the internal inventory, forwards the inventory events to the event handler
+   */
+  private InventoryListener<T> inventoryListener = new InventoryListener<T>() {
+
+    @Override
+    public void tagArrive(TagArrivedEvent<T> tagArrived) {
+      if (null == eventHandler || !eventHandler.hasTagListener())
+        return;
+      eventHandler.tagFound(getIdentifier(), tagArrived.getTag(), tagArrived.getTimestamp());
+    }
+
+    @Override
+    public void inventoryChanged(InventoryChangedEvent<T> readPointInventoryChanged) {
+      EventPublisher<InventoryChangedEvent<T>> publisher = inventoryPublisher;
+      if (null != publisher)
+        publisher.publish(readPointInventoryChanged);
+      if (null == eventHandler)
+        return;
+      eventHandler.tagBatch(readPointInventoryChanged.getNewTags(), readPointInventoryChanged.getLostTags());
+    }
+
+    @Override
+    public void tagDeparted(TagDepartedEvent<T> tagDeparted) {
+      if (null == eventHandler || !eventHandler.hasTagListener())
+        return;
+      eventHandler.tagLost(getIdentifier(), tagDeparted.getTag(), tagDeparted.getTimestamp());
+    }
+
+  };
 
   /**
    * the receiver handler
    */
   protected RFIDDataHandler receiveHandler;
 
+  private final CommandScheduler commandScheduler = new CommandScheduler();
+
   /**
-   * communication lock for send and receive synchron
+   * communication lock for send and receive synchron, the {@link #getCommandScheduler() command
+   * scheduler} of the reader, which is granted by the command priority. If a subclass replaces the
+   * lock, the command priorities have no effect.
    */
-  protected ReentrantLock communicateLock = new ReentrantLock(true);
+  protected ReentrantLock communicateLock = commandScheduler;
 
   /**
    * Heart beat interval
@@ -106,7 +162,7 @@ public abstract class MetratecReader<T extends RfidTag> {
             return;
           }
           if (handleResponse(tmp)) {
-            responseBuffer.add(tmp);
+            responseReceived(tmp);
           }
         }, this);
       } catch (CommConnectionException e) {
@@ -116,28 +172,7 @@ public abstract class MetratecReader<T extends RfidTag> {
       throw new NullPointerException();
     }
 
-    inventory = new Inventory<>(getIdentifier(), new InventoryListener<T>() {
-
-      @Override
-      public void tagArrive(TagArrivedEvent<T> tagArrived) {
-        if (null == eventHandler)
-          return;
-        eventHandler.tagFound(new RfidTagFound<T>(getIdentifier(), tagArrived.getTag(), tagArrived.getTimestamp()));
-      }
-
-      @Override
-      public void inventoryChanged(InventoryChangedEvent<T> readPointInventoryChanged) {
-
-      }
-
-      @Override
-      public void tagDeparted(TagDepartedEvent<T> tagDeparted) {
-        if (null == eventHandler)
-          return;
-        eventHandler.tagLost(new RfidTagLost<T>(getIdentifier(), tagDeparted.getTag(), tagDeparted.getTimestamp()));
-      }
-
-    });
+    inventory = new Inventory<>(getIdentifier(), inventoryListener);
   }
 
   protected Logger getLogger() {
@@ -162,21 +197,270 @@ public abstract class MetratecReader<T extends RfidTag> {
     updateListener(null, listener);
   }
 
+  /**
+   * Add a further tag listener with an own bounded event queue and thread, so a slow listener does
+   * not delay the other listeners.
+   * 
+   * @param listener {@link RfidTagEventListener}
+   * @param queueSize the maximum number of queued events, the oldest event is dropped if the queue
+   *        is full
+   * @return the {@link ListenerQueue} with the lag and drop metrics of the listener
+   */
+  public ListenerQueue<T> addTagEventListener(RfidTagEventListener<T> listener, int queueSize) {
+    return addTagEventListener(listener, queueSize, null);
+  }
+
+  /**
+   * Add a further tag listener with an own bounded event queue, so a slow listener does not delay
+   * the other listeners.
+   * 
+   * @param listener {@link RfidTagEventListener}
+   * @param queueSize the maximum number of queued events, the oldest event is dropped if the queue
+   *        is full
+   * @param executor the executor which calls the listener (e.g. a virtual thread executor),
+   *        <code>null</code> for an own thread
+   * @return the {@link ListenerQueue} with the lag and drop metrics of the listener
+   */
+  public ListenerQueue<T> addTagEventListener(RfidTagEventListener<T> listener, int queueSize,
+      Executor executor) {
+    initEventHandler();
+    return eventHandler.addTagListener(listener, queueSize, executor);
+  }
+
+  /**
+   * Add a further reader listener with an own bounded event queue, so a slow listener does not
+   * delay the other listeners.
+   * 
+   * @param listener {@link RfidReaderEventListener}
+   * @param queueSize the maximum number of queued events, the oldest event is dropped if the queue
+   *        is full
+   * @param executor the executor which calls the listener (e.g. a virtual thread executor),
+   *        <code>null</code> for an own thread
+   * @return the {@link ListenerQueue} with the lag and drop metrics of the listener
+   */
+  public ListenerQueue<T> addReaderEventListener(RfidReaderEventListener listener, int queueSize,
+      Executor executor) {
+    initEventHandler();
+    return eventHandler.addReaderListener(listener, queueSize, executor);
+  }
+
+  /**
+   * Remove and close a listener added with {@link #addTagEventListener(RfidTagEventListener, int)}
+   * or {@link #addReaderEventListener(RfidReaderEventListener, int, Executor)}
+   * 
+   * @param listener the {@link ListenerQueue} of the listener
+   * @return <code>true</code> if the listener was removed
+   */
+  public boolean removeEventListener(ListenerQueue<T> listener) {
+    return null != eventHandler && eventHandler.removeListener(listener);
+  }
+
+  /**
+   * Get the publisher of the tag and reader events ({@link com.metratec.lib.rfidreader.event.RfidTagFound
+   * RfidTagFound}, {@link com.metratec.lib.rfidreader.event.RfidTagLost RfidTagLost},
+   * {@link RfidReaderInputChange} and {@link RfidReaderConnectionState}). The subscribers receive
+   * the events according to their demand, the events without demand are handled by the
+   * {@link EventPublisher.DemandPolicy} of the subscriber.
+   * 
+   * @return the {@link EventPublisher} of the reader
+   */
+  public synchronized EventPublisher<RfidEvent> getEventPublisher() {
+    initEventHandler();
+    EventPublisher<RfidEvent> publisher = eventHandler.getEventPublisher();
+    if (null == publisher) {
+      publisher = new EventPublisher<>();
+      eventHandler.setEventPublisher(publisher);
+    }
+    return publisher;
+  }
+
+  /**
+   * Get the publisher of the inventory changes, the events are published with each inventory
+   * change of the internal inventory.
+   * 
+   * @return the {@link EventPublisher} of the inventory changes
+   */
+  public synchronized EventPublisher<InventoryChangedEvent<T>> getInventoryPublisher() {
+    if (null == inventoryPublisher) {
+      inventoryPublisher = new EventPublisher<>();
+    }
+    return inventoryPublisher;
+  }
+
+  /**
+   * Set a listener, which receives all tags found and lost in an inventory round as one batch.
+   * 
+   * @param listener {@link RfidTagBatchListener}, <code>null</code> to remove the listener
+   */
+  public void setTagBatchListener(RfidTagBatchListener<T> listener) {
+    setTagBatchListener(listener, 0);
+  }
+
+  /**
+   * Set a listener, which receives all tags found and lost in a flush interval as one batch. The
+   * batch listener can be used in addition to the {@link RfidTagEventListener}.
+   * 
+   * @param listener {@link RfidTagBatchListener}, <code>null</code> to remove the listener
+   * @param flushInterval the flush interval in milliseconds, 0 to receive the tags of each
+   *        inventory round separately
+   */
+  public void setTagBatchListener(RfidTagBatchListener<T> listener, long flushInterval) {
+    if (flushInterval < 0) {
+      throw new IllegalArgumentException("flush interval must not be negative");
+    }
+    if (null == listener) {
+      if (null != eventHandler) {
+        eventHandler.setTagBatchListener(null, 0);
+      }
+      return;
+    }
+    initEventHandler();
+    eventHandler.setTagBatchListener(listener, flushInterval);
+  }
+
   protected EventHandler<T> getEventHandler() {
     return eventHandler;
   }
 
+  /**
+   * Configure the event dispatching. The default is a buffer for 1024 events, a blocking wait
+   * strategy and dropping the oldest event if the buffer is full.<br>
+   * <b>Note:</b> With {@link OverflowPolicy#BLOCK} the receive thread of the reader waits for the
+   * event listener, so the listener must not call reader commands while the buffer is full.
+   *
+   * @param bufferSize size of the event buffer, rounded up to the next power of two
+   * @param waitStrategy how the event thread waits for new events
+   * @param overflowPolicy what happens with a new event if the event buffer is full
+   */
+  public void setEventHandlerSettings(int bufferSize, WaitStrategy waitStrategy,
+      OverflowPolicy overflowPolicy) {
+    if (null == waitStrategy || null == overflowPolicy) {
+      throw new NullPointerException();
+    }
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("buffer size must be greater than 0");
+    }
+    this.eventBufferSize = bufferSize;
+    this.eventWaitStrategy = waitStrategy;
+    this.eventOverflowPolicy = overflowPolicy;
+    if (null == eventHandler) {
+      return;
+    }
+    int capacity = eventHandler.getCapacity();
+    if (capacity >= bufferSize && capacity / 2 < bufferSize) {
+      // same buffer size after rounding to a power of two
+      eventHandler.setWaitStrategy(waitStrategy);
+      eventHandler.setOverflowPolicy(overflowPolicy);
+      return;
+    }
+    // replace the event handler, the pending events are dispatched by the old one
+    EventHandler<T> oldHandler = eventHandler;
+    boolean running = oldHandler.isAlive();
+    eventHandler = createEventHandler();
+    eventHandler.setReaderListener(oldHandler.getReaderListener());
+    eventHandler.setTagListener(oldHandler.getTagListener());
+    eventHandler.setTagBatchListener(oldHandler.getTagBatchListener(), oldHandler.getTagBatchInterval());
+    eventHandler.setEventPublisher(oldHandler.getEventPublisher());
+    EventPool<T> pool = oldHandler.getEventPool();
+    if (null != pool) {
+      eventHandler.setEventPool(
+          new EventPool<T>(2 * eventHandler.getCapacity() + 1, pool.isDebugGuard()));
+    }
+    // the queued events of the lanes are delivered by the new handler
+    oldHandler.moveDispatchLanes(eventHandler);
+    // the spill queue has only one reader
+    eventHandler.setSpillQueue(oldHandler.getSpillQueue());
+    oldHandler.setSpillQueue(null);
+    for (ListenerQueue<T> queue : oldHandler.getListenerQueues()) {
+      eventHandler.addListener(queue);
+    }
+    receiveHandler.setEventHandler(eventHandler);
+    if (running) {
+      oldHandler.stop();
+      startHandler();
+    }
+  }
+
+  /**
+   * Recycle the {@link RfidTagFound} and {@link RfidTagLost} events. A pooled event is reused after
+   * the tag event listener returns, so the listener must not keep a reference to the event or use
+   * it in another thread. Events for dispatch lanes, additional listeners or subscribers are not
+   * recycled.
+   * 
+   * @param enable <code>true</code> to use pooled events
+   * @param debugGuard <code>true</code> to throw an {@link IllegalStateException} if a released
+   *        event is used, the released events are not reused then (for testing the listeners)
+   */
+  public void setPooledEvents(boolean enable, boolean debugGuard) {
+    initEventHandler();
+    // the buffer and a taken batch of events can be in use at the same time
+    eventHandler.setEventPool(
+        enable ? new EventPool<T>(2 * eventHandler.getCapacity() + 1, debugGuard) : null);
+  }
+
+  /**
+   * Set the durable overflow tier of the event buffer. With {@link OverflowPolicy#SPILL}, the events
+   * are written to the spill queue if the event buffer is full and dispatched in order when the
+   * listeners catch up. Events spilled in a previous run are dispatched after the start.
+   * 
+   * @param spillQueue the {@link EventSpillQueue}, <code>null</code> to remove the spill queue. The
+   *        spill queue is not closed by the reader.
+   */
+  public void setEventSpillQueue(EventSpillQueue spillQueue) {
+    initEventHandler();
+    eventHandler.setSpillQueue(spillQueue);
+  }
+
+  /**
+   * Dispatch the events of the tag event listener in parallel lanes. The tag id is hashed into a
+   * lane, so the found and lost events of a tag keep their order, while different tags are
+   * processed in parallel. The listener must be thread safe.
+   * 
+   * @param numberOfLanes the number of lanes, 0 or 1 to dispatch the events in one thread
+   * @param laneQueueSize the maximum number of queued events per lane, if a lane is full the event
+   *        thread waits and the overflow policy of the event buffer applies
+   */
+  public void setEventDispatchLanes(int numberOfLanes, int laneQueueSize) {
+    initEventHandler();
+    eventHandler.setDispatchLanes(numberOfLanes, laneQueueSize);
+  }
+
+  /**
+   * @return the number of queued events of each dispatch lane, an empty array if the events are
+   *         dispatched in one thread
+   */
+  public int[] getEventLaneDepths() {
+    return null != eventHandler ? eventHandler.getLaneDepths() : new int[0];
+  }
+
+  /**
+   * @return the number of events published to the event listeners, 0 if no listener is set
+   */
+  public long getPublishedEventCount() {
+    return null != eventHandler ? eventHandler.getPublishedEvents() : 0;
+  }
+
+  /**
+   * @return the number of events delivered to the event listeners, 0 if no listener is set
+   */
+  public long getDeliveredEventCount() {
+    return null != eventHandler ? eventHandler.getDeliveredEvents() : 0;
+  }
+
+  /**
+   * @return the number of events dropped because of a full event buffer, 0 if no listener is set
+   */
+  public long getDroppedEventCount() {
+    return null != eventHandler ? eventHandler.getDroppedEvents() : 0;
+  }
+
+  private EventHandler<T> createEventHandler() {
+    return new EventHandler<T>(getIdentifier(), eventBufferSize, eventWaitStrategy, eventOverflowPolicy);
+  }
+
   private void updateListener(RfidReaderEventListener readerListener, RfidTagEventListener<T> tagListener) {
     if (null != readerListener || null != tagListener) {
-      if (null == eventHandler) {
-        eventHandler = new EventHandler<T>(getIdentifier());
-        receiveHandler.setEventHandler(eventHandler);
-        if (isConnected()) {
-          startHandler();
-          eventHandler.connectionState(
-              new RfidReaderConnectionState(getIdentifier(), isConnected(), receiveHandler.getStateMessage()));
-        }
-      }
+      initEventHandler();
       if (null != readerListener) {
         eventHandler.setReaderListener(readerListener);
       }
@@ -188,16 +472,21 @@ public abstract class MetratecReader<T extends RfidTag> {
     }
   }
 
-  @SuppressWarnings("PMD.EmptyCatchBlock")
+  private void initEventHandler() {
+    if (null == eventHandler) {
+      eventHandler = createEventHandler();
+      receiveHandler.setEventHandler(eventHandler);
+      if (isConnected()) {
+        startHandler();
+        eventHandler.connectionState(
+            new RfidReaderConnectionState(getIdentifier(), isConnected(), receiveHandler.getStateMessage()));
+      }
+    }
+  }
+
   private void startHandler() {
     if (null != eventHandler && !eventHandler.isAlive()) {
       eventHandler.start();
-      while (!eventHandler.isAlive()) {
-        try {
-          Thread.sleep(1);
-        } catch (InterruptedException e) {
-        }
-      }
     }
   }
 
@@ -205,16 +494,26 @@ public abstract class MetratecReader<T extends RfidTag> {
   private void stopHandler() {
     if (null != eventHandler) {
       eventHandler.setReaderListener(null);
-      eventHandler.stop();
-      while (eventHandler.isAlive()) {
+      CompletableFuture<Void> stopped = eventHandler.stopAsync();
+      while (!stopped.isDone()) {
         try {
-          Thread.sleep(50);
-        } catch (InterruptedException e) {
+          stopped.get();
+        } catch (InterruptedException | ExecutionException e) {
         }
       }
     }
   }
 
+  /**
+   * @return the shared executor for the blocking parts of the asynchronous lifecycle methods
+   */
+  private static synchronized ExecutorService getLifecycleExecutor() {
+    if (null == lifecycleExecutor) {
+      lifecycleExecutor = ReaderThreads.newExecutor("ReaderLifecycle");
+    }
+    return lifecycleExecutor;
+  }
+
   /**
    * <b>For internal use!</b><br>
    * get the reader answer
@@ -223,9 +522,21 @@ public abstract class MetratecReader<T extends RfidTag> {
    * @throws CommConnectionException if an communication exception occurs
    * @throws RFIDReaderException throw {@link RFIDErrorCodes#SRT} if the reader has been reset
    */
-  @SuppressWarnings("PMD.EmptyCatchBlock")
   protected String receiveData() throws CommConnectionException, RFIDReaderException {
-    long endTime = System.currentTimeMillis() + receiveTimeout;
+    return receiveData(receiveTimeout);
+  }
+
+  /**
+   * <b>For internal use!</b><br>
+   * get the reader answer
+   * 
+   * @param timeout the receive timeout in milliseconds
+   * @return the reader answer
+   * @throws CommConnectionException if the reader did not respond within the timeout or the
+   *         thread is interrupted
+   */
+  protected String receiveData(long timeout) throws CommConnectionException {
+    long endTime = System.currentTimeMillis() + timeout;
     while (responseBuffer.isEmpty()) {
       if (System.currentTimeMillis() > endTime) {
         // checkHardReset();
@@ -234,11 +545,22 @@ public abstract class MetratecReader<T extends RfidTag> {
       try {
         Thread.sleep(1);
       } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CommConnectionException(ICommConnection.UNHANDLED_ERROR, "interrupted");
       }
     }
     return responseBuffer.poll();
   }
 
+  /**
+   * Called by the receive thread with a response line, which is not handled as an event
+   * 
+   * @param response the response line
+   */
+  protected void responseReceived(String response) {
+    responseBuffer.add(response);
+  }
+
   /**
    * clear the response buffer
    */
@@ -280,6 +602,48 @@ public abstract class MetratecReader<T extends RfidTag> {
     receiveHandler.setIdentifier(identifier);
   }
 
+  /**
+   * Execute reader commands with a priority. The commands of a higher priority get the reader
+   * before the waiting commands of a lower priority, e.g. a tag write on a conveyor before the
+   * status polling.<br>
+   * Example: <code>reader.executeWithPriority(Priority.REALTIME, 50, () -&gt;
+   * reader.getInventory());</code>
+   *
+   * @param <R> the result type
+   * @param priority the priority of the commands
+   * @param deadline the time in milliseconds, within the commands should get the reader, 0 for no
+   *        deadline. Commands of the same priority are ordered by their deadline.
+   * @param command the reader commands
+   * @return the command result
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs
+   */
+  public <R> R executeWithPriority(CommandScheduler.Priority priority, long deadline,
+      CommandScheduler.Command<R> command) throws CommConnectionException, RFIDReaderException {
+    return commandScheduler.execute(priority, deadline, command);
+  }
+
+  /**
+   * Acquire the communication lock, an interrupt cancels the waiting command
+   *
+   * @throws CommConnectionException if the thread is interrupted
+   */
+  protected void lockInterruptibly() throws CommConnectionException {
+    try {
+      communicateLock.lockInterruptibly();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CommConnectionException(ICommConnection.UNHANDLED_ERROR, "interrupted");
+    }
+  }
+
+  /**
+   * @return the command scheduler with the queueing delay statistics of the priorities
+   */
+  public CommandScheduler getCommandScheduler() {
+    return commandScheduler;
+  }
+
   /**
    * @param command command
    * @param parameters parameters
@@ -339,31 +703,87 @@ public abstract class MetratecReader<T extends RfidTag> {
    * @throws RFIDReaderException if an error occurs
    * 
    */
-  @SuppressWarnings("PMD.EmptyCatchBlock")
   public void startAndWait(long timeout) throws CommConnectionException, RFIDReaderException {
+    try {
+      startAsync().get(timeout, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof CommConnectionException) {
+        throw (CommConnectionException) cause;
+      } else if (cause instanceof RFIDReaderException) {
+        throw (RFIDReaderException) cause;
+      }
+      throw new CommConnectionException(ICommConnection.UNHANDLED_ERROR, receiveHandler.getStateMessage());
+    } catch (TimeoutException e) {
+      throw new CommConnectionException(receiveHandler.getStateMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CommConnectionException(ICommConnection.UNHANDLED_ERROR, "interrupted");
+    }
+  }
+
+  /**
+   * Start the reader without waiting. The future is completed by the state change of the reader, so
+   * no thread waits for the connection.
+   * 
+   * @return the future, which is completed if the reader is connected and initialized, completed
+   *         exceptionally with a {@link CommConnectionException} or an {@link RFIDReaderException}
+   *         if the first connection attempt failed. The reader keeps trying to reconnect.
+   */
+  public CompletableFuture<Void> startAsync() {
     start();
-    long timeoutTime = System.currentTimeMillis() + timeout;
-    while (!isConnected() && System.currentTimeMillis() < timeoutTime) {
-      if (receiveHandler.getHandlerState() == STATE_WAITING_FOR_RECONNECT) {
-        Exception e = receiveHandler.getLastException();
-        if (CommConnectionException.class.isInstance(e)) {
-          throw (CommConnectionException) e;
-        } else if (RFIDReaderException.class.isInstance(e)) {
-          throw (RFIDReaderException) e;
-        } else {
-          throw new CommConnectionException(ICommConnection.UNHANDLED_ERROR, receiveHandler.getStateMessage());
-        }
+    return receiveHandler.awaitRunning();
+  }
+
+  /**
+   * Stop the reader without blocking the calling thread. The reader commands of the stop (e.g. stop
+   * the inventory) are sent by a shared lifecycle thread.
+   * 
+   * @return the future, which is completed if the reader is stopped, completed exceptionally with a
+   *         {@link CommConnectionException} if an error occurs
+   */
+  public CompletableFuture<Void> stopAsync() {
+    CompletableFuture<Void> stopped = new CompletableFuture<>();
+    getLifecycleExecutor().execute(() -> {
+      try {
+        stop();
+        stopped.complete(null);
+      } catch (CommConnectionException | RuntimeException e) {
+        stopped.completeExceptionally(e);
       }
+    });
+    return stopped;
+  }
+
+  /**
+   * Reset the reader without blocking the calling thread. The reset is executed by a shared
+   * lifecycle thread.
+   * 
+   * @return the future, which is completed if the reader is reset and connected again, completed
+   *         exceptionally with a {@link CommConnectionException} or an {@link RFIDReaderException}
+   *         if an error occurs
+   */
+  public CompletableFuture<Void> resetAsync() {
+    CompletableFuture<Void> reset = new CompletableFuture<>();
+    getLifecycleExecutor().execute(() -> {
       try {
-        Thread.sleep(20);
-      } catch (InterruptedException e) {
+        reset();
+        reset.complete(null);
+      } catch (CommConnectionException | RFIDReaderException | RuntimeException e) {
+        reset.completeExceptionally(e);
       }
-    }
-    if (!isConnected()) {
-      throw new CommConnectionException(receiveHandler.getStateMessage());
-    }
+    });
+    return reset;
   }
 
+  /**
+   * Reset the reader
+   * 
+   * @throws RFIDReaderException if a error occurs
+   * @throws CommConnectionException if a error occurs
+   */
+  public abstract void reset() throws RFIDReaderException, CommConnectionException;
+
   /**
    * start the reader but also wait until the reader is connected and initialized
    * 
@@ -546,12 +966,78 @@ public abstract class MetratecReader<T extends RfidTag> {
   }
 
   /**
-   * @param receiveTimeout the receiveTimeout to set
+   * @param receiveTimeout the receiveTimeout to set, with adaptive timeouts the maximum timeout
    */
   public void setReceiveTimeout(int receiveTimeout) {
     this.receiveTimeout = 0 < receiveTimeout ? receiveTimeout : DEFAULT_RECEIVE_TIMEOUT;
   }
 
+  /**
+   * @return true if the timeout of a command is estimated from its previous response times
+   */
+  public boolean isAdaptiveTimeout() {
+    return adaptiveTimeout;
+  }
+
+  /**
+   * Adaptive timeouts are disabled by default. With adaptive timeouts a command, whose response
+   * time rises suddenly (e.g. an inventory with more tags in the field than before), times out
+   * until the timeout is doubled often enough, so use
+   * {@link #executeWithTimeout(long, CommandScheduler.Command)} for such commands.
+   *
+   * @param adaptiveTimeout true to estimate the timeout of a command from its previous response
+   *        times (limited by the receive timeout), false to use the receive timeout for all
+   *        commands
+   */
+  public void setAdaptiveTimeout(boolean adaptiveTimeout) {
+    this.adaptiveTimeout = adaptiveTimeout;
+  }
+
+  /**
+   * @return the response time estimator of the adaptive timeouts
+   */
+  public ResponseTimeEstimator getResponseTimeEstimator() {
+    return responseTimeEstimator;
+  }
+
+  /**
+   * Execute reader commands with an explicit response timeout, e.g. for a long inventory. The
+   * commands of the current thread use the timeout instead of the adaptive timeout.
+   *
+   * @param <R> the result type
+   * @param timeout the response timeout in milliseconds
+   * @param command the reader commands
+   * @return the command result
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs
+   */
+  public <R> R executeWithTimeout(long timeout, CommandScheduler.Command<R> command)
+      throws CommConnectionException, RFIDReaderException {
+    if (timeout <= 0) {
+      throw new IllegalArgumentException("timeout must be positive");
+    }
+    Long previousTimeout = commandTimeout.get();
+    commandTimeout.set(timeout);
+    try {
+      return command.execute();
+    } finally {
+      commandTimeout.set(previousTimeout);
+    }
+  }
+
+  /**
+   * @param command the command name
+   * @return the response timeout of the command in milliseconds
+   */
+  protected long getCommandTimeout(String command) {
+    Long timeout = commandTimeout.get();
+    if (null != timeout) {
+      return timeout;
+    }
+    return adaptiveTimeout ? responseTimeEstimator.getTimeout(command, receiveTimeout)
+        : receiveTimeout;
+  }
+
   /**
    * method are called after the device is connected
    * 
@@ -569,10 +1055,16 @@ public abstract class MetratecReader<T extends RfidTag> {
   }
 
   /**
-   * @param inputDebounceTime the inputDebounceTime to set (minimum 50ms)
+   * @param inputDebounceTime the inputDebounceTime to set (minimum 50ms), 0 to report every input
+   *        change immediately
    */
   public void setInputDebounceTime(int inputDebounceTime) {
-    this.inputDebounceTime = inputDebounceTime > MIN_INPUT_DEBOUNCE_TIME ? inputDebounceTime : MIN_INPUT_DEBOUNCE_TIME;
+    if (inputDebounceTime <= 0) {
+      this.inputDebounceTime = 0;
+    } else {
+      this.inputDebounceTime = inputDebounceTime > MIN_INPUT_DEBOUNCE_TIME ? inputDebounceTime : MIN_INPUT_DEBOUNCE_TIME;
+    }
+    inputDebouncer.setDebounceTime(this.inputDebounceTime);
   }
 
   /**
@@ -603,97 +1095,29 @@ public abstract class MetratecReader<T extends RfidTag> {
     this.input1 = input1;
   }
 
-  @SuppressWarnings("PMD.EmptyCatchBlock")
-  protected void startNewInputThread(int input) {
-    if (input == 0) {
-      if (input0Working) {
-        return;
-      }
-      input0Working = true;
-      input0Thread = new Thread() {
-        @Override
-        public void run() {
-          long debounceEnd = System.currentTimeMillis() + inputDebounceTime;
-          lockInput0.lock();
-          try {
-            boolean lastState = input0;
-            while (input0Working) {
-              try {
-                sleep(10);
-              } catch (InterruptedException e) {
-              }
-              try {
-                boolean nextState = getInput(0);
-                if (lastState != nextState) {
-                  debounceEnd = System.currentTimeMillis() + inputDebounceTime;
-                  lastState = nextState;
-                }
-              } catch (RFIDReaderException | CommConnectionException e) {
-                if (getLogger().isTraceEnabled()) {
-                  getLogger().trace(e.getMessage(), e);
-                }
-              }
-              input0Working = System.currentTimeMillis() < debounceEnd;
-            }
-            if (lastState != input0) {
-              input0 = lastState;
-              if (null != eventHandler) {
-                RfidReaderInputChange event =
-                    new RfidReaderInputChange(getIdentifier(), System.currentTimeMillis(), 0, input0);
-                eventHandler.inputChange(event);
-              }
-            }
-          } finally {
-            lockInput0.unlock();
-          }
-        }
-      };
-      input0Thread.start();
-    } else {
-      if (input1Working) {
-        return;
-      }
-      input1Working = true;
-      input1Thread = new Thread() {
-        @Override
-        public void run() {
-          long debounceEnd = System.currentTimeMillis() + inputDebounceTime;
-          lockInput1.lock();
-          try {
-            boolean lastState = input1;
-            while (input1Working) {
-              try {
-                sleep(10);
-              } catch (InterruptedException e) {
-              }
-              try {
-                boolean nextState = getInput(1);
-                if (lastState != nextState) {
-                  debounceEnd = System.currentTimeMillis() + inputDebounceTime;
-                  lastState = nextState;
-                }
-              } catch (RFIDReaderException | CommConnectionException e) {
-                if (getLogger().isTraceEnabled()) {
-                  getLogger().trace(e.getMessage(), e);
-                }
-              }
-              input1Working = System.currentTimeMillis() < debounceEnd;
-            }
-            if (lastState != input1) {
-              input1 = lastState;
-              if (null != eventHandler) {
-                RfidReaderInputChange event =
-                    new RfidReaderInputChange(getIdentifier(), System.currentTimeMillis(), 1, input1);
-                eventHandler.inputChange(event);
-              }
-            }
-          } finally {
-            lockInput1.unlock();
-          }
-        }
+  /**
+   * Handle an input change notified by the reader, the change is reported after the input debounce
+   * time
+   * 
+   * @param input the input number
+   * @param state the new input state
+   */
+  protected void inputChanged(int input, boolean state) {
+    inputDebouncer.inputChanged(input, state);
+  }
 
-      };
-      input1Thread.start();
+  /**
+   * Report a debounced input change
+   */
+  private void fireInputChange(int input, boolean state) {
+    if (0 == input) {
+      input0 = state;
+    } else if (1 == input) {
+      input1 = state;
+    }
+    if (null != eventHandler) {
+      eventHandler.inputChange(
+          new RfidReaderInputChange(getIdentifier(), System.currentTimeMillis(), input, state));
     }
   }
 
@@ -711,17 +1135,11 @@ public abstract class MetratecReader<T extends RfidTag> {
   protected byte[] getByteFromHexString(String str) throws RFIDReaderException {
     if (1 == str.length() % 2)
       throw new RFIDReaderException(RFIDErrorCodes.WDL, "Wrong hex data Length");
-    if (!str.matches("\\p{XDigit}*"))
+    try {
+      return RuntimeSupport.parseHex(str);
+    } catch (IllegalArgumentException e) {
       throw new RFIDReaderException(RFIDErrorCodes.WPA, "No Hex String");
-    byte[] data = new byte[str.length() / 2];
-    for (int i = 0; i < data.length; i++) {
-      try {
-        data[i] = (byte) Integer.parseInt(str.substring(i * 2, i * 2 + 2), 16);
-      } catch (NumberFormatException e) {
-        throw new RFIDReaderException(RFIDErrorCodes.NER, "Invalid hex response: " + str + ": " + e.getMessage());
-      }
     }
-    return data;
   }
 
   /**
@@ -749,6 +1167,67 @@ public abstract class MetratecReader<T extends RfidTag> {
     return inventory;
   }
 
+  /**
+   * Replace the internal inventory, which creates the tag found and tag lost events of the
+   * continuous inventory, e.g. with a {@link com.metratec.lib.inventory.CompactUhfInventory} for
+   * large tag populations. Set the inventory before the continuous inventory is started.
+   *
+   * @param inventory the new inventory
+   */
+  public void setInternalInventory(Inventory<T> inventory) {
+    if (null == inventory) {
+      throw new NullPointerException();
+    }
+    inventory.setListener(null != tagEventCoalescer ? tagEventCoalescer : inventoryListener);
+    this.inventory = inventory;
+  }
+
+  /**
+   * Filter the tag events of the continuous inventory. A tag is reported if it is seen the minimum
+   * seen count within the reset interval, so stray reads are suppressed. A present tag is reported
+   * again after a reset interval up to the maximum seen count times. The found and lost tags are
+   * forwarded to the listeners every flush interval.
+   * 
+   * @param setting the {@link RfidTagEventSetting}, <code>null</code> to report every tag of the
+   *        inventory immediately
+   */
+  public synchronized void setTagEventSetting(RfidTagEventSetting setting) {
+    RfidTagEventCoalescer<T> oldCoalescer = tagEventCoalescer;
+    tagEventSetting = setting;
+    tagEventCoalescer =
+        null != setting ? new RfidTagEventCoalescer<>(getIdentifier(), setting, inventoryListener)
+            : null;
+    inventory.setListener(null != tagEventCoalescer ? tagEventCoalescer : inventoryListener);
+    if (null != oldCoalescer) {
+      oldCoalescer.close();
+    }
+  }
+
+  /**
+   * @return the tag event setting, <code>null</code> if the tag events are not filtered
+   */
+  public RfidTagEventSetting getTagEventSetting() {
+    return tagEventSetting;
+  }
+
+  /**
+   * Set the number of consecutive inventory rounds without a read on its antenna, after which a
+   * tag of a continuous inventory is lost. The tag lost time of the inventory is still used, to
+   * detect lost tags only by rounds start the inventory with a tag lost time of 0.
+   *
+   * @param rounds the number of rounds, 0 to disable (default)
+   */
+  public void setTagLostRounds(int rounds) {
+    inventory.setLostRounds(rounds);
+  }
+
+  /**
+   * @return the number of inventory rounds without a read after which a tag is lost, 0 if disabled
+   */
+  public int getTagLostRounds() {
+    return inventory.getLostRounds();
+  }
+
   /**
    * Parse the Firmware Name and return the {@link ReaderType}
    * 
@@ -8,11 +8,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import com.metratec.lib.connection.CommConnectionException;
 import com.metratec.lib.connection.ICommConnection;
-import com.metratec.lib.rfidreader.event.RfidReaderInputChange;
+import com.metratec.lib.inventory.InventoryRound;
+import com.metratec.lib.rfidreader.event.GateSessionListener;
+import com.metratec.lib.rfidreader.event.InventoryStreamListener;
 import com.metratec.lib.tag.RfidTag;
 import com.metratec.lib.tag.UhfTag;
 
@@ -29,10 +33,32 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
 
   private int currentAntennaPort;
   private boolean useSingleAntenna = true;
-  private boolean isEchoEnabled = false;
 
   private Pattern splitResponsePattern = Pattern.compile("\r");
   private Pattern splitLinePattern = Pattern.compile(",");
+  private volatile InventoryGate<T> inventoryGate;
+  private final AtCommandPipeline pipeline =
+      new AtCommandPipeline(command -> receiveHandler.sendCommand(command), this::parseErrorResponse);
+  /** the start command of the running continuous inventory, guarded by communicateLock */
+  private volatile String continuousInventory;
+  private volatile boolean inventoryPauseEnabled;
+  private volatile boolean echoEnabled = true;
+  private final InventoryPause inventoryPause =
+      new InventoryPause(command -> communicate(null, command));
+
+  /**
+   * Parses the response of an asynchronous command
+   *
+   * @param <R> the result type
+   */
+  protected interface ResponseParser<R> {
+    /**
+     * @param response the reader response
+     * @return the result
+     * @throws RFIDReaderException if the response is invalid
+     */
+    R parse(String response) throws RFIDReaderException;
+  }
 
   /**
    * Construct a new StandardReader instance with the specified connection
@@ -42,6 +68,7 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
    */
   public MetratecReaderAT(String identifier, ICommConnection connection) {
     super(identifier, connection);
+    pipeline.setResponseTimeEstimator(getResponseTimeEstimator());
   }
 
   /**
@@ -55,38 +82,23 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
    */
   protected String communicateSynchronized(String command, Object... parameters)
       throws CommConnectionException, RFIDReaderException {
+    return communicateSynchronized(null, command, parameters);
+  }
+
+  /**
+   * @param stream receives the data lines of the response, <code>null</code> for no stream
+   */
+  private String communicateSynchronized(InventoryStream<T> stream, String command,
+      Object... parameters) throws CommConnectionException, RFIDReaderException {
     if (receiveHandler.isConnected() && receiveHandler.isAlive()) {
-      communicateLock.lock();
+      lockInterruptibly();
       try {
-        clearResponseBuffer();
-        receiveHandler.sendCommand(prepareCommand(command, parameters));
-        String resp;
-        if (isEchoEnabled) {
-          resp = receiveData();
-          if (!resp.startsWith(command)) {
-            throw new RFIDReaderException(RFIDErrorCodes.NER, command + "expected, " + resp + " received");
-          }
-        }
-        String data = "";
-        while (true) {
-          resp = receiveData();
-          switch (resp.charAt(0)) {
-            case 'O': // OK
-              return data;
-            case 'E': // ERROR
-              if (data.contains("<") && data.contains(">")) {
-                data = data.substring(data.indexOf("<") + 1, data.lastIndexOf(">"));
-                throw parseErrorResponse(data);
-              }
-              throw new RFIDReaderException(RFIDErrorCodes.NER, data);
-            case 'A': // Echo
-              if (!command.startsWith(resp)) {
-                throw new RFIDReaderException(RFIDErrorCodes.NER, "Wrong response to " + command + " - " + resp);
-              }
-              break;
-          }
-          data += resp;
+        String inventoryCommand = continuousInventory;
+        if (null != inventoryCommand && inventoryPauseEnabled
+            && !isContinuousInventoryCommand(command)) {
+          return communicatePaused(inventoryCommand, stream, command, parameters);
         }
+        return communicate(stream, command, parameters);
       } finally {
         communicateLock.unlock();
       }
@@ -95,6 +107,194 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
     }
   }
 
+  private String communicate(InventoryStream<T> stream, String command, Object... parameters)
+      throws CommConnectionException, RFIDReaderException {
+    boolean startsInventory = isContinuousInventoryCommand(command) && 'C' == command.charAt(3);
+    if (isContinuousInventoryCommand(command) && !startsInventory) {
+      continuousInventory = null;
+    }
+    CompletableFuture<String> submitted = pipeline.submit(command,
+        prepareCommand(command, parameters), getCommandTimeout(command), stream);
+    String response = waitForResponse(null != stream ? stream.until(submitted) : submitted);
+    if (startsInventory) {
+      continuousInventory = command;
+    }
+    return response;
+  }
+
+  /**
+   * Stop the continuous inventory, send the command and restart the continuous inventory. The
+   * communication lock is held, so no other command delays the restart.
+   */
+  private String communicatePaused(String inventoryCommand, InventoryStream<T> stream,
+      String command, Object... parameters) throws CommConnectionException, RFIDReaderException {
+    return inventoryPause.execute(inventoryCommand, () -> communicate(stream, command, parameters));
+  }
+
+  private static boolean isContinuousInventoryCommand(String command) {
+    switch (command) {
+      case "AT+CINV":
+      case "AT+CMINV":
+      case "AT+CINVR":
+      case "AT+BINV":
+      case "AT+BMINV":
+      case "AT+BINVR":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @return true if the continuous inventory is stopped for the commands sent during the inventory
+   */
+  public boolean isInventoryPauseEnabled() {
+    return inventoryPauseEnabled;
+  }
+
+  /**
+   * Commands sent during a continuous inventory are interleaved with the inventory events by
+   * default. If the firmware does not accept commands during the continuous inventory, enable the
+   * pause, which stops the inventory for the command and restarts it immediately afterwards. The
+   * inventory and its tags are kept during the pause. Only the synchronous commands pause the
+   * inventory.
+   * 
+   * @param inventoryPauseEnabled true to stop the continuous inventory for the commands sent during
+   *        the inventory
+   */
+  public void setInventoryPauseEnabled(boolean inventoryPauseEnabled) {
+    this.inventoryPauseEnabled = inventoryPauseEnabled;
+  }
+
+  /**
+   * @return true if a continuous inventory is running
+   */
+  public boolean isContinuousInventoryRunning() {
+    return null != continuousInventory;
+  }
+
+  /**
+   * @return the number of continuous inventory pauses
+   */
+  public long getInventoryPauses() {
+    return inventoryPause.getPauses();
+  }
+
+  /**
+   * @return the duration of the last continuous inventory pause in milliseconds, from sending the
+   *         stop command to the response of the restart
+   */
+  public double getLastInventoryPause() {
+    return inventoryPause.getLastPause();
+  }
+
+  /**
+   * @return the maximum duration of the continuous inventory pauses in milliseconds
+   */
+  public double getMaxInventoryPause() {
+    return inventoryPause.getMaxPause();
+  }
+
+  private String waitForResponse(CompletableFuture<String> response)
+      throws CommConnectionException, RFIDReaderException {
+    try {
+      return response.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof CommConnectionException) {
+        throw (CommConnectionException) cause;
+      } else if (cause instanceof RFIDReaderException) {
+        throw (RFIDReaderException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RFIDReaderException(RFIDErrorCodes.NER, String.valueOf(cause));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CommConnectionException(ICommConnection.UNHANDLED_ERROR, "interrupted");
+    }
+  }
+
+  /**
+   * Sends an command to the connected reader without waiting for the response. Up to the pipeline
+   * depth commands are sent before their responses are received. The future is completed by the
+   * receive thread, so use the async methods of the future for blocking work.
+   * 
+   * @param command command
+   * @param parameters command parameters
+   * @return the future with the reader response, completed exceptionally with an
+   *         {@link RFIDReaderException} or a {@link CommConnectionException}. A command, which
+   *         is cancelled before it is sent, is not sent.
+   */
+  public CompletableFuture<String> executeCommandAsync(String command, Object... parameters) {
+    if (!receiveHandler.isWorking()) {
+      return failedFuture(new CommConnectionException(ICommConnection.CONNECTION_LOST, "not connected"));
+    }
+    return pipeline.submit(command, prepareCommand(command, parameters), getCommandTimeout(command));
+  }
+
+  /**
+   * Sends an command to the connected reader without waiting for the response and parses the
+   * response
+   * 
+   * @param <R> the result type
+   * @param parser the response parser
+   * @param command command
+   * @param parameters command parameters
+   * @return the future with the parsed response
+   */
+  protected <R> CompletableFuture<R> communicateAsync(ResponseParser<R> parser, String command,
+      Object... parameters) {
+    CompletableFuture<R> result = new CompletableFuture<>();
+    executeCommandAsync(command, parameters).whenComplete((response, error) -> {
+      if (null != error) {
+        result.completeExceptionally(error);
+        return;
+      }
+      try {
+        result.complete(parser.parse(response));
+      } catch (RFIDReaderException | RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * @param <R> the result type
+   * @param error the error
+   * @return a future completed with the error
+   */
+  protected static <R> CompletableFuture<R> failedFuture(Throwable error) {
+    CompletableFuture<R> future = new CompletableFuture<>();
+    future.completeExceptionally(error);
+    return future;
+  }
+
+  /**
+   * @return the maximum number of sent commands without a response
+   */
+  public int getPipelineDepth() {
+    return pipeline.getDepth();
+  }
+
+  /**
+   * Set the maximum number of sent commands without a response. With a depth of 1 (default) a
+   * command is sent after the response of the previous command is received.
+   * 
+   * @param depth the pipeline depth
+   */
+  public void setPipelineDepth(int depth) {
+    pipeline.setDepth(depth);
+  }
+
+  @Override
+  protected void responseReceived(String response) {
+    if (!pipeline.responseReceived(response)) {
+      super.responseReceived(response);
+    }
+  }
+
   /**
    * Send a custom command
    * 
@@ -110,9 +310,50 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
   }
 
   protected void enableEcho() throws CommConnectionException, RFIDReaderException {
-    isEchoEnabled = false;
+    pipeline.setEchoEnabled(false);
     communicateSynchronized("ATE1");
-    isEchoEnabled = true;
+    pipeline.setEchoEnabled(true);
+  }
+
+  private void disableEcho() throws CommConnectionException, RFIDReaderException {
+    // the echo of ATE0 itself is ignored by the pipeline
+    pipeline.setEchoEnabled(false);
+    communicateSynchronized("ATE0");
+  }
+
+  /**
+   * @return true if the reader echoes the commands
+   */
+  public boolean isEchoEnabled() {
+    return echoEnabled;
+  }
+
+  /**
+   * Enable or disable the command echo of the reader (default enabled). Without echo fewer bytes
+   * are transferred and parsed per command, which matters on slow serial connections. The responses
+   * are then assigned to the commands by their order and by the response prefix of the command
+   * (e.g. <code>+READ</code> for <code>AT+READ</code>). A late response to a timed out command
+   * without data lines can not be recognized without echo, so keep the echo enabled if the
+   * commands often time out. The setting is applied immediately, if the reader is connected, and
+   * after every reconnect.
+   * 
+   * @param echoEnabled true to enable the command echo
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an reader exception occurs
+   */
+  public void setEchoEnabled(boolean echoEnabled) throws CommConnectionException, RFIDReaderException {
+    this.echoEnabled = echoEnabled;
+    if (receiveHandler.isWorking()) {
+      configureEcho();
+    }
+  }
+
+  private void configureEcho() throws CommConnectionException, RFIDReaderException {
+    if (echoEnabled) {
+      enableEcho();
+    } else {
+      disableEcho();
+    }
   }
 
   /**
@@ -127,9 +368,26 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
    * @param tagEvent the event
    */
   protected void addNewInventoryEvent(List<T> tags) {
+    InventoryGate<T> gate = inventoryGate;
+    if (null != gate) {
+      gate.tagsRead(tags);
+    }
     getInternalInventory().updateInventory(tags);
   }
 
+  /**
+   * add a new rfid tag event to the event handler and finish the inventory rounds
+   * 
+   * @param tags the founded tags
+   * @param rounds the finished inventory rounds
+   */
+  protected void addNewInventoryEvent(List<T> tags, List<InventoryRound<T>> rounds) {
+    addNewInventoryEvent(tags);
+    for (InventoryRound<T> round : rounds) {
+      getInternalInventory().roundFinished(round.getAntenna(), round.getTags());
+    }
+  }
+
   @Override
   public List<T> getInventory() throws RFIDReaderException, CommConnectionException {
     if (useSingleAntenna) {
@@ -152,8 +410,9 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
     if (getInternalInventory().isAlive()) {
       return getInternalInventory().getInventory();
     } else {
-      List<T> inv = parseInventory(splitResponse(communicateSynchronized("AT+INV")), 6, true); // prefix_length
-      addNewInventoryEvent(inv);
+      List<InventoryRound<T>> rounds = new ArrayList<>();
+      List<T> inv = parseInventory(splitResponse(communicateSynchronized("AT+INV")), 6, true, rounds); // prefix_length
+      addNewInventoryEvent(inv, rounds);
       return inv;
     }
   }
@@ -194,6 +453,7 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
     } else {
       String[] answers = splitResponse(communicateSynchronized("AT+MINV"));
       List<T> inventory = new ArrayList<>();
+      List<InventoryRound<T>> rounds = new ArrayList<>();
       int last_index = 0;
       String errors = "";
       for (int i = 0; i < answers.length; i++) {
@@ -203,7 +463,7 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
           String[] antenna = Arrays.copyOfRange(answers, last_index, index);
           // prefix_length = len("+MINV: ")
           try {
-            inventory.addAll(parseInventory(antenna, 7, throwAntennaErrors));
+            inventory.addAll(parseInventory(antenna, 7, throwAntennaErrors, rounds));
           } catch (RFIDReaderException e) {
             if (!errors.isEmpty()) {
               errors += ", ";
@@ -216,7 +476,7 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
       if (!errors.isEmpty()) {
         throw new RFIDReaderException(RFIDErrorCodes.ARH, errors);
       }
-      addNewInventoryEvent(inventory);
+      addNewInventoryEvent(inventory, rounds);
       return inventory;
     }
   }
@@ -247,6 +507,81 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
     return getMultiplexInventory(throwAntennaErrors);
   }
 
+  /**
+   * Looks for all tags in range of the reader and passes every tag to the listener as soon as its
+   * response line is received, see {@link #getInventory()}
+   * 
+   * @param listener receives the tags and the finished antenna rounds, returns false to stop
+   * @return the tags passed to the listener
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs (e.g. CRC error, value out of range, ..)
+   */
+  public List<T> getInventory(InventoryStreamListener<T> listener)
+      throws RFIDReaderException, CommConnectionException {
+    if (useSingleAntenna) {
+      return getSingleInventory(listener);
+    } else {
+      return getMultiplexInventory(listener, true);
+    }
+  }
+
+  /**
+   * Looks for all tags in range of the last configured antenna port and passes every tag to the
+   * listener as soon as its response line is received, long before the reader has finished the
+   * inventory of a big tag population. If the listener stops the inventory, the method returns
+   * immediately, the remaining response is received in the background and the next command is
+   * sent after it.<br>
+   * If a continuous inventory is running, the current stored tags are passed to the listener.
+   * 
+   * @param listener receives the tags and the finished antenna rounds, returns false to stop
+   * @return the tags passed to the listener
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs (e.g. CRC error, value out of range, ..)
+   */
+  public List<T> getSingleInventory(InventoryStreamListener<T> listener)
+      throws RFIDReaderException, CommConnectionException {
+    // prefix_length = len("+INV: ")
+    return streamInventory(listener, "AT+INV", 6, true);
+  }
+
+  /**
+   * Iterate over the configured multiplex antennas and pass every tag and every finished antenna
+   * round to the listener as soon as its response line is received, see
+   * {@link #getSingleInventory(InventoryStreamListener)}
+   * 
+   * @param listener receives the tags and the finished antenna rounds, returns false to stop
+   * @param throwAntennaErrors if true, the method throw an error if one or more antennas signaling an error
+   * @return the tags passed to the listener
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs (e.g. CRC error, value out of range, ..)
+   */
+  public List<T> getMultiplexInventory(InventoryStreamListener<T> listener,
+      boolean throwAntennaErrors) throws RFIDReaderException, CommConnectionException {
+    // prefix_length = len("+MINV: ")
+    return streamInventory(listener, "AT+MINV", 7, throwAntennaErrors);
+  }
+
+  private List<T> streamInventory(InventoryStreamListener<T> listener, String command,
+      int prefixLength, boolean throwAntennaErrors) throws RFIDReaderException, CommConnectionException {
+    if (null == listener) {
+      throw new NullPointerException("listener must not be null");
+    }
+    if (getInternalInventory().isAlive()) {
+      List<T> tags = new ArrayList<>();
+      for (T tag : getInternalInventory().getInventory()) {
+        tags.add(tag);
+        if (!listener.tagFound(tag)) {
+          break;
+        }
+      }
+      return tags;
+    }
+    InventoryStream<T> stream = new InventoryStream<>(listener, prefixLength, throwAntennaErrors,
+        line -> parseInventory(new String[] {line}, prefixLength, false), this::addNewInventoryEvent);
+    communicateSynchronized(stream, command);
+    return stream.getStreamedTags();
+  }
+
   /**
    * parse the inventory response
    * 
@@ -273,6 +608,35 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
 
   protected abstract List<T> parseInventoryReport(String answers[], int prefix_length) throws RFIDReaderException;
 
+  /**
+   * parse the inventory response
+   * 
+   * @param answers reader answers
+   * @param prefix_length answer prefix length
+   * @param throwError throwing antenna errors or not
+   * @param rounds {@link List} to which the finished inventory rounds are added
+   * @return a {@link List} with the founded tags
+   * @throws RFIDReaderException if an error occurs
+   */
+  protected List<T> parseInventory(String[] answers, int prefix_length, boolean throwError,
+      List<InventoryRound<T>> rounds) throws RFIDReaderException {
+    return parseInventory(answers, prefix_length, throwError);
+  }
+
+  /**
+   * parse the inventory report response
+   * 
+   * @param answers reader answers
+   * @param prefix_length answer prefix length
+   * @param rounds {@link List} to which the finished inventory rounds are added
+   * @return a {@link List} with the founded tags
+   * @throws RFIDReaderException if an error occurs
+   */
+  protected List<T> parseInventoryReport(String[] answers, int prefix_length, List<InventoryRound<T>> rounds)
+      throws RFIDReaderException {
+    return parseInventoryReport(answers, prefix_length);
+  }
+
   /**
    * Reset the reader
    * 
@@ -402,7 +766,9 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
         commandReceived = false;
         return true;
       case '+':
-        if (commandReceived) {
+        // the events are not synchronized with the commands, e.g. the continuous inventory events
+        // arrive between the lines of a command response
+        if (isResponsePending() && !isEvent(response)) {
           return true;
         }
         // Handle Event
@@ -413,15 +779,16 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
             case 'C':
               // Inventory event
               try {
+                List<InventoryRound<T>> rounds = new ArrayList<>();
                 if (response.charAt(2) == 'M') {
                   // prefix_length = len("+CMINV: ")
-                  addNewInventoryEvent(parseInventory(splitResponse(response), 8));
+                  addNewInventoryEvent(parseInventory(splitResponse(response), 8, false, rounds), rounds);
                 } else if (response.length() > 5 && response.charAt(5) == 'R') {
                   // prefix_length = len("+CINVR: ")
-                  addNewInventoryEvent(parseInventoryReport(splitResponse(response), 8));
+                  addNewInventoryEvent(parseInventoryReport(splitResponse(response), 8, rounds), rounds);
                 } else {
                   // prefix_length = len("+CINV: ")
-                  addNewInventoryEvent(parseInventory(splitResponse(response), 7));
+                  addNewInventoryEvent(parseInventory(splitResponse(response), 7, false, rounds), rounds);
                 }
               } catch (RFIDReaderException e) {
                 getLogger().debug("Error parse inventory - {}", e.toString());
@@ -433,25 +800,37 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
                 // +IEV: 1,HIGH
                 // +IEV: 2,LOW
                 String[] split = splitLine(response.substring(6));
-                getEventHandler().inputChange(new RfidReaderInputChange(getIdentifier(), System.currentTimeMillis(),
-                    Integer.parseInt(split[0]), "HIGH".equals(split[1])));
+                inputChanged(Integer.parseInt(split[0]), "HIGH".equals(split[1]));
               }
               break;
           }
         } catch (IndexOutOfBoundsException e) {
           getLogger().debug("Problem during parsing event - " + response + " - " + e.getMessage());
         }
-        break;
+        return false;
 
       default:
         break;
     }
-    if (commandReceived) {
+    if (isResponsePending()) {
       return true;
     }
     return false;
   }
 
+  /**
+   * @return true if the received line may belong to a command response, without echo the lines
+   *         are assigned to the sent commands
+   */
+  private boolean isResponsePending() {
+    return commandReceived || !echoEnabled && 0 < pipeline.getInFlight();
+  }
+
+  private static boolean isEvent(String response) {
+    return response.startsWith("+CINV") || response.startsWith("+CMINV")
+        || response.startsWith("+IEV") || response.startsWith("+HBT");
+  }
+
   /**
    * enable or disable the input events
    * 
@@ -463,6 +842,68 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
     communicateSynchronized("AT+IEV", enable ? 1 : 0);
   }
 
+  /**
+   * Start a trigger gated inventory, e.g. for a light barrier. The high state of the input starts
+   * the continuous inventory, the low state stops it. The raw input events of the reader are used,
+   * so the input debounce time does not delay the gate. The listener receives the read tags of each
+   * trigger as one {@link com.metratec.lib.rfidreader.event.GateSession} with the latency from the
+   * trigger to the first read. The tag events of the inventory are reported as usual.
+   * 
+   * @param input the gate input
+   * @param listener receives the gate sessions
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs
+   */
+  public void startGatedInventory(int input, GateSessionListener<T> listener)
+      throws CommConnectionException, RFIDReaderException {
+    stopGatedInventory();
+    final boolean singleAntenna = useSingleAntenna;
+    inventoryGate = new InventoryGate<>(getIdentifier(), input, new InventoryGate.Commands() {
+
+      @Override
+      public void startInventory() throws CommConnectionException, RFIDReaderException {
+        communicateSynchronized(singleAntenna ? "AT+CINV" : "AT+CMINV");
+      }
+
+      @Override
+      public void stopInventory() throws CommConnectionException, RFIDReaderException {
+        try {
+          communicateSynchronized(singleAntenna ? "AT+BINV" : "AT+BMINV");
+        } catch (RFIDReaderException e) {
+          if (!e.getMessage().contains("is not running")) {
+            throw e;
+          }
+        }
+      }
+    }, listener);
+    enableInputEvents(true);
+  }
+
+  /**
+   * Stop the trigger gated inventory, a running gate session is stopped and reported
+   */
+  public void stopGatedInventory() {
+    InventoryGate<T> gate = inventoryGate;
+    inventoryGate = null;
+    if (null != gate) {
+      gate.close();
+      try {
+        gate.awaitClosed(getReceiveTimeout());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  protected void inputChanged(int input, boolean state) {
+    InventoryGate<T> gate = inventoryGate;
+    if (null != gate) {
+      gate.inputChanged(input, state);
+    }
+    super.inputChanged(input, state);
+  }
+
   /**
    * check the current reader state (standby, continues read, crc, ..) and prepare the communication
    * 
@@ -471,6 +912,8 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
    */
   private void configureConnection() throws CommConnectionException, RFIDReaderException {
     receiveHandler.setEOF(true);
+    // the continuous inventory is stopped during the preparation
+    continuousInventory = null;
     int configuredReceiveTimeout = getReceiveTimeout();
     setReceiveTimeout(3000); // Timeout for configure the connection
     // check CNR MODE and CRC MODE
@@ -502,17 +945,24 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
       // reset the receive timeout
       setReceiveTimeout(configuredReceiveTimeout);
     }
-    enableEcho();
+    configureEcho();
     setHeartbeatInterval(this.heartBeatInterval);
   }
 
   /**
-   * Check the antenna
+   * Check the antenna, the check commands are executed with background priority
    * 
    * @throws RFIDReaderException if an antenna error occurs
    * @throws CommConnectionException if an communication error occurs
    */
   public void checkAntennas() throws RFIDReaderException, CommConnectionException {
+    executeWithPriority(CommandScheduler.Priority.BACKGROUND, 0, () -> {
+      checkAntennaPorts();
+      return null;
+    });
+  }
+
+  private void checkAntennaPorts() throws RFIDReaderException, CommConnectionException {
     int orgAntenna = currentAntennaPort;
     boolean orgUseSingleAntenna = useSingleAntenna;
     try {
@@ -795,7 +1245,7 @@ public abstract class MetratecReaderAT<T extends RfidTag> extends MetratecReader
   @SuppressWarnings("PMD.EmptyCatchBlock")
   public void ping() throws CommConnectionException {
     try {
-      getRevision();
+      executeWithPriority(CommandScheduler.Priority.BACKGROUND, 0, this::getRevision);
     } catch (RFIDReaderException e) {
       // rfid exception but reader is alive
     }
@@ -6,12 +6,16 @@ package com.metratec.lib.rfidreader;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 import com.metratec.lib.connection.CommConnectionException;
 import com.metratec.lib.connection.ICommConnection;
-import com.metratec.lib.rfidreader.event.RfidReaderInputChange;
 import com.metratec.lib.tag.RfidTag;
 
 /**
@@ -35,6 +39,26 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
   // private InventoryEventHandler inventoryHandler = new InventoryEventHandler(getIdentifier());
 
   private Pattern splitPattern = Pattern.compile("\r");
+  /** the sent transponder commands in send order, each is completed by an inventory response */
+  private final TransponderRequestQueue<List<T>> transponderRequests = new TransponderRequestQueue<>();
+  /** true while a synchronous command waits for its response, guarded by communicateLock */
+  private volatile boolean synchronousCommand;
+
+  /**
+   * Parses the inventory response (IVF) of a transponder command
+   *
+   * @param <T> the type of RFID tag
+   */
+  protected interface TransponderParser<T> {
+    /**
+     * @param answers the checked reader answers
+     * @param timestamp the response timestamp
+     * @return the processed transponders
+     * @throws RFIDReaderException if the response contains an error
+     */
+    List<T> parse(String[] answers, long timestamp) throws RFIDReaderException;
+  }
+
 
 
 
@@ -56,6 +80,9 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
   protected static final String RESPONSE_ERROR_NOR = "NOR";
   /** No rf field active */
   protected static final String RESPONSE_ERROR_NRF = "NRF";
+  /** the error codes, with which the reader answers a transponder command instead of an inventory */
+  private static final Set<String> TRANSPONDER_ERRORS = new HashSet<>(
+      Arrays.asList("UCO", "UPA", "NOR", "EDX", "EHX", "WDL", "NSS", "NRF", "NOS", "ARH", "CCE"));
 
   /**
    * Construct a new StandardReader instance with the specified connection
@@ -69,10 +96,169 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
   }
 
   /**
+   * Handles an inventory response, which does not belong to a transponder command, e.g. of the
+   * continuous inventory
+   * 
    * @param inventory the inventory string from the reader
    */
   protected abstract void handleInventory(String inventory);
 
+  /**
+   * Sends a transponder command (e.g. INV, RDT, WDT), which is answered with an inventory response.
+   * Several transponder commands can be sent back to back, the responses are assigned in send order.
+   * The future is completed by the receive thread.<br>
+   * If the previous transponder command is expired, this waits until its late response arrives or
+   * the grace period has passed (see {@link #setTransponderGracePeriod(long)}).
+   * 
+   * @param parser parses the inventory response of the command
+   * @param isEvent true if the found transponders are added to the inventory events
+   * @param command command
+   * @param parameters command parameters
+   * @return the future with the processed transponders
+   */
+  protected CompletableFuture<List<T>> sendTransponderCommand(TransponderParser<T> parser, boolean isEvent,
+      String command, Object... parameters) {
+    CompletableFuture<List<T>> future;
+    // the request order must be the send order
+    communicateLock.lock();
+    try {
+      future = transponderRequests.add(inventory -> {
+        List<T> tags = parser.parse(checkData(inventory), System.currentTimeMillis());
+        if (isEvent) {
+          addNewInventoryEvent(tags);
+        }
+        return tags;
+      });
+      try {
+        send(command, parameters);
+      } catch (CommConnectionException e) {
+        transponderRequests.remove(future, e);
+      }
+    } finally {
+      communicateLock.unlock();
+    }
+    return future;
+  }
+
+  /**
+   * Sends a transponder command (e.g. INV, RDT, WDT) and waits for the inventory response. If the
+   * reader does not respond within the command timeout, the command is expired and consumes its
+   * late response within the grace period (see {@link #setTransponderGracePeriod(long)}). A late
+   * response after the grace period is assigned to the next transponder command.
+   * 
+   * @param parser parses the inventory response of the command
+   * @param isEvent true if the found transponders are added to the inventory events
+   * @param command command
+   * @param parameters command parameters
+   * @return the processed transponders
+   * @throws CommConnectionException if an communication exception occurs
+   * @throws RFIDReaderException if an protocol exception occurs
+   */
+  protected List<T> getTransponder(TransponderParser<T> parser, boolean isEvent, String command,
+      Object... parameters) throws CommConnectionException, RFIDReaderException {
+    String name = getCommandName(command);
+    CompletableFuture<List<T>> future = sendTransponderCommand(parser, isEvent, command, parameters);
+    long sendTime = System.nanoTime();
+    try {
+      List<T> transponder = future.get(getCommandTimeout(name), TimeUnit.MILLISECONDS);
+      getResponseTimeEstimator().responseReceived(name, (System.nanoTime() - sendTime) / 1e6);
+      return transponder;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof CommConnectionException) {
+        throw (CommConnectionException) cause;
+      } else if (cause instanceof RFIDReaderException) {
+        throw (RFIDReaderException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RFIDReaderException(RFIDErrorCodes.NER, String.valueOf(cause));
+    } catch (TimeoutException e) {
+      transponderRequests.expire(future);
+      getResponseTimeEstimator().responseTimedOut(name);
+      throw new CommConnectionException(ICommConnection.RECV_TIMEOUT,
+          "the reader did not respond (" + command + ")");
+    } catch (InterruptedException e) {
+      transponderRequests.expire(future);
+      Thread.currentThread().interrupt();
+      throw new CommConnectionException(ICommConnection.UNHANDLED_ERROR, "interrupted (" + command + ")");
+    }
+  }
+
+  /**
+   * @return the command name without the parameters, e.g. <code>RDT</code>
+   */
+  private static String getCommandName(String command) {
+    int index = command.indexOf(' ');
+    return 0 < index ? command.substring(0, index) : command;
+  }
+
+  /**
+   * Set the grace period of a transponder command, which is not answered within its timeout. The
+   * next transponder command is sent after the late response or after the grace period, so the late
+   * response is not assigned to the next command. A late response after the grace period is still
+   * assigned to the next command. Default value
+   * {@value com.metratec.lib.rfidreader.TransponderRequestQueue#DEFAULT_GRACE_PERIOD}ms.
+   * 
+   * @param timeInMilliseconds grace period in milliseconds, 0 to send the next command at once
+   */
+  public void setTransponderGracePeriod(long timeInMilliseconds) {
+    transponderRequests.setGracePeriod(timeInMilliseconds);
+  }
+
+  /**
+   * @return the grace period of a not answered transponder command in milliseconds
+   */
+  public long getTransponderGracePeriod() {
+    return transponderRequests.getGracePeriod();
+  }
+
+  /**
+   * Fail all sent transponder commands, e.g. after a reconnect
+   * 
+   * @param cause the cause
+   */
+  protected void clearTransponderRequests(Exception cause) {
+    transponderRequests.clear(cause);
+  }
+
+  /**
+   * Assign an inventory response to the oldest sent transponder command
+   */
+  private void inventoryReceived(String inventory) {
+    if (!transponderRequests.responseReceived(inventory)) {
+      handleInventory(inventory);
+    }
+  }
+
+  /**
+   * Assign an error response to the oldest sent transponder command, if no synchronous command
+   * waits for a response. The reader answers a transponder command with an error code instead of
+   * an inventory, e.g. for a wrong parameter.
+   * 
+   * @return true if the response is assigned
+   */
+  private boolean transponderErrorReceived(String response) {
+    if (synchronousCommand || transponderRequests.isEmpty()) {
+      return false;
+    }
+    String code;
+    try {
+      code = checkData(response)[0].trim();
+    } catch (RFIDReaderException e) {
+      return false;
+    }
+    if (!TRANSPONDER_ERRORS.contains(code) && !code.startsWith("HBE")) {
+      return false;
+    }
+    try {
+      handleUnexpectedResponse(code, "transponder command");
+    } catch (RFIDReaderException e) {
+      return transponderRequests.errorReceived(e);
+    }
+    return false;
+  }
+
   /**
    * Sends an command to the connected reader (appends crc and command end sign automatically)
    * 
@@ -85,12 +271,26 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
   protected String[] communicateSynchronized(String command, Object... parameters)
       throws CommConnectionException, RFIDReaderException {
     if (receiveHandler.isConnected() && receiveHandler.isAlive()) {
-      communicateLock.lock();
+      lockInterruptibly();
       try {
+        synchronousCommand = true;
         clearResponseBuffer();
         receiveHandler.sendCommand(prepareCommand(command, parameters));
-        return checkData(receiveData());
+        String name = getCommandName(command);
+        long sendTime = System.nanoTime();
+        String response;
+        try {
+          response = receiveData(getCommandTimeout(name));
+        } catch (CommConnectionException e) {
+          if (ICommConnection.RECV_TIMEOUT == e.getErrorCode()) {
+            getResponseTimeEstimator().responseTimedOut(name);
+          }
+          throw e;
+        }
+        getResponseTimeEstimator().responseReceived(name, (System.nanoTime() - sendTime) / 1e6);
+        return checkData(response);
       } finally {
+        synchronousCommand = false;
         communicateLock.unlock();
       }
     } else {
@@ -148,6 +348,7 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
    * @throws RFIDReaderException if an reader exception occurs
    */
   private void prepareStandardReader() throws CommConnectionException, RFIDReaderException {
+    clearTransponderRequests(new CommConnectionException(ICommConnection.CONNECTION_LOST, "reader reinitialized"));
     receiveHandler.setEOF(false);
     configureConnection();
   }
@@ -242,40 +443,22 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
       case 'I':
         boolean state = response.contains("HI!");
         if (response.startsWith("IN0")) {
-          // if (input0 != state) {
-          if (getInputDebounceTime() == 0) {
-            setInput0(state);
-            RfidReaderInputChange event =
-                new RfidReaderInputChange(getIdentifier(), System.currentTimeMillis(), 0, isInput0());
-            getEventHandler().inputChange(event);
-          } else {
-            startNewInputThread(0);
-          }
-          // }
+          inputChanged(0, state);
           return false;
         }
         if (response.startsWith("IN1")) {
-          // if (input1 != state) {
-          if (getInputDebounceTime() == 0) {
-            setInput1(state);
-            RfidReaderInputChange event =
-                new RfidReaderInputChange(getIdentifier(), System.currentTimeMillis(), 1, isInput1());
-            getEventHandler().inputChange(event);
-          } else {
-            startNewInputThread(1);
-          }
-          // }
+          inputChanged(1, state);
           return false;
         }
         if (response.startsWith("IVF")) {
-          handleInventory(response);
+          inventoryReceived(response);
           return false;
         }
         break;
       case 'S':
         if(response.startsWith("SRT")){
           getLogger().info("Soft reset from reader received - reinitialize the reader");
-          Thread t = new Thread(new Runnable() {
+          Thread t = ReaderThreads.newThread(getIdentifier() + "-reset", true, new Runnable() {
 
             @Override
             public void run() {
@@ -286,15 +469,17 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
               }
             }
             
-          },getIdentifier()+"-reset");
-          t.setDaemon(true);
+          });
           t.start();
         }
         return true;
     }
     // check if the message is an inventory
     if (response.length() >= 14 && response.substring(response.length() - 14).contains("IVF")) {
-      handleInventory(response);
+      inventoryReceived(response);
+      return false;
+    }
+    if (transponderErrorReceived(response)) {
       return false;
     }
     return true;
@@ -367,12 +552,14 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
 
 
   /**
-   * add a new rfid tag event to the event handler
+   * add a new rfid tag event to the event handler, every inventory response (IVF) is an inventory
+   * round of the current antenna
    * 
    * @param tagEvent the event
    */
   protected void addNewInventoryEvent(List<T> tags) {
     getInternalInventory().updateInventory(tags);
+    getInternalInventory().roundFinished(getCurrentAntennaPort(), tags);
   }
 
   /**
@@ -781,7 +968,7 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
     if (null != checkConnectionThread && checkConnectionThread.isAlive()) {
       return;
     }
-    checkConnectionThread = new Thread(() -> {
+    checkConnectionThread = ReaderThreads.newThread(getIdentifier() + "ConnectionCheck", true, () -> {
       long lastCheckTime = System.currentTimeMillis();
       long nextCheckTime = lastCheckTime + heartBeatInterval * 1000;
       while(receiveHandler.isConnected()) {
@@ -795,7 +982,7 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
         }
         if (receiveHandler.getLastReceiveTime() <= lastCheckTime) {
           try {
-            getRevision();
+            executeWithPriority(CommandScheduler.Priority.BACKGROUND, 0, this::getRevision);
           } catch (CommConnectionException | RFIDReaderException e) {
             // Connection Error
             receiveHandler.connectionLost();
@@ -804,8 +991,7 @@ public abstract class MetratecReaderAscii<T extends RfidTag> extends MetratecRea
         lastCheckTime = receiveHandler.getLastReceiveTime();
         nextCheckTime = System.currentTimeMillis() + heartBeatInterval * 1000;
       }
-    }, getIdentifier()+"ConnectionCheck");
-    checkConnectionThread.setDaemon(true);
+    });
     checkConnectionThread.start();
   }
 
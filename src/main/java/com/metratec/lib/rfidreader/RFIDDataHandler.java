@@ -7,9 +7,14 @@
 package com.metratec.lib.rfidreader;
 
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import org.slf4j.Logger;
 import com.metratec.lib.connection.CommConnectionException;
 import com.metratec.lib.connection.ICommConnection;
@@ -39,7 +44,10 @@ class RFIDDataHandler {
   // private int receiveTimeout = DEFAULT_RECEIVE_TIMEOUT;
 
   private String identifier = "unknown";
-  private int handlerState = 0;
+  private volatile int handlerState = 0;
+  /** completed if the handler is running, guarded by this */
+  private final List<CompletableFuture<Void>> runningFutures = new ArrayList<>();
+  private CompletableFuture<Void> stopped = CompletableFuture.completedFuture(null);
   private final ICommConnection connection;
   private long minReconnectWaitTime = 2 * 1000;
   private long maxReconnectWaitTime = 60 * 1000; // 60 s
@@ -51,7 +59,7 @@ class RFIDDataHandler {
   private boolean checkHeartbeat = false;
   private boolean connectionLost = false;
   private long lastReceiveTime = 0;
-  private boolean isRunning = false;
+  private volatile boolean isRunning = false;
   // private static final int checkReachableTimeout = 3000;
   // private boolean restartTUC = true;
   private RfidReaderEventListener eventListener;
@@ -108,18 +116,69 @@ class RFIDDataHandler {
     }
   }
 
+  /**
+   * Change the handler state and notify the waiting futures
+   */
+  private void setHandlerState(int state) {
+    handlerState = state;
+    List<CompletableFuture<Void>> futures;
+    synchronized (this) {
+      if (runningFutures.isEmpty() || MetratecReader.STATE_RUNNING != state
+          && MetratecReader.STATE_WAITING_FOR_RECONNECT != state
+          && MetratecReader.STATE_STOPPED != state) {
+        return;
+      }
+      futures = new ArrayList<>(runningFutures);
+      runningFutures.clear();
+    }
+    for (CompletableFuture<Void> future : futures) {
+      if (MetratecReader.STATE_RUNNING == state) {
+        future.complete(null);
+      } else {
+        future.completeExceptionally(getStartException());
+      }
+    }
+  }
+
+  private Exception getStartException() {
+    Exception e = lastException;
+    if (e instanceof CommConnectionException || e instanceof RFIDReaderException) {
+      return e;
+    }
+    return new CommConnectionException(ICommConnection.UNHANDLED_ERROR, stateMessage);
+  }
+
+  /**
+   * @return the future, which is completed if the handler is running, completed exceptionally if
+   *         the connection or the preparation of the reader failed or the handler stopped
+   */
+  protected CompletableFuture<Void> awaitRunning() {
+    synchronized (this) {
+      if (isWorking()) {
+        return CompletableFuture.completedFuture(null);
+      }
+      if (isAlive() && MetratecReader.STATE_WAITING_FOR_RECONNECT != handlerState) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        runningFutures.add(future);
+        return future;
+      }
+    }
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    future.completeExceptionally(getStartException());
+    return future;
+  }
+
   @SuppressWarnings("PMD.EmptyCatchBlock")
   private void work() {
     if (logger.isDebugEnabled()) {
       logger.debug(identifier + " started");
     }
 
-    isRunning = true;
     boolean reprint = false;
     int c;
     recvBuf.setLength(0);
     isConnectingForTheFirstTime = true;
-    handlerState = MetratecReader.STATE_CONNECTING;
+    setHandlerState(MetratecReader.STATE_CONNECTING);
     while (isRunning) {
       try {
         switch (handlerState) {
@@ -134,13 +193,12 @@ class RFIDDataHandler {
                 waitTime = maxReconnectWaitTime;
             }
             long waitUntil = System.currentTimeMillis() + waitTime;
-            while (waitUntil > System.currentTimeMillis() && isRunning) {
-              try {
-                TimeUnit.MILLISECONDS.sleep(100);
-              } catch (InterruptedException e1) {
-              }
+            long remaining;
+            while (isRunning && 0 < (remaining = waitUntil - System.currentTimeMillis())) {
+              // woken up by stop
+              LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(remaining));
             }
-            handlerState = MetratecReader.STATE_CONNECTING;
+            setHandlerState(MetratecReader.STATE_CONNECTING);
             if (logger.isDebugEnabled()) {
               logger.debug(identifier + " StandardReader.STATE_CONNECTING");
             }
@@ -158,13 +216,14 @@ class RFIDDataHandler {
                  */
                 connection.recv();
               }
-              Thread thread = new Thread() {
+              Thread thread = ReaderThreads.newThread("DH-" + identifier + "-Connecting", false,
+                  new Runnable() {
                 @Override
                 public void run() {
                   try {
                     checkHeartbeat = false; // disable if it was enable
                     String message = device.prepareDevice();
-                    handlerState = MetratecReader.STATE_RUNNING;
+                    setHandlerState(MetratecReader.STATE_RUNNING);
                     isConnectingForTheFirstTime = false;
                     if (logger.isDebugEnabled()) {
                       logger.debug(identifier + " StandardReader.STATE_RUNNING");
@@ -177,7 +236,7 @@ class RFIDDataHandler {
                   } catch (CommConnectionException | RFIDReaderException e) {
                     stateMessage = e.getMessage();
                     lastException = e;
-                    handlerState = MetratecReader.STATE_WAITING_FOR_RECONNECT;
+                    setHandlerState(MetratecReader.STATE_WAITING_FOR_RECONNECT);
                     connectionStateChanged(
                         new RfidReaderConnectionState(identifier, false, stateMessage));
                     if (logger.isDebugEnabled()) {
@@ -193,11 +252,10 @@ class RFIDDataHandler {
                     }
                   }
                 }
-              };
+              });
               recvBuf.setLength(0);
-              thread.setName("DH-"+identifier+"-Connecting");
               thread.start();
-              handlerState = MetratecReader.STATE_CONFIGURING;
+              setHandlerState(MetratecReader.STATE_CONFIGURING);
               if (logger.isDebugEnabled()) {
                 logger.debug(identifier + " StandardReader.STATE_CONFIGURING");
               }
@@ -224,7 +282,7 @@ class RFIDDataHandler {
                   break;
               }
               lastException = e;
-              handlerState = MetratecReader.STATE_WAITING_FOR_RECONNECT;
+              setHandlerState(MetratecReader.STATE_WAITING_FOR_RECONNECT);
               if (logger.isDebugEnabled()) {
                 logger.debug(identifier + " StandardReader.STATE_WAITING_FOR_RECONNECT");
               }
@@ -287,7 +345,7 @@ class RFIDDataHandler {
               } else if (handlerState != MetratecReader.STATE_WAITING_FOR_RECONNECT) {
                 stateMessage = e.getMessage();
                 lastException = e;
-                handlerState = MetratecReader.STATE_CONNECTING;
+                setHandlerState(MetratecReader.STATE_CONNECTING);
                 if (logger.isTraceEnabled()) {
                   logger.trace(identifier + " StandardReader.STATE_CONNECTING");
                 }
@@ -328,7 +386,7 @@ class RFIDDataHandler {
       logger.warn(e.toString());
     }
 
-    handlerState = MetratecReader.STATE_STOPPED;
+    setHandlerState(MetratecReader.STATE_STOPPED);
     if (!isRunning) {
       stateMessage = "stopped";
       lastException = null;
@@ -411,24 +469,40 @@ class RFIDDataHandler {
    * stop the handler
    */
   protected void stop() {
-    if (isAlive()) {
-      isRunning = false;
-      // internalThread.interrupt();
-      if (logger.isDebugEnabled()) {
-        logger.debug(identifier + " stopping...");
-      }
-      while (isAlive()) {
-        try {
-          Thread.sleep(10);
-        } catch (InterruptedException e) {
-          if (logger.isTraceEnabled()) {
-            logger.trace("Sleep interrupted");
-          }
+    CompletableFuture<Void> future = stopAsync();
+    while (!future.isDone()) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        if (logger.isTraceEnabled()) {
+          logger.trace("Wait interrupted");
         }
+      } catch (ExecutionException e) {
+        return;
       }
     }
   }
 
+  /**
+   * stop the handler without waiting
+   * 
+   * @return the future, which is completed if the handler thread ended
+   */
+  protected CompletableFuture<Void> stopAsync() {
+    synchronized (this) {
+      if (!isAlive()) {
+        return CompletableFuture.completedFuture(null);
+      }
+      isRunning = false;
+      // wake up the reconnect wait
+      LockSupport.unpark(internalThread);
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug(identifier + " stopping...");
+    }
+    return stopped;
+  }
+
   /**
    * @return true if connected
    */
@@ -495,16 +569,24 @@ class RFIDDataHandler {
   /**
    * 
    */
-  protected void start() {
+  protected synchronized void start() {
     if (!isAlive()) {
-
-      internalThread = new Thread(new Runnable() {
+      CompletableFuture<Void> threadStopped = new CompletableFuture<>();
+      stopped = threadStopped;
+      // the state of the new thread, not of the previous
+      handlerState = MetratecReader.STATE_CONNECTING;
+      isRunning = true;
+      internalThread = ReaderThreads.newThread("DH-" + identifier, false, new Runnable() {
 
         @Override
         public void run() {
-          work();
+          try {
+            work();
+          } finally {
+            threadStopped.complete(null);
+          }
         }
-      }, "DH-" + identifier);
+      });
       if (logger.isDebugEnabled()) {
         logger.debug(identifier + " starting...");
       }
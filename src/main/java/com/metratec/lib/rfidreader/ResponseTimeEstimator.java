@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estimates the response timeout of the reader commands from the observed response times. For
+ * every command the smoothed response time and its variation are computed like the retransmission
+ * timeout of TCP (RFC 6298), the timeout is the smoothed response time plus four times the
+ * variation, at least the minimum timeout. The timeout is doubled after every timeout of the
+ * command until the next response. Until enough responses are observed the maximum timeout is used.
+ *
+ * @author mn
+ *
+ */
+public class ResponseTimeEstimator {
+  /** default minimum timeout in milliseconds */
+  public static final long DEFAULT_MIN_TIMEOUT = 1000;
+  /** number of responses, before the timeout is estimated */
+  private static final int MIN_SAMPLES = 3;
+  private static final int MAX_BACKOFF = 6;
+
+  private volatile long minTimeout = DEFAULT_MIN_TIMEOUT;
+  /** guarded by this */
+  private final Map<String, Estimate> estimates = new HashMap<>();
+
+  /**
+   * Response time estimate of a command
+   */
+  private static class Estimate {
+    private double smoothedTime;
+    private double variation;
+    private int samples;
+    private int backoff;
+  }
+
+  /**
+   * @param command the command name, e.g. <code>AT+INV</code> or <code>INV</code>
+   * @param maxTimeout the maximum timeout in milliseconds
+   * @return the response timeout of the command in milliseconds
+   */
+  public synchronized long getTimeout(String command, long maxTimeout) {
+    Estimate estimate = estimates.get(command);
+    if (null == estimate || estimate.samples < MIN_SAMPLES) {
+      return maxTimeout;
+    }
+    // the backoff starts at the minimum timeout, otherwise it may never reach a new response time
+    long timeout =
+        Math.max(minTimeout, (long) Math.ceil(estimate.smoothedTime + 4 * estimate.variation));
+    return Math.min(maxTimeout, timeout << estimate.backoff);
+  }
+
+  /**
+   * Add an observed response time
+   *
+   * @param command the command name
+   * @param responseTime the time in milliseconds between sending the command and receiving the
+   *        complete response
+   */
+  public synchronized void responseReceived(String command, double responseTime) {
+    Estimate estimate = estimates.get(command);
+    if (null == estimate) {
+      estimate = new Estimate();
+      estimates.put(command, estimate);
+    }
+    if (0 == estimate.samples) {
+      estimate.smoothedTime = responseTime;
+      estimate.variation = responseTime / 2;
+    } else {
+      estimate.variation =
+          0.75 * estimate.variation + 0.25 * Math.abs(estimate.smoothedTime - responseTime);
+      estimate.smoothedTime = 0.875 * estimate.smoothedTime + 0.125 * responseTime;
+    }
+    estimate.samples++;
+    estimate.backoff = 0;
+  }
+
+  /**
+   * The reader did not respond to a command within its timeout
+   *
+   * @param command the command name
+   */
+  public synchronized void responseTimedOut(String command) {
+    Estimate estimate = estimates.get(command);
+    if (null != estimate && estimate.backoff < MAX_BACKOFF) {
+      estimate.backoff++;
+    }
+  }
+
+  /**
+   * @param command the command name
+   * @return the smoothed response time of the command in milliseconds, -1 if no response is
+   *         observed
+   */
+  public synchronized double getSmoothedResponseTime(String command) {
+    Estimate estimate = estimates.get(command);
+    return null != estimate && 0 < estimate.samples ? estimate.smoothedTime : -1;
+  }
+
+  /**
+   * Remove the observed response times, e.g. after a reader configuration change
+   */
+  public synchronized void reset() {
+    estimates.clear();
+  }
+
+  /**
+   * @return the minimum timeout in milliseconds
+   */
+  public long getMinTimeout() {
+    return minTimeout;
+  }
+
+  /**
+   * @param minTimeout the minimum timeout in milliseconds
+   */
+  public void setMinTimeout(long minTimeout) {
+    if (minTimeout < 0) {
+      throw new IllegalArgumentException("min timeout must not be negative");
+    }
+    this.minTimeout = minTimeout;
+  }
+}
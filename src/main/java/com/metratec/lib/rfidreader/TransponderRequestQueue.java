@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The sent transponder commands of the ASCII readers (e.g. INV, RDT, WDT) in send order. The
+ * reader answers a transponder command with an inventory response (IVF) or with an error code,
+ * the responses are assigned to the oldest sent command.<br>
+ * A command, which is not answered within its timeout, is marked as expired and stays in the queue,
+ * so a late response does not complete the next command. Before the next command is added, the
+ * queue waits until the late response of the expired command arrives or its grace period has
+ * passed (default {@value #DEFAULT_GRACE_PERIOD}ms), then the expired command is removed, so a
+ * response, which never arrives, does not shift the assignment of the following responses. At most
+ * one expired command is kept.<br>
+ * A late response, which arrives after the grace period, is still assigned to the next command.
+ *
+ * @author mn
+ *
+ * @param <R> the result type of the commands
+ */
+public class TransponderRequestQueue<R> {
+
+  /**
+   * Parses the inventory response of a transponder command
+   *
+   * @param <R> the result type
+   */
+  public interface Parser<R> {
+    /**
+     * @param response the inventory response
+     * @return the result
+     * @throws RFIDReaderException if the response contains an error
+     */
+    R parse(String response) throws RFIDReaderException;
+  }
+
+  /**
+   * A sent transponder command
+   */
+  private static class Request<R> {
+    private final Parser<R> parser;
+    private final CompletableFuture<R> future = new CompletableFuture<>();
+    private boolean expired;
+    private long expireTime;
+
+    Request(Parser<R> parser) {
+      this.parser = parser;
+    }
+  }
+
+  /** the default grace period of an expired command in milliseconds */
+  public static final long DEFAULT_GRACE_PERIOD = 500;
+
+  /** guarded by this */
+  private final Deque<Request<R>> requests = new ArrayDeque<>();
+  private volatile long discardedResponses;
+  private volatile long gracePeriod = DEFAULT_GRACE_PERIOD;
+
+  /**
+   * Add a command, call it with the command send order. If a command is expired, this waits until
+   * its late response arrives or its grace period has passed, then the expired command is removed.
+   *
+   * @param parser parses the inventory response of the command
+   * @return the future of the command, completed by the response
+   */
+  public CompletableFuture<R> add(Parser<R> parser) {
+    awaitExpired();
+    Request<R> request = new Request<>(parser);
+    synchronized (this) {
+      Iterator<Request<R>> iterator = requests.iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next().expired) {
+          iterator.remove();
+        }
+      }
+      requests.add(request);
+    }
+    return request.future;
+  }
+
+  /**
+   * Wait until the expired command is answered or its grace period has passed
+   */
+  private void awaitExpired() {
+    Request<R> expired = null;
+    synchronized (this) {
+      for (Request<R> request : requests) {
+        if (request.expired) {
+          expired = request;
+        }
+      }
+    }
+    if (null == expired) {
+      return;
+    }
+    long remaining =
+        expired.expireTime + TimeUnit.MILLISECONDS.toNanos(gracePeriod) - System.nanoTime();
+    if (0 >= remaining) {
+      return;
+    }
+    try {
+      expired.future.get(remaining, TimeUnit.NANOSECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      // answered with an error or not answered at all
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Remove a command, which could not be sent
+   *
+   * @param future the future of the command
+   * @param cause the send error
+   */
+  public void remove(CompletableFuture<R> future, Throwable cause) {
+    synchronized (this) {
+      requests.removeIf(request -> request.future == future);
+    }
+    future.completeExceptionally(cause);
+  }
+
+  /**
+   * Mark a command as expired, it consumes its late response within the grace period. The other
+   * expired commands are removed, so at most one expired command is kept.
+   *
+   * @param future the future of the command
+   */
+  public synchronized void expire(CompletableFuture<R> future) {
+    Iterator<Request<R>> iterator = requests.iterator();
+    while (iterator.hasNext()) {
+      Request<R> request = iterator.next();
+      if (request.future == future) {
+        request.expired = true;
+        request.expireTime = System.nanoTime();
+      } else if (request.expired) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Assign an inventory response to the oldest command
+   *
+   * @param response the inventory response
+   * @return true if the response is assigned, false if no command is sent
+   */
+  public boolean responseReceived(String response) {
+    Request<R> request;
+    synchronized (this) {
+      request = requests.poll();
+    }
+    if (null == request) {
+      return false;
+    }
+    try {
+      R result = request.parser.parse(response);
+      if (request.expired) {
+        discardedResponses++;
+      }
+      request.future.complete(result);
+    } catch (RFIDReaderException e) {
+      request.future.completeExceptionally(e);
+    }
+    return true;
+  }
+
+  /**
+   * Assign an error response (e.g. <code>UPA</code>) to the oldest command
+   *
+   * @param error the error of the response
+   * @return true if the error is assigned, false if no command is sent
+   */
+  public boolean errorReceived(RFIDReaderException error) {
+    Request<R> request;
+    synchronized (this) {
+      request = requests.poll();
+    }
+    if (null == request) {
+      return false;
+    }
+    if (request.expired) {
+      discardedResponses++;
+    }
+    request.future.completeExceptionally(error);
+    return true;
+  }
+
+  /**
+   * Fail all sent commands, e.g. after a reconnect
+   *
+   * @param cause the cause
+   */
+  public void clear(Throwable cause) {
+    Request<R> request;
+    while (null != (request = poll())) {
+      request.future.completeExceptionally(cause);
+    }
+  }
+
+  private synchronized Request<R> poll() {
+    return requests.poll();
+  }
+
+  /**
+   * @return true if no command waits for its response
+   */
+  public synchronized boolean isEmpty() {
+    return requests.isEmpty();
+  }
+
+  /**
+   * @return the number of sent commands without a response, including the expired command
+   */
+  public synchronized int size() {
+    return requests.size();
+  }
+
+  /**
+   * Set the grace period of an expired command. The next command is sent after the late response
+   * of the expired command or after the grace period.
+   *
+   * @param timeInMilliseconds the grace period in milliseconds, 0 to send the next command at once
+   */
+  public void setGracePeriod(long timeInMilliseconds) {
+    if (0 > timeInMilliseconds) {
+      throw new IllegalArgumentException("grace period must not be negative");
+    }
+    gracePeriod = timeInMilliseconds;
+  }
+
+  /**
+   * @return the grace period of an expired command in milliseconds
+   */
+  public long getGracePeriod() {
+    return gracePeriod;
+  }
+
+  /**
+   * @return the number of late responses of expired commands
+   */
+  public long getDiscardedResponses() {
+    return discardedResponses;
+  }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+/**
+ * Interfaces for a demand based event stream. The interfaces have the same methods as the
+ * <code>java.util.concurrent.Flow</code> interfaces of Java 9, which are not available on Java 8,
+ * so they can be adapted one to one to reactive libraries.<br>
+ * The library does not provide an adapter to <code>java.util.concurrent.Flow</code>, also not in
+ * the Java 21 classes of the jar. An adapter only forwards every method call to the method with the
+ * same name.
+ *
+ * @author mn
+ *
+ */
+public final class EventFlow {
+
+  private EventFlow() {}
+
+  /**
+   * A producer of events, which are received by the subscribers according to their demand
+   *
+   * @param <E> the event type
+   */
+  public interface Publisher<E> {
+    /**
+     * Add a subscriber. The subscriber receives a {@link Subscription} with
+     * {@link Subscriber#onSubscribe(Subscription)} and events after a request.
+     *
+     * @param subscriber the subscriber
+     */
+    void subscribe(Subscriber<? super E> subscriber);
+  }
+
+  /**
+   * A receiver of events
+   *
+   * @param <E> the event type
+   */
+  public interface Subscriber<E> {
+    /**
+     * Called before any other method of the subscriber
+     *
+     * @param subscription the new subscription
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Called with the next event, only if requested
+     *
+     * @param event the event
+     */
+    void onNext(E event);
+
+    /**
+     * Called if the subscription fails, no further methods are called
+     *
+     * @param throwable the error
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Called if the publisher is closed and all requested events are delivered, no further methods
+     * are called
+     */
+    void onComplete();
+  }
+
+  /**
+   * The connection of a publisher and a subscriber
+   */
+  public interface Subscription {
+    /**
+     * Request further events
+     *
+     * @param n the number of additional events, must be greater than 0
+     */
+    void request(long n);
+
+    /**
+     * Stop receiving events
+     */
+    void cancel();
+  }
+}
@@ -4,14 +4,27 @@
  *******************************************************************************/
 package com.metratec.lib.rfidreader.event;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.metratec.lib.rfidreader.MetratecReader;
+import com.metratec.lib.rfidreader.ReaderThreads;
+import com.metratec.lib.rfidreader.RuntimeSupport;
+import com.metratec.lib.tag.RfidTag;
 
 /**
  * Event handler that manages and dispatches RFID reader and tag events.
- * This class runs in its own thread and processes events from a queue,
+ * This class runs in its own thread and processes events from a preallocated ring buffer,
  * forwarding them to registered listeners. It acts as a bridge between
  * the reader's event generation and the application's event handling.
  * 
@@ -20,21 +33,161 @@ import com.metratec.lib.rfidreader.MetratecReader;
  *
  */
 public class EventHandler<T> implements Runnable, RfidReaderEventListener, RfidTagEventListener<T> {
-  private LinkedBlockingQueue<RfidEvent> eventBuffer;
-  private final static int MAX_SIZE = 1024;
+  /**
+   * Default size of the event buffer
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
   private static final Logger LOGGER = LoggerFactory.getLogger(MetratecReader.class);
 
+  /**
+   * How the event handler thread waits for new events
+   */
+  public enum WaitStrategy {
+    /** wait on a condition until an event is published, lowest cpu usage */
+    BLOCKING,
+    /** poll the buffer and yield the thread between the polls */
+    YIELDING,
+    /** poll the buffer without pausing, lowest latency but occupies a cpu core */
+    BUSY_SPIN,
+  }
+
+  /**
+   * What happens with a new event if the event buffer is full
+   */
+  public enum OverflowPolicy {
+    /** the publishing thread waits until the event handler has free space */
+    BLOCK,
+    /** the oldest event in the buffer is dropped */
+    DROP_OLDEST,
+    /** the new event is dropped */
+    DROP_NEWEST,
+    /**
+     * if the buffer is full, a pending event of the same tag and event type is replaced by the new
+     * event, unless an event of the opposite type of the tag is pending after it (found, lost,
+     * found is not coalesced to found, lost). If there is no such event, the oldest event is dropped.
+     * Events are not coalesced as long as the buffer has free space.
+     */
+    COALESCE,
+    /**
+     * the events are written to the {@link EventSpillQueue} and dispatched in order when the
+     * listener catches up, the publishing thread waits if the spill queue is full. Without a spill
+     * queue, the oldest event is dropped.
+     */
+    SPILL,
+  }
+
+  static final byte TYPE_TAG_FOUND = 1;
+  static final byte TYPE_TAG_LOST = 2;
+  static final byte TYPE_INPUT_CHANGE = 3;
+  static final byte TYPE_CONNECTION_STATE = 4;
+  static final byte TYPE_TAG_BATCH = 5;
+  private static final byte TYPE_OTHER = 6;
+
+  private final RfidEvent[] events;
+  private final byte[] types;
+  private final int mask;
+  /** sequence of the next event to dispatch, guarded by the lock */
+  private volatile long head;
+  /** sequence of the next event to publish, guarded by the lock */
+  private volatile long tail;
+  /** sequence up to which the events are dispatched before the thread stops, -1 if running */
+  private volatile long stopSequence = -1;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Map<Object, Long> pendingFound = new HashMap<>();
+  private final Map<Object, Long> pendingLost = new HashMap<>();
+
+  private volatile WaitStrategy waitStrategy;
+  private volatile OverflowPolicy overflowPolicy;
+  private volatile long publishedEvents;
+  private volatile long deliveredEvents;
+  private volatile long droppedEvents;
+  private volatile long coalescedEvents;
+
+  private volatile RfidTagBatchListener<T> batchListener = null;
+  private volatile long batchInterval;
+  /** the tags of the current flush interval, guarded by the lock */
+  private List<T> batchFound = new ArrayList<>();
+  private List<T> batchLost = new ArrayList<>();
+  private volatile boolean batchPending;
+  private volatile long batchDeadline;
+
   private RfidReaderEventListener readerListener = null;
   private RfidTagEventListener<T> tagListener = null;
+  private final List<ListenerQueue<T>> listenerQueues = new CopyOnWriteArrayList<>();
+  private volatile EventPublisher<RfidEvent> eventPublisher = null;
+  private volatile EventPool<T> eventPool = null;
+  /** overflow tier of the {@link OverflowPolicy#SPILL}, changed with the lock */
+  private volatile EventSpillQueue spillQueue = null;
+  /** the lanes for the parallel dispatch of the tag events, <code>null</code> if disabled */
+  private volatile ListenerQueue<T>[] lanes = null;
+  /** forwards the events of the lanes to the current tag listener, changed with the lock */
+  private LaneListener<T> laneListener = new LaneListener<>(this);
   private Thread internalThread;
+  private volatile CompletableFuture<Void> terminated = CompletableFuture.completedFuture(null);
+  private String identifier;
   private String threadName;
+
+  /**
+   * Forwards the events of the lanes to the tag listener of the event handler, which owns the lanes
+   */
+  private static class LaneListener<T> implements RfidTagEventListener<T> {
+    private volatile EventHandler<T> handler;
+
+    LaneListener(EventHandler<T> handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public void tagFound(RfidTagFound<T> tag) {
+      RfidTagEventListener<T> listener = handler.tagListener;
+      if (null != listener) {
+        listener.tagFound(tag);
+      }
+    }
+
+    @Override
+    public void tagLost(RfidTagLost<T> tag) {
+      RfidTagEventListener<T> listener = handler.tagListener;
+      if (null != listener) {
+        listener.tagLost(tag);
+      }
+    }
+  }
+
   /**
    * Create a new event handler instance.
    * 
    * @param identifier instance name used for thread naming and identification
    */
   public EventHandler(String identifier) {
-    eventBuffer = new LinkedBlockingQueue<>(MAX_SIZE);
+    this(identifier, DEFAULT_CAPACITY, WaitStrategy.BLOCKING, OverflowPolicy.DROP_OLDEST);
+  }
+
+  /**
+   * Create a new event handler instance.
+   * 
+   * @param identifier instance name used for thread naming and identification
+   * @param capacity size of the event buffer, rounded up to the next power of two
+   * @param waitStrategy how the event handler thread waits for new events
+   * @param overflowPolicy what happens with a new event if the event buffer is full
+   */
+  public EventHandler(String identifier, int capacity, WaitStrategy waitStrategy,
+      OverflowPolicy overflowPolicy) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    events = new RfidEvent[size];
+    types = new byte[size];
+    mask = size - 1;
+    setWaitStrategy(waitStrategy);
+    setOverflowPolicy(overflowPolicy);
+    this.identifier = identifier;
     this.threadName = "EH-" + identifier;
   }
 
@@ -46,66 +199,534 @@ public class EventHandler<T> implements Runnable, RfidReaderEventListener, RfidT
     if(null != internalThread && internalThread.isAlive()) {
       return;
     }
-    internalThread = new Thread(this, threadName);
-    internalThread.setDaemon(true);
+    // a stop request without a running thread is obsolete
+    stopSequence = -1;
+    CompletableFuture<Void> threadTerminated = new CompletableFuture<>();
+    terminated = threadTerminated;
+    internalThread = ReaderThreads.newThread(threadName, true, () -> {
+      try {
+        run();
+      } finally {
+        threadTerminated.complete(null);
+      }
+    });
     internalThread.start();
   }
 
+  /**
+   * Stop the event handler thread without waiting for the end of the thread.
+   * 
+   * @return the future, which is completed after the published events are dispatched and the event
+   *         processing thread ended
+   */
+  public CompletableFuture<Void> stopAsync() {
+    CompletableFuture<Void> threadTerminated = terminated;
+    stop();
+    return threadTerminated;
+  }
+
   /**
    * Stop the event handler thread.
-   * Uses a poison pill approach to gracefully shutdown the event processing thread.
+   * The events published before are dispatched, then the event processing thread ends.
    */
   public void stop() {
-    // Poisson pill shutdown
-    addEvent(new RfidEvent(null, 0l));
+    lock.lock();
+    try {
+      stopSequence = tail;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
-  @SuppressWarnings({"PMD.EmptyCatchBlock", "unchecked"})
+  @SuppressWarnings({"PMD.EmptyCatchBlock"})
   public void run() {
+    // one additional slot for the tag batch of the flush interval
+    RfidEvent[] batch = new RfidEvent[events.length + 1];
+    byte[] batchTypes = new byte[events.length + 1];
     while (true) {
+      int count;
       try {
-        RfidEvent event = eventBuffer.take();
-        if (null == event.getIdentifier()) {
-          break;
+        count = take(batch, batchTypes);
+      } catch (InterruptedException e) {
+        continue;
+      }
+      if (count < 0) {
+        return;
+      }
+      EventSpillQueue spill = null;
+      if (0 == count) {
+        // the buffer is empty, replay the spilled events
+        spill = spillQueue;
+        count = null != spill ? takeSpilled(spill, batch, batchTypes) : 0;
+      }
+      for (int i = 0; i < count; i++) {
+        RfidEvent event = batch[i];
+        batch[i] = null;
+        boolean handedOver = true;
+        try {
+          handedOver = dispatch(event, batchTypes[i]);
+        } catch (Exception e) {
+          LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+        }
+        deliveredEvents++;
+        EventPool<T> pool = eventPool;
+        if (!handedOver && null != pool) {
+          // the event was only used by the synchronous listener
+          pool.release(event);
+        }
+      }
+      if (null != spill) {
+        commitSpilled(spill);
+      }
+    }
+  }
+
+  /**
+   * Read the spilled events into the batch. The spill queue is only read by this thread and the
+   * publishing threads do not use the buffer while the spill queue has events, so no lock is needed.
+   * 
+   * @return the number of events in the batch
+   */
+  private int takeSpilled(EventSpillQueue spill, RfidEvent[] batch, byte[] batchTypes) {
+    int count = 0;
+    while (count < events.length) {
+      RfidEvent event = spill.poll();
+      if (null == event) {
+        break;
+      }
+      batch[count] = event;
+      batchTypes[count++] = getType(event);
+    }
+    return count;
+  }
+
+  /**
+   * Store the read cursor of the dispatched spilled events and wake up waiting publishers
+   */
+  private void commitSpilled(EventSpillQueue spill) {
+    try {
+      spill.commit();
+    } catch (IOException e) {
+      LOGGER.warn("spill cursor could not be stored: " + e.getMessage());
+    }
+    lock.lock();
+    try {
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean dispatch(RfidEvent event, byte type) {
+    switch (type) {
+      case TYPE_TAG_FOUND:
+      case TYPE_TAG_LOST:
+        return dispatchTagEvent(event, type);
+      case TYPE_TAG_BATCH:
+        RfidTagBatchListener<T> listener = batchListener;
+        if (null != listener) {
+          listener.tagBatch((RfidTagBatch<T>) event);
+        }
+        break;
+      case TYPE_INPUT_CHANGE:
+        if (null != readerListener) {
+          readerListener.inputChange((RfidReaderInputChange) event);
+        }
+        offerReaderEvent(event, type);
+        break;
+      case TYPE_CONNECTION_STATE:
+        if (null != readerListener) {
+          readerListener.connectionState((RfidReaderConnectionState) event);
         }
-        if (RfidTagEvent.class.isInstance(event)) {
-          if (null == tagListener) {
-            continue;
+        offerReaderEvent(event, type);
+        break;
+      default:
+        break;
+    }
+    return true;
+  }
+
+  /**
+   * Dispatch a tag event to the listener queues, the publisher and the tag listener
+   *
+   * @return <code>true</code> if the event is handed over to another thread
+   */
+  @SuppressWarnings("unchecked")
+  private boolean dispatchTagEvent(RfidEvent event, byte type) {
+    boolean handedOver = offerTagEvent(event, type);
+    RfidTagEventListener<T> listener = tagListener;
+    if (null == listener) {
+      return handedOver;
+    }
+    if (offerToLane(event, type)) {
+      return true;
+    }
+    if (TYPE_TAG_FOUND == type) {
+      listener.tagFound((RfidTagFound<T>) event);
+    } else {
+      listener.tagLost((RfidTagLost<T>) event);
+    }
+    return handedOver;
+  }
+
+  /**
+   * Add a tag event to the lane of the tag, so the events of a tag keep their order
+   *
+   * @return <code>false</code> if the parallel dispatch is disabled
+   */
+  private boolean offerToLane(RfidEvent event, byte type) {
+    ListenerQueue<T>[] currentLanes = lanes;
+    if (null == currentLanes) {
+      return false;
+    }
+    Object key = getTagKey(event);
+    int hash = null != key ? key.hashCode() : 0;
+    hash ^= hash >>> 16;
+    currentLanes[(hash & 0x7fffffff) % currentLanes.length].offer(event, type);
+    return true;
+  }
+
+  private boolean offerTagEvent(RfidEvent event, byte type) {
+    boolean offered = false;
+    EventPublisher<RfidEvent> publisher = eventPublisher;
+    if (null != publisher) {
+      offered = publisher.publish(event);
+    }
+    for (ListenerQueue<T> queue : listenerQueues) {
+      if (null != queue.getTagListener()) {
+        queue.offer(event, type);
+        offered = true;
+      }
+    }
+    return offered;
+  }
+
+  private void offerReaderEvent(RfidEvent event, byte type) {
+    EventPublisher<RfidEvent> publisher = eventPublisher;
+    if (null != publisher) {
+      publisher.publish(event);
+    }
+    for (ListenerQueue<T> queue : listenerQueues) {
+      if (null != queue.getReaderListener()) {
+        queue.offer(event, type);
+      }
+    }
+  }
+
+  /**
+   * Wait for events and move all available events (up to the stop sequence) and a due tag batch
+   * into the batch
+   * 
+   * @return the number of events in the batch, -1 if the thread should stop
+   */
+  private int take(RfidEvent[] batch, byte[] batchTypes) throws InterruptedException {
+    lock.lock();
+    try {
+      while (head == tail && !isBatchDue() && isSpillEmpty()) {
+        if (head == stopSequence) {
+          stopSequence = -1;
+          return -1;
+        }
+        if (WaitStrategy.BLOCKING == waitStrategy) {
+          if (batchPending) {
+            notEmpty.awaitNanos(batchDeadline - System.nanoTime());
+          } else {
+            notEmpty.await();
           }
-          if(RfidTagFound.class.isInstance(event)){
-            tagListener.tagFound((RfidTagFound<T>) event);
-          } else if(RfidTagLost.class.isInstance(event)){
-            tagListener.tagLost((RfidTagLost<T>) event);
+        } else {
+          lock.unlock();
+          try {
+            if (WaitStrategy.YIELDING == waitStrategy) {
+              while (head == tail && head != stopSequence && !isBatchDue() && isSpillEmpty()
+                  && WaitStrategy.YIELDING == waitStrategy) {
+                Thread.yield();
+              }
+            } else {
+              while (head == tail && head != stopSequence && !isBatchDue() && isSpillEmpty()
+                  && WaitStrategy.BUSY_SPIN == waitStrategy) {
+                RuntimeSupport.onSpinWait();
+              }
+            }
+          } finally {
+            lock.lock();
           }
-        } else if (RfidReaderInputChange.class.isInstance(event)) {
-          if (null != readerListener) {
-            readerListener.inputChange((RfidReaderInputChange) event);
+        }
+      }
+      int count = 0;
+      if (isBatchDue()) {
+        batch[count] = new RfidTagBatch<>(identifier, batchFound, batchLost, null);
+        batchTypes[count++] = TYPE_TAG_BATCH;
+        batchFound = new ArrayList<>();
+        batchLost = new ArrayList<>();
+        batchPending = false;
+        publishedEvents++;
+      }
+      long end = tail;
+      if (stopSequence >= head) {
+        if (head == stopSequence) {
+          if (0 < count) {
+            return count;
           }
-        } else if (RfidReaderConnectionState.class.isInstance(event) && null != readerListener) {
-          readerListener.connectionState((RfidReaderConnectionState) event);
+          stopSequence = -1;
+          return -1;
+        }
+        end = stopSequence;
+      }
+      while (head != end) {
+        int index = (int) head & mask;
+        RfidEvent event = events[index];
+        byte type = types[index];
+        events[index] = null;
+        if (OverflowPolicy.COALESCE == overflowPolicy) {
+          removePending(event, type, head);
         }
-      } catch (Exception e) {
-        LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+        batch[count] = event;
+        batchTypes[count++] = type;
+        head++;
       }
+      notFull.signalAll();
+      return count;
+    } finally {
+      lock.unlock();
     }
   }
 
   /**
-   * Add an event to the internal buffer for processing.
-   * If the buffer is full, the oldest event will be removed to make space.
+   * Add an event to the internal buffer for processing. If the buffer is full, the event is
+   * handled according to the {@link OverflowPolicy}.
    * 
    * @param event the {@link RfidEvent} to be processed
    */
   public void addEvent(RfidEvent event) {
-    if (eventBuffer.size() > 128 && LOGGER.isDebugEnabled()) {
-      LOGGER.debug("Size " + eventBuffer.size());
+    byte type = getType(event);
+    lock.lock();
+    try {
+      publishedEvents++;
+      OverflowPolicy policy = overflowPolicy;
+      if (OverflowPolicy.COALESCE == policy && tail - head >= events.length
+          && coalesce(event, type)) {
+        return;
+      }
+      EventSpillQueue spill = spillQueue;
+      if (OverflowPolicy.SPILL == policy && null != spill
+          && (tail - head >= events.length || !spill.isEmpty()) && spill(spill, event)) {
+        // the events stay in order, as long as the spill queue has events
+        return;
+      }
+      if (tail - head >= events.length) {
+        if (OverflowPolicy.BLOCK == policy && Thread.currentThread() != internalThread && isAlive()) {
+          try {
+            while (tail - head >= events.length) {
+              notFull.await(100, TimeUnit.MILLISECONDS);
+              if (!isAlive()) {
+                break;
+              }
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedEvents++;
+            return;
+          }
+        }
+        if (tail - head >= events.length) {
+          if (OverflowPolicy.DROP_NEWEST == policy) {
+            LOGGER.debug("drop new Event " + (tail - head));
+            droppedEvents++;
+            release(event);
+            return;
+          }
+          LOGGER.debug("remove Event " + (tail - head));
+          dropOldest();
+        }
+      }
+      publish(event, type);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Write an event to the spill queue, waits while the spill queue is full
+   * 
+   * @return <code>false</code> if the event could not be written
+   */
+  private boolean spill(EventSpillQueue spill, RfidEvent event) {
+    try {
+      while (!spill.append(event)) {
+        if (Thread.currentThread() == internalThread || !isAlive()) {
+          LOGGER.warn("spill queue is full, event dropped");
+          droppedEvents++;
+          release(event);
+          return true;
+        }
+        notFull.await(100, TimeUnit.MILLISECONDS);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("event could not be spilled: " + e.getMessage());
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      droppedEvents++;
+      release(event);
+      return true;
     }
-    if (eventBuffer.size() >= MAX_SIZE) {
-      LOGGER.debug("remove Event " + eventBuffer.size());
-      eventBuffer.poll();
+    release(event);
+    notEmpty.signal();
+    return true;
+  }
+
+  private boolean isSpillEmpty() {
+    EventSpillQueue spill = spillQueue;
+    return null == spill || spill.isEmpty();
+  }
+
+  /**
+   * Return a dropped pooled event to the pool
+   */
+  private void release(RfidEvent event) {
+    EventPool<T> pool = eventPool;
+    if (null != pool && null != event) {
+      pool.release(event);
     }
-    eventBuffer.offer(event);
+  }
+
+  /**
+   * @return <code>true</code> if the tags of the flush interval should be dispatched
+   */
+  private boolean isBatchDue() {
+    return batchPending && (System.nanoTime() - batchDeadline >= 0 || head == stopSequence);
+  }
+
+  /**
+   * Add the found and lost tags of an inventory round for the {@link RfidTagBatchListener}. If a
+   * flush interval is set, the tags are collected and dispatched at the end of the interval,
+   * otherwise the tags are dispatched as one batch.
+   * 
+   * @param foundTags the tags found in the round
+   * @param lostTags the tags lost in the round
+   */
+  public void tagBatch(List<T> foundTags, List<T> lostTags) {
+    boolean hasFound = null != foundTags && !foundTags.isEmpty();
+    boolean hasLost = null != lostTags && !lostTags.isEmpty();
+    if (null == batchListener || (!hasFound && !hasLost)) {
+      return;
+    }
+    if (0 == batchInterval) {
+      addEvent(new RfidTagBatch<>(identifier, foundTags, lostTags, null));
+      return;
+    }
+    lock.lock();
+    try {
+      if (hasFound) {
+        batchFound.addAll(foundTags);
+      }
+      if (hasLost) {
+        batchLost.addAll(lostTags);
+      }
+      if (!batchPending) {
+        batchDeadline = System.nanoTime() + batchInterval * 1000000L;
+        batchPending = true;
+        notEmpty.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void publish(RfidEvent event, byte type) {
+    int index = (int) tail & mask;
+    events[index] = event;
+    types[index] = type;
+    if (OverflowPolicy.COALESCE == overflowPolicy) {
+      Map<Object, Long> pending = getPendingMap(type);
+      if (null != pending) {
+        pending.put(getTagKey(event), tail);
+      }
+    }
+    tail++;
+    notEmpty.signal();
+  }
+
+  private void dropOldest() {
+    int index = (int) head & mask;
+    removePending(events[index], types[index], head);
+    release(events[index]);
+    events[index] = null;
+    head++;
+    droppedEvents++;
+  }
+
+  /**
+   * Replace a pending event of the same tag and type, called if the buffer is full. The event is not coalesced, if an event of
+   * the opposite type of the tag is pending after it, e.g. found, lost, found must not become
+   * found, lost.
+   * 
+   * @return <code>true</code> if the event replaced a pending event
+   */
+  private boolean coalesce(RfidEvent event, byte type) {
+    Map<Object, Long> pending = getPendingMap(type);
+    if (null == pending) {
+      return false;
+    }
+    Object key = getTagKey(event);
+    Long sequence = pending.get(key);
+    if (null == sequence || sequence < head) {
+      return false;
+    }
+    Long opposite = (TYPE_TAG_FOUND == type ? pendingLost : pendingFound).get(key);
+    if (null != opposite && opposite > sequence) {
+      return false;
+    }
+    int index = (int) (long) sequence & mask;
+    release(events[index]);
+    events[index] = event;
+    droppedEvents++;
+    coalescedEvents++;
+    return true;
+  }
+
+  private void removePending(RfidEvent event, byte type, long sequence) {
+    Map<Object, Long> pending = getPendingMap(type);
+    if (null != pending && !pending.isEmpty()) {
+      pending.remove(getTagKey(event), sequence);
+    }
+  }
+
+  private Map<Object, Long> getPendingMap(byte type) {
+    switch (type) {
+      case TYPE_TAG_FOUND:
+        return pendingFound;
+      case TYPE_TAG_LOST:
+        return pendingLost;
+      default:
+        return null;
+    }
+  }
+
+  private Object getTagKey(RfidEvent event) {
+    Object tag = ((RfidTagEvent<?>) event).getTag();
+    if (tag instanceof RfidTag) {
+      return ((RfidTag) tag).getId();
+    }
+    return tag;
+  }
+
+  private static byte getType(RfidEvent event) {
+    if (event instanceof RfidTagFound) {
+      return TYPE_TAG_FOUND;
+    } else if (event instanceof RfidTagLost) {
+      return TYPE_TAG_LOST;
+    } else if (event instanceof RfidReaderInputChange) {
+      return TYPE_INPUT_CHANGE;
+    } else if (event instanceof RfidReaderConnectionState) {
+      return TYPE_CONNECTION_STATE;
+    } else if (event instanceof RfidTagBatch) {
+      return TYPE_TAG_BATCH;
+    }
+    return TYPE_OTHER;
   }
 
 //  /**
@@ -124,6 +745,20 @@ public class EventHandler<T> implements Runnable, RfidReaderEventListener, RfidT
     this.readerListener = listener;
   }
 
+  /**
+   * @return the reader event listener, <code>null</code> if not set
+   */
+  public RfidReaderEventListener getReaderListener() {
+    return readerListener;
+  }
+
+  /**
+   * @return the tag event listener, <code>null</code> if not set
+   */
+  public RfidTagEventListener<T> getTagListener() {
+    return tagListener;
+  }
+
   /**
    * Set the tag event listener for handling tag-specific events.
    * 
@@ -133,6 +768,430 @@ public class EventHandler<T> implements Runnable, RfidReaderEventListener, RfidT
     this.tagListener = listener;
   }
 
+  /**
+   * Add a tag listener with an own event queue and thread. The listener does not delay the other
+   * listeners of the event handler.
+   * 
+   * @param listener the {@link RfidTagEventListener}
+   * @param queueSize the maximum number of queued events of the listener, the oldest event is
+   *        dropped if the queue is full
+   * @return the {@link ListenerQueue} with the metrics of the listener
+   */
+  public ListenerQueue<T> addTagListener(RfidTagEventListener<T> listener, int queueSize) {
+    return addTagListener(listener, queueSize, null);
+  }
+
+  /**
+   * Add a tag listener with an own event queue, which is called by the given executor. The listener
+   * does not delay the other listeners of the event handler.
+   * 
+   * @param listener the {@link RfidTagEventListener}
+   * @param queueSize the maximum number of queued events of the listener, the oldest event is
+   *        dropped if the queue is full
+   * @param executor the executor which calls the listener, <code>null</code> for an own thread
+   * @return the {@link ListenerQueue} with the metrics of the listener
+   */
+  public ListenerQueue<T> addTagListener(RfidTagEventListener<T> listener, int queueSize,
+      Executor executor) {
+    ListenerQueue<T> queue = new ListenerQueue<>(listener, null, queueSize, executor);
+    addListener(queue);
+    return queue;
+  }
+
+  /**
+   * Add a reader listener with an own event queue, which is called by the given executor. The
+   * listener does not delay the other listeners of the event handler.
+   * 
+   * @param listener the {@link RfidReaderEventListener}
+   * @param queueSize the maximum number of queued events of the listener, the oldest event is
+   *        dropped if the queue is full
+   * @param executor the executor which calls the listener, <code>null</code> for an own thread
+   * @return the {@link ListenerQueue} with the metrics of the listener
+   */
+  public ListenerQueue<T> addReaderListener(RfidReaderEventListener listener, int queueSize,
+      Executor executor) {
+    ListenerQueue<T> queue = new ListenerQueue<>(null, listener, queueSize, executor);
+    addListener(queue);
+    return queue;
+  }
+
+  /**
+   * Add a listener queue
+   * 
+   * @param queue the {@link ListenerQueue}
+   */
+  public void addListener(ListenerQueue<T> queue) {
+    if (queue.isClosed()) {
+      throw new IllegalArgumentException("listener queue is closed");
+    }
+    listenerQueues.add(queue);
+  }
+
+  /**
+   * Remove and close a listener queue
+   * 
+   * @param queue the {@link ListenerQueue} to remove
+   * @return <code>true</code> if the listener queue was registered
+   */
+  public boolean removeListener(ListenerQueue<T> queue) {
+    boolean removed = listenerQueues.remove(queue);
+    if (removed) {
+      queue.close();
+    }
+    return removed;
+  }
+
+  /**
+   * @return the registered listener queues
+   */
+  public List<ListenerQueue<T>> getListenerQueues() {
+    return new ArrayList<>(listenerQueues);
+  }
+
+  /**
+   * Dispatch the events of the tag listener in parallel. The tag id is hashed into one of the
+   * lanes, each lane has an own thread. So the found and lost events of a tag keep their order,
+   * while the events of different tags are processed in parallel. If the queue of a lane is full,
+   * the event handler thread waits, so the {@link OverflowPolicy} of the event handler applies.
+   * 
+   * @param numberOfLanes the number of lanes, 0 or 1 to dispatch the tag events in the event
+   *        handler thread. The queued events of the previous lanes are discarded.
+   * @param laneQueueSize the maximum number of queued events per lane
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public synchronized void setDispatchLanes(int numberOfLanes, int laneQueueSize) {
+    if (numberOfLanes < 0) {
+      throw new IllegalArgumentException("number of lanes must not be negative");
+    }
+    if (1 < numberOfLanes && laneQueueSize < 1) {
+      throw new IllegalArgumentException("lane queue size must be greater than 0");
+    }
+    ListenerQueue<T>[] oldLanes = lanes;
+    if (1 < numberOfLanes) {
+      ListenerQueue<T>[] newLanes = new ListenerQueue[numberOfLanes];
+      for (int i = 0; i < numberOfLanes; i++) {
+        newLanes[i] = new ListenerQueue<>(laneListener, null, laneQueueSize, null, true);
+      }
+      lanes = newLanes;
+    } else {
+      lanes = null;
+    }
+    if (null != oldLanes) {
+      for (ListenerQueue<T> lane : oldLanes) {
+        lane.close();
+      }
+    }
+  }
+
+  /**
+   * Move the dispatch lanes with their queued events to another event handler, which replaces this
+   * one. The lanes deliver their events to the tag listener of the other event handler. The events
+   * still published by this event handler are dispatched to the same lanes until its thread ends,
+   * so the events of a tag keep their order. Afterwards this event handler dispatches the tag
+   * events in its own thread.
+   *
+   * @param target the event handler, which takes over the lanes, its previous lanes are closed
+   */
+  public void moveDispatchLanes(EventHandler<T> target) {
+    if (this == target) {
+      return;
+    }
+    ListenerQueue<T>[] movedLanes;
+    LaneListener<T> movedListener;
+    synchronized (this) {
+      movedLanes = lanes;
+      movedListener = laneListener;
+      laneListener = new LaneListener<>(this);
+    }
+    ListenerQueue<T>[] oldLanes;
+    synchronized (target) {
+      oldLanes = target.lanes;
+      target.lanes = movedLanes;
+      target.laneListener = movedListener;
+      movedListener.handler = target;
+    }
+    if (null != oldLanes) {
+      for (ListenerQueue<T> lane : oldLanes) {
+        lane.close();
+      }
+    }
+    if (null != movedLanes) {
+      terminated.thenRun(() -> {
+        synchronized (this) {
+          if (movedLanes == lanes) {
+            lanes = null;
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * @return the number of lanes for the parallel dispatch of the tag events, 0 if the tag events
+   *         are dispatched in the event handler thread
+   */
+  public int getDispatchLanes() {
+    ListenerQueue<T>[] currentLanes = lanes;
+    return null != currentLanes ? currentLanes.length : 0;
+  }
+
+  /**
+   * @return the maximum number of queued events per lane, 0 if the parallel dispatch is disabled
+   */
+  public int getLaneQueueSize() {
+    ListenerQueue<T>[] currentLanes = lanes;
+    return null != currentLanes ? currentLanes[0].getQueueSize() : 0;
+  }
+
+  /**
+   * @return the number of queued events of each lane, an empty array if the parallel dispatch is
+   *         disabled
+   */
+  public int[] getLaneDepths() {
+    ListenerQueue<T>[] currentLanes = lanes;
+    if (null == currentLanes) {
+      return new int[0];
+    }
+    int[] depths = new int[currentLanes.length];
+    for (int i = 0; i < depths.length; i++) {
+      depths[i] = currentLanes[i].getQueuedEvents();
+    }
+    return depths;
+  }
+
+  /**
+   * @return the number of events delivered by each lane, an empty array if the parallel dispatch
+   *         is disabled
+   */
+  public long[] getLaneDeliveredEvents() {
+    ListenerQueue<T>[] currentLanes = lanes;
+    if (null == currentLanes) {
+      return new long[0];
+    }
+    long[] delivered = new long[currentLanes.length];
+    for (int i = 0; i < delivered.length; i++) {
+      delivered[i] = currentLanes[i].getDeliveredEvents();
+    }
+    return delivered;
+  }
+
+  /**
+   * Use pooled tag found and lost events. A pooled event is released after the synchronous tag
+   * listener returns, if the event is not handed over to another thread (dispatch lanes, listener
+   * queues or subscribers). So the tag listener must not keep a reference to the event. To avoid
+   * new events, the pool size should be twice the capacity plus one.
+   * 
+   * @param pool the {@link EventPool}, <code>null</code> to create new events
+   */
+  public void setEventPool(EventPool<T> pool) {
+    this.eventPool = pool;
+  }
+
+  /**
+   * @return the pool of the tag events, <code>null</code> if not set
+   */
+  public EventPool<T> getEventPool() {
+    return eventPool;
+  }
+
+  /**
+   * Set the overflow tier of the {@link OverflowPolicy#SPILL}. Spilled events of a previous run are
+   * dispatched after the buffered events.
+   * 
+   * @param spill the {@link EventSpillQueue}, <code>null</code> to remove the spill queue, the events
+   *        of a removed queue stay in its files
+   */
+  public void setSpillQueue(EventSpillQueue spill) {
+    lock.lock();
+    try {
+      this.spillQueue = spill;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the overflow tier of the {@link OverflowPolicy#SPILL}, <code>null</code> if not set
+   */
+  public EventSpillQueue getSpillQueue() {
+    return spillQueue;
+  }
+
+  /**
+   * Set the publisher, which forwards the tag and reader events to its subscribers
+   * 
+   * @param publisher the {@link EventPublisher}, <code>null</code> to remove the publisher
+   */
+  public void setEventPublisher(EventPublisher<RfidEvent> publisher) {
+    this.eventPublisher = publisher;
+  }
+
+  /**
+   * @return the publisher of the tag and reader events, <code>null</code> if not set
+   */
+  public EventPublisher<RfidEvent> getEventPublisher() {
+    return eventPublisher;
+  }
+
+  /**
+   * @return <code>true</code> if a tag listener, a subscriber or a listener queue with a tag
+   *         listener is set
+   */
+  public boolean hasTagListener() {
+    if (null != tagListener) {
+      return true;
+    }
+    EventPublisher<RfidEvent> publisher = eventPublisher;
+    if (null != publisher && publisher.hasSubscribers()) {
+      return true;
+    }
+    for (ListenerQueue<T> queue : listenerQueues) {
+      if (null != queue.getTagListener()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Set the batch listener, which receives the found and lost tags of an inventory round or a flush
+   * interval as one batch.
+   * 
+   * @param listener the {@link RfidTagBatchListener}, <code>null</code> to remove the listener
+   * @param flushInterval the flush interval in milliseconds, 0 to dispatch the tags of each
+   *        inventory round separately
+   */
+  public void setTagBatchListener(RfidTagBatchListener<T> listener, long flushInterval) {
+    if (flushInterval < 0) {
+      throw new IllegalArgumentException("flush interval must not be negative");
+    }
+    lock.lock();
+    try {
+      this.batchListener = listener;
+      this.batchInterval = flushInterval;
+      if (null == listener) {
+        batchFound.clear();
+        batchLost.clear();
+        batchPending = false;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the tag batch listener, <code>null</code> if not set
+   */
+  public RfidTagBatchListener<T> getTagBatchListener() {
+    return batchListener;
+  }
+
+  /**
+   * @return the flush interval of the tag batch listener in milliseconds, 0 if the tags of each
+   *         inventory round are dispatched separately
+   */
+  public long getTagBatchInterval() {
+    return batchInterval;
+  }
+
+  /**
+   * @return the strategy the event handler thread uses to wait for new events
+   */
+  public WaitStrategy getWaitStrategy() {
+    return waitStrategy;
+  }
+
+  /**
+   * @param waitStrategy the strategy the event handler thread uses to wait for new events
+   */
+  public void setWaitStrategy(WaitStrategy waitStrategy) {
+    if (null == waitStrategy) {
+      throw new NullPointerException("waitStrategy must not be null");
+    }
+    this.waitStrategy = waitStrategy;
+    lock.lock();
+    try {
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the policy for new events if the event buffer is full
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * @param overflowPolicy the policy for new events if the event buffer is full
+   */
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    if (null == overflowPolicy) {
+      throw new NullPointerException("overflowPolicy must not be null");
+    }
+    lock.lock();
+    try {
+      if (OverflowPolicy.COALESCE != overflowPolicy) {
+        pendingFound.clear();
+        pendingLost.clear();
+      }
+      this.overflowPolicy = overflowPolicy;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the size of the event buffer
+   */
+  public int getCapacity() {
+    return events.length;
+  }
+
+  /**
+   * @return the number of events in the event buffer, which are not dispatched yet
+   */
+  public int getPendingEvents() {
+    lock.lock();
+    try {
+      return (int) (tail - head);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of events added to this event handler
+   */
+  public long getPublishedEvents() {
+    return publishedEvents;
+  }
+
+  /**
+   * @return the number of events dispatched to the listeners
+   */
+  public long getDeliveredEvents() {
+    return deliveredEvents;
+  }
+
+  /**
+   * @return the number of events which are dropped because of a full event buffer, including the
+   *         coalesced events
+   */
+  public long getDroppedEvents() {
+    return droppedEvents;
+  }
+
+  /**
+   * @return the number of events which are replaced by a newer event of the same tag
+   */
+  public long getCoalescedEvents() {
+    return coalescedEvents;
+  }
+
   /**
    * Handles input change events from the RFID reader.
    * Forwards the event to the internal event queue for processing.
@@ -157,7 +1216,7 @@ public class EventHandler<T> implements Runnable, RfidReaderEventListener, RfidT
 
   /**
    * Tests if the event handler thread is alive and running.
-   *
+   * 
    * @return <code>true</code> if the event handler thread is alive and running;
    *         <code>false</code> otherwise
    */
@@ -165,6 +1224,32 @@ public class EventHandler<T> implements Runnable, RfidReaderEventListener, RfidT
     return null != internalThread && internalThread.isAlive();
   }
 
+  /**
+   * Handles a tag found. With an {@link EventPool} the event is taken from the pool.
+   * 
+   * @param identifier reader identifier
+   * @param tag the found tag
+   * @param timestamp the time the tag was found
+   */
+  public void tagFound(String identifier, T tag, Long timestamp) {
+    EventPool<T> pool = eventPool;
+    addEvent(null != pool ? pool.acquireFound(identifier, tag, timestamp)
+        : new RfidTagFound<>(identifier, tag, timestamp));
+  }
+
+  /**
+   * Handles a tag lost. With an {@link EventPool} the event is taken from the pool.
+   * 
+   * @param identifier reader identifier
+   * @param tag the lost tag
+   * @param timestamp the time the tag was lost
+   */
+  public void tagLost(String identifier, T tag, Long timestamp) {
+    EventPool<T> pool = eventPool;
+    addEvent(null != pool ? pool.acquireLost(identifier, tag, timestamp)
+        : new RfidTagLost<>(identifier, tag, timestamp));
+  }
+
   /**
    * Handles tag found events.
    * Forwards the event to the internal event queue for processing.
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of recyclable {@link RfidTagFound} and {@link RfidTagLost} events. The {@link EventHandler}
+ * releases a pooled event after the listener returns, so the listener must not keep a reference to
+ * the event or use it in another thread. With the debug guard the released events are not reused,
+ * so the access to a released event always throws an {@link IllegalStateException}, also while
+ * new events are dispatched. The debug guard creates a new event for every acquire and is meant for
+ * testing the listeners.
+ *
+ * @param <T> the type of RFID tag of the events
+ * @author mn
+ *
+ */
+public class EventPool<T> {
+  private final ArrayDeque<RfidTagFound<T>> foundEvents;
+  private final ArrayDeque<RfidTagLost<T>> lostEvents;
+  private final int maxSize;
+  private final boolean debugGuard;
+  /** guarded by this */
+  private long createdEvents;
+  /** guarded by this */
+  private long recycledEvents;
+
+  /**
+   * @param maxSize the maximum number of pooled events per event type
+   * @param debugGuard <code>true</code> to detect the use of released events, the released events
+   *        are not reused
+   */
+  public EventPool(int maxSize, boolean debugGuard) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("pool size must be greater than 0");
+    }
+    this.maxSize = maxSize;
+    this.debugGuard = debugGuard;
+    foundEvents = new ArrayDeque<>(maxSize);
+    lostEvents = new ArrayDeque<>(maxSize);
+  }
+
+  /**
+   * @param identifier reader identifier
+   * @param tag the found tag
+   * @param timestamp event time
+   * @return a pooled tag found event
+   */
+  public synchronized RfidTagFound<T> acquireFound(String identifier, T tag, Long timestamp) {
+    RfidTagFound<T> event = foundEvents.pollLast();
+    if (null == event) {
+      event = new RfidTagFound<>(identifier, tag, timestamp);
+      createdEvents++;
+    } else {
+      recycledEvents++;
+    }
+    event.recycle(identifier, tag, timestamp);
+    return event;
+  }
+
+  /**
+   * @param identifier reader identifier
+   * @param tag the lost tag
+   * @param timestamp event time
+   * @return a pooled tag lost event
+   */
+  public synchronized RfidTagLost<T> acquireLost(String identifier, T tag, Long timestamp) {
+    RfidTagLost<T> event = lostEvents.pollLast();
+    if (null == event) {
+      event = new RfidTagLost<>(identifier, tag, timestamp);
+      createdEvents++;
+    } else {
+      recycledEvents++;
+    }
+    event.recycle(identifier, tag, timestamp);
+    return event;
+  }
+
+  /**
+   * Return a pooled event to the pool, other events are ignored
+   *
+   * @param event the event
+   * @throws IllegalStateException if the event is released twice and the debug guard is enabled
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized void release(RfidEvent event) {
+    if (RfidEvent.IN_USE != event.getPoolState()) {
+      if (debugGuard && RfidEvent.NOT_POOLED != event.getPoolState()) {
+        throw new IllegalStateException("pooled event released twice");
+      }
+      return;
+    }
+    ((RfidTagEvent<T>) event).clear();
+    if (debugGuard) {
+      // a reused event would hide the access of a listener, which kept the released event
+      event.setPoolState(RfidEvent.RELEASED_GUARDED);
+      return;
+    }
+    event.setPoolState(RfidEvent.RELEASED);
+    if (event instanceof RfidTagFound) {
+      if (foundEvents.size() < maxSize) {
+        foundEvents.addLast((RfidTagFound<T>) event);
+      }
+    } else if (event instanceof RfidTagLost) {
+      if (lostEvents.size() < maxSize) {
+        lostEvents.addLast((RfidTagLost<T>) event);
+      }
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the use of released events is detected
+   */
+  public boolean isDebugGuard() {
+    return debugGuard;
+  }
+
+  /**
+   * @return the number of events created by the pool
+   */
+  public synchronized long getCreatedEvents() {
+    return createdEvents;
+  }
+
+  /**
+   * @return the number of reused events
+   */
+  public synchronized long getRecycledEvents() {
+    return recycledEvents;
+  }
+
+  /**
+   * @return the number of events available in the pool
+   */
+  public synchronized int getPooledEvents() {
+    return foundEvents.size() + lostEvents.size();
+  }
+}
@@ -0,0 +1,386 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.MetratecReader;
+import com.metratec.lib.rfidreader.event.EventFlow.Subscriber;
+import com.metratec.lib.rfidreader.event.EventFlow.Subscription;
+import com.metratec.lib.tag.RfidTag;
+
+/**
+ * Publisher of reader events, which honours the demand of the subscribers. Each subscriber has an
+ * own bounded buffer for the events published without demand, the {@link DemandPolicy} of the
+ * subscriber decides what happens with these events.
+ *
+ * @param <E> the event type
+ * @author mn
+ *
+ */
+public class EventPublisher<E extends RfidEvent> implements EventFlow.Publisher<E> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetratecReader.class);
+  /**
+   * Default buffer size of a subscriber
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  /**
+   * What happens with events published while the subscriber has no demand
+   */
+  public enum DemandPolicy {
+    /** the events are buffered, if the buffer is full, the oldest event is dropped */
+    BUFFER,
+    /**
+     * the events are buffered, the last buffered event of the tag is replaced by the new event, if
+     * it has the same event type, if the buffer is full, the oldest event is dropped
+     */
+    COALESCE,
+    /** the events are dropped */
+    DROP,
+  }
+
+  private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+  private final Executor executor;
+  private final int defaultBufferSize;
+  private final DemandPolicy defaultPolicy;
+  private volatile boolean closed;
+
+  /**
+   * Create a publisher, which delivers the events with the common fork join pool and buffers up to
+   * 1024 events per subscriber
+   */
+  public EventPublisher() {
+    this(null, DEFAULT_BUFFER_SIZE, DemandPolicy.BUFFER);
+  }
+
+  /**
+   * @param executor the executor which calls the subscribers, <code>null</code> for the common
+   *        fork join pool. The events of a subscriber are always delivered one after the other.
+   * @param bufferSize the default buffer size of a subscriber
+   * @param policy the default policy for events without demand
+   */
+  public EventPublisher(Executor executor, int bufferSize, DemandPolicy policy) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("buffer size must be greater than 0");
+    }
+    if (null == policy) {
+      throw new NullPointerException("policy must not be null");
+    }
+    this.executor = null != executor ? executor : ForkJoinPool.commonPool();
+    this.defaultBufferSize = bufferSize;
+    this.defaultPolicy = policy;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super E> subscriber) {
+    subscribe(subscriber, defaultBufferSize, defaultPolicy);
+  }
+
+  /**
+   * Add a subscriber with an own buffer configuration
+   *
+   * @param subscriber the subscriber
+   * @param bufferSize the maximum number of buffered events of the subscriber
+   * @param policy what happens with events published while the subscriber has no demand
+   */
+  public void subscribe(Subscriber<? super E> subscriber, int bufferSize, DemandPolicy policy) {
+    if (null == subscriber || null == policy) {
+      throw new NullPointerException();
+    }
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("buffer size must be greater than 0");
+    }
+    EventSubscription subscription = new EventSubscription(subscriber, bufferSize, policy);
+    for (EventSubscription existing : subscriptions) {
+      if (existing.subscriber == subscriber) {
+        subscription.fail(new IllegalStateException("already subscribed"));
+        subscription.schedule();
+        return;
+      }
+    }
+    if (closed) {
+      subscription.complete();
+    } else {
+      subscriptions.add(subscription);
+    }
+    subscription.schedule();
+  }
+
+  /**
+   * Publish an event to all subscribers, never blocks
+   *
+   * @param event the event
+   * @return <code>true</code> if the event is buffered or delivered for at least one subscriber
+   */
+  public boolean publish(E event) {
+    if (closed) {
+      return false;
+    }
+    boolean offered = false;
+    for (EventSubscription subscription : subscriptions) {
+      offered |= subscription.offer(event);
+    }
+    return offered;
+  }
+
+  /**
+   * Close the publisher, the subscribers receive the buffered events (if requested) and then
+   * {@link Subscriber#onComplete()}
+   */
+  public void close() {
+    closed = true;
+    for (EventSubscription subscription : subscriptions) {
+      subscription.complete();
+      subscription.schedule();
+    }
+    subscriptions.clear();
+  }
+
+  /**
+   * @return <code>true</code> if the publisher is closed
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * @return <code>true</code> if the publisher has subscribers
+   */
+  public boolean hasSubscribers() {
+    return !subscriptions.isEmpty();
+  }
+
+  /**
+   * @return the number of subscribers
+   */
+  public int getNumberOfSubscribers() {
+    return subscriptions.size();
+  }
+
+  /**
+   * @return the number of events dropped for the current subscribers
+   */
+  public long getDroppedEvents() {
+    long dropped = 0;
+    for (EventSubscription subscription : subscriptions) {
+      dropped += subscription.droppedEvents;
+    }
+    return dropped;
+  }
+
+  /**
+   * @return the number of buffered events of the current subscribers
+   */
+  public int getBufferedEvents() {
+    int buffered = 0;
+    for (EventSubscription subscription : subscriptions) {
+      buffered += subscription.getBufferedEvents();
+    }
+    return buffered;
+  }
+
+  /**
+   * @return the key of the tag of a tag event, <code>null</code> for other events
+   */
+  private static Object getTagKey(RfidEvent event) {
+    if (event instanceof RfidTagEvent) {
+      Object tag = ((RfidTagEvent<?>) event).getTag();
+      return tag instanceof RfidTag ? ((RfidTag) tag).getId() : tag;
+    }
+    return null;
+  }
+
+  /**
+   * Subscription with the buffer of a subscriber
+   */
+  private class EventSubscription implements Subscription, Runnable {
+    private final Subscriber<? super E> subscriber;
+    private final int bufferSize;
+    private final DemandPolicy policy;
+    /** the buffered events, guarded by this */
+    private final LinkedHashMap<Object, E> buffer = new LinkedHashMap<>();
+    /** the buffer key of the last buffered event of a tag for coalescing, guarded by this */
+    private final Map<Object, Object> lastTagEvents = new HashMap<>();
+    /** guarded by this */
+    private long demand;
+    /** guarded by this */
+    private boolean scheduled;
+    private boolean subscribed;
+    private volatile boolean cancelled;
+    private volatile boolean completed;
+    private volatile Throwable error;
+    private volatile long droppedEvents;
+
+    EventSubscription(Subscriber<? super E> subscriber, int bufferSize, DemandPolicy policy) {
+      this.subscriber = subscriber;
+      this.bufferSize = bufferSize;
+      this.policy = policy;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        fail(new IllegalArgumentException("the number of requested events must be positive"));
+      } else {
+        synchronized (this) {
+          demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+        }
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      subscriptions.remove(this);
+      synchronized (this) {
+        buffer.clear();
+        lastTagEvents.clear();
+      }
+    }
+
+    boolean offer(E event) {
+      synchronized (this) {
+        if (cancelled || completed) {
+          return false;
+        }
+        if (DemandPolicy.DROP == policy && buffer.size() >= Math.min(demand, bufferSize)) {
+          droppedEvents++;
+          return false;
+        }
+        Object tagKey = DemandPolicy.COALESCE == policy ? getTagKey(event) : null;
+        // only the last buffered event of the tag is replaced, so found, lost, found keeps its order
+        Object last = null != tagKey ? lastTagEvents.get(tagKey) : null;
+        if (null != last && buffer.get(last).getClass() == event.getClass()) {
+          buffer.put(last, event);
+          droppedEvents++;
+        } else {
+          if (buffer.size() >= bufferSize) {
+            removeFirst();
+            droppedEvents++;
+          }
+          Object key = new Object();
+          buffer.put(key, event);
+          if (null != tagKey) {
+            lastTagEvents.put(tagKey, key);
+          }
+        }
+        if (0 == demand) {
+          return true;
+        }
+      }
+      schedule();
+      return true;
+    }
+
+    /**
+     * Remove the oldest buffered event, guarded by this
+     */
+    private E removeFirst() {
+      Iterator<Map.Entry<Object, E>> iterator = buffer.entrySet().iterator();
+      Map.Entry<Object, E> first = iterator.next();
+      iterator.remove();
+      if (DemandPolicy.COALESCE == policy) {
+        Object tagKey = getTagKey(first.getValue());
+        if (null != tagKey) {
+          lastTagEvents.remove(tagKey, first.getKey());
+        }
+      }
+      return first.getValue();
+    }
+
+    void complete() {
+      completed = true;
+    }
+
+    void fail(Throwable throwable) {
+      error = throwable;
+      cancel();
+    }
+
+    synchronized int getBufferedEvents() {
+      return buffer.size();
+    }
+
+    void schedule() {
+      synchronized (this) {
+        if (scheduled) {
+          return;
+        }
+        scheduled = true;
+      }
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        LOGGER.warn("subscriber executor rejected the event delivery: " + e.getMessage());
+        synchronized (this) {
+          scheduled = false;
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      if (!subscribed) {
+        subscribed = true;
+        try {
+          subscriber.onSubscribe(this);
+        } catch (Exception e) {
+          LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+          fail(e);
+        }
+      }
+      for (int i = 0; i < bufferSize; i++) {
+        E event;
+        synchronized (this) {
+          if (null != error || cancelled || 0 == demand || buffer.isEmpty()) {
+            break;
+          }
+          event = removeFirst();
+          demand--;
+        }
+        try {
+          subscriber.onNext(event);
+        } catch (Exception e) {
+          LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+          fail(e);
+        }
+      }
+      Throwable throwable = error;
+      boolean finished = null != throwable || (completed && !cancelled && 0 == getBufferedEvents());
+      if (finished) {
+        error = null;
+        completed = false;
+        cancelled = true;
+        try {
+          if (null != throwable) {
+            subscriber.onError(throwable);
+          } else {
+            subscriber.onComplete();
+          }
+        } catch (Exception e) {
+          LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+        }
+      }
+      boolean again;
+      synchronized (this) {
+        scheduled = false;
+        again = !finished && !cancelled && 0 < demand && !buffer.isEmpty();
+      }
+      if (again) {
+        schedule();
+      }
+    }
+  }
+}
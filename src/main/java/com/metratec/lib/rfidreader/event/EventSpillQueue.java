@@ -0,0 +1,578 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.MetratecReader;
+import com.metratec.lib.tag.RfidTag;
+
+/**
+ * Durable overflow queue of the {@link EventHandler}. The events are serialized into memory mapped
+ * segment files of a directory, so they survive a slow listener and a restart of the application.
+ * <p>
+ * A segment starts with the header <code>int magic, int format version</code>, segments of another
+ * format version are rejected when the queue is opened. Record format of a segment:
+ * <code>int length, int crc, byte[length] event</code>. The events are serialized with the class
+ * names instead of the full class descriptors, so only the event classes, the tag classes,
+ * exceptions and the JDK types of their fields are read. The length is written after the event, a
+ * length of 0 marks the end of the written records and -1 the end of the segment. The read
+ * position is stored in the cursor file after the events are dispatched, so after a crash the
+ * events are delivered at least once. Consumed segments are deleted, the disk usage is
+ * limited to the maximum number of segments.
+ *
+ * @author mn
+ *
+ */
+public class EventSpillQueue implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetratecReader.class);
+  /**
+   * Default size of a segment file (4 MB)
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 4 << 20;
+  private static final String SEGMENT_PREFIX = "events-";
+  private static final String SEGMENT_SUFFIX = ".spill";
+  private static final String CURSOR_FILE = "cursor";
+  private static final int SEGMENT_MAGIC = 0x4D545351;
+  /**
+   * Version of the record format, must be increased if the serialized fields of the events or the
+   * tags change, because the class descriptors are not stored
+   */
+  private static final int FORMAT_VERSION = 1;
+  private static final int SEGMENT_HEADER_SIZE = 8;
+  private static final int HEADER_SIZE = 8;
+  private static final int END_OF_SEGMENT = -1;
+  /** two cursor slots: sequence, segment, position, crc */
+  private static final int CURSOR_SLOT_SIZE = 24;
+
+  private final File directory;
+  private final int segmentSize;
+  private final int maxSegments;
+  private final ByteArrayOutputStream serializeBuffer = new ByteArrayOutputStream(512);
+  private final CRC32 crc = new CRC32();
+  private final RandomAccessFile cursorFile;
+
+  private long writeSegment;
+  private int writePosition;
+  private MappedByteBuffer writeBuffer;
+  private long readSegment;
+  private int readPosition;
+  private MappedByteBuffer readBuffer;
+  /** the segment of the last stored cursor, the older segments are deleted */
+  private long committedSegment;
+  private int committedPosition;
+  private long cursorSequence;
+  private volatile long size;
+  private volatile long spilledEvents;
+  private volatile long replayedEvents;
+  private volatile boolean closed;
+
+  /**
+   * Open a spill queue with segments of 4 MB
+   *
+   * @param directory the directory of the segment files, it is created if it does not exist
+   * @param maxSegments the maximum number of segment files
+   * @throws IOException if the directory or the files could not be opened
+   */
+  public EventSpillQueue(File directory, int maxSegments) throws IOException {
+    this(directory, DEFAULT_SEGMENT_SIZE, maxSegments);
+  }
+
+  /**
+   * Open a spill queue. Events remaining from a previous run are replayed.
+   *
+   * @param directory the directory of the segment files, it is created if it does not exist
+   * @param segmentSize the size of a segment file in bytes
+   * @param maxSegments the maximum number of segment files, at least 2
+   * @throws IOException if the directory or the files could not be opened
+   */
+  public EventSpillQueue(File directory, int segmentSize, int maxSegments) throws IOException {
+    if (segmentSize < 1024) {
+      throw new IllegalArgumentException("segment size must be at least 1024 bytes");
+    }
+    if (maxSegments < 2) {
+      throw new IllegalArgumentException("at least 2 segments are required");
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("could not create the spill directory " + directory);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxSegments = maxSegments;
+    cursorFile = new RandomAccessFile(new File(directory, CURSOR_FILE), "rw");
+    try {
+      recover();
+    } catch (IOException e) {
+      cursorFile.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Restore the read cursor and the write position of the segment files
+   */
+  private void recover() throws IOException {
+    long first = Long.MAX_VALUE;
+    long last = -1;
+    File[] files = directory.listFiles();
+    if (null != files) {
+      for (File file : files) {
+        long index = getSegmentIndex(file.getName());
+        if (index >= 0) {
+          first = Math.min(first, index);
+          last = Math.max(last, index);
+        }
+      }
+    }
+    if (last < 0) {
+      // no spilled events, the cursor sequence is continued
+      readCursor();
+      readSegment = writeSegment = committedSegment = 0;
+      readPosition = writePosition = committedPosition = SEGMENT_HEADER_SIZE;
+      writeBuffer = readBuffer = createSegment(0);
+      storeCursor();
+      return;
+    }
+    if (!readCursor() || committedSegment < first || committedSegment > last
+        || committedPosition < SEGMENT_HEADER_SIZE) {
+      LOGGER.warn("spill cursor is invalid, the events of " + directory + " are replayed");
+      committedSegment = first;
+      committedPosition = SEGMENT_HEADER_SIZE;
+    }
+    for (long index = first; index < committedSegment; index++) {
+      deleteSegment(index);
+    }
+    readSegment = committedSegment;
+    readPosition = committedPosition;
+    // count the records and find the end of the last segment
+    long count = 0;
+    for (long index = readSegment; index <= last; index++) {
+      MappedByteBuffer buffer = map(index);
+      checkSegmentHeader(buffer, index, index == last);
+      int position = index == readSegment ? readPosition : SEGMENT_HEADER_SIZE;
+      while (true) {
+        int length = readLength(buffer, position);
+        if (END_OF_SEGMENT == length && index < last) {
+          break;
+        }
+        if (length <= 0 || !checkRecord(buffer, position, length)) {
+          if (index < last) {
+            LOGGER.warn("damaged record in spill segment " + index);
+          }
+          break;
+        }
+        count++;
+        position += HEADER_SIZE + length;
+      }
+      if (index == readSegment) {
+        readBuffer = buffer;
+      }
+      if (index == last) {
+        // remove a partially written record
+        for (int i = position; i < segmentSize; i++) {
+          buffer.put(i, (byte) 0);
+        }
+        writeSegment = last;
+        writePosition = position;
+        writeBuffer = buffer;
+      }
+    }
+    size = count;
+    if (0 < count) {
+      LOGGER.info(count + " spilled events of " + directory + " are replayed");
+    }
+  }
+
+  /**
+   * Append an event to the queue
+   *
+   * @param event the event, must be serializable
+   * @return <code>false</code> if the maximum number of segments is reached
+   * @throws IOException if the event could not be serialized or written
+   */
+  public synchronized boolean append(RfidEvent event) throws IOException {
+    if (closed) {
+      throw new IOException("spill queue is closed");
+    }
+    serializeBuffer.reset();
+    try (ObjectOutputStream out = new CompactOutputStream(serializeBuffer)) {
+      out.writeObject(event);
+    }
+    int length = serializeBuffer.size();
+    if (SEGMENT_HEADER_SIZE + HEADER_SIZE + length + 4 > segmentSize) {
+      throw new IOException("event is too large for a spill segment (" + length + " bytes)");
+    }
+    if (writePosition + HEADER_SIZE + length + 4 > segmentSize) {
+      if (writeSegment + 1 - committedSegment >= maxSegments) {
+        return false;
+      }
+      MappedByteBuffer next = createSegment(writeSegment + 1);
+      writeBuffer.putInt(writePosition, END_OF_SEGMENT);
+      writeSegment++;
+      writePosition = SEGMENT_HEADER_SIZE;
+      writeBuffer = next;
+    }
+    byte[] data = serializeBuffer.toByteArray();
+    crc.reset();
+    crc.update(data, 0, length);
+    ByteBuffer record = writeBuffer.duplicate();
+    record.position(writePosition + 4);
+    record.putInt((int) crc.getValue());
+    record.put(data, 0, length);
+    // the length is written last, so a reader never sees a partial record
+    writeBuffer.putInt(writePosition, length);
+    writePosition += HEADER_SIZE + length;
+    size++;
+    spilledEvents++;
+    return true;
+  }
+
+  /**
+   * Read the next event, the read position is stored with {@link #commit()}
+   *
+   * @return the next event, <code>null</code> if the queue is empty
+   */
+  public synchronized RfidEvent poll() {
+    while (0 < size && !closed) {
+      int length = readLength(readBuffer, readPosition);
+      if (END_OF_SEGMENT == length) {
+        try {
+          readSegment++;
+          readPosition = SEGMENT_HEADER_SIZE;
+          readBuffer = readSegment == writeSegment ? writeBuffer : map(readSegment);
+        } catch (IOException e) {
+          LOGGER.warn("spill segment " + readSegment + " could not be opened: " + e.getMessage());
+          size = 0;
+          return null;
+        }
+        continue;
+      }
+      if (length <= 0) {
+        // can only happen with a damaged segment
+        size = 0;
+        return null;
+      }
+      int position = readPosition;
+      readPosition += HEADER_SIZE + length;
+      size--;
+      replayedEvents++;
+      byte[] data = new byte[length];
+      ByteBuffer record = readBuffer.duplicate();
+      record.position(position + HEADER_SIZE);
+      record.get(data);
+      try (ObjectInputStream in = new CompactInputStream(new ByteArrayInputStream(data))) {
+        return (RfidEvent) in.readObject();
+      } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        LOGGER.warn("spilled event could not be read: " + e.getMessage());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Store the read position in the cursor file and delete the consumed segments. Call after the
+   * events read with {@link #poll()} are processed.
+   *
+   * @throws IOException if the cursor could not be written
+   */
+  public synchronized void commit() throws IOException {
+    if (closed || (readSegment == committedSegment && readPosition == committedPosition)) {
+      return;
+    }
+    long oldSegment = committedSegment;
+    committedSegment = readSegment;
+    committedPosition = readPosition;
+    storeCursor();
+    for (long index = oldSegment; index < committedSegment; index++) {
+      deleteSegment(index);
+    }
+  }
+
+  /**
+   * @return <code>true</code> if all events are read
+   */
+  public boolean isEmpty() {
+    return 0 == size;
+  }
+
+  /**
+   * @return the number of events not read yet
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @return <code>true</code> if the maximum number of segments is in use
+   */
+  public synchronized boolean isFull() {
+    return writeSegment + 1 - committedSegment >= maxSegments;
+  }
+
+  /**
+   * @return the number of events written to the queue
+   */
+  public long getSpilledEvents() {
+    return spilledEvents;
+  }
+
+  /**
+   * @return the number of events read from the queue
+   */
+  public long getReplayedEvents() {
+    return replayedEvents;
+  }
+
+  /**
+   * @return the disk usage of the segment files in bytes
+   */
+  public synchronized long getDiskUsage() {
+    return (writeSegment - committedSegment + 1) * segmentSize;
+  }
+
+  /**
+   * @return the directory of the segment files
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Close the queue, the unread events are kept for the next start
+   *
+   * @throws IOException if the cursor file could not be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    writeBuffer.force();
+    cursorFile.close();
+    writeBuffer = readBuffer = null;
+  }
+
+  private MappedByteBuffer map(long index) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(getSegmentFile(index), "rw")) {
+      file.setLength(segmentSize);
+      return file.getChannel().map(MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  private MappedByteBuffer createSegment(long index) throws IOException {
+    MappedByteBuffer buffer = map(index);
+    buffer.putInt(0, SEGMENT_MAGIC);
+    buffer.putInt(4, FORMAT_VERSION);
+    return buffer;
+  }
+
+  /**
+   * Check the header of a segment of a previous run
+   *
+   * @param last <code>true</code> for the last segment, which can be created without a header
+   *        before a crash
+   * @throws IOException if the segment has another format
+   */
+  private void checkSegmentHeader(MappedByteBuffer buffer, long index, boolean last)
+      throws IOException {
+    int magic = buffer.getInt(0);
+    int version = buffer.getInt(4);
+    if (last && 0 == magic && 0 == version && 0 == buffer.getInt(SEGMENT_HEADER_SIZE)) {
+      buffer.putInt(0, SEGMENT_MAGIC);
+      buffer.putInt(4, FORMAT_VERSION);
+      return;
+    }
+    if (SEGMENT_MAGIC != magic || FORMAT_VERSION != version) {
+      throw new IOException(String.format(
+          "spill segment %s has an unsupported format (version %d), expected version %d",
+          getSegmentFile(index), SEGMENT_MAGIC == magic ? version : 0, FORMAT_VERSION));
+    }
+  }
+
+  private void deleteSegment(long index) {
+    File file = getSegmentFile(index);
+    if (file.exists() && !file.delete()) {
+      // a mapped file can not be deleted on some systems, it is removed at the next start
+      LOGGER.debug("spill segment " + file + " could not be deleted");
+    }
+  }
+
+  private File getSegmentFile(long index) {
+    return new File(directory, String.format("%s%016d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+  }
+
+  private static long getSegmentIndex(String name) {
+    if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(
+          name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private int readLength(MappedByteBuffer buffer, int position) {
+    return position + 4 <= segmentSize ? buffer.getInt(position) : END_OF_SEGMENT;
+  }
+
+  private boolean checkRecord(MappedByteBuffer buffer, int position, int length) {
+    if (position + HEADER_SIZE + length > segmentSize) {
+      return false;
+    }
+    ByteBuffer record = buffer.duplicate();
+    record.position(position + HEADER_SIZE);
+    record.limit(position + HEADER_SIZE + length);
+    crc.reset();
+    byte[] data = new byte[length];
+    record.get(data);
+    crc.update(data, 0, length);
+    return (int) crc.getValue() == buffer.getInt(position + 4);
+  }
+
+  /**
+   * Read the newer valid slot of the cursor file
+   *
+   * @return <code>false</code> if no slot is valid
+   */
+  private boolean readCursor() throws IOException {
+    boolean valid = false;
+    FileChannel channel = cursorFile.getChannel();
+    for (int slot = 0; slot < 2; slot++) {
+      ByteBuffer buffer = ByteBuffer.allocate(CURSOR_SLOT_SIZE);
+      channel.read(buffer, slot * CURSOR_SLOT_SIZE);
+      if (buffer.hasRemaining()) {
+        continue;
+      }
+      crc.reset();
+      crc.update(buffer.array(), 0, CURSOR_SLOT_SIZE - 4);
+      long sequence = buffer.getLong(0);
+      if ((int) crc.getValue() == buffer.getInt(CURSOR_SLOT_SIZE - 4)
+          && (!valid || sequence > cursorSequence)) {
+        valid = true;
+        cursorSequence = sequence;
+        committedSegment = buffer.getLong(8);
+        committedPosition = buffer.getInt(16);
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * Write the cursor into the older slot, so a torn write keeps the previous cursor
+   */
+  private void storeCursor() throws IOException {
+    cursorSequence++;
+    ByteBuffer buffer = ByteBuffer.allocate(CURSOR_SLOT_SIZE);
+    buffer.putLong(cursorSequence).putLong(committedSegment).putInt(committedPosition);
+    crc.reset();
+    crc.update(buffer.array(), 0, CURSOR_SLOT_SIZE - 4);
+    buffer.putInt((int) crc.getValue());
+    buffer.flip();
+    cursorFile.getChannel().write(buffer, (cursorSequence & 1) * CURSOR_SLOT_SIZE);
+    cursorFile.getChannel().force(false);
+  }
+
+  /**
+   * Writes only the class names of the serialized objects, the class descriptors of the current
+   * classes are used for reading
+   */
+  private static class CompactOutputStream extends ObjectOutputStream {
+
+    CompactOutputStream(OutputStream out) throws IOException {
+      super(out);
+    }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+      writeUTF(desc.getName());
+    }
+  }
+
+  /**
+   * Reads the class names written by the {@link CompactOutputStream}. Only the event and tag
+   * classes, exceptions and the JDK types of their fields are accepted, so a modified segment file
+   * can not instantiate other classes.
+   */
+  private static class CompactInputStream extends ObjectInputStream {
+    /** the JDK types of the event and tag fields */
+    private static final Set<Class<?>> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(String.class,
+        Number.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class,
+        Boolean.class, Character.class, Enum.class, StackTraceElement.class, ArrayList.class,
+        LinkedList.class, CopyOnWriteArrayList.class, Arrays.asList().getClass(),
+        Collections.emptyList().getClass(), Collections.singletonList(null).getClass(),
+        Collections.unmodifiableCollection(new ArrayList<>()).getClass(),
+        Collections.unmodifiableList(new LinkedList<>()).getClass(),
+        Collections.unmodifiableList(new ArrayList<>()).getClass()));
+
+    CompactInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+      return ObjectStreamClass.lookupAny(loadClass(readUTF()));
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+        throws IOException, ClassNotFoundException {
+      return loadClass(desc.getName());
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+      throw new InvalidClassException("proxy classes are not allowed in a spill queue");
+    }
+
+    private static Class<?> loadClass(String name) throws IOException, ClassNotFoundException {
+      Class<?> cls;
+      try {
+        cls = Class.forName(name, false, EventSpillQueue.class.getClassLoader());
+      } catch (ClassNotFoundException e) {
+        // e.g. a tag class of the application
+        cls = Class.forName(name, false, Thread.currentThread().getContextClassLoader());
+      }
+      if (!isAllowed(cls)) {
+        throw new InvalidClassException(name, "class is not allowed in a spill queue");
+      }
+      return cls;
+    }
+
+    private static boolean isAllowed(Class<?> cls) {
+      while (cls.isArray()) {
+        cls = cls.getComponentType();
+      }
+      return cls.isPrimitive() || ALLOWED_CLASSES.contains(cls)
+          || RfidEvent.class.isAssignableFrom(cls) || RfidTag.class.isAssignableFrom(cls)
+          || Throwable.class.isAssignableFrom(cls) || cls.isEnum();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a trigger gated inventory. The session starts with the trigger edge of the gate input
+ * and ends when the inventory is stopped after the input is released. The timestamp of the event
+ * is the time of the trigger.
+ * 
+ * @param <T> the type of RFID tag associated with this event
+ * @author mn
+ *
+ */
+public class GateSession<T> extends RfidEvent {
+
+  private static final long serialVersionUID = -4360183512817734641L;
+  private int input;
+  private List<T> tags;
+  private long readCount;
+  private long firstReadTimestamp;
+  private long releaseTimestamp;
+  private long stopTimestamp;
+  private Exception error;
+
+  /**
+   * @param identifier reader identifier
+   * @param input the gate input
+   * @param tags the tags read in the session, each tag once
+   * @param readCount the number of tag reads in the session
+   * @param triggerTimestamp the time of the trigger edge
+   * @param firstReadTimestamp the time of the first tag read, 0 if no tag was read
+   * @param releaseTimestamp the time the input was released
+   * @param stopTimestamp the time the inventory was stopped
+   * @param error the error of the start or stop command, <code>null</code> if the commands
+   *        succeeded
+   */
+  public GateSession(String identifier, int input, List<T> tags, long readCount,
+      long triggerTimestamp, long firstReadTimestamp, long releaseTimestamp, long stopTimestamp,
+      Exception error) {
+    super(identifier, triggerTimestamp);
+    this.input = input;
+    this.tags = null != tags ? tags : new ArrayList<>();
+    this.readCount = readCount;
+    this.firstReadTimestamp = firstReadTimestamp;
+    this.releaseTimestamp = releaseTimestamp;
+    this.stopTimestamp = stopTimestamp;
+    this.error = error;
+  }
+
+  /**
+   * @return the gate input
+   */
+  public int getInput() {
+    return input;
+  }
+
+  /**
+   * @return the tags read in the session, each tag once
+   */
+  public List<T> getTags() {
+    return tags;
+  }
+
+  /**
+   * @return the number of tag reads in the session
+   */
+  public long getReadCount() {
+    return readCount;
+  }
+
+  /**
+   * @return the time of the first tag read, 0 if no tag was read
+   */
+  public long getFirstReadTimestamp() {
+    return firstReadTimestamp;
+  }
+
+  /**
+   * @return the time in milliseconds from the trigger to the first tag read, -1 if no tag was read
+   */
+  public long getFirstReadLatency() {
+    return 0 != firstReadTimestamp ? firstReadTimestamp - getTimestamp() : -1;
+  }
+
+  /**
+   * @return the time the input was released
+   */
+  public long getReleaseTimestamp() {
+    return releaseTimestamp;
+  }
+
+  /**
+   * @return the time the inventory was stopped
+   */
+  public long getStopTimestamp() {
+    return stopTimestamp;
+  }
+
+  /**
+   * @return the time in milliseconds from the trigger until the inventory was stopped
+   */
+  public long getDuration() {
+    return stopTimestamp - getTimestamp();
+  }
+
+  /**
+   * @return the error of the start or stop command, <code>null</code> if the commands succeeded
+   */
+  public Exception getError() {
+    return error;
+  }
+}
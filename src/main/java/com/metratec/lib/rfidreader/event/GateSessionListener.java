@@ -0,0 +1,21 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+/**
+ * Listener interface for the results of a trigger gated inventory
+ * 
+ * @param <T> the type of RFID tag handled by this listener
+ * @author mn
+ *
+ */
+public interface GateSessionListener<T> {
+
+  /**
+   * Called once per trigger, after the inventory of the gate session is stopped
+   * 
+   * @param session the gate session with the read tags
+   */
+  void gateSessionFinished(GateSession<T> session);
+}
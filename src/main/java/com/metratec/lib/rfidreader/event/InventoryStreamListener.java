@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+import com.metratec.lib.inventory.InventoryRound;
+import com.metratec.lib.tag.RfidTag;
+
+/**
+ * Receives the tags of a streaming inventory as soon as their response line is received, before
+ * the reader has finished the inventory. The listener is called by the receive thread of the reader,
+ * so it must not block and must not send reader commands.
+ * 
+ * @param <T> the type of RFID tag handled by this listener
+ * @author mn
+ *
+ */
+public interface InventoryStreamListener<T extends RfidTag> {
+
+  /**
+   * Called for every found tag. The antenna of the tag is updated, when the inventory round of the
+   * antenna is finished.
+   * 
+   * @param tag the found tag
+   * @return true to receive further tags, false to stop the streaming inventory
+   */
+  boolean tagFound(T tag);
+
+  /**
+   * Called when the inventory round of an antenna is finished
+   * 
+   * @param round the finished round with the tags found in the round
+   * @return true to receive further tags, false to stop the streaming inventory
+   */
+  default boolean roundFinished(InventoryRound<T> round) {
+    return true;
+  }
+}
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.MetratecReader;
+import com.metratec.lib.rfidreader.ReaderThreads;
+
+/**
+ * A listener of the {@link EventHandler} with its own bounded event queue and executor. The event
+ * handler thread only adds the events to the queue, so a slow listener does not delay the other
+ * listeners. If the queue is full, the oldest event of the queue is dropped.
+ *
+ * @param <T> the type of RFID tag handled by the listener
+ * @author mn
+ *
+ */
+public class ListenerQueue<T> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetratecReader.class);
+  private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+  private final RfidTagEventListener<T> tagListener;
+  private final RfidReaderEventListener readerListener;
+  private final RfidEvent[] events;
+  private final byte[] types;
+  private final long[] queueTimes;
+  /** guarded by this */
+  private int head;
+  /** guarded by this */
+  private int size;
+  /** guarded by this */
+  private boolean scheduled;
+  private volatile boolean closed;
+  /** if set, a full queue blocks the event handler thread instead of dropping events */
+  private final boolean blocking;
+  private final Executor executor;
+  private final ExecutorService ownExecutor;
+  private final Runnable drainTask = this::drain;
+
+  private volatile long deliveredEvents;
+  private volatile long droppedEvents;
+  private volatile long maxLag;
+
+  /**
+   * Create a listener queue with an own daemon thread
+   *
+   * @param tagListener the tag listener, can be <code>null</code>
+   * @param readerListener the reader listener, can be <code>null</code>
+   * @param queueSize the maximum number of queued events
+   */
+  public ListenerQueue(RfidTagEventListener<T> tagListener, RfidReaderEventListener readerListener,
+      int queueSize) {
+    this(tagListener, readerListener, queueSize, null);
+  }
+
+  /**
+   * Create a listener queue
+   *
+   * @param tagListener the tag listener, can be <code>null</code>
+   * @param readerListener the reader listener, can be <code>null</code>
+   * @param queueSize the maximum number of queued events
+   * @param executor the executor which calls the listener, e.g. a shared thread pool or a virtual
+   *        thread executor. The events are always delivered one after the other. If
+   *        <code>null</code>, an own daemon thread is used.
+   */
+  public ListenerQueue(RfidTagEventListener<T> tagListener, RfidReaderEventListener readerListener,
+      int queueSize, Executor executor) {
+    this(tagListener, readerListener, queueSize, executor, false);
+  }
+
+  /**
+   * Create a listener queue
+   *
+   * @param tagListener the tag listener, can be <code>null</code>
+   * @param readerListener the reader listener, can be <code>null</code>
+   * @param queueSize the maximum number of queued events
+   * @param executor the executor which calls the listener, <code>null</code> for an own thread
+   * @param blocking <code>true</code> if a full queue blocks the publishing thread,
+   *        <code>false</code> to drop the oldest event
+   */
+  ListenerQueue(RfidTagEventListener<T> tagListener, RfidReaderEventListener readerListener,
+      int queueSize, Executor executor, boolean blocking) {
+    if (null == tagListener && null == readerListener) {
+      throw new NullPointerException("a listener must be set");
+    }
+    if (queueSize < 1) {
+      throw new IllegalArgumentException("queue size must be greater than 0");
+    }
+    this.tagListener = tagListener;
+    this.readerListener = readerListener;
+    this.blocking = blocking;
+    events = new RfidEvent[queueSize];
+    types = new byte[queueSize];
+    queueTimes = new long[queueSize];
+    if (null == executor) {
+      ownExecutor = Executors.newSingleThreadExecutor(
+          ReaderThreads.threadFactory("EL-" + THREAD_NUMBER.incrementAndGet(), true));
+      this.executor = ownExecutor;
+    } else {
+      ownExecutor = null;
+      this.executor = executor;
+    }
+  }
+
+  /**
+   * Add an event to the queue, the oldest event is dropped if the queue is full and the queue is not
+   * blocking
+   *
+   * @param event the event
+   * @param type the event type of the {@link EventHandler}
+   */
+  void offer(RfidEvent event, byte type) {
+    synchronized (this) {
+      while (blocking && size == events.length && !closed) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+      if (closed) {
+        return;
+      }
+      if (size == events.length) {
+        events[head] = null;
+        head = (head + 1) % events.length;
+        size--;
+        droppedEvents++;
+      }
+      int index = (head + size) % events.length;
+      events[index] = event;
+      types[index] = type;
+      queueTimes[index] = System.nanoTime();
+      size++;
+      if (scheduled) {
+        return;
+      }
+      scheduled = true;
+    }
+    schedule();
+  }
+
+  private void schedule() {
+    try {
+      executor.execute(drainTask);
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("listener executor rejected the event delivery: " + e.getMessage());
+      synchronized (this) {
+        scheduled = false;
+      }
+    }
+  }
+
+  /**
+   * Deliver the queued events, after a full queue length the executor thread is released for other
+   * tasks
+   */
+  private void drain() {
+    for (int i = 0; i < events.length; i++) {
+      RfidEvent event;
+      byte type;
+      long queueTime;
+      synchronized (this) {
+        if (0 == size || closed) {
+          scheduled = false;
+          return;
+        }
+        event = events[head];
+        type = types[head];
+        queueTime = queueTimes[head];
+        events[head] = null;
+        head = (head + 1) % events.length;
+        size--;
+        if (blocking) {
+          notifyAll();
+        }
+      }
+      long lag = System.nanoTime() - queueTime;
+      if (lag > maxLag) {
+        maxLag = lag;
+      }
+      try {
+        dispatch(event, type);
+      } catch (Exception e) {
+        LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+      }
+      deliveredEvents++;
+    }
+    schedule();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void dispatch(RfidEvent event, byte type) {
+    switch (type) {
+      case EventHandler.TYPE_TAG_FOUND:
+        if (null != tagListener) {
+          tagListener.tagFound((RfidTagFound<T>) event);
+        }
+        break;
+      case EventHandler.TYPE_TAG_LOST:
+        if (null != tagListener) {
+          tagListener.tagLost((RfidTagLost<T>) event);
+        }
+        break;
+      case EventHandler.TYPE_INPUT_CHANGE:
+        if (null != readerListener) {
+          readerListener.inputChange((RfidReaderInputChange) event);
+        }
+        break;
+      case EventHandler.TYPE_CONNECTION_STATE:
+        if (null != readerListener) {
+          readerListener.connectionState((RfidReaderConnectionState) event);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Close the listener queue, the queued events are discarded. An own thread of the listener is
+   * stopped, a given executor is not shut down.
+   */
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      for (int i = 0; i < events.length; i++) {
+        events[i] = null;
+      }
+      size = 0;
+      notifyAll();
+    }
+    if (null != ownExecutor) {
+      ownExecutor.shutdown();
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the listener queue is closed
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * @return the tag listener, <code>null</code> if not set
+   */
+  public RfidTagEventListener<T> getTagListener() {
+    return tagListener;
+  }
+
+  /**
+   * @return the reader listener, <code>null</code> if not set
+   */
+  public RfidReaderEventListener getReaderListener() {
+    return readerListener;
+  }
+
+  /**
+   * @return the maximum number of queued events
+   */
+  public int getQueueSize() {
+    return events.length;
+  }
+
+  /**
+   * @return the number of events waiting for the delivery
+   */
+  public synchronized int getQueuedEvents() {
+    return size;
+  }
+
+  /**
+   * @return the number of events delivered to the listener
+   */
+  public long getDeliveredEvents() {
+    return deliveredEvents;
+  }
+
+  /**
+   * @return the number of events dropped because of a full queue
+   */
+  public long getDroppedEvents() {
+    return droppedEvents;
+  }
+
+  /**
+   * @return the time in milliseconds the oldest queued event is waiting for the delivery, 0 if no
+   *         event is queued
+   */
+  public synchronized long getLag() {
+    if (0 == size) {
+      return 0;
+    }
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queueTimes[head]);
+  }
+
+  /**
+   * @return the maximum time in milliseconds an event was waiting for the delivery
+   */
+  public long getMaxLag() {
+    return TimeUnit.NANOSECONDS.toMillis(maxLag);
+  }
+}
@@ -21,6 +21,15 @@ public class RfidEvent implements Serializable {
   private static final long serialVersionUID = 185030807814971348L;
   private String identifier;
   private long timestamp;
+  /** event is not part of an {@link EventPool} */
+  static final byte NOT_POOLED = 0;
+  /** pooled event in use */
+  static final byte IN_USE = 1;
+  /** pooled event is released */
+  static final byte RELEASED = 2;
+  /** pooled event is released, the debug guard of the pool is enabled */
+  static final byte RELEASED_GUARDED = 3;
+  private transient byte poolState = NOT_POOLED;
 
   /**
    * @param identifier reader identifier
@@ -36,6 +45,7 @@ public class RfidEvent implements Serializable {
    * @return the time stamp
    */
   public long getTimestamp() {
+    checkReleased();
     return timestamp;
   }
 
@@ -43,6 +53,42 @@ public class RfidEvent implements Serializable {
    * @return the masterEID
    */
   public String getIdentifier() {
+    checkReleased();
     return identifier;
   }
+
+  /**
+   * Reuse a pooled event
+   *
+   * @param identifier reader identifier
+   * @param timestamp event time
+   */
+  void recycle(String identifier, Long timestamp) {
+    this.identifier = identifier;
+    this.timestamp = null != timestamp ? timestamp : System.currentTimeMillis();
+    this.poolState = IN_USE;
+  }
+
+  /**
+   * @return the state of a pooled event
+   */
+  byte getPoolState() {
+    return poolState;
+  }
+
+  /**
+   * @param poolState the state of a pooled event
+   */
+  void setPoolState(byte poolState) {
+    this.poolState = poolState;
+  }
+
+  /**
+   * @throws IllegalStateException if the pooled event is used after the release
+   */
+  protected void checkReleased() {
+    if (RELEASED_GUARDED == poolState) {
+      throw new IllegalStateException("pooled event used after the release");
+    }
+  }
 }
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event with all tags found and lost in one inventory round or in one flush interval of the
+ * {@link RfidTagBatchListener}.
+ * 
+ * @param <T> the type of RFID tag associated with this event
+ * @author mn
+ *
+ */
+public class RfidTagBatch<T> extends RfidEvent {
+
+  private static final long serialVersionUID = 2213760435402416793L;
+  private List<T> foundTags;
+  private List<T> lostTags;
+
+  /**
+   * @param identifier reader identifier
+   * @param foundTags the found tags
+   * @param lostTags the lost tags
+   * @param timestamp event time
+   */
+  public RfidTagBatch(String identifier, List<T> foundTags, List<T> lostTags, Long timestamp) {
+    super(identifier, timestamp);
+    this.foundTags = null != foundTags ? foundTags : new ArrayList<>();
+    this.lostTags = null != lostTags ? lostTags : new ArrayList<>();
+  }
+
+  /**
+   * @return the tags found in the batch
+   */
+  public List<T> getFoundTags() {
+    return foundTags;
+  }
+
+  /**
+   * @return the tags lost in the batch
+   */
+  public List<T> getLostTags() {
+    return lostTags;
+  }
+}
@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+/**
+ * Event listener interface for batches of RFID tag events. Instead of a single event for each tag,
+ * the listener receives all found and lost tags of an inventory round or a flush interval at once,
+ * e.g. for bulk inserts into a database.
+ * 
+ * @param <T> the type of RFID tag handled by this listener
+ * @author mn
+ *
+ */
+public interface RfidTagBatchListener<T> {
+
+  /**
+   * Called with the tags found and lost in an inventory round or flush interval. Only called if at
+   * least one tag is found or lost.
+   * 
+   * @param batch the batch with the found and lost tags
+   */
+  void tagBatch(RfidTagBatch<T> batch);
+}
@@ -41,7 +41,27 @@ public class RfidTagEvent<T> extends RfidEvent {
    * @return the tags
    */
   public T getTag() {
+    checkReleased();
     return tag;
   }
 
+  /**
+   * Reuse a pooled event
+   *
+   * @param identifier reader identifier
+   * @param tag the {@link RfidTag}
+   * @param timestamp event time
+   */
+  void recycle(String identifier, T tag, Long timestamp) {
+    recycle(identifier, timestamp);
+    this.tag = tag;
+  }
+
+  /**
+   * Remove the references of a released pooled event
+   */
+  void clear() {
+    this.tag = null;
+  }
+
 }
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.event.InventoryChangedEvent;
+import com.metratec.lib.inventory.event.InventoryListener;
+import com.metratec.lib.inventory.event.TagArrivedEvent;
+import com.metratec.lib.inventory.event.TagDepartedEvent;
+import com.metratec.lib.rfidreader.MetratecReader;
+import com.metratec.lib.rfidreader.ReaderThreads;
+import com.metratec.lib.tag.RfidTag;
+
+/**
+ * Coalescing stage between an inventory and its listener, which applies a
+ * {@link RfidTagEventSetting}:
+ * <ul>
+ * <li>a tag is reported when it is seen <code>minSeenCount</code> times within the reset interval,
+ * tags with less reads are suppressed as stray reads</li>
+ * <li>a reported tag is reported again after each reset interval in which it reaches the minimum
+ * seen count, until it is reported <code>maxSeenCount</code> times. With a maximum seen count of 0
+ * or 1 a tag is reported once.</li>
+ * <li>the found and lost tags are forwarded every flush interval, a tag lost and found again within
+ * a flush interval is not forwarded. With a flush interval of 0 the tags are forwarded
+ * immediately.</li>
+ * </ul>
+ * The listener receives the tag arrive and tag departed events of the reported tags and one
+ * inventory changed event per flush.
+ *
+ * @param <T> the type of RFID tag
+ * @author mn
+ *
+ */
+public class RfidTagEventCoalescer<T extends RfidTag> implements InventoryListener<T> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetratecReader.class);
+
+  private final String identifier;
+  private final InventoryListener<T> listener;
+  private final int flushInterval;
+  private final int resetInterval;
+  private final int minSeenCount;
+  private final int maxSeenCount;
+  private final ScheduledExecutorService flushExecutor;
+
+  /** guarded by this */
+  private final Map<String, TagState<T>> tags = new HashMap<>();
+  /** the tags to report at the next flush, guarded by this */
+  private final Map<String, T> foundTags = new LinkedHashMap<>();
+  private final Map<String, T> lostTags = new LinkedHashMap<>();
+  private volatile long suppressedTags;
+  private volatile long coalescedEvents;
+
+  /**
+   * Tag state
+   */
+  private static class TagState<T> {
+    private T tag;
+    private long windowStart;
+    private int seenCount;
+    private int reports;
+    private boolean reportedInWindow;
+
+    TagState(T tag, long windowStart) {
+      this.tag = tag;
+      this.windowStart = windowStart;
+    }
+  }
+
+  /**
+   * @param identifier the inventory identifier
+   * @param setting the {@link RfidTagEventSetting}
+   * @param listener the listener, which receives the reported tags
+   */
+  public RfidTagEventCoalescer(String identifier, RfidTagEventSetting setting,
+      InventoryListener<T> listener) {
+    if (null == setting || null == listener) {
+      throw new NullPointerException();
+    }
+    this.identifier = identifier;
+    this.listener = listener;
+    this.flushInterval = setting.getFlushInterval();
+    this.resetInterval = setting.getResetInterval();
+    this.minSeenCount = Math.max(1, setting.getMinSeenCount());
+    this.maxSeenCount = Math.max(1, setting.getMaxSeenCount());
+    if (0 < flushInterval) {
+      flushExecutor = Executors
+          .newSingleThreadScheduledExecutor(ReaderThreads.threadFactory("TE-" + identifier, true));
+      flushExecutor.scheduleAtFixedRate(this::flush, flushInterval, flushInterval,
+          TimeUnit.MILLISECONDS);
+    } else {
+      flushExecutor = null;
+    }
+  }
+
+  @Override
+  public void tagsSeen(Collection<T> seenTags) {
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      for (T tag : seenTags) {
+        if (null == tag) {
+          continue;
+        }
+        TagState<T> state = tags.get(tag.getId());
+        if (null == state) {
+          state = new TagState<>(tag, now);
+          tags.put(tag.getId(), state);
+        } else if (0 < resetInterval && now - state.windowStart >= resetInterval) {
+          state.windowStart = now;
+          state.seenCount = 0;
+          state.reportedInWindow = false;
+        }
+        Integer count = tag.getSeenCount();
+        state.seenCount += null != count && 0 < count ? count : 1;
+        if (state.seenCount >= minSeenCount && !state.reportedInWindow
+            && state.reports < maxSeenCount) {
+          state.reportedInWindow = true;
+          state.reports++;
+          report(state.tag);
+        }
+      }
+    }
+    if (0 == flushInterval) {
+      flush();
+    }
+  }
+
+  @Override
+  public void tagArrive(TagArrivedEvent<T> tagArrived) {
+    T tag = tagArrived.getTag();
+    synchronized (this) {
+      TagState<T> state = tags.get(tag.getId());
+      if (null != state) {
+        // report the tag instance of the inventory
+        state.tag = tag;
+      } else {
+        tags.put(tag.getId(), new TagState<>(tag, System.currentTimeMillis()));
+      }
+    }
+  }
+
+  @Override
+  public void tagDeparted(TagDepartedEvent<T> tagDeparted) {
+    T tag = tagDeparted.getTag();
+    synchronized (this) {
+      TagState<T> state = tags.remove(tag.getId());
+      if (null == state) {
+        return;
+      }
+      if (0 == state.reports) {
+        suppressedTags++;
+      } else if (null != foundTags.remove(tag.getId()) && 1 == state.reports) {
+        // found and lost within the flush interval
+        coalescedEvents += 2;
+      } else {
+        lostTags.put(tag.getId(), tag);
+      }
+    }
+    if (0 == flushInterval) {
+      flush();
+    }
+  }
+
+  @Override
+  public void inventoryChanged(InventoryChangedEvent<T> readPointInventoryChanged) {
+    // the inventory changed events are created by the flush
+  }
+
+  private void report(T tag) {
+    if (null != lostTags.remove(tag.getId())) {
+      // lost and found again within the flush interval
+      coalescedEvents += 2;
+    } else if (null != foundTags.put(tag.getId(), tag)) {
+      coalescedEvents++;
+    }
+  }
+
+  /**
+   * Forward the found and lost tags since the last flush to the listener
+   */
+  public void flush() {
+    List<T> newTags;
+    List<T> removedTags;
+    List<T> currentTags;
+    synchronized (this) {
+      if (foundTags.isEmpty() && lostTags.isEmpty()) {
+        return;
+      }
+      newTags = new ArrayList<>(foundTags.values());
+      removedTags = new ArrayList<>(lostTags.values());
+      foundTags.clear();
+      lostTags.clear();
+      currentTags = new ArrayList<>();
+      for (TagState<T> state : tags.values()) {
+        if (0 < state.reports) {
+          currentTags.add(state.tag);
+        }
+      }
+    }
+    try {
+      for (T tag : newTags) {
+        listener.tagArrive(new TagArrivedEvent<>(identifier, tag));
+      }
+      for (T tag : removedTags) {
+        listener.tagDeparted(new TagDepartedEvent<>(identifier, tag));
+      }
+      listener.inventoryChanged(
+          new InventoryChangedEvent<>(identifier, currentTags, newTags, removedTags));
+    } catch (RuntimeException e) {
+      LOGGER.warn(e.getClass().getSimpleName() + " " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Stop the flush thread, the pending tags are forwarded
+   */
+  public void close() {
+    if (null != flushExecutor) {
+      flushExecutor.shutdown();
+    }
+    flush();
+  }
+
+  /**
+   * @return the number of tags, which were lost before they reached the minimum seen count
+   */
+  public long getSuppressedTags() {
+    return suppressedTags;
+  }
+
+  /**
+   * @return the number of found and lost events, which were merged or cancelled within a flush
+   *         interval
+   */
+  public long getCoalescedEvents() {
+    return coalescedEvents;
+  }
+
+  /**
+   * @return the number of tracked tags
+   */
+  public synchronized int size() {
+    return tags.size();
+  }
+}
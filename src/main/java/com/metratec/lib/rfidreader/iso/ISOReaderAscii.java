@@ -36,10 +36,7 @@ public class ISOReaderAscii extends MetratecReaderAscii<HfTag> {
   private static final int RETRY_COUNT = 5;
   private String[] minReaderRevision;
 
-  private List<HfTag> lastInventory = null;
-  private RFIDReaderException lastException = null;
   private boolean scanningForTags = false;
-  private Object handleInventoryLock = new Object();
 
   /** enum for the reader mode */
   public enum MODE {
@@ -191,29 +188,8 @@ public class ISOReaderAscii extends MetratecReaderAscii<HfTag> {
     if (getInternalInventory().isAlive()) {
       return getInternalInventory().getInventory();
     }
-    List<HfTag> tags;
-    try {
-      scanningForTags = true;
-      send("INV", afi != 0 ? String.format("AFI %02X", afi) : null, ont ? "ONT" : null, ssl ? "SSL" : null);
-      synchronized (handleInventoryLock) {
-        try {
-          handleInventoryLock.wait(getReceiveTimeout());
-        } catch (InterruptedException e) {
-          // TODO Auto-generated catch block
-          e.printStackTrace();
-        }
-        if (null != lastInventory) {
-          tags = lastInventory;
-        } else if (null != lastException) {
-          throw lastException;
-        } else {
-          throw new CommConnectionException(ICommConnection.RECV_TIMEOUT, "the reader did not respond (INV)");
-        }
-      }
-    } finally {
-      scanningForTags = false;
-    }
-    return tags;
+    return getTransponder(this::parseInventory, true, "INV", afi != 0 ? String.format("AFI %02X", afi) : null,
+        ont ? "ONT" : null, ssl ? "SSL" : null);
   }
 
   /**
@@ -1233,16 +1209,10 @@ public class ISOReaderAscii extends MetratecReaderAscii<HfTag> {
   @Override
   protected void handleInventory(String inventory) {
     long timestamp = System.currentTimeMillis();
-    synchronized (handleInventoryLock) {
-      try {
-        String[] values = checkData(inventory);
-        lastInventory = parseInventory(values, timestamp);
-        addNewInventoryEvent(lastInventory);
-      } catch (RFIDReaderException e1) {
-        lastInventory = null;
-        lastException = e1;
-      }
-      handleInventoryLock.notify();
+    try {
+      addNewInventoryEvent(parseInventory(checkData(inventory), timestamp));
+    } catch (RFIDReaderException e) {
+      logger.debug("Error parse inventory - {}", e.toString());
     }
   }
 
@@ -9,6 +9,7 @@ import com.metratec.lib.connection.ICommConnection;
 import com.metratec.lib.connection.Rs232Connection;
 import com.metratec.lib.connection.TcpConnection;
 import com.metratec.lib.connection.UsbConnection;
+import com.metratec.lib.rfidreader.CommandScheduler;
 import com.metratec.lib.rfidreader.RFIDErrorCodes;
 import com.metratec.lib.rfidreader.RFIDReaderException;
 
@@ -151,12 +152,13 @@ public class QuasarLR extends ISOReaderAscii {
   }
 
   /**
-   * @return the current {@link QuasarLRStatus}
+   * @return the current {@link QuasarLRStatus}, requested with background priority
    * @throws CommConnectionException if an communication error occurs
    * @throws RFIDReaderException if an reader error occurs
    */
   public QuasarLRStatus getStatus() throws CommConnectionException, RFIDReaderException {
-    String[] answers = communicateSynchronized("STA");
+    String[] answers = executeWithPriority(CommandScheduler.Priority.BACKGROUND, 0,
+        () -> communicateSynchronized("STA"));
     if (answers.length >= 8 && answers[0].equals("OK!")) {
       QuasarLRStatus status = new QuasarLRStatus();
       status.put(QuasarLRStatus.READER_NAME, getIdentifier());
@@ -183,12 +185,13 @@ public class QuasarLR extends ISOReaderAscii {
   }
 
   /**
-   * @return the current noise measure of the connected antenna
+   * @return the current noise measure of the connected antenna, requested with background priority
    * @throws CommConnectionException if an communication error occurs
    * @throws RFIDReaderException if an reader error occurs
    */
   public QuasarLRNoiseMeasure getNoiseMeasure() throws CommConnectionException, RFIDReaderException {
-    String[] answers = communicateSynchronized("DRT 010B000304E700A8010000 CRC");
+    String[] answers = executeWithPriority(CommandScheduler.Priority.BACKGROUND, 0,
+        () -> communicateSynchronized("DRT 010B000304E700A8010000 CRC"));
     long timestamp = System.currentTimeMillis();
     // String[] answers = {"COK", "0D00003CE7BA00D60013013E7D"};
     if (answers.length >= 2 && answers[0].equals("COK")) {
@@ -39,10 +39,7 @@ public class MFReaderAscii extends MetratecReaderAscii<MfTag> {
   private int selectedCardType;
   private String[] minReaderRevision;
 
-  private List<MfTag> lastInventory = null;
-  private RFIDReaderException lastException = null;
   private boolean scanningForTags = false;
-  private Object handleInventoryLock = new Object();
 
   /**
    * Creates a new MifareReader with the specified connection
@@ -222,30 +219,7 @@ public class MFReaderAscii extends MetratecReaderAscii<MfTag> {
     if (getInternalInventory().isAlive()) {
       return getInternalInventory().getInventory();
     }
-    List<MfTag> tags;
-    try {
-      scanningForTags = true;
-      send("INV", onlyNewTags ? "ONT" : null);
-      synchronized (handleInventoryLock) {
-        try {
-          handleInventoryLock.wait(getReceiveTimeout());
-        } catch (InterruptedException e) {
-          // TODO Auto-generated catch block
-          e.printStackTrace();
-        }
-        if (null != lastInventory) {
-          tags = lastInventory;
-        } else if (null != lastException) {
-          throw lastException;
-        } else {
-          throw new CommConnectionException(ICommConnection.RECV_TIMEOUT,
-              "the reader did not respond (INV)");
-        }
-      }
-    } finally {
-      scanningForTags = false;
-    }
-    return tags;
+    return getTransponder(this::parseInventory, true, "INV", onlyNewTags ? "ONT" : null);
   }
 
   /**
@@ -719,16 +693,10 @@ public class MFReaderAscii extends MetratecReaderAscii<MfTag> {
   @Override
   protected void handleInventory(String inventory) {
     long timestamp = System.currentTimeMillis();
-    synchronized (handleInventoryLock) {
-      try {
-        String[] values = checkData(inventory);
-        lastInventory = parseInventory(values, timestamp);
-        addNewInventoryEvent(lastInventory);
-      } catch (RFIDReaderException e1) {
-        lastInventory = null;
-        lastException = e1;
-      }
-      handleInventoryLock.notify();
+    try {
+      addNewInventoryEvent(parseInventory(checkData(inventory), timestamp));
+    } catch (RFIDReaderException e) {
+      getLogger().debug("Error parse inventory - {}", e.toString());
     }
   }
 
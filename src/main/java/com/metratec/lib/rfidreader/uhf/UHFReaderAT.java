@@ -2,8 +2,10 @@ package com.metratec.lib.rfidreader.uhf;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import com.metratec.lib.connection.CommConnectionException;
 import com.metratec.lib.connection.ICommConnection;
+import com.metratec.lib.inventory.InventoryRound;
 import com.metratec.lib.rfidreader.MetratecReaderAT;
 import com.metratec.lib.rfidreader.RFIDErrorCodes;
 import com.metratec.lib.rfidreader.RFIDReaderException;
@@ -100,7 +102,13 @@ public class UHFReaderAT extends MetratecReaderAT<UhfTag> {
   @Override
   protected List<UhfTag> parseInventory(String[] answers, int prefix_length, boolean throwError)
       throws RFIDReaderException {
-    return parseInventory(answers, prefix_length, false, throwError);
+    return parseInventory(answers, prefix_length, false, throwError, null);
+  }
+
+  @Override
+  protected List<UhfTag> parseInventory(String[] answers, int prefix_length, boolean throwError,
+      List<InventoryRound<UhfTag>> rounds) throws RFIDReaderException {
+    return parseInventory(answers, prefix_length, false, throwError, rounds);
   }
 
   /**
@@ -115,6 +123,22 @@ public class UHFReaderAT extends MetratecReaderAT<UhfTag> {
    */
   protected List<UhfTag> parseInventory(String[] answers, int prefix_length, boolean isReport, boolean throwError)
       throws RFIDReaderException {
+    return parseInventory(answers, prefix_length, isReport, throwError, null);
+  }
+
+  /**
+   * parse the inventory response
+   * 
+   * @param answers reader answers
+   * @param prefix_length answer prefix length
+   * @param isReport true if the inventory is an report (with tag count)
+   * @param throwError true to throw an error if an antenna has a problem
+   * @param rounds {@link List} to which the finished inventory rounds are added, can be <code>null</code>
+   * @return a {@link List} with {@link UhfTag}s
+   * @throws RFIDReaderException if an error occurs
+   */
+  protected List<UhfTag> parseInventory(String[] answers, int prefix_length, boolean isReport, boolean throwError,
+      List<InventoryRound<UhfTag>> rounds) throws RFIDReaderException {
     // +CINV: 3034257BF468D480000003EC,E200600311753E33,1755 +CINV: <ROUND FINISHED, ANT=2>
     // +INV: 0209202015604090990000145549021C,E200600311753F23,1807
     // available messages: <Antenna Error> <NO TAGS FOUND> <ROUND FINISHED, ANT=2>
@@ -122,6 +146,7 @@ public class UHFReaderAT extends MetratecReaderAT<UhfTag> {
     List<UhfTag> tags = new ArrayList<>();
     String error = null;
     Integer antenna = null;
+    int roundStart = 0;
     for (String tagInfo : answers) {
       if (tagInfo == null || tagInfo.length() == 0 || tagInfo.charAt(0) != '+') {
         continue;
@@ -145,6 +170,10 @@ public class UHFReaderAT extends MetratecReaderAT<UhfTag> {
                 throw new RFIDReaderException(RFIDErrorCodes.NER, "Invalid antenna value: " + split[1].substring(5, split[1].length() - 1));
               }
             }
+            if (null != rounds) {
+              rounds.add(new InventoryRound<>(antenna, new ArrayList<>(tags.subList(roundStart, tags.size()))));
+              roundStart = tags.size();
+            }
             break;
           case 'N': // No Tags
             break;
@@ -198,7 +227,13 @@ public class UHFReaderAT extends MetratecReaderAT<UhfTag> {
    */
   @Override
   protected List<UhfTag> parseInventoryReport(String[] answers, int prefix_length) throws RFIDReaderException {
-    return parseInventory(answers, prefix_length, true, false);
+    return parseInventory(answers, prefix_length, true, false, null);
+  }
+
+  @Override
+  protected List<UhfTag> parseInventoryReport(String[] answers, int prefix_length,
+      List<InventoryRound<UhfTag>> rounds) throws RFIDReaderException {
+    return parseInventory(answers, prefix_length, true, false, rounds);
   }
 
   /**
@@ -433,7 +468,30 @@ public class UHFReaderAT extends MetratecReaderAT<UhfTag> {
     if (null == membank) {
       throw new RFIDReaderException(RFIDErrorCodes.NUL, "membank is null");
     }
-    String resp = communicateSynchronized("AT+READ", membank.name(), startAddress, length, epcMask);
+    return parseTagData(communicateSynchronized("AT+READ", membank.name(), startAddress, length, epcMask),
+        membank);
+  }
+
+  /**
+   * Reads a memory from the tags without waiting for the response, see
+   * {@link #setPipelineDepth(int)}.<br>
+   * 
+   * @param membank MEMBANK (EPC,USR,TID,RES)
+   * @param startAddress start address
+   * @param length number of words to read (0 for all) - word == 4 byte
+   * @param epcMask epc mask, ascii encode n*4 length
+   * @return the future with the processed transponders
+   */
+  public CompletableFuture<List<UhfTag>> getTagDataAsync(MEMBANK membank, int startAddress, int length,
+      String epcMask) {
+    if (null == membank) {
+      return failedFuture(new RFIDReaderException(RFIDErrorCodes.NUL, "membank is null"));
+    }
+    return communicateAsync(resp -> parseTagData(resp, membank), "AT+READ", membank.name(), startAddress,
+        length, epcMask);
+  }
+
+  private List<UhfTag> parseTagData(String resp, MEMBANK membank) {
     // +READ: 3034257BF468D480000003EE,OK,0000
     List<UhfTag> tags = new ArrayList<>();
     for (String tagInfo : splitResponse(resp)) {
@@ -541,6 +599,28 @@ public class UHFReaderAT extends MetratecReaderAT<UhfTag> {
     return parseTagResponse(resp, 6, System.currentTimeMillis());
   }
 
+  /**
+   * Write a memory from the tags without waiting for the response, see
+   * {@link #setPipelineDepth(int)}.<br>
+   * 
+   * @param membank MEMBANK (EPC,USR,TID,RES)
+   * @param startAddress start address
+   * @param data hex data to write, length must by multiple of 4
+   * @param epcMask Optional, the epc mask to use
+   * @return the future with the processed transponders
+   */
+  public CompletableFuture<List<UhfTag>> setTagDataAsync(MEMBANK membank, int startAddress, String data,
+      String epcMask) {
+    if (null == membank) {
+      return failedFuture(new RFIDReaderException(RFIDErrorCodes.NUL, "membank is null"));
+    }
+    if (membank.equals(MEMBANK.TID)) {
+      return failedFuture(new RFIDReaderException(RFIDErrorCodes.WPA, "TID is not writeable"));
+    }
+    return communicateAsync(resp -> parseTagResponse(resp, 6, System.currentTimeMillis()), "AT+WRT",
+        membank.name(), startAddress, data, epcMask);
+  }
+
   /**
    * Parsing the transponder responses. Used when the response list contains only the epc and the response code
    * 
@@ -14,6 +14,7 @@ import com.metratec.lib.connection.ICommConnection;
 import com.metratec.lib.rfidreader.RFIDErrorCodes;
 import com.metratec.lib.rfidreader.RFIDReaderException;
 import com.metratec.lib.rfidreader.ReaderType;
+import com.metratec.lib.rfidreader.RuntimeSupport;
 import com.metratec.lib.rfidreader.MetratecReaderAscii;
 import com.metratec.lib.rfidreader.UHFProfileParameter;
 import com.metratec.lib.rfidreader.UHFProfileParameter.UHFReaderType;
@@ -47,12 +48,9 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
 
   private String[] minReaderRevision;
 
-  private List<UhfTag> lastInventory = null;
-  private RFIDReaderException lastException = null;
+  /** the membank of the continuous inventory, null if the continuous inventory is not running */
   private MEMBANK lastInventoryCall = null;
   private int dataStartAddress;
-  private boolean inventoryIsEvent = true;
-  private Object handleInventoryLock = new Object();
 
   /** Enum for the UHF Tag membank */
   public enum MEMBANK {
@@ -333,7 +331,7 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
     if (null != lastInventoryCall) {
       throw new RFIDReaderException(RFIDErrorCodes.BSY, "Reader is already scanning for tags");
     }
-    return getTransponder(MEMBANK.EPC, "INV", singSlot ? "SSL" : null, onlyNewTag ? "ONT" : null,
+    return getTransponder(MEMBANK.EPC, true, "INV", singSlot ? "SSL" : null, onlyNewTag ? "ONT" : null,
         secure ? "SEC" : null);
   }
 
@@ -404,16 +402,19 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
    */
   public List<UhfTag> getTagData(MEMBANK membank, int startAddress, int words, boolean ssl)
       throws RFIDReaderException, CommConnectionException {
+    return getTagData(membank, startAddress, words, ssl, true);
+  }
+
+  private List<UhfTag> getTagData(MEMBANK membank, int startAddress, int words, boolean ssl,
+      boolean isEvent) throws RFIDReaderException, CommConnectionException {
     if (null == membank) {
       throw new RFIDReaderException(RFIDErrorCodes.NUL, "membank is null");
     }
     if (null != lastInventoryCall) {
       throw new RFIDReaderException(RFIDErrorCodes.BSY, "Reader is already scanning for tags");
     }
-    dataStartAddress = startAddress;
-
-    return getTransponder(MEMBANK.EPC.equals(membank) ? MEMBANK.USR : membank, "RDT",
-        ssl ? "SSL" : null, membank.name(), Integer.toHexString(startAddress),
+    return getTransponder(MEMBANK.EPC.equals(membank) ? MEMBANK.USR : membank, startAddress, isEvent,
+        "RDT", ssl ? "SSL" : null, membank.name(), Integer.toHexString(startAddress),
         Integer.toHexString(words));
   }
 
@@ -425,18 +426,15 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
   @Override
   protected void handleInventory(String inventory) {
     long timestamp = System.currentTimeMillis();
-    synchronized (handleInventoryLock) {
-      try {
-        String[] values = checkData(inventory);
-        lastInventory = parseInventory(values, timestamp);
-        if(inventoryIsEvent){
-          addNewInventoryEvent(lastInventory);
-        }
-      } catch (RFIDReaderException e1) {
-        lastInventory = null;
-        lastException = e1;
-      }
-      handleInventoryLock.notify();
+    MEMBANK membank = lastInventoryCall;
+    if (null == membank) {
+      logger.debug("Unexpected inventory response - {}", inventory);
+      return;
+    }
+    try {
+      addNewInventoryEvent(parseInventory(checkData(inventory), timestamp, membank, dataStartAddress));
+    } catch (RFIDReaderException e) {
+      logger.debug("Error parse inventory - {}", e.toString());
     }
   }
 
@@ -445,10 +443,13 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
    * 
    * @param answers reader answers
    * @param timestamp timestamp
+   * @param membank the membank of the command
+   * @param startAddress the start address of the read data
    * @return a {@link List} with {@link UhfTag}s
    * @throws RFIDReaderException if an error occurs
    */
-  private List<UhfTag> parseInventory(String[] answers, long timestamp) throws RFIDReaderException {
+  private List<UhfTag> parseInventory(String[] answers, long timestamp, MEMBANK membank, int startAddress)
+      throws RFIDReaderException {
     List<UhfTag> tags = new ArrayList<>();
     UhfTag tag = null;
     for (int i = 0; i < answers.length; i++) {
@@ -557,12 +558,12 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
           tag.setRssi(Integer.parseInt(answers[++i]));
         }
         tags.add(tag);
-        switch (lastInventoryCall) {
+        switch (membank) {
           case EPC:
             break;
           case USR:
             tag.setData(s);
-            tag.setDataStartAddress(dataStartAddress);
+            tag.setDataStartAddress(startAddress);
             break;
           case TID:
             tag.setTid(s);
@@ -582,34 +583,18 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
     return tags;
   }
 
-  private List<UhfTag> getTransponder(MEMBANK membank, String command, Object... parameters)
-      throws RFIDReaderException, CommConnectionException {
+  private List<UhfTag> getTransponder(MEMBANK membank, boolean isEvent, String command,
+      Object... parameters) throws RFIDReaderException, CommConnectionException {
+    return getTransponder(membank, 0, isEvent, command, parameters);
+  }
+
+  private List<UhfTag> getTransponder(MEMBANK membank, int startAddress, boolean isEvent,
+      String command, Object... parameters) throws RFIDReaderException, CommConnectionException {
     if (getInternalInventory().isAlive()) {
       return getInternalInventory().getInventory();
     }
-    lastInventoryCall = membank;
-    try {
-      lastInventory = null;
-      lastException = null;
-      send(command, parameters);
-      synchronized (handleInventoryLock) {
-        try {
-          handleInventoryLock.wait(getReceiveTimeout());
-        } catch (InterruptedException e) {
-          e.printStackTrace();
-        }
-        if (null != lastInventory) {
-          return lastInventory;
-        } else if (null != lastException) {
-          throw lastException;
-        } else {
-          throw new CommConnectionException(ICommConnection.RECV_TIMEOUT,
-              "the reader did not respond (" + command + ")");
-        }
-      }
-    } finally {
-      lastInventoryCall = null;
-    }
+    return getTransponder((answers, timestamp) -> parseInventory(answers, timestamp, membank, startAddress),
+        isEvent, command, parameters);
   }
 
   /**
@@ -649,15 +634,8 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
     if (null == membank) {
       throw new RFIDReaderException(RFIDErrorCodes.NUL, "membank is null");
     }
-    List<UhfTag> tags;
-    dataStartAddress = startAddress;
-    inventoryIsEvent = false;
-    try {
-      tags = getTransponder(membank, "WDT", ssl ? "SSL" : null, membank.name(),
-          -1 < startAddress ? Integer.toHexString(startAddress) : null, hexData);
-    } finally {
-      inventoryIsEvent = true;
-    }
+    List<UhfTag> tags = getTransponder(membank, startAddress, false, "WDT", ssl ? "SSL" : null,
+        membank.name(), -1 < startAddress ? Integer.toHexString(startAddress) : null, hexData);
     // update the tag with the data...
     switch (membank) {
       case EPC:
@@ -686,7 +664,7 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
       case USR:
         for (UhfTag tag : tags) {
           tag.setData(hexData);
-          tag.setDataStartAddress(dataStartAddress);
+          tag.setDataStartAddress(startAddress);
         }
         break;
       // case TID:
@@ -1616,15 +1594,10 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
     if (null == data1 || data1.isEmpty()) {
       throw new RFIDReaderException(RFIDErrorCodes.NUL, "data 1 is null or empty");
     }
-    inventoryIsEvent = false;
-    try {
-      return getTransponder(MEMBANK.USR, "DRC", isSingleSlot ? "SSL" : null, data1,
-          bitLengthData1 != -1 ? bitLengthData1 : null, withHandle ? "H" : null,
-          null != data2 && !data2.isEmpty() ? data2 : null,
-          null != data2 && !data2.isEmpty() && bitLengthData1 != -1 ? bitLengthData1 : null);
-    } finally {
-      inventoryIsEvent = true;
-    }
+    return getTransponder(MEMBANK.USR, false, "DRC", isSingleSlot ? "SSL" : null, data1,
+        bitLengthData1 != -1 ? bitLengthData1 : null, withHandle ? "H" : null,
+        null != data2 && !data2.isEmpty() ? data2 : null,
+        null != data2 && !data2.isEmpty() && bitLengthData1 != -1 ? bitLengthData1 : null);
   }
 
   /**
@@ -1642,12 +1615,7 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
    */
   public List<UhfTag> killTag(boolean isSingleSlot)
       throws CommConnectionException, RFIDReaderException {
-    inventoryIsEvent = false;
-    try {
-      return getTransponder(MEMBANK.EPC, "KIL", isSingleSlot ? "SSL" : null);
-    } finally {
-      inventoryIsEvent = true;
-    }
+    return getTransponder(MEMBANK.EPC, false, "KIL", isSingleSlot ? "SSL" : null);
   }
 
 
@@ -1673,12 +1641,7 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
       throw new RFIDReaderException(RFIDErrorCodes.NUL, "membank is null");
     }
 
-    inventoryIsEvent = false;
-    try {
-      return getTransponder(MEMBANK.EPC, "LCK", ssl ? "SSL" : null, membank.name(), mode);
-    } finally {
-      inventoryIsEvent = true;
-    }
+    return getTransponder(MEMBANK.EPC, false, "LCK", ssl ? "SSL" : null, membank.name(), mode);
   }
 
   /**
@@ -1727,13 +1690,7 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
       block01 |= 0x0800;
     }
     // get the old block 01
-    inventoryIsEvent = false;
-    List<UhfTag> tags;
-    try {
-      tags = getTagData(MEMBANK.EPC, 1, 1);
-    } finally {
-      inventoryIsEvent = true;
-    }
+    List<UhfTag> tags = getTagData(MEMBANK.EPC, 1, 1, false, false);
     if (tags.isEmpty()) {
       // no tags in field
       return new ArrayList<>();
@@ -1942,24 +1899,6 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
     return communicateSynchronized("RSC");
   }
 
-  /**
-   * calculate the crc
-   * 
-   * @param data data (one byte)
-   * @param length lenght of used bits
-   * @param crc initial crc
-   * @return new crc
-   */
-  private int getCRC16(byte data, int length, int crc) {
-    for (int i = 0; i < length; i++) {
-      crc <<= 1;
-      if (0 != (((data >>> (7 - i)) ^ (crc >>> 16)) & 0x01)) {
-        crc ^= 0x1021; // polynom 0001 0000 0010 0001 (0, 5, 12)
-      }
-    }
-    return crc & 0xFFFF;
-  }
-
   /**
    * checks the crc16 from the DirectCommand answer. The CRC16 is not check by the reader because
    * the data length are not known.
@@ -1983,14 +1922,7 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
     if (arr.length < (length + ((rest != 0) ? 1 : 0))) {
       throw new RFIDReaderException(RFIDErrorCodes.WDL, "dataBitLenght bigger then data size");
     }
-    int crc = 0xFFFF;
-    for (int i = 0; i < length; i++) {
-      crc = getCRC16(arr[i], 8, crc);
-    }
-    if (rest != 0) {
-      crc = getCRC16(arr[length], rest, crc);
-    }
-    crc &= 0xFFFF;
+    int crc = RuntimeSupport.crc16(arr, dataBitLength, 0xFFFF);
     logger.trace("CRC16-CCITT = " + Integer.toHexString(crc));
     if (crc == 0x1d0f) {
       // CRC16 is correct
@@ -2074,7 +2006,7 @@ public class UHFReaderAscii extends MetratecReaderAscii<UhfTag> {
    */
   @Override
   public List<UhfTag> stopInventory() throws CommConnectionException, RFIDReaderException {
-    if (null != lastInventory) {
+    if (null != lastInventoryCall) {
       List<UhfTag> tags = super.stopInventory();
       lastInventoryCall = null;
       return tags;
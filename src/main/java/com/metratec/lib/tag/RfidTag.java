@@ -161,6 +161,16 @@ public abstract class RfidTag implements Serializable, Cloneable, Comparable<Rfi
     }
   }
 
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return null != getId() ? getId().hashCode() : super.hashCode();
+  }
+
   /*
    * (non-Javadoc)
    * 
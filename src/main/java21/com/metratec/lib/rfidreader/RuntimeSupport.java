@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.rfidreader;
+
+import java.util.HexFormat;
+
+/**
+ * The operations of the library hot paths, which are faster with a newer Java runtime. This is the
+ * Java 21 implementation in <code>META-INF/versions/21</code> of the multi-release jar, it must have
+ * the same methods and behaviour as the Java 8 implementation in <code>src/main/java</code>.
+ *
+ * @author mn
+ *
+ */
+public final class RuntimeSupport {
+  private static final HexFormat HEX = HexFormat.of().withUpperCase();
+  /** CRC16-CCITT (polynom 0x1021) of every byte value */
+  private static final int[] CRC16_TABLE = new int[256];
+
+  static {
+    for (int i = 0; i < 256; i++) {
+      int crc = i << 8;
+      for (int bit = 0; bit < 8; bit++) {
+        crc = 0 != (crc & 0x8000) ? (crc << 1) ^ 0x1021 : crc << 1;
+      }
+      CRC16_TABLE[i] = crc & 0xFFFF;
+    }
+  }
+
+  private RuntimeSupport() {}
+
+  /**
+   * @return the major version of the implementation, 8 or 21
+   */
+  public static int getVersion() {
+    return 21;
+  }
+
+  /**
+   * Called in every iteration of a busy spin loop. The Java 8 implementation does nothing, the Java
+   * 21 implementation calls <code>Thread.onSpinWait()</code>, which tells the cpu to spin with less
+   * power and lets the hyper thread sibling run.
+   */
+  public static void onSpinWait() {
+    Thread.onSpinWait();
+  }
+
+  /**
+   * @param hex the hex string, upper or lower case
+   * @return the bytes of the hex string
+   * @throws IllegalArgumentException if the string has an odd length or contains a non hex
+   *         character
+   */
+  public static byte[] parseHex(CharSequence hex) {
+    return HEX.parseHex(hex);
+  }
+
+  /**
+   * @param data the bytes
+   * @return the upper case hex string of the bytes
+   */
+  public static String formatHex(byte[] data) {
+    return HEX.formatHex(data);
+  }
+
+  /**
+   * Calculate the CRC16-CCITT (polynom 0x1021, most significant bit first) of the first bits of the
+   * data
+   *
+   * @param data the data
+   * @param bitLength the number of data bits
+   * @param crc the initial crc, e.g. 0xFFFF
+   * @return the crc
+   * @throws IllegalArgumentException if the bit length is bigger than the data
+   */
+  public static int crc16(byte[] data, int bitLength, int crc) {
+    if (bitLength < 0 || data.length * 8 < bitLength) {
+      throw new IllegalArgumentException("bit length " + bitLength + " out of range");
+    }
+    int length = bitLength / 8;
+    crc &= 0xFFFF;
+    for (int i = 0; i < length; i++) {
+      crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ data[i]) & 0xFF]) & 0xFFFF;
+    }
+    for (int i = 0; i < bitLength % 8; i++) {
+      crc <<= 1;
+      if (0 != (((data[length] >>> (7 - i)) ^ (crc >>> 16)) & 0x01)) {
+        crc ^= 0x1021;
+      }
+      crc &= 0xFFFF;
+    }
+    return crc;
+  }
+}
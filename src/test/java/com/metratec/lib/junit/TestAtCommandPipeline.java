@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.connection.CommConnectionException;
+import com.metratec.lib.rfidreader.AtCommandPipeline;
+import com.metratec.lib.rfidreader.RFIDErrorCodes;
+import com.metratec.lib.rfidreader.RFIDReaderException;
+
+/**
+ * Test the command pipeline of the AT readers
+ *
+ * @author mn
+ *
+ */
+public class TestAtCommandPipeline {
+  private Logger logger = LoggerFactory.getLogger(TestAtCommandPipeline.class);
+  private List<String> written = new CopyOnWriteArrayList<>();
+
+  private AtCommandPipeline createPipeline() {
+    AtCommandPipeline pipeline = new AtCommandPipeline(written::add,
+        data -> new RFIDReaderException(RFIDErrorCodes.NER, "parsed " + data));
+    pipeline.setEchoEnabled(true);
+    return pipeline;
+  }
+
+  private void receive(AtCommandPipeline pipeline, String... lines) {
+    for (String line : lines) {
+      Assert.assertTrue(pipeline.responseReceived(line));
+    }
+  }
+
+  private Throwable getError(CompletableFuture<?> future) throws InterruptedException {
+    try {
+      future.get(1, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      return e.getCause();
+    } catch (TimeoutException e) {
+      Assert.fail("timeout");
+    }
+    Assert.fail("no error");
+    return null;
+  }
+
+  /**
+   * the commands are written up to the pipeline depth, the responses are assigned in order
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testPipelining() throws Exception {
+    logger.info("testPipelining");
+    AtCommandPipeline pipeline = createPipeline();
+    pipeline.setDepth(2);
+    CompletableFuture<String> read1 = pipeline.submit("AT+READ", "AT+READ=USR,0,1\r", 1000);
+    CompletableFuture<String> read2 = pipeline.submit("AT+READ", "AT+READ=USR,1,1\r", 1000);
+    CompletableFuture<String> power = pipeline.submit("AT+PWR?", "AT+PWR?\r", 1000);
+    Assert.assertEquals(2, written.size());
+    Assert.assertEquals(1, pipeline.getWaiting());
+    receive(pipeline, "AT+READ=USR,0,1", "+READ: EPC1,OK,0001");
+    Assert.assertFalse(read1.isDone());
+    receive(pipeline, "OK");
+    Assert.assertEquals("+READ: EPC1,OK,0001", read1.get());
+    Assert.assertEquals(3, written.size());
+    receive(pipeline, "AT+READ=USR,1,1", "+READ: EPC1,OK,0002", "OK", "AT+PWR?", "+PWR: 17", "OK");
+    Assert.assertEquals("+READ: EPC1,OK,0002", read2.get());
+    Assert.assertEquals("+PWR: 17", power.get());
+    Assert.assertEquals(0, pipeline.getInFlight());
+    // no command is written, the line is not consumed
+    Assert.assertFalse(pipeline.responseReceived("OK"));
+  }
+
+  /**
+   * an error response completes the command exceptionally
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testError() throws Exception {
+    logger.info("testError");
+    AtCommandPipeline pipeline = createPipeline();
+    CompletableFuture<String> command = pipeline.submit("AT+PWR", "AT+PWR=99\r", 1000);
+    receive(pipeline, "AT+PWR=99", "<value out of range>", "ERROR");
+    Throwable error = getError(command);
+    Assert.assertTrue(error instanceof RFIDReaderException);
+    Assert.assertEquals("parsed value out of range", error.getMessage());
+  }
+
+  /**
+   * the late response of an expired command is discarded
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testTimeout() throws Exception {
+    logger.info("testTimeout");
+    AtCommandPipeline pipeline = createPipeline();
+    CompletableFuture<String> inventory = pipeline.submit("AT+INV", "AT+INV\r", 50);
+    CompletableFuture<String> power = pipeline.submit("AT+PWR?", "AT+PWR?\r", 1000);
+    Assert.assertEquals(1, written.size());
+    Throwable error = getError(inventory);
+    Assert.assertTrue(error instanceof CommConnectionException);
+    Assert.assertEquals("Reader did not respond", error.getMessage());
+    Assert.assertEquals(Arrays.asList("AT+INV\r", "AT+PWR?\r"), written);
+    receive(pipeline, "AT+INV", "+INV: EPC1", "OK", "AT+PWR?", "+PWR: 17", "OK");
+    Assert.assertEquals("+PWR: 17", power.get());
+    Assert.assertEquals(3, pipeline.getDiscardedLines());
+  }
+
+  /**
+   * without echo the responses are assigned by order, the late response of an expired command is
+   * recognized by its response prefix
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testWithoutEcho() throws Exception {
+    logger.info("testWithoutEcho");
+    AtCommandPipeline pipeline = createPipeline();
+    pipeline.setEchoEnabled(false);
+    pipeline.setDepth(2);
+    CompletableFuture<String> read = pipeline.submit("AT+READ", "AT+READ=USR,0,1\r", 1000);
+    CompletableFuture<String> revision = pipeline.submit("ATI", "ATI\r", 1000);
+    receive(pipeline, "+READ: EPC1,OK,0001", "OK", "+SW: PULSAR_LR 0100", "+HW: PULSAR_LR 0100",
+        "OK");
+    Assert.assertEquals("+READ: EPC1,OK,0001", read.get());
+    Assert.assertEquals("+SW: PULSAR_LR 0100+HW: PULSAR_LR 0100", revision.get());
+    pipeline.setDepth(1);
+    CompletableFuture<String> inventory = pipeline.submit("AT+INV", "AT+INV\r", 50);
+    CompletableFuture<String> multiplex = pipeline.submit("AT+MUX?", "AT+MUX?\r", 1000);
+    Assert.assertTrue(getError(inventory) instanceof CommConnectionException);
+    receive(pipeline, "+INV: EPC1", "+INV: <ROUND FINISHED, ANT=1>", "OK");
+    Assert.assertFalse(multiplex.isDone());
+    Assert.assertEquals(3, pipeline.getDiscardedLines());
+    receive(pipeline, "+MUX: 1,2", "OK");
+    Assert.assertEquals("+MUX: 1,2", multiplex.get());
+    // the prefix +READ does not match +READM
+    CompletableFuture<String> readMultiple = pipeline.submit("AT+READM", "AT+READM=0,1\r", 50);
+    CompletableFuture<String> read2 = pipeline.submit("AT+READ", "AT+READ=USR,1,1\r", 1000);
+    Assert.assertTrue(getError(readMultiple) instanceof CommConnectionException);
+    receive(pipeline, "+READM: 0001", "OK", "+READ: EPC1,OK,0002", "OK");
+    Assert.assertEquals("+READ: EPC1,OK,0002", read2.get());
+  }
+
+  /**
+   * the data lines are passed to the listener as they are received
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testDataListener() throws Exception {
+    logger.info("testDataListener");
+    AtCommandPipeline pipeline = createPipeline();
+    List<String> lines = new CopyOnWriteArrayList<>();
+    CompletableFuture<String> inventory =
+        pipeline.submit("AT+MINV", "AT+MINV\r", 1000, lines::add);
+    receive(pipeline, "AT+MINV", "+MINV: EPC1", "+MINV: <ROUND FINISHED, ANT=1>");
+    Assert.assertEquals(Arrays.asList("+MINV: EPC1", "+MINV: <ROUND FINISHED, ANT=1>"), lines);
+    Assert.assertFalse(inventory.isDone());
+    receive(pipeline, "+MINV: <NO TAGS FOUND>", "+MINV: <ROUND FINISHED, ANT=2>", "OK");
+    Assert.assertEquals(4, lines.size());
+    Assert.assertEquals(String.join("", lines), inventory.get());
+  }
+
+  /**
+   * a cancelled command is not written
+   */
+  @Test
+  public void testCancel() {
+    logger.info("testCancel");
+    AtCommandPipeline pipeline = createPipeline();
+    CompletableFuture<String> first = pipeline.submit("AT+PWR?", "AT+PWR?\r", 1000);
+    pipeline.submit("AT+INV", "AT+INV\r", 1000).cancel(false);
+    receive(pipeline, "AT+PWR?", "+PWR: 17", "OK");
+    Assert.assertTrue(first.isDone());
+    Assert.assertEquals(1, written.size());
+    Assert.assertEquals(0, pipeline.getWaiting());
+  }
+}
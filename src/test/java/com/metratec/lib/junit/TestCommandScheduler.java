@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.connection.CommConnectionException;
+import com.metratec.lib.rfidreader.CommandScheduler;
+import com.metratec.lib.rfidreader.CommandScheduler.Priority;
+import com.metratec.lib.rfidreader.RFIDReaderException;
+import com.metratec.lib.rfidreader.uhf.PulsarLR;
+
+/**
+ * Test the priority scheduling of the reader communication
+ *
+ * @author mn
+ *
+ */
+public class TestCommandScheduler {
+  private Logger logger = LoggerFactory.getLogger(TestCommandScheduler.class);
+  private List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+  private Thread startCommand(CommandScheduler scheduler, String name, Priority priority,
+      long deadline) throws InterruptedException {
+    int queueLength = scheduler.getWaitingCommands();
+    Thread thread = new Thread(() -> {
+      try {
+        scheduler.execute(priority, deadline, () -> {
+          scheduler.lock();
+          try {
+            order.add(name);
+          } finally {
+            scheduler.unlock();
+          }
+          return null;
+        });
+      } catch (CommConnectionException | RFIDReaderException e) {
+        logger.error(e.getMessage(), e);
+      }
+    }, name);
+    thread.start();
+    // wait until the command is queued
+    while (scheduler.getWaitingCommands() == queueLength) {
+      Thread.sleep(1);
+    }
+    return thread;
+  }
+
+  /**
+   * the waiting commands get the lock by priority, deadline and arrival
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testOrder() throws InterruptedException {
+    logger.info("testOrder");
+    CommandScheduler scheduler = new CommandScheduler();
+    scheduler.setAgingTime(0);
+    scheduler.lock();
+    List<Thread> threads = new ArrayList<>();
+    threads.add(startCommand(scheduler, "background", Priority.BACKGROUND, 0));
+    threads.add(startCommand(scheduler, "normal1", Priority.NORMAL, 0));
+    threads.add(startCommand(scheduler, "normal2", Priority.NORMAL, 0));
+    threads.add(startCommand(scheduler, "normal3", Priority.NORMAL, 10000));
+    threads.add(startCommand(scheduler, "realtime", Priority.REALTIME, 0));
+    scheduler.unlock();
+    for (Thread thread : threads) {
+      thread.join(1000);
+    }
+    Assert.assertEquals(Arrays.asList("realtime", "normal3", "normal1", "normal2", "background"),
+        order);
+    Assert.assertEquals(1, scheduler.getAcquisitions(Priority.REALTIME));
+    Assert.assertEquals(4, scheduler.getAcquisitions(Priority.NORMAL));
+    Assert.assertEquals(1, scheduler.getAcquisitions(Priority.BACKGROUND));
+    Assert.assertTrue(scheduler.getMaxQueueDelay(Priority.BACKGROUND) >= scheduler
+        .getMaxQueueDelay(Priority.REALTIME));
+  }
+
+  /**
+   * a background command is promoted after the aging time
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testAging() throws InterruptedException {
+    logger.info("testAging");
+    CommandScheduler scheduler = new CommandScheduler();
+    scheduler.setAgingTime(50);
+    scheduler.lock();
+    List<Thread> threads = new ArrayList<>();
+    threads.add(startCommand(scheduler, "background", Priority.BACKGROUND, 0));
+    Thread.sleep(150);
+    threads.add(startCommand(scheduler, "realtime", Priority.REALTIME, 0));
+    scheduler.unlock();
+    for (Thread thread : threads) {
+      thread.join(1000);
+    }
+    Assert.assertEquals(Arrays.asList("background", "realtime"), order);
+    Assert.assertTrue(scheduler.getMaxQueueDelay(Priority.BACKGROUND) >= 150);
+  }
+
+  /**
+   * the lock is reentrant and the thread priority is restored
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testReentrant() throws Exception {
+    logger.info("testReentrant");
+    CommandScheduler scheduler = new CommandScheduler();
+    Assert.assertEquals(Priority.NORMAL, scheduler.getThreadPriority());
+    scheduler.execute(Priority.REALTIME, 0, () -> {
+      Assert.assertEquals(Priority.REALTIME, scheduler.getThreadPriority());
+      scheduler.lock();
+      scheduler.lock();
+      scheduler.unlock();
+      Assert.assertTrue(scheduler.isHeldByCurrentThread());
+      scheduler.unlock();
+      return null;
+    });
+    Assert.assertFalse(scheduler.isHeldByCurrentThread());
+    Assert.assertEquals(Priority.NORMAL, scheduler.getThreadPriority());
+    Assert.assertEquals(1, scheduler.getAcquisitions(Priority.REALTIME));
+    Assert.assertTrue(scheduler.tryLock());
+    scheduler.unlock();
+    Assert.assertEquals(1, scheduler.getAcquisitions(Priority.NORMAL));
+  }
+
+  /**
+   * a thread, which awaits a condition, releases the lock and gets it back with its hold count
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testCondition() throws Exception {
+    logger.info("testCondition");
+    CommandScheduler scheduler = new CommandScheduler();
+    Condition condition = scheduler.newCondition();
+    boolean[] ready = new boolean[1];
+    Thread waiting = new Thread(() -> {
+      scheduler.lock();
+      scheduler.lock();
+      try {
+        while (!ready[0]) {
+          condition.awaitUninterruptibly();
+        }
+        order.add("woken");
+        Assert.assertTrue(scheduler.isHeldByCurrentThread());
+        scheduler.unlock();
+        Assert.assertTrue(scheduler.isHeldByCurrentThread());
+      } finally {
+        scheduler.unlock();
+      }
+    }, "waiting");
+    waiting.start();
+    while (!waiting.getState().equals(Thread.State.WAITING)) {
+      Thread.sleep(1);
+    }
+    scheduler.lock();
+    try {
+      Assert.assertTrue(scheduler.hasWaiters(condition));
+      Assert.assertEquals(1, scheduler.getWaitQueueLength(condition));
+      ready[0] = true;
+      condition.signal();
+      order.add("signalled");
+    } finally {
+      scheduler.unlock();
+    }
+    waiting.join(1000);
+    Assert.assertEquals(Arrays.asList("signalled", "woken"), order);
+    Assert.assertFalse(waiting.isAlive());
+    Assert.assertTrue(scheduler.tryLock());
+    scheduler.lock();
+    Assert.assertFalse(condition.await(10, TimeUnit.MILLISECONDS));
+    Assert.assertTrue(scheduler.isHeldByCurrentThread());
+    scheduler.unlock();
+    scheduler.unlock();
+    Assert.assertFalse(scheduler.isHeldByCurrentThread());
+    try {
+      condition.signal();
+      Assert.fail("signal without the lock");
+    } catch (IllegalMonitorStateException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Reader, which uses the communication lock like the existing subclasses
+   */
+  private static class TestReader extends PulsarLR {
+
+    TestReader() {
+      super("test", "localhost", 10001);
+    }
+
+    ReentrantLock getLock() {
+      return communicateLock;
+    }
+  }
+
+  /**
+   * the scheduler is the {@link ReentrantLock} of the reader subclasses
+   */
+  @Test
+  public void testReentrantLock() {
+    logger.info("testReentrantLock");
+    TestReader reader = new TestReader();
+    ReentrantLock lock = reader.getLock();
+    Assert.assertSame(reader.getCommandScheduler(), lock);
+    Assert.assertFalse(lock.isLocked());
+    lock.lock();
+    lock.lock();
+    try {
+      Assert.assertTrue(lock.isLocked());
+      Assert.assertTrue(lock.isHeldByCurrentThread());
+      Assert.assertEquals(2, lock.getHoldCount());
+      Assert.assertTrue(
+          lock.toString().endsWith("[Locked by thread " + Thread.currentThread().getName() + "]"));
+    } finally {
+      lock.unlock();
+      lock.unlock();
+    }
+    Assert.assertEquals(0, lock.getHoldCount());
+    Assert.assertFalse(lock.isLocked());
+  }
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.CompactUhfInventory;
+import com.metratec.lib.inventory.event.InventoryChangedEvent;
+import com.metratec.lib.inventory.event.InventoryListener;
+import com.metratec.lib.inventory.event.TagArrivedEvent;
+import com.metratec.lib.inventory.event.TagDepartedEvent;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the compact uhf inventory
+ *
+ * @author mn
+ *
+ */
+public class TestCompactUhfInventory {
+  private Logger logger = LoggerFactory.getLogger(TestCompactUhfInventory.class);
+  private LinkedBlockingQueue<TagArrivedEvent<UhfTag>> arrivedTags = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<TagDepartedEvent<UhfTag>> departedTags = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<InventoryChangedEvent<UhfTag>> inventoryChanges =
+      new LinkedBlockingQueue<>();
+  private CompactUhfInventory inventory;
+  private InventoryListener<UhfTag> listener = new InventoryListener<UhfTag>() {
+
+    @Override
+    public void tagDeparted(TagDepartedEvent<UhfTag> tagDeparted) {
+      departedTags.add(tagDeparted);
+    }
+
+    @Override
+    public void tagArrive(TagArrivedEvent<UhfTag> tagArrived) {
+      arrivedTags.add(tagArrived);
+    }
+
+    @Override
+    public void inventoryChanged(InventoryChangedEvent<UhfTag> inventoryChanged) {
+      inventoryChanges.add(inventoryChanged);
+    }
+  };
+
+  /**
+   * called after every test
+   */
+  @After
+  public void tearDown() {
+    if (null != inventory) {
+      inventory.stop();
+    }
+  }
+
+  /**
+   * adding tags and update the tag values
+   */
+  @Test
+  public void addTags() {
+    logger.info("addTags");
+    inventory = new CompactUhfInventory("test", listener);
+
+    long start = System.currentTimeMillis();
+    UhfTag tagA = new UhfTag("3034257BF468D480000003EB", start, 1);
+    tagA.setRssi(-60);
+    inventory.updateInventory(Arrays.asList(tagA));
+    TagArrivedEvent<UhfTag> tagArrived = arrivedTags.poll();
+    Assert.assertNotNull(tagArrived);
+    Assert.assertEquals(tagA.getId(), tagArrived.getTag().getId());
+    InventoryChangedEvent<UhfTag> invChange = inventoryChanges.poll();
+    Assert.assertNotNull(invChange);
+    Assert.assertEquals(1, invChange.getTags().size());
+    Assert.assertEquals(1, invChange.getNewTags().size());
+    Assert.assertEquals(0, invChange.getLostTags().size());
+
+    long now = start + 10;
+    UhfTag tagA2 = new UhfTag("3034257bf468d480000003eb", now, 2);
+    tagA2.setRssi(-50);
+    UhfTag tagB = new UhfTag("E2000000000000000000000000000000000000000000000001", now, 1);
+    inventory.updateInventory(Arrays.asList(tagA2, tagB));
+    tagArrived = arrivedTags.poll();
+    Assert.assertNotNull(tagArrived);
+    Assert.assertEquals(tagB.getId(), tagArrived.getTag().getId());
+    Assert.assertTrue(arrivedTags.isEmpty());
+    Assert.assertEquals(2, inventory.size());
+
+    UhfTag stored = inventory.getTag(tagA.getId());
+    Assert.assertNotNull(stored);
+    Assert.assertEquals(start, stored.getFirstSeenTimestamp().longValue());
+    Assert.assertEquals(now, stored.getLastSeenTimestamp().longValue());
+    Assert.assertEquals(2, stored.getSeenCount().intValue());
+    Assert.assertEquals(2, stored.getAntenna().intValue());
+    Assert.assertEquals(-50, stored.getRssi().intValue());
+    Assert.assertEquals(tagB.getId(), inventory.getTag(tagB.getId()).getId());
+
+    inventory.updateInventory(Arrays.asList(new UhfTag("NOHEX")));
+    Assert.assertEquals(2, inventory.size());
+    Assert.assertTrue(arrivedTags.isEmpty());
+
+    inventory.clear();
+    Assert.assertEquals(0, inventory.size());
+    Assert.assertEquals(2, departedTags.size());
+  }
+
+  /**
+   * check if the tags are automatically removed
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void removeTagsWithoutUpdateTagList() throws Exception {
+    logger.info("removeTagsWithoutUpdateTagList");
+    inventory = new CompactUhfInventory("test", listener, 500, 16);
+    inventory.start();
+
+    String tagA = "AAAA";
+    inventory.updateInventory(Arrays.asList(new UhfTag(tagA)));
+    Assert.assertNotNull(arrivedTags.poll());
+    Assert.assertNotNull(inventoryChanges.poll());
+
+    TagDepartedEvent<UhfTag> tagDeparted = departedTags.poll(800, TimeUnit.MILLISECONDS);
+    Assert.assertNotNull(tagDeparted);
+    Assert.assertEquals(tagA, tagDeparted.getTag().getId());
+    InventoryChangedEvent<UhfTag> invChange = inventoryChanges.poll(100, TimeUnit.MILLISECONDS);
+    Assert.assertNotNull(invChange);
+    Assert.assertEquals(0, invChange.getTags().size());
+    Assert.assertEquals(1, invChange.getLostTags().size());
+    Assert.assertEquals(0, inventory.size());
+  }
+
+  /**
+   * the tag list of an inventory changed event is the inventory at the time of the event
+   */
+  @Test
+  public void testChangedEventSnapshot() {
+    logger.info("testChangedEventSnapshot");
+    inventory = new CompactUhfInventory("test", listener);
+    inventory.updateInventory(Arrays.asList(new UhfTag("AAAA")));
+    InventoryChangedEvent<UhfTag> first = inventoryChanges.poll();
+    Assert.assertNotNull(first);
+    inventory.updateInventory(Arrays.asList(new UhfTag("BBBB")));
+    inventory.removeTag("AAAA");
+    InventoryChangedEvent<UhfTag> second = inventoryChanges.poll();
+    InventoryChangedEvent<UhfTag> third = inventoryChanges.poll();
+    Assert.assertNotNull(third);
+    Assert.assertEquals(1, first.getTags().size());
+    Assert.assertEquals("AAAA", first.getTags().get(0).getId());
+    Assert.assertEquals(2, second.getTags().size());
+    Assert.assertEquals(1, third.getTags().size());
+    Assert.assertEquals("BBBB", third.getTags().get(0).getId());
+  }
+
+  /**
+   * Test with many tags, the inventory must grow and reuse removed records
+   */
+  @Test
+  public void testManyTags() {
+    logger.info("testManyTags");
+    inventory = new CompactUhfInventory("test", null, 0, 16);
+    int count = 100000;
+    List<UhfTag> tags = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      tags.add(new UhfTag(String.format("3034257BF468D48%09X", i), System.currentTimeMillis()));
+    }
+    inventory.updateInventory(tags);
+    Assert.assertEquals(count, inventory.size());
+    Assert.assertEquals(count, inventory.getInventory().size());
+    int capacity = inventory.getCapacity();
+
+    // remove every second tag and add them again
+    for (int i = 0; i < count; i += 2) {
+      inventory.removeTag(tags.get(i).getId());
+    }
+    Assert.assertEquals(count / 2, inventory.size());
+    for (int i = 0; i < count; i++) {
+      Assert.assertEquals(0 != i % 2, inventory.contains(tags.get(i).getId()));
+    }
+    inventory.updateInventory(tags);
+    Assert.assertEquals(count, inventory.size());
+    Assert.assertEquals(capacity, inventory.getCapacity());
+    for (UhfTag tag : tags) {
+      Assert.assertTrue(inventory.contains(tag.getId()));
+    }
+  }
+}
@@ -0,0 +1,603 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.event.EventHandler;
+import com.metratec.lib.rfidreader.event.EventHandler.OverflowPolicy;
+import com.metratec.lib.rfidreader.event.EventHandler.WaitStrategy;
+import com.metratec.lib.rfidreader.event.EventPool;
+import com.metratec.lib.rfidreader.event.ListenerQueue;
+import com.metratec.lib.rfidreader.event.RfidTagBatch;
+import com.metratec.lib.rfidreader.event.RfidTagEvent;
+import com.metratec.lib.rfidreader.event.RfidTagEventListener;
+import com.metratec.lib.rfidreader.event.RfidTagFound;
+import com.metratec.lib.rfidreader.event.RfidTagLost;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the event handler overflow policies and wait strategies
+ *
+ * @author mn
+ *
+ */
+public class TestEventHandler {
+  private Logger logger = LoggerFactory.getLogger(TestEventHandler.class);
+  private LinkedBlockingQueue<RfidTagFound<UhfTag>> foundTags = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<RfidTagLost<UhfTag>> lostTags = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<RfidTagBatch<UhfTag>> batches = new LinkedBlockingQueue<>();
+  private RfidTagEventListener<UhfTag> listener = new RfidTagEventListener<UhfTag>() {
+
+    @Override
+    public void tagFound(RfidTagFound<UhfTag> tagEvent) {
+      foundTags.add(tagEvent);
+    }
+
+    @Override
+    public void tagLost(RfidTagLost<UhfTag> tagEvent) {
+      lostTags.add(tagEvent);
+    }
+  };
+
+  private RfidTagFound<UhfTag> found(String epc) {
+    return new RfidTagFound<>("test", new UhfTag(epc), null);
+  }
+
+  private void stopHandler(EventHandler<UhfTag> handler) throws InterruptedException {
+    handler.stop();
+    for (int i = 0; i < 100 && handler.isAlive(); i++) {
+      Thread.sleep(10);
+    }
+    Assert.assertFalse(handler.isAlive());
+  }
+
+  /**
+   * a full buffer drops the new events
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testDropNewest() throws InterruptedException {
+    logger.info("testDropNewest");
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 4, WaitStrategy.BLOCKING, OverflowPolicy.DROP_NEWEST);
+    handler.setTagListener(listener);
+    for (int i = 0; i < 10; i++) {
+      handler.tagFound(found("TAG" + i));
+    }
+    Assert.assertEquals(4, handler.getPendingEvents());
+    Assert.assertEquals(10, handler.getPublishedEvents());
+    Assert.assertEquals(6, handler.getDroppedEvents());
+    handler.start();
+    stopHandler(handler);
+    Assert.assertEquals(4, handler.getDeliveredEvents());
+    for (int i = 0; i < 4; i++) {
+      Assert.assertEquals("TAG" + i, foundTags.poll().getTag().getId());
+    }
+  }
+
+  /**
+   * a full buffer drops the oldest events
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testDropOldest() throws InterruptedException {
+    logger.info("testDropOldest");
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 3, WaitStrategy.YIELDING, OverflowPolicy.DROP_OLDEST);
+    Assert.assertEquals(4, handler.getCapacity());
+    handler.setTagListener(listener);
+    for (int i = 0; i < 10; i++) {
+      handler.tagFound(found("TAG" + i));
+    }
+    Assert.assertEquals(6, handler.getDroppedEvents());
+    handler.start();
+    stopHandler(handler);
+    Assert.assertEquals(4, handler.getDeliveredEvents());
+    for (int i = 6; i < 10; i++) {
+      Assert.assertEquals("TAG" + i, foundTags.poll().getTag().getId());
+    }
+  }
+
+  /**
+   * pending events of the same tag are replaced
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testCoalesce() throws InterruptedException {
+    logger.info("testCoalesce");
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 16, WaitStrategy.BLOCKING, OverflowPolicy.COALESCE);
+    handler.setTagListener(listener);
+    List<RfidTagFound<UhfTag>> lastEvents = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      lastEvents.clear();
+      for (int j = 0; j < 3; j++) {
+        RfidTagFound<UhfTag> event = found("TAG" + j);
+        lastEvents.add(event);
+        handler.tagFound(event);
+      }
+    }
+    // the buffer is full, no lost event is pending, so the oldest event is dropped
+    handler.tagLost(new RfidTagLost<>("test", new UhfTag("TAG0"), null));
+    Assert.assertEquals(16, handler.getPendingEvents());
+    Assert.assertEquals(301, handler.getPublishedEvents());
+    Assert.assertEquals(284, handler.getCoalescedEvents());
+    Assert.assertEquals(285, handler.getDroppedEvents());
+    handler.start();
+    stopHandler(handler);
+    Assert.assertEquals(15, foundTags.size());
+    // the last event of each tag is dispatched
+    Map<String, RfidTagFound<UhfTag>> lastFound = new HashMap<>();
+    RfidTagFound<UhfTag> event;
+    while (null != (event = foundTags.poll())) {
+      lastFound.put(event.getTag().getId(), event);
+    }
+    for (RfidTagFound<UhfTag> last : lastEvents) {
+      Assert.assertSame(last, lastFound.get(last.getTag().getId()));
+    }
+    Assert.assertEquals("TAG0", lostTags.poll().getTag().getId());
+    // events are not coalesced as long as the buffer has free space
+    handler.tagFound(found("TAG0"));
+    handler.tagFound(found("TAG0"));
+    Assert.assertEquals(2, handler.getPendingEvents());
+    handler.start();
+    stopHandler(handler);
+    Assert.assertEquals(2, foundTags.size());
+    Assert.assertEquals(284, handler.getCoalescedEvents());
+  }
+
+  /**
+   * found, lost, found of a tag is not coalesced to found, lost
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testCoalesceOrder() throws InterruptedException {
+    logger.info("testCoalesceOrder");
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 4, WaitStrategy.BLOCKING, OverflowPolicy.COALESCE);
+    List<RfidTagEvent<UhfTag>> order = new CopyOnWriteArrayList<>();
+    handler.setTagListener(new RfidTagEventListener<UhfTag>() {
+
+      @Override
+      public void tagFound(RfidTagFound<UhfTag> tagEvent) {
+        order.add(tagEvent);
+      }
+
+      @Override
+      public void tagLost(RfidTagLost<UhfTag> tagEvent) {
+        order.add(tagEvent);
+      }
+    });
+    RfidTagFound<UhfTag> found1 = found("A");
+    RfidTagLost<UhfTag> lost = new RfidTagLost<>("test", new UhfTag("A"), null);
+    RfidTagFound<UhfTag> found2 = found("A");
+    RfidTagFound<UhfTag> found3 = found("A");
+    RfidTagFound<UhfTag> other = found("B");
+    RfidTagLost<UhfTag> lost2 = new RfidTagLost<>("test", new UhfTag("A"), null);
+    handler.tagFound(found1);
+    handler.tagLost(lost);
+    handler.tagFound(found2);
+    handler.tagFound(other);
+    // the buffer is full and no lost is pending after found2, so found3 replaces it
+    handler.tagFound(found3);
+    Assert.assertEquals(1, handler.getCoalescedEvents());
+    // found3 is pending after lost, so lost2 is not coalesced and the oldest event is dropped
+    handler.tagLost(lost2);
+    Assert.assertEquals(1, handler.getCoalescedEvents());
+    handler.start();
+    stopHandler(handler);
+    Assert.assertEquals(Arrays.asList(lost, found3, other, lost2), order);
+  }
+
+  /**
+   * a full buffer blocks the publisher, no event is lost
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testBlock() throws InterruptedException {
+    for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+      logger.info("testBlock " + waitStrategy);
+      foundTags.clear();
+      EventHandler<UhfTag> handler =
+          new EventHandler<>("test", 16, waitStrategy, OverflowPolicy.BLOCK);
+      handler.setTagListener(listener);
+      handler.start();
+      int count = 20000;
+      long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        handler.tagFound(found("TAG" + i));
+      }
+      stopHandler(handler);
+      long time = System.nanoTime() - start;
+      Assert.assertEquals(count, handler.getPublishedEvents());
+      Assert.assertEquals(count, handler.getDeliveredEvents());
+      Assert.assertEquals(0, handler.getDroppedEvents());
+      for (int i = 0; i < count; i++) {
+        Assert.assertEquals("TAG" + i, foundTags.poll().getTag().getId());
+      }
+      logger.info("{} events with {}: {} ms", count, waitStrategy, time / 1000000);
+    }
+  }
+
+  /**
+   * tags of a round or a flush interval are delivered as one batch
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testTagBatch() throws InterruptedException {
+    logger.info("testTagBatch");
+    EventHandler<UhfTag> handler = new EventHandler<>("test");
+    handler.setTagListener(listener);
+    handler.setTagBatchListener(batches::add, 0);
+    handler.start();
+    List<UhfTag> round = Arrays.asList(new UhfTag("TAG0"), new UhfTag("TAG1"));
+    handler.tagBatch(round, null);
+    handler.tagBatch(new ArrayList<>(), new ArrayList<>());
+    handler.tagBatch(null, Arrays.asList(new UhfTag("TAG2")));
+    RfidTagBatch<UhfTag> batch = batches.poll(1, TimeUnit.SECONDS);
+    Assert.assertEquals(round, batch.getFoundTags());
+    Assert.assertTrue(batch.getLostTags().isEmpty());
+    batch = batches.poll(1, TimeUnit.SECONDS);
+    Assert.assertTrue(batch.getFoundTags().isEmpty());
+    Assert.assertEquals("TAG2", batch.getLostTags().get(0).getId());
+    Assert.assertTrue(foundTags.isEmpty());
+
+    // collect the tags of the flush interval
+    handler.setTagBatchListener(batches::add, 200);
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < 10; i++) {
+      handler.tagBatch(Arrays.asList(new UhfTag("TAG" + i)), null);
+      handler.tagFound(found("TAG" + i));
+    }
+    handler.tagBatch(null, Arrays.asList(new UhfTag("TAG0")));
+    Assert.assertNotNull(foundTags.poll(1, TimeUnit.SECONDS));
+    Assert.assertNull(batches.poll());
+    batch = batches.poll(1, TimeUnit.SECONDS);
+    Assert.assertTrue(System.currentTimeMillis() - start >= 190);
+    Assert.assertEquals(10, batch.getFoundTags().size());
+    Assert.assertEquals(1, batch.getLostTags().size());
+    Assert.assertNull(batches.poll(300, TimeUnit.MILLISECONDS));
+
+    // a stop dispatches the pending batch
+    handler.setTagBatchListener(batches::add, 10000);
+    handler.tagBatch(round, null);
+    stopHandler(handler);
+    Assert.assertEquals(round, batches.poll().getFoundTags());
+  }
+
+  /**
+   * a slow listener does not delay the other listeners
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testListenerQueues() throws InterruptedException {
+    logger.info("testListenerQueues");
+    EventHandler<UhfTag> handler = new EventHandler<>("test");
+    CountDownLatch slowStarted = new CountDownLatch(1);
+    CountDownLatch slowRelease = new CountDownLatch(1);
+    ListenerQueue<UhfTag> slowListener = handler.addTagListener(new RfidTagEventListener<UhfTag>() {
+
+      @Override
+      public void tagFound(RfidTagFound<UhfTag> tag) {
+        slowStarted.countDown();
+        try {
+          slowRelease.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override
+      public void tagLost(RfidTagLost<UhfTag> tag) {}
+    }, 5);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    ListenerQueue<UhfTag> fastListener = handler.addTagListener(listener, 100, executor);
+    Assert.assertTrue(handler.hasTagListener());
+    handler.start();
+    for (int i = 0; i < 50; i++) {
+      handler.tagFound(found("TAG" + i));
+    }
+    for (int i = 0; i < 50; i++) {
+      Assert.assertEquals("TAG" + i, foundTags.poll(1, TimeUnit.SECONDS).getTag().getId());
+    }
+    Assert.assertTrue(slowStarted.await(1, TimeUnit.SECONDS));
+    Thread.sleep(50);
+    Assert.assertEquals(50, fastListener.getDeliveredEvents());
+    Assert.assertEquals(0, fastListener.getDroppedEvents());
+    // one event is in the listener, the queue is full when the listener thread starts
+    Assert.assertTrue(slowListener.getQueuedEvents() >= 4);
+    Assert.assertEquals(49, slowListener.getQueuedEvents() + slowListener.getDroppedEvents());
+    Assert.assertTrue(slowListener.getLag() >= 40);
+    slowRelease.countDown();
+    for (int i = 0; i < 100 && 0 < slowListener.getQueuedEvents(); i++) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(0, slowListener.getLag());
+    Assert.assertTrue(slowListener.getMaxLag() >= 40);
+
+    Assert.assertTrue(handler.removeListener(slowListener));
+    Assert.assertTrue(slowListener.isClosed());
+    Assert.assertFalse(handler.removeListener(slowListener));
+    Assert.assertEquals(1, handler.getListenerQueues().size());
+    stopHandler(handler);
+    executor.shutdown();
+  }
+
+  /**
+   * the events of a tag keep their order with parallel lanes
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testDispatchLanes() throws InterruptedException {
+    logger.info("testDispatchLanes");
+    Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    CountDownLatch finished = new CountDownLatch(400);
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 64, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+    handler.setTagListener(new RfidTagEventListener<UhfTag>() {
+
+      private void handle(RfidTagFound<UhfTag> tag, int value) {
+        threads.add(Thread.currentThread().getName());
+        sequences.computeIfAbsent(tag.getTag().getId(), id -> new ArrayList<>()).add(value);
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        finished.countDown();
+      }
+
+      @Override
+      public void tagFound(RfidTagFound<UhfTag> tag) {
+        handle(tag, (int) tag.getTimestamp());
+      }
+
+      @Override
+      public void tagLost(RfidTagLost<UhfTag> tag) {
+        threads.add(Thread.currentThread().getName());
+        finished.countDown();
+      }
+    });
+    handler.setDispatchLanes(4, 8);
+    Assert.assertEquals(4, handler.getDispatchLanes());
+    Assert.assertEquals(4, handler.getLaneDepths().length);
+    handler.start();
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < 20; i++) {
+      for (int j = 0; j < 20; j++) {
+        handler.tagFound(new RfidTagFound<>("test", new UhfTag("TAG" + j), (long) i));
+      }
+    }
+    Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+    logger.info("400 events in 4 lanes: {} ms", System.currentTimeMillis() - start);
+    Assert.assertEquals(20, sequences.size());
+    for (List<Integer> sequence : sequences.values()) {
+      Assert.assertEquals(20, sequence.size());
+      for (int i = 0; i < sequence.size(); i++) {
+        Assert.assertEquals(i, sequence.get(i).intValue());
+      }
+    }
+    Assert.assertTrue(threads.size() > 1);
+    // the lanes count an event after the listener returns
+    long delivered = 0;
+    for (int retry = 0; retry < 100 && delivered < 400; retry++) {
+      if (0 < retry) {
+        Thread.sleep(10);
+      }
+      delivered = 0;
+      for (long laneDelivered : handler.getLaneDeliveredEvents()) {
+        delivered += laneDelivered;
+      }
+    }
+    Assert.assertEquals(400, delivered);
+    Assert.assertEquals(0, handler.getDroppedEvents());
+
+    handler.setDispatchLanes(0, 0);
+    Assert.assertEquals(0, handler.getLaneDepths().length);
+    stopHandler(handler);
+  }
+
+  /**
+   * the queued events of the lanes are delivered after the lanes are moved to another handler
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testMoveDispatchLanes() throws InterruptedException {
+    logger.info("testMoveDispatchLanes");
+    CountDownLatch blocked = new CountDownLatch(1);
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 64, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+    handler.setTagListener(new RfidTagEventListener<UhfTag>() {
+
+      @Override
+      public void tagFound(RfidTagFound<UhfTag> tag) {
+        try {
+          blocked.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        foundTags.add(tag);
+      }
+
+      @Override
+      public void tagLost(RfidTagLost<UhfTag> tag) {
+        lostTags.add(tag);
+      }
+    });
+    handler.setDispatchLanes(2, 8);
+    handler.start();
+    for (int i = 0; i < 6; i++) {
+      handler.tagFound(found("TAG" + i));
+    }
+    EventHandler<UhfTag> newHandler =
+        new EventHandler<>("test", 128, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+    newHandler.setDispatchLanes(3, 4);
+    newHandler.setTagListener(listener);
+    handler.moveDispatchLanes(newHandler);
+    Assert.assertEquals(2, newHandler.getDispatchLanes());
+    Assert.assertEquals(8, newHandler.getLaneQueueSize());
+    // the pending events of the old handler use the moved lanes until its thread ends
+    handler.tagFound(found("TAG6"));
+    stopHandler(handler);
+    Assert.assertEquals(0, handler.getDispatchLanes());
+    newHandler.start();
+    newHandler.tagFound(found("TAG7"));
+    blocked.countDown();
+    // no queued event of the lanes is discarded, the events taken after the move are delivered to
+    // the listener of the new handler
+    Set<String> ids = ConcurrentHashMap.newKeySet();
+    for (int i = 0; i < 8; i++) {
+      RfidTagFound<UhfTag> tag = foundTags.poll(1, TimeUnit.SECONDS);
+      Assert.assertNotNull(tag);
+      ids.add(tag.getTag().getId());
+    }
+    Assert.assertEquals(8, ids.size());
+    Assert.assertNull(foundTags.poll(100, TimeUnit.MILLISECONDS));
+    stopHandler(newHandler);
+  }
+
+  /**
+   * pooled events are reused after the listener returns
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testEventPool() throws InterruptedException {
+    logger.info("testEventPool");
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 16, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+    // the buffer and a taken batch of events can be in use
+    EventPool<UhfTag> pool = new EventPool<>(2 * 16 + 1, false);
+    handler.setEventPool(pool);
+    CountDownLatch latch = new CountDownLatch(1000);
+    handler.setTagListener(new RfidTagEventListener<UhfTag>() {
+
+      @Override
+      public void tagFound(RfidTagFound<UhfTag> tagEvent) {
+        Assert.assertNotNull(tagEvent.getTag().getId());
+        latch.countDown();
+      }
+
+      @Override
+      public void tagLost(RfidTagLost<UhfTag> tagEvent) {}
+    });
+    handler.start();
+    for (int i = 0; i < 1000; i++) {
+      handler.tagFound("test", new UhfTag("TAG" + i), null);
+    }
+    Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    stopHandler(handler);
+    Assert.assertTrue(pool.getCreatedEvents() <= 2 * 16 + 1);
+    Assert.assertEquals(1000, pool.getCreatedEvents() + pool.getRecycledEvents());
+    // not pooled events are ignored
+    pool.release(found("TAG"));
+  }
+
+  /**
+   * the debug guard detects the use of a released event, while new events are dispatched
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testEventPoolGuard() throws InterruptedException {
+    logger.info("testEventPoolGuard");
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 16, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+    EventPool<UhfTag> pool = new EventPool<>(2 * 16 + 1, true);
+    handler.setEventPool(pool);
+    List<RfidTagFound<UhfTag>> keptEvents = new ArrayList<>();
+    List<String> errors = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(1000);
+    handler.setTagListener(new RfidTagEventListener<UhfTag>() {
+
+      @Override
+      public void tagFound(RfidTagFound<UhfTag> tagEvent) {
+        if (!keptEvents.isEmpty()) {
+          // a reused previous event would show the data of the current event
+          try {
+            RfidTagFound<UhfTag> previous = keptEvents.get(keptEvents.size() - 1);
+            errors.add("released event used: " + previous.getTag().getId());
+          } catch (IllegalStateException e) {
+            // expected
+          }
+        }
+        keptEvents.add(tagEvent);
+        latch.countDown();
+      }
+
+      @Override
+      public void tagLost(RfidTagLost<UhfTag> tagEvent) {}
+    });
+    handler.start();
+    for (int i = 0; i < 1000; i++) {
+      handler.tagFound("test", new UhfTag("TAG" + i), null);
+    }
+    Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    stopHandler(handler);
+    Assert.assertEquals(Collections.emptyList(), errors);
+    // the released events are not reused
+    Assert.assertEquals(1000, pool.getCreatedEvents());
+    Assert.assertEquals(0, pool.getRecycledEvents());
+    Assert.assertEquals(0, pool.getPooledEvents());
+    try {
+      pool.release(keptEvents.get(0));
+      Assert.fail("event released twice");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  /**
+   * the stop future is completed after the pending events are dispatched and the thread ended
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testStopAsync() throws Exception {
+    logger.info("testStopAsync");
+    EventHandler<UhfTag> handler = new EventHandler<>("test");
+    Assert.assertTrue(handler.stopAsync().isDone());
+    handler.setTagListener(listener);
+    for (int i = 0; i < 10; i++) {
+      handler.tagFound(found("TAG" + i));
+    }
+    handler.start();
+    CompletableFuture<Void> stopped = handler.stopAsync();
+    stopped.get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(10, foundTags.size());
+    // the future is completed by the ending thread
+    for (int i = 0; i < 100 && handler.isAlive(); i++) {
+      Thread.sleep(1);
+    }
+    Assert.assertFalse(handler.isAlive());
+  }
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.event.EventFlow.Subscriber;
+import com.metratec.lib.rfidreader.event.EventFlow.Subscription;
+import com.metratec.lib.rfidreader.event.EventPublisher;
+import com.metratec.lib.rfidreader.event.EventPublisher.DemandPolicy;
+import com.metratec.lib.rfidreader.event.RfidEvent;
+import com.metratec.lib.rfidreader.event.RfidTagFound;
+import com.metratec.lib.rfidreader.event.RfidTagLost;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the demand handling of the event publisher
+ *
+ * @author mn
+ *
+ */
+public class TestEventPublisher {
+  private Logger logger = LoggerFactory.getLogger(TestEventPublisher.class);
+  /** deliver the events in the calling thread */
+  private Executor directExecutor = Runnable::run;
+
+  private class TestSubscriber implements Subscriber<RfidEvent> {
+    private long initialRequest;
+    private Subscription subscription;
+    private List<RfidEvent> events = new ArrayList<>();
+    private Throwable error;
+    private boolean complete;
+
+    TestSubscriber(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+      if (0 < initialRequest) {
+        subscription.request(initialRequest);
+      }
+    }
+
+    @Override
+    public void onNext(RfidEvent event) {
+      events.add(event);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      complete = true;
+    }
+  }
+
+  private RfidTagFound<UhfTag> found(String epc) {
+    return new RfidTagFound<>("test", new UhfTag(epc), null);
+  }
+
+  private String getId(RfidEvent event) {
+    return ((UhfTag) ((RfidTagFound<?>) event).getTag()).getId();
+  }
+
+  /**
+   * events are buffered until they are requested
+   */
+  @Test
+  public void testBuffer() {
+    logger.info("testBuffer");
+    EventPublisher<RfidEvent> publisher =
+        new EventPublisher<>(directExecutor, 5, DemandPolicy.BUFFER);
+    TestSubscriber subscriber = new TestSubscriber(2);
+    publisher.subscribe(subscriber);
+    Assert.assertNotNull(subscriber.subscription);
+    Assert.assertTrue(publisher.hasSubscribers());
+    for (int i = 0; i < 10; i++) {
+      publisher.publish(found("TAG" + i));
+    }
+    Assert.assertEquals(2, subscriber.events.size());
+    Assert.assertEquals(5, publisher.getBufferedEvents());
+    Assert.assertEquals(3, publisher.getDroppedEvents());
+    subscriber.subscription.request(3);
+    Assert.assertEquals(5, subscriber.events.size());
+    String[] expected = {"TAG0", "TAG1", "TAG5", "TAG6", "TAG7"};
+    for (int i = 0; i < expected.length; i++) {
+      Assert.assertEquals(expected[i], getId(subscriber.events.get(i)));
+    }
+
+    // the buffered events are delivered before the completion
+    publisher.close();
+    Assert.assertFalse(subscriber.complete);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    Assert.assertEquals(7, subscriber.events.size());
+    Assert.assertTrue(subscriber.complete);
+    Assert.assertFalse(publisher.hasSubscribers());
+    publisher.publish(found("TAG10"));
+    Assert.assertEquals(7, subscriber.events.size());
+    Assert.assertNull(subscriber.error);
+  }
+
+  /**
+   * events without demand are dropped
+   */
+  @Test
+  public void testDrop() {
+    logger.info("testDrop");
+    EventPublisher<RfidEvent> publisher =
+        new EventPublisher<>(directExecutor, 16, DemandPolicy.BUFFER);
+    TestSubscriber bufferSubscriber = new TestSubscriber(0);
+    TestSubscriber dropSubscriber = new TestSubscriber(2);
+    publisher.subscribe(bufferSubscriber);
+    publisher.subscribe(dropSubscriber, 16, DemandPolicy.DROP);
+    Assert.assertEquals(2, publisher.getNumberOfSubscribers());
+    for (int i = 0; i < 5; i++) {
+      publisher.publish(found("TAG" + i));
+    }
+    Assert.assertEquals(2, dropSubscriber.events.size());
+    Assert.assertEquals(0, bufferSubscriber.events.size());
+    Assert.assertEquals(3, publisher.getDroppedEvents());
+    Assert.assertEquals(5, publisher.getBufferedEvents());
+    dropSubscriber.subscription.request(10);
+    Assert.assertEquals(2, dropSubscriber.events.size());
+    publisher.publish(found("TAG5"));
+    Assert.assertEquals("TAG5", getId(dropSubscriber.events.get(2)));
+
+    dropSubscriber.subscription.cancel();
+    Assert.assertEquals(1, publisher.getNumberOfSubscribers());
+    bufferSubscriber.subscription.request(100);
+    Assert.assertEquals(6, bufferSubscriber.events.size());
+  }
+
+  /**
+   * buffered events of the same tag are replaced
+   */
+  @Test
+  public void testCoalesce() {
+    logger.info("testCoalesce");
+    EventPublisher<RfidEvent> publisher =
+        new EventPublisher<>(directExecutor, 16, DemandPolicy.COALESCE);
+    TestSubscriber subscriber = new TestSubscriber(0);
+    publisher.subscribe(subscriber);
+    List<RfidEvent> lastEvents = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      lastEvents.clear();
+      for (int j = 0; j < 2; j++) {
+        RfidTagFound<UhfTag> event = found("TAG" + j);
+        lastEvents.add(event);
+        publisher.publish(event);
+      }
+    }
+    Assert.assertEquals(2, publisher.getBufferedEvents());
+    Assert.assertEquals(8, publisher.getDroppedEvents());
+    subscriber.subscription.request(10);
+    Assert.assertEquals(lastEvents, subscriber.events);
+  }
+
+  /**
+   * found, lost, found of a tag is not coalesced to found, lost
+   */
+  @Test
+  public void testCoalesceOrder() {
+    logger.info("testCoalesceOrder");
+    EventPublisher<RfidEvent> publisher =
+        new EventPublisher<>(directExecutor, 16, DemandPolicy.COALESCE);
+    TestSubscriber subscriber = new TestSubscriber(0);
+    publisher.subscribe(subscriber);
+    RfidTagFound<UhfTag> found1 = found("TAG0");
+    RfidTagLost<UhfTag> lost = new RfidTagLost<>("test", new UhfTag("TAG0"), null);
+    RfidTagFound<UhfTag> found2 = found("TAG0");
+    RfidTagFound<UhfTag> found3 = found("TAG0");
+    publisher.publish(found1);
+    publisher.publish(lost);
+    publisher.publish(found2);
+    // no lost after found2, so found3 replaces it
+    publisher.publish(found3);
+    Assert.assertEquals(3, publisher.getBufferedEvents());
+    Assert.assertEquals(1, publisher.getDroppedEvents());
+    subscriber.subscription.request(10);
+    Assert.assertEquals(Arrays.asList(found1, lost, found3), subscriber.events);
+    // the delivered events are not replaced
+    publisher.publish(found1);
+    subscriber.subscription.request(1);
+    Assert.assertEquals(Arrays.asList(found1, lost, found3, found1), subscriber.events);
+  }
+
+  /**
+   * invalid requests and duplicate subscriptions fail
+   */
+  @Test
+  public void testErrors() {
+    logger.info("testErrors");
+    EventPublisher<RfidEvent> publisher =
+        new EventPublisher<>(directExecutor, 4, DemandPolicy.BUFFER);
+    TestSubscriber subscriber = new TestSubscriber(0);
+    publisher.subscribe(subscriber);
+    TestSubscriber second = new TestSubscriber(0);
+    publisher.subscribe(second);
+    subscriber.subscription.request(0);
+    Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    Assert.assertEquals(1, publisher.getNumberOfSubscribers());
+    publisher.subscribe(second);
+    Assert.assertTrue(second.error instanceof IllegalStateException);
+    publisher.close();
+    Assert.assertTrue(second.complete);
+  }
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.event.EventHandler;
+import com.metratec.lib.rfidreader.event.EventHandler.OverflowPolicy;
+import com.metratec.lib.rfidreader.event.EventHandler.WaitStrategy;
+import com.metratec.lib.rfidreader.event.EventSpillQueue;
+import com.metratec.lib.rfidreader.event.GateSession;
+import com.metratec.lib.rfidreader.event.RfidTagEvent;
+import com.metratec.lib.rfidreader.event.RfidTagEventListener;
+import com.metratec.lib.rfidreader.event.RfidTagFound;
+import com.metratec.lib.rfidreader.event.RfidTagLost;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the spill to disk overflow tier of the event handler
+ *
+ * @author mn
+ *
+ */
+public class TestEventSpillQueue {
+  private Logger logger = LoggerFactory.getLogger(TestEventSpillQueue.class);
+
+  /** the spill directories */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private RfidTagFound<UhfTag> found(int number) {
+    return new RfidTagFound<>("test", new UhfTag("TAG" + number), (long) number);
+  }
+
+  /**
+   * the events of a full buffer are spilled and dispatched in order
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testSpill() throws Exception {
+    logger.info("testSpill");
+    EventSpillQueue spill = new EventSpillQueue(folder.newFolder(), 16384, 64);
+    EventHandler<UhfTag> handler =
+        new EventHandler<>("test", 4, WaitStrategy.BLOCKING, OverflowPolicy.SPILL);
+    handler.setSpillQueue(spill);
+    List<Long> timestamps = new CopyOnWriteArrayList<>();
+    CountDownLatch slowListener = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(500);
+    handler.setTagListener(new RfidTagEventListener<UhfTag>() {
+
+      @Override
+      public void tagFound(RfidTagFound<UhfTag> tagEvent) {
+        try {
+          slowListener.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        timestamps.add(tagEvent.getTimestamp());
+        finished.countDown();
+      }
+
+      @Override
+      public void tagLost(RfidTagLost<UhfTag> tagEvent) {}
+    });
+    handler.start();
+    for (int i = 0; i < 500; i++) {
+      handler.tagFound(found(i));
+    }
+    Assert.assertTrue(spill.getSpilledEvents() > 0);
+    Assert.assertFalse(spill.isEmpty());
+    slowListener.countDown();
+    Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < 500; i++) {
+      Assert.assertEquals(i, timestamps.get(i).longValue());
+    }
+    Assert.assertEquals(0, handler.getDroppedEvents());
+    Assert.assertTrue(spill.isEmpty());
+    Assert.assertEquals(spill.getSpilledEvents(), spill.getReplayedEvents());
+    handler.stop();
+    spill.close();
+  }
+
+  /**
+   * the events after the stored cursor are replayed after a restart
+   *
+   * @throws IOException if failed
+   */
+  @Test
+  public void testRecovery() throws IOException {
+    logger.info("testRecovery");
+    File directory = folder.newFolder();
+    EventSpillQueue spill = new EventSpillQueue(directory, 1024, 16);
+    for (int i = 0; i < 20; i++) {
+      Assert.assertTrue(spill.append(found(i)));
+    }
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals(i, spill.poll().getTimestamp());
+    }
+    spill.commit();
+    // read, but not committed before the crash
+    spill.poll();
+    spill.poll();
+    spill.close();
+
+    spill = new EventSpillQueue(directory, 1024, 16);
+    Assert.assertEquals(15, spill.size());
+    for (int i = 5; i < 20; i++) {
+      RfidTagFound<?> event = (RfidTagFound<?>) spill.poll();
+      Assert.assertEquals(i, event.getTimestamp());
+      Assert.assertEquals("TAG" + i, ((UhfTag) event.getTag()).getId());
+    }
+    Assert.assertNull(spill.poll());
+    spill.commit();
+    spill.close();
+    // the consumed segments are deleted
+    Assert.assertEquals(0, new EventSpillQueue(directory, 1024, 16).size());
+    Assert.assertTrue(directory.listFiles().length <= 3);
+  }
+
+  /**
+   * the disk usage is limited to the maximum number of segments
+   *
+   * @throws IOException if failed
+   */
+  @Test
+  public void testDiskLimit() throws IOException {
+    logger.info("testDiskLimit");
+    EventSpillQueue spill = new EventSpillQueue(folder.newFolder(), 1024, 3);
+    int count = 0;
+    while (spill.append(found(count))) {
+      count++;
+    }
+    Assert.assertTrue(count > 3);
+    Assert.assertTrue(spill.isFull());
+    Assert.assertEquals(3 * 1024, spill.getDiskUsage());
+    // the space of consumed segments is reused after the commit
+    while (null != spill.poll()) {
+      // read all
+    }
+    Assert.assertFalse(spill.append(found(count)));
+    spill.commit();
+    Assert.assertTrue(spill.append(found(count)));
+    Assert.assertTrue(spill.getDiskUsage() <= 2 * 1024);
+    spill.close();
+  }
+
+  /**
+   * only the event and tag classes and their field types are read from the segments
+   *
+   * @throws IOException if failed
+   */
+  @Test
+  public void testClassFilter() throws IOException {
+    logger.info("testClassFilter");
+    EventSpillQueue spill = new EventSpillQueue(folder.newFolder(), 16384, 4);
+    Assert.assertTrue(spill.append(new RfidTagEvent<Object>("test", new HashMap<>())));
+    Assert.assertTrue(spill.append(new RfidTagEvent<Object>("test", new Payload())));
+    GateSession<UhfTag> session = new GateSession<>("test", 1, Arrays.asList(new UhfTag("TAG1")),
+        1, 10, 15, 20, 30, new IllegalStateException("failed"));
+    Assert.assertTrue(spill.append(session));
+    Assert.assertTrue(spill.append(found(1)));
+    // the events with other classes are skipped
+    GateSession<?> event = (GateSession<?>) spill.poll();
+    Assert.assertEquals("TAG1", ((UhfTag) event.getTags().get(0)).getId());
+    Assert.assertEquals("failed", event.getError().getMessage());
+    Assert.assertEquals(1, spill.poll().getTimestamp());
+    Assert.assertNull(spill.poll());
+    spill.close();
+  }
+
+  /** a class, which is not allowed in the spill queue */
+  private static class Payload implements Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+
+  /**
+   * segments of another format version are rejected
+   *
+   * @throws IOException if failed
+   */
+  @Test
+  public void testFormatVersion() throws IOException {
+    logger.info("testFormatVersion");
+    File directory = folder.newFolder();
+    EventSpillQueue spill = new EventSpillQueue(directory, 1024, 4);
+    Assert.assertTrue(spill.append(found(1)));
+    spill.close();
+    File segment = directory.listFiles((dir, name) -> name.endsWith(".spill"))[0];
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      file.seek(4);
+      file.writeInt(99);
+    }
+    try {
+      new EventSpillQueue(directory, 1024, 4);
+      Assert.fail("no format error");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("version 99"));
+    }
+  }
+
+  /**
+   * sustained spill and replay rate
+   *
+   * @throws IOException if failed
+   */
+  @Test
+  public void testThroughput() throws IOException {
+    logger.info("testThroughput");
+    EventSpillQueue spill = new EventSpillQueue(folder.newFolder(), 64);
+    int events = 50000;
+    long start = System.nanoTime();
+    for (int i = 0; i < events; i++) {
+      Assert.assertTrue(spill.append(found(i)));
+    }
+    long spillTime = System.nanoTime() - start;
+    start = System.nanoTime();
+    for (int i = 0; i < events; i++) {
+      Assert.assertNotNull(spill.poll());
+      if (0 == i % 1000) {
+        spill.commit();
+      }
+    }
+    spill.commit();
+    long replayTime = System.nanoTime() - start;
+    logger.info("spill: {} events/s, replay: {} events/s, disk: {} bytes",
+        events * 1000000000L / spillTime, events * 1000000000L / replayTime,
+        spill.getDiskUsage());
+    spill.close();
+  }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.InputDebouncer;
+
+/**
+ * Test the debouncing of the input notifications
+ *
+ * @author mn
+ *
+ */
+public class TestInputDebouncer {
+  private Logger logger = LoggerFactory.getLogger(TestInputDebouncer.class);
+  private LinkedBlockingQueue<String> changes = new LinkedBlockingQueue<>();
+  private InputDebouncer.Listener listener = (input, state) -> changes.add(input + ":" + state);
+
+  /**
+   * a flickering input is reported once with the stable state
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testFlicker() throws InterruptedException {
+    logger.info("testFlicker");
+    InputDebouncer debouncer = new InputDebouncer(listener, 100);
+    debouncer.inputChanged(1, true);
+    debouncer.inputChanged(1, false);
+    debouncer.inputChanged(1, true);
+    debouncer.inputChanged(2, true);
+    Thread.sleep(50);
+    Assert.assertTrue(changes.isEmpty());
+    // the inputs settle independently, so the order is not defined
+    Set<String> reported = new HashSet<>();
+    reported.add(changes.poll(1, TimeUnit.SECONDS));
+    reported.add(changes.poll(1, TimeUnit.SECONDS));
+    Assert.assertEquals(new HashSet<>(Arrays.asList("1:true", "2:true")), reported);
+    Assert.assertEquals(2, debouncer.getSuppressedChanges());
+
+    // returns to the reported state within the debounce time
+    debouncer.inputChanged(1, false);
+    debouncer.inputChanged(1, true);
+    Assert.assertNull(changes.poll(300, TimeUnit.MILLISECONDS));
+    debouncer.inputChanged(1, false);
+    Assert.assertEquals("1:false", changes.poll(1, TimeUnit.SECONDS));
+  }
+
+  /**
+   * the debounce window restarts with every change
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testWindow() throws InterruptedException {
+    logger.info("testWindow");
+    InputDebouncer debouncer = new InputDebouncer(listener, 100);
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < 5; i++) {
+      debouncer.inputChanged(0, 0 == i % 2);
+      Thread.sleep(50);
+    }
+    Assert.assertEquals("0:true", changes.poll(1, TimeUnit.SECONDS));
+    Assert.assertTrue(System.currentTimeMillis() - start >= 300);
+  }
+
+  /**
+   * without debounce time every change is reported immediately
+   */
+  @Test
+  public void testNoDebounce() {
+    logger.info("testNoDebounce");
+    InputDebouncer debouncer = new InputDebouncer(listener, 0);
+    debouncer.inputChanged(0, true);
+    debouncer.inputChanged(0, true);
+    debouncer.inputChanged(0, false);
+    Assert.assertEquals("0:true", changes.poll());
+    Assert.assertEquals("0:false", changes.poll());
+    Assert.assertNull(changes.poll());
+  }
+}
@@ -229,6 +229,61 @@ public class TestInventory {
     inventory.clear();
   }
 
+  /**
+   * check if the tags are removed after inventory rounds without a read on their antenna
+   */
+  @Test
+  public void removeTagsByRounds() {
+    logger.info("removeTagsByRounds");
+    inventory = new Inventory<>("test", listener, 0);
+    inventory.setLostRounds(2);
+    Assert.assertEquals(2, inventory.getLostRounds());
+
+    String tagA = "AAAA";
+    String tagB = "BBBB";
+    // continuous inventory - the round is finished after the tags are added
+    inventory.updateInventory(Arrays.asList(new UhfTag(tagA)));
+    inventory.roundFinished(1, null);
+    inventory.updateInventory(Arrays.asList(new UhfTag(tagB)));
+    inventory.roundFinished(2, null);
+    Assert.assertEquals(2, arrivedTags.size());
+
+    // rounds of antenna 2 do not remove tags of antenna 1
+    for (int i = 0; i < 5; i++) {
+      inventory.updateInventory(Arrays.asList(new UhfTag(tagB)));
+      inventory.roundFinished(2, null);
+    }
+    Assert.assertTrue(departedTags.isEmpty());
+    inventory.roundFinished(1, null);
+    Assert.assertTrue(departedTags.isEmpty());
+    inventory.roundFinished(1, null);
+    TagDepartedEvent<UhfTag> tagDeparted = departedTags.poll();
+    Assert.assertNotNull(tagDeparted);
+    Assert.assertEquals(tagA, tagDeparted.getTag().getId());
+    Assert.assertEquals(1, inventory.size());
+
+    // tag B moves to antenna 1 - reported with the finished round
+    inventory.roundFinished(1, Arrays.asList(new UhfTag(tagB)));
+    inventory.roundFinished(2, null);
+    inventory.roundFinished(2, null);
+    Assert.assertTrue(departedTags.isEmpty());
+    inventory.roundFinished(1, null);
+    inventory.roundFinished(1, null);
+    tagDeparted = departedTags.poll();
+    Assert.assertNotNull(tagDeparted);
+    Assert.assertEquals(tagB, tagDeparted.getTag().getId());
+    Assert.assertEquals(0, inventory.size());
+
+    InventoryChangedEvent<UhfTag> invChange = null;
+    while (!inventoryChanges.isEmpty()) {
+      invChange = inventoryChanges.poll();
+    }
+    Assert.assertNotNull(invChange);
+    Assert.assertEquals(0, invChange.getTags().size());
+    Assert.assertEquals(1, invChange.getLostTags().size());
+    Assert.assertEquals(tagB, invChange.getLostTags().get(0).getId());
+  }
+
   /**
    * Test the implementation with continuous tag updates
    * 
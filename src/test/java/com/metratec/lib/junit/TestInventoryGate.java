@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.Inventory;
+import com.metratec.lib.rfidreader.InventoryGate;
+import com.metratec.lib.rfidreader.RFIDErrorCodes;
+import com.metratec.lib.rfidreader.RFIDReaderException;
+import com.metratec.lib.rfidreader.event.GateSession;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the trigger gated inventory
+ *
+ * @author mn
+ *
+ */
+public class TestInventoryGate {
+  private Logger logger = LoggerFactory.getLogger(TestInventoryGate.class);
+  private LinkedBlockingQueue<String> commands = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<GateSession<UhfTag>> sessions = new LinkedBlockingQueue<>();
+  private boolean failStart;
+
+  private InventoryGate<UhfTag> createGate() {
+    return new InventoryGate<>("test", 1, new InventoryGate.Commands() {
+
+      @Override
+      public void startInventory() throws RFIDReaderException {
+        commands.add("start");
+        if (failStart) {
+          throw new RFIDReaderException(RFIDErrorCodes.NER, "start failed");
+        }
+      }
+
+      @Override
+      public void stopInventory() {
+        commands.add("stop");
+      }
+    }, sessions::add);
+  }
+
+  /**
+   * one session with the read tags is reported per trigger
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testSession() throws InterruptedException {
+    logger.info("testSession");
+    InventoryGate<UhfTag> gate = createGate();
+    gate.tagsRead(Arrays.asList(new UhfTag("TAG0")));
+    gate.inputChanged(2, true);
+    gate.inputChanged(1, true);
+    // repeated notification
+    gate.inputChanged(1, true);
+    Assert.assertEquals("start", commands.poll(1, TimeUnit.SECONDS));
+    Assert.assertTrue(gate.isTriggered());
+    Thread.sleep(20);
+    gate.tagsRead(Arrays.asList(new UhfTag("TAG1"), new UhfTag("TAG2")));
+    gate.tagsRead(Arrays.asList(new UhfTag("TAG1")));
+    gate.inputChanged(1, false);
+    Assert.assertEquals("stop", commands.poll(1, TimeUnit.SECONDS));
+    GateSession<UhfTag> session = sessions.poll(1, TimeUnit.SECONDS);
+    Assert.assertNotNull(session);
+    Assert.assertEquals(1, session.getInput());
+    Assert.assertEquals(2, session.getTags().size());
+    Assert.assertEquals("TAG1", session.getTags().get(0).getId());
+    Assert.assertEquals(3, session.getReadCount());
+    Assert.assertTrue(session.getFirstReadLatency() >= 20);
+    Assert.assertTrue(session.getDuration() >= session.getFirstReadLatency());
+    Assert.assertNull(session.getError());
+
+    // tags after the session are not collected, a session without tags
+    gate.tagsRead(Arrays.asList(new UhfTag("TAG3")));
+    gate.inputChanged(1, true);
+    gate.inputChanged(1, false);
+    session = sessions.poll(1, TimeUnit.SECONDS);
+    Assert.assertEquals(0, session.getTags().size());
+    Assert.assertEquals(-1, session.getFirstReadLatency());
+    Assert.assertEquals(2, gate.getSessionCount());
+    gate.close();
+    Assert.assertTrue(gate.awaitClosed(1000));
+    Assert.assertEquals(Arrays.asList("start", "stop"), Arrays.asList(commands.toArray()));
+  }
+
+  /**
+   * closing the gate stops a running session, a failed start is reported in the session
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testClose() throws InterruptedException {
+    logger.info("testClose");
+    failStart = true;
+    InventoryGate<UhfTag> gate = createGate();
+    gate.inputChanged(1, true);
+    gate.close();
+    Assert.assertTrue(gate.awaitClosed(1000));
+    GateSession<UhfTag> session = sessions.poll();
+    Assert.assertNotNull(session);
+    Assert.assertNotNull(session.getError());
+    Assert.assertTrue(session.getReleaseTimestamp() > 0);
+    // a closed gate ignores the input
+    gate.inputChanged(1, false);
+    gate.inputChanged(1, true);
+    Assert.assertNull(sessions.poll(100, TimeUnit.MILLISECONDS));
+    Assert.assertEquals(2, commands.size());
+  }
+
+  /**
+   * the stop of the inventory does not wait for the next check of the inventory thread
+   */
+  @Test
+  public void testInventoryStop() {
+    logger.info("testInventoryStop");
+    Inventory<UhfTag> inventory = new Inventory<>("test", null, 5000);
+    inventory.updateInventory(Arrays.asList(new UhfTag("TAG1")));
+    inventory.start();
+    Assert.assertTrue(inventory.isAlive());
+    long start = System.nanoTime();
+    inventory.stop();
+    Assert.assertFalse(inventory.isAlive());
+    Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50));
+  }
+}
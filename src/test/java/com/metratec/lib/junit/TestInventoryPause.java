@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.connection.CommConnectionException;
+import com.metratec.lib.connection.ICommConnection;
+import com.metratec.lib.rfidreader.InventoryPause;
+import com.metratec.lib.rfidreader.RFIDErrorCodes;
+import com.metratec.lib.rfidreader.RFIDReaderException;
+
+/**
+ * Test the pause of the continuous inventory of the AT readers
+ *
+ * @author mn
+ *
+ */
+public class TestInventoryPause {
+  private Logger logger = LoggerFactory.getLogger(TestInventoryPause.class);
+  private List<String> sent = new ArrayList<>();
+
+  /**
+   * the inventory is stopped for the command and restarted, the pause is measured
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testPause() throws Exception {
+    logger.info("testPause");
+    InventoryPause pause = new InventoryPause(command -> {
+      sent.add(command);
+      return "";
+    });
+    Assert.assertEquals("1", pause.execute("AT+CMINV", () -> {
+      sent.add("AT+READ");
+      long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+      while (System.nanoTime() < end) {
+        LockSupport.parkNanos(end - System.nanoTime());
+      }
+      return "1";
+    }));
+    Assert.assertEquals(Arrays.asList("AT+BMINV", "AT+READ", "AT+CMINV"), sent);
+    Assert.assertEquals(1, pause.getPauses());
+    Assert.assertTrue(pause.getLastPause() >= 20);
+    double first = pause.getLastPause();
+    pause.execute("AT+CMINV", () -> "2");
+    Assert.assertEquals(2, pause.getPauses());
+    Assert.assertTrue(pause.getLastPause() < first);
+    Assert.assertEquals(first, pause.getMaxPause(), 0);
+  }
+
+  /**
+   * an inventory, which is already stopped by the reader, is restarted after the command
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testNotRunning() throws Exception {
+    logger.info("testNotRunning");
+    InventoryPause pause = new InventoryPause(command -> {
+      sent.add(command);
+      if (command.startsWith("AT+B")) {
+        throw new RFIDReaderException(RFIDErrorCodes.NER, "<Inventory is not running>");
+      }
+      return "";
+    });
+    pause.execute("AT+CINV", () -> sent.add("AT+PWR"));
+    Assert.assertEquals(Arrays.asList("AT+BINV", "AT+PWR", "AT+CINV"), sent);
+    // other stop errors are thrown without sending the command
+    InventoryPause failing = new InventoryPause(command -> {
+      throw new RFIDReaderException(RFIDErrorCodes.NER, "<Unknown command>");
+    });
+    try {
+      failing.execute("AT+CINV", () -> sent.add("AT+ANT"));
+      Assert.fail("no error");
+    } catch (RFIDReaderException e) {
+      Assert.assertEquals("<Unknown command>", e.getMessage());
+    }
+    Assert.assertFalse(sent.contains("AT+ANT"));
+    Assert.assertEquals(0, failing.getPauses());
+  }
+
+  /**
+   * a failed restart is suppressed by the error of the command and thrown after a successful
+   * command
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testRestartFailure() throws Exception {
+    logger.info("testRestartFailure");
+    CommConnectionException restartError =
+        new CommConnectionException(ICommConnection.RECV_TIMEOUT, "restart failed");
+    InventoryPause pause = new InventoryPause(command -> {
+      if (command.startsWith("AT+C")) {
+        throw restartError;
+      }
+      return "";
+    });
+    RFIDReaderException commandError = new RFIDReaderException(RFIDErrorCodes.NER, "read failed");
+    try {
+      pause.execute("AT+CINV", () -> {
+        throw commandError;
+      });
+      Assert.fail("no error");
+    } catch (RFIDReaderException e) {
+      Assert.assertSame(commandError, e);
+      Assert.assertArrayEquals(new Throwable[] {restartError}, e.getSuppressed());
+    }
+    try {
+      pause.execute("AT+CINV", () -> "OK");
+      Assert.fail("no error");
+    } catch (CommConnectionException e) {
+      Assert.assertSame(restartError, e);
+    }
+    Assert.assertEquals(2, pause.getPauses());
+  }
+}
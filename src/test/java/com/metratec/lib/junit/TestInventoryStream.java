@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.InventoryRound;
+import com.metratec.lib.rfidreader.AtCommandPipeline;
+import com.metratec.lib.rfidreader.InventoryStream;
+import com.metratec.lib.rfidreader.RFIDErrorCodes;
+import com.metratec.lib.rfidreader.RFIDReaderException;
+import com.metratec.lib.rfidreader.event.InventoryStreamListener;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the streaming inventory of the AT readers
+ *
+ * @author mn
+ *
+ */
+public class TestInventoryStream {
+  private Logger logger = LoggerFactory.getLogger(TestInventoryStream.class);
+  private List<String> written = new CopyOnWriteArrayList<>();
+  private AtCommandPipeline pipeline = new AtCommandPipeline(written::add,
+      data -> new RFIDReaderException(RFIDErrorCodes.NER, data));
+  /** the tags and rounds of the complete response */
+  private List<UhfTag> inventory = new ArrayList<>();
+  private List<InventoryRound<UhfTag>> inventoryRounds = new ArrayList<>();
+  /** the tags and rounds passed to the listener */
+  private List<UhfTag> foundTags = new CopyOnWriteArrayList<>();
+  private List<InventoryRound<UhfTag>> finishedRounds = new CopyOnWriteArrayList<>();
+
+  {
+    pipeline.setEchoEnabled(true);
+  }
+
+  /**
+   * Listener, which stops after a number of tags
+   */
+  private class TestListener implements InventoryStreamListener<UhfTag> {
+    private final int maxTags;
+
+    TestListener(int maxTags) {
+      this.maxTags = maxTags;
+    }
+
+    @Override
+    public boolean tagFound(UhfTag tag) {
+      foundTags.add(tag);
+      return foundTags.size() < maxTags;
+    }
+
+    @Override
+    public boolean roundFinished(InventoryRound<UhfTag> round) {
+      finishedRounds.add(round);
+      return true;
+    }
+  }
+
+  private InventoryStream<UhfTag> createStream(InventoryStreamListener<UhfTag> listener,
+      boolean throwAntennaErrors) {
+    return new InventoryStream<>(listener, 7, throwAntennaErrors,
+        line -> Collections.singletonList(new UhfTag(line.substring(7), 0L, 0)),
+        (tags, rounds) -> {
+          inventory.addAll(tags);
+          inventoryRounds.addAll(rounds);
+        });
+  }
+
+  private CompletableFuture<String> submit(InventoryStream<UhfTag> stream) {
+    return stream.until(pipeline.submit("AT+MINV", "AT+MINV\r", 1000, stream));
+  }
+
+  private void receive(String... lines) {
+    for (String line : lines) {
+      Assert.assertTrue(pipeline.responseReceived(line));
+    }
+  }
+
+  private List<String> getIds(List<UhfTag> tags) {
+    List<String> ids = new ArrayList<>();
+    for (UhfTag tag : tags) {
+      ids.add(tag.getId());
+    }
+    return ids;
+  }
+
+  /**
+   * every tag line is passed to the listener when it is received, the antenna is set when the
+   * round is finished
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testTags() throws Exception {
+    logger.info("testTags");
+    InventoryStream<UhfTag> stream = createStream(new TestListener(100), true);
+    CompletableFuture<String> response = submit(stream);
+    receive("AT+MINV", "+MINV: EPC1");
+    Assert.assertEquals(Arrays.asList("EPC1"), getIds(foundTags));
+    receive("+MINV: EPC2", "+MINV: <ROUND FINISHED, ANT=2>");
+    Assert.assertEquals(1, finishedRounds.size());
+    Assert.assertEquals(Integer.valueOf(2), finishedRounds.get(0).getAntenna());
+    Assert.assertEquals(Arrays.asList("EPC1", "EPC2"), getIds(finishedRounds.get(0).getTags()));
+    Assert.assertEquals(Integer.valueOf(2), foundTags.get(1).getAntenna());
+    receive("+MINV: <NO TAGS FOUND>", "+MINV: <ROUND FINISHED, ANT=3>", "+MINV: EPC3",
+        "+MINV: <ROUND FINISHED, ANT=4>");
+    Assert.assertFalse(response.isDone());
+    Assert.assertTrue(inventory.isEmpty());
+    receive("OK");
+    Assert.assertNotNull(response.get());
+    Assert.assertEquals(Arrays.asList("EPC1", "EPC2", "EPC3"), getIds(inventory));
+    Assert.assertEquals(Integer.valueOf(4), inventory.get(2).getAntenna());
+    Assert.assertEquals(3, inventoryRounds.size());
+    Assert.assertTrue(inventoryRounds.get(1).getTags().isEmpty());
+    Assert.assertEquals(foundTags, stream.getStreamedTags());
+  }
+
+  /**
+   * the antenna errors of the rounds are combined in one error
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testAntennaErrors() throws Exception {
+    logger.info("testAntennaErrors");
+    CompletableFuture<String> response = submit(createStream(new TestListener(100), true));
+    receive("AT+MINV", "+MINV: <Antenna Error>", "+MINV: <ROUND FINISHED, ANT=1>",
+        "+MINV: EPC1", "+MINV: <ROUND FINISHED, ANT=2>", "+MINV: <Antenna Error>",
+        "+MINV: <ROUND FINISHED, ANT=3>", "OK");
+    try {
+      response.get();
+      Assert.fail("no antenna error");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof RFIDReaderException);
+      Assert.assertEquals("Antenna Error 1, Antenna Error 3", e.getCause().getMessage());
+    }
+    Assert.assertTrue(inventory.isEmpty());
+    // ignored antenna errors, the error of the last antenna without a finished round
+    response = submit(createStream(new TestListener(100), false));
+    receive("AT+MINV", "+MINV: EPC2", "+MINV: <ROUND FINISHED, ANT=1>",
+        "+MINV: <Antenna Error>", "OK");
+    Assert.assertNotNull(response.get());
+    Assert.assertEquals(Arrays.asList("EPC2"), getIds(inventory));
+  }
+
+  /**
+   * the listener stops the stream, the streamed tags are returned immediately and the complete
+   * response is added to the inventory
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testStop() throws Exception {
+    logger.info("testStop");
+    InventoryStream<UhfTag> stream = createStream(new TestListener(2), true);
+    CompletableFuture<String> response = submit(stream);
+    CompletableFuture<String> next = pipeline.submit("AT+PWR?", "AT+PWR?\r", 1000);
+    receive("AT+MINV", "+MINV: EPC1", "+MINV: EPC2");
+    Assert.assertTrue(response.isDone());
+    Assert.assertNull(response.get());
+    Assert.assertEquals(Arrays.asList("EPC1", "EPC2"), getIds(stream.getStreamedTags()));
+    receive("+MINV: EPC3", "+MINV: <ROUND FINISHED, ANT=1>");
+    Assert.assertEquals(2, foundTags.size());
+    Assert.assertTrue(finishedRounds.isEmpty());
+    // the next command is written after the remaining response
+    Assert.assertEquals(1, written.size());
+    receive("OK");
+    Assert.assertEquals(Arrays.asList("EPC1", "EPC2", "EPC3"), getIds(inventory));
+    Assert.assertEquals(Integer.valueOf(1), inventory.get(2).getAntenna());
+    Assert.assertEquals(2, written.size());
+    receive("AT+PWR?", "+PWR: 17", "OK");
+    Assert.assertEquals("+PWR: 17", next.get());
+  }
+
+  /**
+   * an exception of the listener completes the stream with the exception
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testListenerException() throws Exception {
+    logger.info("testListenerException");
+    IllegalStateException error = new IllegalStateException("listener failed");
+    CompletableFuture<String> response = submit(createStream(tag -> {
+      throw error;
+    }, true));
+    receive("AT+MINV", "+MINV: EPC1");
+    try {
+      response.get();
+      Assert.fail("no listener error");
+    } catch (ExecutionException e) {
+      Assert.assertSame(error, e.getCause());
+    }
+    receive("+MINV: EPC2", "OK");
+    Assert.assertEquals(Arrays.asList("EPC1", "EPC2"), getIds(inventory));
+  }
+}
@@ -207,6 +207,69 @@ public class TestInventoryTime {
 
   }
 
+  /**
+   * check the sorted inventory and the removing of tags, which were seen again
+   */
+  @Test
+  public void testTagTimestamps() {
+    logger.info("testTagTimestamps");
+    inventory = new InventoryWithTimestamp<>("test", 1000l);
+    long now = System.currentTimeMillis();
+    inventory.addTags(Arrays.asList(new UhfTag("CCCC", now - 2000), new UhfTag("AAAA", now - 2000),
+        new UhfTag("BBBB", now - 2000), new UhfTag("DDDD", now)));
+    List<UhfTag> inv = inventory.getInventory();
+    Assert.assertEquals(4, inv.size());
+    for (int i = 0; i < inv.size(); i++) {
+      Assert.assertEquals("ABCD".substring(i, i + 1), inv.get(i).getId().substring(0, 1));
+    }
+
+    // BBBB is seen again
+    Assert.assertEquals(now - 2000, inventory.addTag(new UhfTag("BBBB", now)).longValue());
+    List<UhfTag> removedTags = inventory.checkInventory();
+    Assert.assertEquals(2, removedTags.size());
+    inv = inventory.getInventory();
+    Assert.assertEquals(2, inv.size());
+    Assert.assertEquals("BBBB", inv.get(0).getId());
+    Assert.assertEquals("DDDD", inv.get(1).getId());
+    Assert.assertEquals(0, inventory.checkInventory().size());
+
+    Assert.assertEquals(now, inventory.removeTag("BBBB").longValue());
+    Assert.assertEquals(1, inventory.clear().size());
+    Assert.assertTrue(inventory.getInventory().isEmpty());
+  }
+
+  /**
+   * Measure the inventory methods with 1000, 10000 and 100000 tags
+   */
+  @Test
+  public void testInventorySize() {
+    logger.info("testInventorySize");
+    for (int count : new int[] {1000, 10000, 100000}) {
+      inventory = new InventoryWithTimestamp<>("test", 60000l);
+      List<UhfTag> tags = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        tags.add(new UhfTag(String.format("AAAA%06d", (i * 7919) % count)));
+      }
+      long start = System.nanoTime();
+      Assert.assertEquals(count, inventory.addTags(tags).size());
+      long addTime = System.nanoTime() - start;
+      start = System.nanoTime();
+      Assert.assertEquals(0, inventory.addTags(tags).size());
+      long updateTime = System.nanoTime() - start;
+      start = System.nanoTime();
+      Assert.assertEquals(0, inventory.checkInventory().size());
+      long checkTime = System.nanoTime() - start;
+      start = System.nanoTime();
+      List<UhfTag> inv = inventory.getInventory();
+      long getTime = System.nanoTime() - start;
+      Assert.assertEquals(count, inv.size());
+      Assert.assertEquals("AAAA000000", inv.get(0).getId());
+      Assert.assertEquals(String.format("AAAA%06d", count - 1), inv.get(count - 1).getId());
+      logger.info("{} tags - add: {} us, update: {} us, check: {} us, getInventory: {} us", count,
+          addTime / 1000, updateTime / 1000, checkTime / 1000, getTime / 1000);
+    }
+  }
+
   /**
    * @author mn
    *
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.KnownPopulationInventory;
+import com.metratec.lib.inventory.event.InventoryChangedEvent;
+import com.metratec.lib.inventory.event.InventoryListener;
+import com.metratec.lib.inventory.event.TagArrivedEvent;
+import com.metratec.lib.inventory.event.TagDepartedEvent;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the known population inventory
+ *
+ * @author mn
+ *
+ */
+public class TestKnownPopulationInventory {
+  private Logger logger = LoggerFactory.getLogger(TestKnownPopulationInventory.class);
+  private LinkedBlockingQueue<TagArrivedEvent<UhfTag>> arrivedTags = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<TagDepartedEvent<UhfTag>> departedTags = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<InventoryChangedEvent<UhfTag>> inventoryChanges =
+      new LinkedBlockingQueue<>();
+  private List<String> population;
+  private InventoryListener<UhfTag> listener = new InventoryListener<UhfTag>() {
+
+    @Override
+    public void tagDeparted(TagDepartedEvent<UhfTag> tagDeparted) {
+      departedTags.add(tagDeparted);
+    }
+
+    @Override
+    public void tagArrive(TagArrivedEvent<UhfTag> tagArrived) {
+      arrivedTags.add(tagArrived);
+    }
+
+    @Override
+    public void inventoryChanged(InventoryChangedEvent<UhfTag> inventoryChanged) {
+      inventoryChanges.add(inventoryChanged);
+    }
+  };
+
+  /**
+   * called before every test
+   */
+  @Before
+  public void setUp() {
+    population = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      population.add(String.format("3034257BF468D48%09X", i));
+    }
+  }
+
+  /**
+   * tags arrive and depart when the round is finished
+   */
+  @Test
+  public void testRounds() {
+    logger.info("testRounds");
+    KnownPopulationInventory inventory = new KnownPopulationInventory("test", listener, population);
+    Assert.assertEquals(1000, inventory.getPopulationSize());
+
+    long timestamp = System.currentTimeMillis();
+    List<UhfTag> tags = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      tags.add(new UhfTag(population.get(i * 70), timestamp, 1));
+    }
+    inventory.updateInventory(tags);
+    inventory.updateInventory(Arrays.asList(new UhfTag("FFFF", timestamp, 1)));
+    Assert.assertTrue(arrivedTags.isEmpty());
+    inventory.roundFinished(1, null);
+    Assert.assertEquals(11, arrivedTags.size());
+    Assert.assertEquals(11, inventory.size());
+    InventoryChangedEvent<UhfTag> invChange = inventoryChanges.poll();
+    Assert.assertNotNull(invChange);
+    Assert.assertEquals(11, invChange.getNewTags().size());
+    Assert.assertEquals(11, invChange.getTags().size());
+    Assert.assertTrue(inventory.contains(population.get(70)));
+    Assert.assertTrue(inventory.contains("FFFF"));
+    Assert.assertFalse(inventory.contains(population.get(71)));
+
+    // the first two tags and the unknown tag are not found
+    inventory.roundFinished(1, tags.subList(2, 10));
+    Assert.assertEquals(3, departedTags.size());
+    Assert.assertEquals(8, inventory.size());
+    invChange = inventoryChanges.poll();
+    Assert.assertNotNull(invChange);
+    Assert.assertEquals(0, invChange.getNewTags().size());
+    Assert.assertEquals(3, invChange.getLostTags().size());
+    Assert.assertFalse(inventory.contains(population.get(0)));
+
+    UhfTag tag = inventory.getTag(population.get(140));
+    Assert.assertNotNull(tag);
+    Assert.assertEquals(2, tag.getSeenCount().intValue());
+    Assert.assertEquals(1, tag.getAntenna().intValue());
+    Assert.assertEquals(timestamp, tag.getFirstSeenTimestamp().longValue());
+
+    inventory.removeTag(population.get(140));
+    Assert.assertEquals(7, inventory.size());
+    Assert.assertEquals(7, inventory.getInventory().size());
+    inventory.clear();
+    Assert.assertEquals(0, inventory.size());
+    Assert.assertEquals(3 + 1 + 7, departedTags.size());
+  }
+
+  /**
+   * the readers pass the tags of a round to updateInventory and roundFinished, the tags are counted
+   * once
+   */
+  @Test
+  public void testReaderRounds() {
+    logger.info("testReaderRounds");
+    KnownPopulationInventory inventory = new KnownPopulationInventory("test", listener, population);
+    for (int i = 1; i <= 3; i++) {
+      UhfTag known = new UhfTag(population.get(5), 1000L * i, 1);
+      known.setSeenCount(2);
+      UhfTag unknown = new UhfTag("FFFF", 1000L * i, 1);
+      unknown.setSeenCount(3);
+      List<UhfTag> tags = Arrays.asList(known, unknown);
+      inventory.updateInventory(tags);
+      inventory.roundFinished(1, tags);
+      Assert.assertEquals(2 * i, inventory.getTag(population.get(5)).getSeenCount().intValue());
+      Assert.assertEquals(3 * i, inventory.getTag("FFFF").getSeenCount().intValue());
+    }
+    // a tag only passed to roundFinished is counted
+    inventory.roundFinished(1, Arrays.asList(new UhfTag(population.get(5), 4000L, 1)));
+    Assert.assertEquals(7, inventory.getTag(population.get(5)).getSeenCount().intValue());
+    Assert.assertEquals(2, arrivedTags.size());
+  }
+
+  /**
+   * tags depart after the configured number of rounds
+   */
+  @Test
+  public void testLostRounds() {
+    logger.info("testLostRounds");
+    KnownPopulationInventory inventory =
+        new KnownPopulationInventory("test", listener, population, 3);
+    UhfTag tagA = new UhfTag(population.get(1));
+    inventory.roundFinished(1, Arrays.asList(tagA));
+    Assert.assertEquals(1, arrivedTags.size());
+    inventory.roundFinished(1, null);
+    inventory.roundFinished(1, null);
+    Assert.assertTrue(departedTags.isEmpty());
+    inventory.roundFinished(1, Arrays.asList(tagA));
+    inventory.roundFinished(1, null);
+    inventory.roundFinished(1, null);
+    Assert.assertTrue(departedTags.isEmpty());
+    Assert.assertEquals(1, arrivedTags.size());
+    inventory.roundFinished(1, null);
+    Assert.assertEquals(1, departedTags.size());
+    Assert.assertEquals(0, inventory.size());
+
+    // register an unknown tag
+    inventory.roundFinished(1, Arrays.asList(new UhfTag("FFFF")));
+    Assert.assertFalse(inventory.isRegistered("FFFF"));
+    inventory.register(Arrays.asList("FFFF"));
+    Assert.assertTrue(inventory.isRegistered("FFFF"));
+    Assert.assertTrue(inventory.contains("FFFF"));
+    Assert.assertEquals(1, inventory.size());
+    for (int i = 0; i < 3; i++) {
+      inventory.roundFinished(1, null);
+    }
+    Assert.assertEquals(0, inventory.size());
+    departedTags.poll();
+    Assert.assertEquals("FFFF", departedTags.poll().getTag().getId());
+  }
+
+  /**
+   * round with a large population
+   */
+  @Test
+  public void testLargePopulation() {
+    logger.info("testLargePopulation");
+    int count = 200000;
+    List<String> epcs = new ArrayList<>();
+    List<UhfTag> tags = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      epcs.add(String.format("E200%020X", i));
+      tags.add(new UhfTag(epcs.get(i)));
+    }
+    KnownPopulationInventory inventory = new KnownPopulationInventory("test", null, epcs);
+    long start = System.nanoTime();
+    inventory.roundFinished(1, tags);
+    long arriveTime = System.nanoTime() - start;
+    Assert.assertEquals(count, inventory.size());
+
+    start = System.nanoTime();
+    inventory.roundFinished(1, tags.subList(0, count / 2));
+    long departTime = System.nanoTime() - start;
+    Assert.assertEquals(count / 2, inventory.size());
+
+    start = System.nanoTime();
+    inventory.roundFinished(1, tags.subList(0, count / 2));
+    long unchangedTime = System.nanoTime() - start;
+    Assert.assertEquals(count / 2, inventory.size());
+    logger.info("{} tags - all arrived: {} us, half departed: {} us, unchanged: {} us", count,
+        arriveTime / 1000, departTime / 1000, unchangedTime / 1000);
+  }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.InventoryRound;
+import com.metratec.lib.rfidreader.uhf.PulsarLR;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the separation of the events and the command responses of the AT readers
+ *
+ * @author mn
+ *
+ */
+public class TestMetratecReaderAT {
+  private Logger logger = LoggerFactory.getLogger(TestMetratecReaderAT.class);
+
+  /**
+   * Records the events instead of parsing them, the reader is not connected
+   */
+  private static class TestReader extends PulsarLR {
+    private List<String> events = new ArrayList<>();
+
+    TestReader() {
+      super("test", "localhost", 10001);
+    }
+
+    boolean handle(String response) {
+      return handleResponse(response);
+    }
+
+    @Override
+    protected List<UhfTag> parseInventory(String[] answers, int prefix_length, boolean throwError,
+        List<InventoryRound<UhfTag>> rounds) {
+      events.add(answers[0].substring(prefix_length));
+      return new ArrayList<>();
+    }
+
+    @Override
+    protected List<UhfTag> parseInventoryReport(String[] answers, int prefix_length,
+        List<InventoryRound<UhfTag>> rounds) {
+      events.add("report " + answers[0].substring(prefix_length));
+      return new ArrayList<>();
+    }
+
+    @Override
+    protected void inputChanged(int input, boolean state) {
+      events.add("input " + input + " " + state);
+    }
+  }
+
+  /**
+   * the events between the lines of a multi line response are handled as events, the response
+   * lines are passed to the command
+   */
+  @Test
+  public void testInterleavedEvents() {
+    logger.info("testInterleavedEvents");
+    TestReader reader = new TestReader();
+    Assert.assertTrue(reader.handle("AT+READ"));
+    Assert.assertTrue(reader.handle("+READ: 0,3034257BF468D480000003EC"));
+    Assert.assertFalse(reader.handle("+CINV: 3034257BF468D480000003ED"));
+    Assert.assertFalse(reader.handle("+HBT"));
+    Assert.assertFalse(reader.handle("+IEV: 1,HIGH"));
+    Assert.assertTrue(reader.handle("+READ: 0,3034257BF468D480000003EE"));
+    Assert.assertFalse(reader.handle("+CMINV: <ROUND FINISHED, ANT=2>"));
+    Assert.assertFalse(reader.handle("+CINVR: 3034257BF468D480000003EF,3"));
+    Assert.assertTrue(reader.handle("OK"));
+    Assert.assertEquals(Arrays.asList("3034257BF468D480000003ED", "input 1 true",
+        "<ROUND FINISHED, ANT=2>", "report 3034257BF468D480000003EF,3"), reader.events);
+  }
+
+  /**
+   * after the terminator of a response the lines are no response lines
+   */
+  @Test
+  public void testAfterResponse() {
+    logger.info("testAfterResponse");
+    TestReader reader = new TestReader();
+    Assert.assertTrue(reader.handle("AT+INV"));
+    Assert.assertFalse(reader.handle("+IEV: 2,LOW"));
+    Assert.assertTrue(reader.handle("+INV: <NO TAGS FOUND>"));
+    Assert.assertTrue(reader.handle("ERROR"));
+    Assert.assertFalse(reader.handle("+INV: 3034257BF468D480000003EC"));
+    Assert.assertFalse(reader.handle("+HBT"));
+    Assert.assertFalse(reader.handle("+CINV: 3034257BF468D480000003EC"));
+    Assert.assertEquals(Arrays.asList("input 2 false", "3034257BF468D480000003EC"), reader.events);
+  }
+}
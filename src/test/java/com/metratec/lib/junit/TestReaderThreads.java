@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.Inventory;
+import com.metratec.lib.rfidreader.ReaderThreads;
+import com.metratec.lib.rfidreader.event.EventHandler;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the thread provider of the library threads
+ *
+ * @author mn
+ *
+ */
+public class TestReaderThreads {
+  private Logger logger = LoggerFactory.getLogger(TestReaderThreads.class);
+  private List<String> threadNames = new CopyOnWriteArrayList<>();
+
+  /**
+   * restore the default provider
+   */
+  @After
+  public void restoreProvider() {
+    ReaderThreads.setThreadProvider(ReaderThreads.PLATFORM_THREADS);
+  }
+
+  /**
+   * the library threads are created by the thread provider
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testProvider() throws InterruptedException {
+    logger.info("testProvider");
+    ReaderThreads.setThreadProvider((name, daemon, task) -> {
+      threadNames.add(name);
+      return ReaderThreads.PLATFORM_THREADS.newThread(name, daemon, task);
+    });
+    Inventory<UhfTag> inventory = new Inventory<>("test-inventory", null, 500);
+    inventory.start();
+    EventHandler<UhfTag> handler = new EventHandler<>("test");
+    handler.start();
+    Assert.assertTrue(threadNames.contains("test-inventory"));
+    Assert.assertTrue(threadNames.contains("EH-test"));
+    inventory.stop();
+    Assert.assertFalse(inventory.isAlive());
+    handler.stop();
+  }
+
+  /**
+   * the virtual threads are available on Java 21 and later
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testVirtualThreads() throws InterruptedException {
+    logger.info("testVirtualThreads");
+    if (!ReaderThreads.isVirtualThreadsSupported()) {
+      try {
+        ReaderThreads.virtualThreads();
+        Assert.fail("virtual threads without support");
+      } catch (UnsupportedOperationException e) {
+        // expected
+      }
+      return;
+    }
+    CountDownLatch latch = new CountDownLatch(1);
+    Thread thread = ReaderThreads.virtualThreads().newThread("virtual", false, latch::countDown);
+    Assert.assertEquals("virtual", thread.getName());
+    Assert.assertTrue(thread.isDaemon());
+    thread.start();
+    Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.concurrent.CompletableFuture;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.AtCommandPipeline;
+import com.metratec.lib.rfidreader.RFIDErrorCodes;
+import com.metratec.lib.rfidreader.RFIDReaderException;
+import com.metratec.lib.rfidreader.ResponseTimeEstimator;
+
+/**
+ * Test the adaptive command timeouts
+ *
+ * @author mn
+ *
+ */
+public class TestResponseTimeEstimator {
+  private Logger logger = LoggerFactory.getLogger(TestResponseTimeEstimator.class);
+
+  /**
+   * the timeout follows the response times of a command and is limited by the minimum and maximum
+   * timeout
+   */
+  @Test
+  public void testTimeout() {
+    logger.info("testTimeout");
+    ResponseTimeEstimator estimator = new ResponseTimeEstimator();
+    estimator.setMinTimeout(100);
+    Assert.assertEquals(10000, estimator.getTimeout("AT+INV", 10000));
+    estimator.responseReceived("AT+INV", 200);
+    estimator.responseReceived("AT+INV", 200);
+    Assert.assertEquals(10000, estimator.getTimeout("AT+INV", 10000));
+    estimator.responseReceived("AT+INV", 200);
+    // 200 + 4 * 56.25
+    Assert.assertEquals(425, estimator.getTimeout("AT+INV", 10000));
+    Assert.assertEquals(200, estimator.getSmoothedResponseTime("AT+INV"), 0.001);
+    Assert.assertEquals(300, estimator.getTimeout("AT+INV", 300));
+    for (int i = 0; i < 50; i++) {
+      estimator.responseReceived("AT+INV", 10);
+    }
+    Assert.assertEquals(100, estimator.getTimeout("AT+INV", 10000));
+    Assert.assertEquals(-1, estimator.getSmoothedResponseTime("AT+MINV"), 0);
+    Assert.assertEquals(10000, estimator.getTimeout("AT+MINV", 10000));
+  }
+
+  /**
+   * the timeout is doubled after every timeout until the next response
+   */
+  @Test
+  public void testBackoff() {
+    logger.info("testBackoff");
+    ResponseTimeEstimator estimator = new ResponseTimeEstimator();
+    estimator.setMinTimeout(0);
+    for (int i = 0; i < 3; i++) {
+      estimator.responseReceived("AT+READ", 100);
+    }
+    long timeout = estimator.getTimeout("AT+READ", 10000);
+    estimator.responseTimedOut("AT+READ");
+    Assert.assertEquals(2 * timeout, estimator.getTimeout("AT+READ", 10000));
+    estimator.responseTimedOut("AT+READ");
+    Assert.assertEquals(4 * timeout, estimator.getTimeout("AT+READ", 10000));
+    estimator.responseReceived("AT+READ", 100);
+    Assert.assertTrue(estimator.getTimeout("AT+READ", 10000) < 2 * timeout);
+    estimator.reset();
+    Assert.assertEquals(10000, estimator.getTimeout("AT+READ", 10000));
+  }
+
+  /**
+   * a response time jump after the warm-up times out until the backoff covers the new response
+   * time
+   */
+  @Test
+  public void testResponseTimeJump() {
+    logger.info("testResponseTimeJump");
+    ResponseTimeEstimator estimator = new ResponseTimeEstimator();
+    for (int i = 0; i < 3; i++) {
+      estimator.responseReceived("INV", 20);
+    }
+    Assert.assertEquals(ResponseTimeEstimator.DEFAULT_MIN_TIMEOUT,
+        estimator.getTimeout("INV", 10000));
+    // more tags in the field, the inventory takes 3 seconds now
+    int timeouts = 0;
+    while (estimator.getTimeout("INV", 10000) < 3000) {
+      estimator.responseTimedOut("INV");
+      timeouts++;
+    }
+    Assert.assertEquals(2, timeouts);
+    estimator.responseReceived("INV", 3000);
+    Assert.assertTrue(estimator.getTimeout("INV", 10000) >= 3000);
+    for (int i = 0; i < 20; i++) {
+      estimator.responseReceived("INV", 3000);
+      Assert.assertTrue(estimator.getTimeout("INV", 10000) >= 3000);
+    }
+  }
+
+  /**
+   * the command pipeline observes the response times of the commands
+   *
+   * @throws Exception if an error occurs
+   */
+  @Test
+  public void testPipeline() throws Exception {
+    logger.info("testPipeline");
+    ResponseTimeEstimator estimator = new ResponseTimeEstimator();
+    AtCommandPipeline pipeline = new AtCommandPipeline(command -> {
+    }, error -> new RFIDReaderException(RFIDErrorCodes.NER, error));
+    pipeline.setResponseTimeEstimator(estimator);
+    CompletableFuture<String> response = pipeline.submit("AT+CW", "AT+CW\r", 1000);
+    Thread.sleep(20);
+    pipeline.responseReceived("OK");
+    Assert.assertEquals("", response.get());
+    Assert.assertTrue(estimator.getSmoothedResponseTime("AT+CW") >= 20);
+    Assert.assertEquals(-1, estimator.getSmoothedResponseTime("AT+INV"), 0);
+  }
+}
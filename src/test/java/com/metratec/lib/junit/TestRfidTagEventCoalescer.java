@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.inventory.Inventory;
+import com.metratec.lib.inventory.event.InventoryChangedEvent;
+import com.metratec.lib.inventory.event.InventoryListener;
+import com.metratec.lib.inventory.event.TagArrivedEvent;
+import com.metratec.lib.inventory.event.TagDepartedEvent;
+import com.metratec.lib.rfidreader.event.RfidTagEventCoalescer;
+import com.metratec.lib.rfidreader.event.RfidTagEventSetting;
+import com.metratec.lib.tag.UhfTag;
+
+/**
+ * Test the tag event setting of the inventory events
+ *
+ * @author mn
+ *
+ */
+public class TestRfidTagEventCoalescer {
+  private Logger logger = LoggerFactory.getLogger(TestRfidTagEventCoalescer.class);
+  private LinkedBlockingQueue<TagArrivedEvent<UhfTag>> arrivedTags = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<TagDepartedEvent<UhfTag>> departedTags = new LinkedBlockingQueue<>();
+  private LinkedBlockingQueue<InventoryChangedEvent<UhfTag>> inventoryChanges =
+      new LinkedBlockingQueue<>();
+  private InventoryListener<UhfTag> listener = new InventoryListener<UhfTag>() {
+
+    @Override
+    public void tagDeparted(TagDepartedEvent<UhfTag> tagDeparted) {
+      departedTags.add(tagDeparted);
+    }
+
+    @Override
+    public void tagArrive(TagArrivedEvent<UhfTag> tagArrived) {
+      arrivedTags.add(tagArrived);
+    }
+
+    @Override
+    public void inventoryChanged(InventoryChangedEvent<UhfTag> inventoryChanged) {
+      inventoryChanges.add(inventoryChanged);
+    }
+  };
+
+  private Inventory<UhfTag> createInventory(RfidTagEventCoalescer<UhfTag> coalescer) {
+    // sticky inventory, the tags are only removed by the test
+    return new Inventory<>("test", coalescer, 0);
+  }
+
+  private void read(Inventory<UhfTag> inventory, String... ids) {
+    UhfTag[] tags = new UhfTag[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      tags[i] = new UhfTag(ids[i]);
+    }
+    inventory.updateInventory(Arrays.asList(tags));
+  }
+
+  /**
+   * tags are reported after the minimum seen count, stray reads are suppressed
+   */
+  @Test
+  public void testMinSeenCount() {
+    logger.info("testMinSeenCount");
+    RfidTagEventCoalescer<UhfTag> coalescer =
+        new RfidTagEventCoalescer<>("test", new RfidTagEventSetting(0, 3, 0, 1000), listener);
+    Inventory<UhfTag> inventory = createInventory(coalescer);
+    read(inventory, "TAG1", "TAG2");
+    read(inventory, "TAG1");
+    Assert.assertTrue(arrivedTags.isEmpty());
+    read(inventory, "TAG1");
+    Assert.assertEquals(1, arrivedTags.size());
+    Assert.assertEquals("TAG1", arrivedTags.poll().getTag().getId());
+    Assert.assertEquals(1, inventoryChanges.poll().getNewTags().size());
+    read(inventory, "TAG1");
+    Assert.assertTrue(arrivedTags.isEmpty());
+
+    inventory.removeTag("TAG2");
+    Assert.assertTrue(departedTags.isEmpty());
+    Assert.assertEquals(1, coalescer.getSuppressedTags());
+    inventory.removeTag("TAG1");
+    Assert.assertEquals("TAG1", departedTags.poll().getTag().getId());
+    Assert.assertEquals(0, coalescer.size());
+    coalescer.close();
+  }
+
+  /**
+   * the seen count is reset after the reset interval
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testResetInterval() throws InterruptedException {
+    logger.info("testResetInterval");
+    RfidTagEventCoalescer<UhfTag> coalescer =
+        new RfidTagEventCoalescer<>("test", new RfidTagEventSetting(0, 2, 0, 100), listener);
+    Inventory<UhfTag> inventory = createInventory(coalescer);
+    read(inventory, "TAG1");
+    Thread.sleep(150);
+    read(inventory, "TAG1");
+    Assert.assertTrue(arrivedTags.isEmpty());
+    read(inventory, "TAG1");
+    Assert.assertEquals(1, arrivedTags.size());
+    coalescer.close();
+  }
+
+  /**
+   * a present tag is reported again after the reset interval up to the maximum seen count
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testMaxSeenCount() throws InterruptedException {
+    logger.info("testMaxSeenCount");
+    RfidTagEventCoalescer<UhfTag> coalescer =
+        new RfidTagEventCoalescer<>("test", new RfidTagEventSetting(0, 1, 3, 50), listener);
+    Inventory<UhfTag> inventory = createInventory(coalescer);
+    for (int i = 0; i < 6; i++) {
+      read(inventory, "TAG1");
+      read(inventory, "TAG1");
+      Thread.sleep(70);
+    }
+    Assert.assertEquals(3, arrivedTags.size());
+    coalescer.close();
+  }
+
+  /**
+   * the events are forwarded every flush interval, a tag found and lost within the interval is not
+   * forwarded
+   *
+   * @throws InterruptedException if interrupted
+   */
+  @Test
+  public void testFlushInterval() throws InterruptedException {
+    logger.info("testFlushInterval");
+    RfidTagEventCoalescer<UhfTag> coalescer =
+        new RfidTagEventCoalescer<>("test", new RfidTagEventSetting(200, 1, 0, 1000), listener);
+    Inventory<UhfTag> inventory = createInventory(coalescer);
+    read(inventory, "TAG1", "TAG2", "TAG3");
+    inventory.removeTag("TAG2");
+    Assert.assertTrue(arrivedTags.isEmpty());
+    InventoryChangedEvent<UhfTag> changed = inventoryChanges.poll(1, TimeUnit.SECONDS);
+    Assert.assertNotNull(changed);
+    Assert.assertEquals(2, changed.getNewTags().size());
+    Assert.assertEquals(0, changed.getLostTags().size());
+    Assert.assertEquals(2, arrivedTags.size());
+    Assert.assertEquals(2, coalescer.getCoalescedEvents());
+
+    inventory.removeTag("TAG1");
+    changed = inventoryChanges.poll(1, TimeUnit.SECONDS);
+    Assert.assertNotNull(changed);
+    Assert.assertEquals(1, changed.getLostTags().size());
+    Assert.assertEquals(1, changed.getTags().size());
+    Assert.assertEquals("TAG1", departedTags.poll().getTag().getId());
+    coalescer.close();
+  }
+}
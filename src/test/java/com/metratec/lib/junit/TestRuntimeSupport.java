@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.RuntimeSupport;
+
+/**
+ * Test the runtime dependent hot path operations
+ *
+ * @author mn
+ *
+ */
+public class TestRuntimeSupport {
+  private Logger logger = LoggerFactory.getLogger(TestRuntimeSupport.class);
+
+  /**
+   * bitwise CRC16-CCITT of the former reader implementation
+   */
+  private static int crc16Bitwise(byte[] data, int bitLength, int crc) {
+    for (int bit = 0; bit < bitLength; bit++) {
+      crc <<= 1;
+      if (0 != (((data[bit / 8] >>> (7 - bit % 8)) ^ (crc >>> 16)) & 0x01)) {
+        crc ^= 0x1021;
+      }
+      crc &= 0xFFFF;
+    }
+    return crc;
+  }
+
+  /**
+   * the hex strings are parsed and formatted
+   */
+  @Test
+  public void testHex() {
+    logger.info("testHex (Java " + RuntimeSupport.getVersion() + " implementation)");
+    Assert.assertArrayEquals(new byte[] {0x00, 0x7F, (byte) 0x80, (byte) 0xAB},
+        RuntimeSupport.parseHex("007F80ab"));
+    Assert.assertEquals("007F80AB", RuntimeSupport.formatHex(new byte[] {0x00, 0x7F, (byte) 0x80,
+        (byte) 0xAB}));
+    Assert.assertEquals(0, RuntimeSupport.parseHex("").length);
+    for (String invalid : new String[] {"ABC", "0G", "+1", "\uFF11\uFF12"}) {
+      try {
+        RuntimeSupport.parseHex(invalid);
+        Assert.fail("invalid hex string " + invalid);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  /**
+   * the crc is the CRC16-CCITT of the bitwise implementation
+   */
+  @Test
+  public void testCrc16() {
+    logger.info("testCrc16");
+    Assert.assertEquals(0x29B1,
+        RuntimeSupport.crc16("123456789".getBytes(StandardCharsets.US_ASCII), 72, 0xFFFF));
+    Random random = new Random(48);
+    for (int i = 0; i < 100; i++) {
+      byte[] data = new byte[1 + random.nextInt(32)];
+      random.nextBytes(data);
+      int bitLength = random.nextInt(data.length * 8 + 1);
+      Assert.assertEquals(crc16Bitwise(data, bitLength, 0xFFFF),
+          RuntimeSupport.crc16(data, bitLength, 0xFFFF));
+    }
+    try {
+      RuntimeSupport.crc16(new byte[2], 17, 0xFFFF);
+      Assert.fail("bit length out of range");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
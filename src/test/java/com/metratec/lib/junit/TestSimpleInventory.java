@@ -5,7 +5,9 @@ package com.metratec.lib.junit;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -151,6 +153,50 @@ public class TestSimpleInventory {
     Assert.assertEquals(count, inv.getRemovedTags().size());
   }
 
+  /**
+   * Update the inventory several times with 10000 tags, 10 percent of them are changed with every
+   * update
+   */
+  @Test
+  public void testUpdateTime() {
+    logger.info(this.getClass().getSimpleName() + " testUpdateTime");
+    SimpleInventory<UhfTag> inv = new SimpleInventory<>();
+    int count = 10000;
+    int rounds = 50;
+    long duration = 0;
+    for (int round = 0; round <= rounds; round++) {
+      List<UhfTag> tags = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        tags.add(new UhfTag("AAAA" + (i + (round % 2) * count / 10), System.currentTimeMillis()));
+      }
+      long start = System.nanoTime();
+      inv.updateInventory(tags);
+      if (0 < round) {
+        duration += System.nanoTime() - start;
+        Assert.assertEquals(count / 10, inv.getAddedTags().size());
+        Assert.assertEquals(count / 10, inv.getRemovedTags().size());
+      }
+      Assert.assertEquals(count, inv.getInventory().size());
+    }
+    logger.info("update with {} tags: {} us", count, duration / rounds / 1000);
+    Assert.assertEquals(rounds + 1,
+        getTag("AAAA" + count / 2, inv.getInventory()).getSeenCount().intValue());
+  }
+
+  /**
+   * tags with the same id must be equal and have the same hash code
+   */
+  @Test
+  public void testTagHashCode() {
+    UhfTag tagA = new UhfTag("AAAA", System.currentTimeMillis());
+    UhfTag tagA2 = new UhfTag("AAAA", System.currentTimeMillis());
+    Assert.assertEquals(tagA, tagA2);
+    Assert.assertEquals(tagA.hashCode(), tagA2.hashCode());
+    Set<UhfTag> tags = new HashSet<>(Arrays.asList(tagA, tagA2, new UhfTag("BBBB")));
+    Assert.assertEquals(2, tags.size());
+    Assert.assertTrue(tags.contains(new UhfTag("BBBB")));
+  }
+
   /**
    * check the correct incrementation of the seen count and the timestamps of the tags
    */
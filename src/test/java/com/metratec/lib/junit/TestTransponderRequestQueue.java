@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2026 by metraTec GmbH All rights reserved.
+ *******************************************************************************/
+package com.metratec.lib.junit;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.metratec.lib.rfidreader.RFIDErrorCodes;
+import com.metratec.lib.rfidreader.RFIDReaderException;
+import com.metratec.lib.rfidreader.TransponderRequestQueue;
+
+/**
+ * Test the assignment of the transponder responses of the ASCII readers
+ *
+ * @author mn
+ *
+ */
+public class TestTransponderRequestQueue {
+  private Logger logger = LoggerFactory.getLogger(TestTransponderRequestQueue.class);
+
+  private CompletableFuture<String> add(TransponderRequestQueue<String> queue, String name) {
+    return queue.add(response -> name + ": " + response);
+  }
+
+  /**
+   * back to back commands get their responses in send order
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testBackToBack() throws Exception {
+    logger.info("testBackToBack");
+    TransponderRequestQueue<String> queue = new TransponderRequestQueue<>();
+    CompletableFuture<String> inventory = add(queue, "INV");
+    CompletableFuture<String> read = add(queue, "RDT");
+    CompletableFuture<String> write = add(queue, "WDT");
+    Assert.assertTrue(queue.responseReceived("IVF 01"));
+    Assert.assertTrue(queue.responseReceived("IVF 02"));
+    Assert.assertTrue(queue.responseReceived("IVF 03"));
+    Assert.assertEquals("INV: IVF 01", inventory.get());
+    Assert.assertEquals("RDT: IVF 02", read.get());
+    Assert.assertEquals("WDT: IVF 03", write.get());
+    Assert.assertFalse(queue.responseReceived("IVF 04"));
+  }
+
+  /**
+   * the late response of an expired command is not assigned to the next command
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testLateResponse() throws Exception {
+    logger.info("testLateResponse");
+    TransponderRequestQueue<String> queue = new TransponderRequestQueue<>();
+    CompletableFuture<String> expired = add(queue, "INV");
+    queue.expire(expired);
+    Assert.assertTrue(queue.responseReceived("IVF 01"));
+    Assert.assertEquals(1, queue.getDiscardedResponses());
+    CompletableFuture<String> read = add(queue, "RDT");
+    Assert.assertTrue(queue.responseReceived("IVF 02"));
+    Assert.assertEquals("RDT: IVF 02", read.get());
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /**
+   * a command, which is never answered, does not shift the responses of the next commands
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testMissingResponse() throws Exception {
+    logger.info("testMissingResponse");
+    TransponderRequestQueue<String> queue = new TransponderRequestQueue<>();
+    queue.setGracePeriod(100);
+    queue.expire(add(queue, "INV1"));
+    long start = System.nanoTime();
+    CompletableFuture<String> second = add(queue, "INV2");
+    // the expired command is removed after its grace period
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90);
+    Assert.assertEquals(1, queue.size());
+    Assert.assertTrue(queue.responseReceived("IVF 02"));
+    Assert.assertEquals("INV2: IVF 02", second.get());
+    CompletableFuture<String> third = add(queue, "INV3");
+    Assert.assertTrue(queue.responseReceived("IVF 03"));
+    Assert.assertEquals("INV3: IVF 03", third.get());
+    // at most one expired command is kept
+    queue.setGracePeriod(0);
+    CompletableFuture<String> first = add(queue, "INV4");
+    CompletableFuture<String> last = add(queue, "INV5");
+    queue.expire(first);
+    queue.expire(last);
+    Assert.assertEquals(1, queue.size());
+  }
+
+  /**
+   * the next command waits for the late response of an expired command within the grace period
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testGracePeriod() throws Exception {
+    logger.info("testGracePeriod");
+    TransponderRequestQueue<String> queue = new TransponderRequestQueue<>();
+    queue.setGracePeriod(5000);
+    queue.expire(add(queue, "INV1"));
+    CompletableFuture.runAsync(() -> {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      queue.responseReceived("IVF 01");
+    });
+    long start = System.nanoTime();
+    CompletableFuture<String> second = add(queue, "INV2");
+    long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    Assert.assertTrue("waited " + waited, waited >= 90 && waited < 4000);
+    Assert.assertEquals(1, queue.getDiscardedResponses());
+    Assert.assertEquals(1, queue.size());
+    Assert.assertTrue(queue.responseReceived("IVF 02"));
+    Assert.assertEquals("INV2: IVF 02", second.get());
+    // no wait after the grace period
+    queue.setGracePeriod(50);
+    queue.expire(add(queue, "INV3"));
+    Thread.sleep(100);
+    start = System.nanoTime();
+    CompletableFuture<String> fourth = add(queue, "INV4");
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+    Assert.assertTrue(queue.responseReceived("IVF 04"));
+    Assert.assertEquals("INV4: IVF 04", fourth.get());
+  }
+
+  /**
+   * an error response completes the oldest command
+   *
+   * @throws Exception if failed
+   */
+  @Test
+  public void testErrorResponse() throws Exception {
+    logger.info("testErrorResponse");
+    TransponderRequestQueue<String> queue = new TransponderRequestQueue<>();
+    CompletableFuture<String> read = add(queue, "RDT");
+    CompletableFuture<String> inventory = add(queue, "INV");
+    Assert.assertTrue(queue.errorReceived(new RFIDReaderException(RFIDErrorCodes.UPA, "UPA")));
+    try {
+      read.get();
+      Assert.fail("no error");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof RFIDReaderException);
+    }
+    Assert.assertTrue(queue.responseReceived("IVF 01"));
+    Assert.assertEquals("INV: IVF 01", inventory.get());
+  }
+}